@@ -0,0 +1,96 @@
+package com.github.bananaj;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+/**
+ * Compares JMH JSON results with the checked-in baseline and fails when a
+ * benchmark regressed beyond the tolerance.
+ * <p>
+ * Usage: <code>BenchmarkComparison baseline.json results.json [timeTolerance] [allocTolerance]</code>
+ * <p>
+ * Times depend on the machine the baseline was recorded on and are only
+ * checked against a loose tolerance, 0.25 by default. Allocated bytes per
+ * operation, recorded with <code>-prof gc</code>, are largely independent of
+ * the machine and checked against 0.10 by default.
+ */
+public class BenchmarkComparison {
+
+	private static final String ALLOC_NORM = "\u00b7gc.alloc.rate.norm";
+
+	private static class Score {
+		final double time;
+		final String unit;
+		final double alloc;
+
+		Score(double time, String unit, double alloc) {
+			this.time = time;
+			this.unit = unit;
+			this.alloc = alloc;
+		}
+	}
+
+	public static void main(String[] args) throws IOException {
+		if (args.length < 2) {
+			System.err.println("Usage: BenchmarkComparison baseline.json results.json [timeTolerance] [allocTolerance]");
+			System.exit(2);
+		}
+		Map<String, Score> baseline = read(args[0]);
+		Map<String, Score> results = read(args[1]);
+		double timeTolerance = args.length > 2 ? Double.parseDouble(args[2]) : 0.25;
+		double allocTolerance = args.length > 3 ? Double.parseDouble(args[3]) : 0.10;
+
+		int regressions = 0;
+		System.out.println(String.format("%-70s %14s %14s %8s %12s %12s %8s", "Benchmark", "Baseline", "Result", "Time", "B/op base", "B/op", "Alloc"));
+		for (Map.Entry<String, Score> e : results.entrySet()) {
+			Score base = baseline.get(e.getKey());
+			Score result = e.getValue();
+			if (base == null) {
+				System.out.println(String.format("%-70s %14s %11.3f %-2s", e.getKey(), "-", result.time, result.unit));
+				continue;
+			}
+			double timeChange = base.time > 0 ? result.time / base.time - 1 : 0;
+			// allow a few bytes of noise on near allocation free benchmarks
+			double allocChange = base.alloc >= 0 && result.alloc >= 0 ? (result.alloc - base.alloc) / Math.max(base.alloc, 64) : 0;
+			boolean regressed = timeChange > timeTolerance || allocChange > allocTolerance;
+			if (regressed) {
+				regressions++;
+			}
+			System.out.println(String.format("%-70s %11.3f %-2s %11.3f %-2s %+7.1f%% %12.0f %12.0f %+7.1f%%%s",
+					e.getKey(), base.time, base.unit, result.time, result.unit, timeChange * 100,
+					base.alloc, result.alloc, allocChange * 100, regressed ? "  REGRESSION" : ""));
+		}
+		if (regressions > 0) {
+			System.out.println(regressions + " benchmark(s) regressed");
+			System.exit(1);
+		}
+	}
+
+	private static Map<String, Score> read(String file) throws IOException {
+		JSONArray runs = new JSONArray(new String(Files.readAllBytes(Paths.get(file)), StandardCharsets.UTF_8));
+		Map<String, Score> scores = new LinkedHashMap<String, Score>();
+		for (int i = 0; i < runs.length(); i++) {
+			JSONObject run = runs.getJSONObject(i);
+			String name = run.getString("benchmark");
+			JSONObject params = run.optJSONObject("params");
+			if (params != null) {
+				Map<String, Object> sorted = new TreeMap<String, Object>(params.toMap());
+				name += sorted.toString();
+			}
+			JSONObject primary = run.getJSONObject("primaryMetric");
+			JSONObject secondary = run.optJSONObject("secondaryMetrics");
+			JSONObject alloc = secondary != null ? secondary.optJSONObject(ALLOC_NORM) : null;
+			scores.put(name, new Score(primary.getDouble("score"), primary.getString("scoreUnit"),
+					alloc != null ? alloc.getDouble("score") : -1));
+		}
+		return scores;
+	}
+}
@@ -0,0 +1,100 @@
+package com.github.bananaj.model;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.model.list.member.MemberStatus;
+import com.github.bananaj.model.list.member.MemberTable;
+import com.github.bananaj.model.list.member.MemberTable.Selection;
+import com.github.bananaj.utils.MD5;
+
+/**
+ * Audience breakdown, subscribed members changed since a date with one
+ * interest and without another counted by language, computed over
+ * {@link Member} objects and over a {@link MemberTable} of the same members.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MemberTableBenchmark {
+
+	private static final String[] LANGUAGES = { "en", "fr", "de", "es", "" };
+	private static final String[] INTERESTS = { "1ecfb1d267", "7be4b38789", "0c9ec66eb9", "657d72c93a" };
+	private static final ZonedDateTime SINCE = ZonedDateTime.parse("2020-06-01T00:00:00Z");
+
+	@Param({ "100000" })
+	public int members;
+
+	private List<Member> list;
+	private MemberTable table;
+
+	@Setup
+	public void setup() {
+		Random random = new Random(42);
+		MemberStatus[] statuses = MemberStatus.values();
+		list = new ArrayList<Member>(members);
+		for (int i = 0; i < members; i++) {
+			String email = "member." + i + "@example.com";
+			JSONObject interests = new JSONObject();
+			for (String id : INTERESTS) {
+				interests.put(id, random.nextBoolean());
+			}
+			JSONObject json = new JSONObject()
+					.put("id", MD5.getMD5(email))
+					.put("email_address", email)
+					.put("email_type", "html")
+					.put("status", statuses[random.nextInt(statuses.length)].toString())
+					.put("interests", interests)
+					.put("stats", new JSONObject().put("avg_open_rate", random.nextDouble()).put("avg_click_rate", random.nextDouble()))
+					.put("member_rating", 1 + random.nextInt(5))
+					.put("last_changed", String.format("2020-%02d-15T10:00:00+00:00", 1 + random.nextInt(12)))
+					.put("language", LANGUAGES[random.nextInt(LANGUAGES.length)])
+					.put("vip", random.nextInt(10) == 0);
+			list.add(new Member(null, json));
+		}
+		table = MemberTable.of(list);
+	}
+
+	@Benchmark
+	public Map<String, Integer> breakdownMembers() {
+		Map<String, Integer> counts = new HashMap<String, Integer>();
+		for (Member m : list) {
+			if (m.getStatus() == MemberStatus.SUBSCRIBED && !m.getLastChanged().isBefore(SINCE)
+					&& m.getInterest().get(INTERESTS[0]) && !m.getInterest().get(INTERESTS[1])) {
+				counts.merge(m.getLanguage(), 1, Integer::sum);
+			}
+		}
+		return counts;
+	}
+
+	@Benchmark
+	public Map<String, Integer> breakdownTable() {
+		Selection selection = table.whereStatus(MemberStatus.SUBSCRIBED)
+				.and(table.whereLastChanged(SINCE, null))
+				.and(table.whereInterest(INTERESTS[0]))
+				.andNot(table.whereInterest(INTERESTS[1]));
+		return table.countByLanguage(selection);
+	}
+}
@@ -0,0 +1,88 @@
+package com.github.bananaj.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.model.list.member.MemberTag;
+
+/**
+ * Per element cost of {@link ModelIterator#buildRefObj}. The legacy benchmarks
+ * reproduce the former <code>Class.newInstance()</code> construction, the
+ * reflective benchmarks use the {@link Class} based constructors and the
+ * factory benchmarks use constructor references. {@link MemberTag} isolates
+ * construction overhead, {@link Member} shows it relative to a full parse.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelIteratorBenchmark {
+
+	private JSONObject tagJson;
+	private JSONObject memberJson;
+	private ModelIterator<MemberTag> reflectiveTags;
+	private ModelIterator<MemberTag> factoryTags;
+	private ModelIterator<Member> reflectiveMembers;
+	private ModelIterator<Member> factoryMembers;
+
+	@Setup
+	public void setup() {
+		tagJson = new JSONObject("{\"id\":48145,\"name\":\"TestTag\"}");
+		memberJson = new JSONObject(Payloads.member());
+		reflectiveTags = new ModelIterator<MemberTag>(MemberTag.class, null, null);
+		factoryTags = new ModelIterator<MemberTag>(MemberTag::new, null, null);
+		reflectiveMembers = new ModelIterator<Member>(Member.class, null, null);
+		factoryMembers = new ModelIterator<Member>(Member::new, null, null);
+	}
+
+	@Benchmark
+	public MemberTag legacyTag() throws Exception {
+		return legacyBuild(MemberTag.class, tagJson);
+	}
+
+	@Benchmark
+	public MemberTag reflectiveTag() {
+		return reflectiveTags.buildRefObj(null, tagJson);
+	}
+
+	@Benchmark
+	public MemberTag factoryTag() {
+		return factoryTags.buildRefObj(null, tagJson);
+	}
+
+	@Benchmark
+	public Member legacyMember() throws Exception {
+		return legacyBuild(Member.class, memberJson);
+	}
+
+	@Benchmark
+	public Member reflectiveMember() {
+		return reflectiveMembers.buildRefObj(null, memberJson);
+	}
+
+	@Benchmark
+	public Member factoryMember() {
+		return factoryMembers.buildRefObj(null, memberJson);
+	}
+
+	@SuppressWarnings("deprecation")
+	private static <T extends JSONParser> T legacyBuild(Class<T> typeClasse, JSONObject objDetail) throws Exception {
+		T ent = typeClasse.newInstance();
+		ent.parse(null, objDetail);
+		return ent;
+	}
+}
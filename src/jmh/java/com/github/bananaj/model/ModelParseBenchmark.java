@@ -0,0 +1,74 @@
+package com.github.bananaj.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.model.report.Report;
+
+/**
+ * Cost of parsing single entities. The <code>*FromJson</code> benchmarks
+ * start from a parsed {@link JSONObject} and measure the model's
+ * <code>parse</code> method alone, the <code>*FromText</code> benchmarks
+ * include tokenizing the response body as done for every request.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ModelParseBenchmark {
+
+	private String memberText;
+	private String reportText;
+	private JSONObject memberJson;
+	private JSONObject reportJson;
+
+	@Setup
+	public void setup() {
+		memberText = Payloads.member();
+		reportText = Payloads.report();
+		memberJson = new JSONObject(memberText);
+		reportJson = new JSONObject(reportText);
+	}
+
+	@Benchmark
+	public Member memberFromJson() {
+		Member member = new Member();
+		member.parse(null, memberJson);
+		return member;
+	}
+
+	@Benchmark
+	public Member memberFromText() {
+		Member member = new Member();
+		member.parse(null, new JSONObject(memberText));
+		return member;
+	}
+
+	@Benchmark
+	public Report reportFromJson() {
+		Report report = new Report();
+		report.parse(null, reportJson);
+		return report;
+	}
+
+	@Benchmark
+	public Report reportFromText() {
+		Report report = new Report();
+		report.parse(null, new JSONObject(reportText));
+		return report;
+	}
+}
@@ -0,0 +1,96 @@
+package com.github.bananaj.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import com.github.bananaj.codec.JSONObjectCodec;
+import com.github.bananaj.codec.StreamingCodec;
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.model.list.member.Member;
+
+/**
+ * Cost of handling one page of members in {@link ModelIterator}, from the
+ * response body to the queued entities, without the HTTP request. Divide by
+ * the page size for the per member cost. The codec benchmarks start from the
+ * response bytes, as pages are read from the connection. The
+ * <code>*Lazy</code> benchmarks parse with lazy decoding and read only the
+ * email address of each member.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PageBenchmark {
+
+	@Param({ "10", "1000" })
+	private int pageSize;
+
+	private String pageText;
+	private byte[] pageBytes;
+	private ModelIterator<Member> iterator;
+	private MailChimpConnection lazyConnection;
+
+	@Setup
+	public void setup() {
+		pageText = Payloads.memberPage(pageSize);
+		pageBytes = pageText.getBytes(StandardCharsets.UTF_8);
+		iterator = new ModelIterator<Member>(Member::new, null, null);
+		lazyConnection = new MailChimpConnection.Builder()
+				.usingApiKey("0123456789abcdef0123456789abcdef-us0")
+				.withLazyDecoding(true)
+				.build();
+	}
+
+	@TearDown
+	public void tearDown() throws IOException {
+		lazyConnection.close();
+	}
+
+	@Benchmark
+	public void memberPage(Blackhole bh) {
+		iterator.parseEntities(new JSONObject(pageText));
+		Member member;
+		while ((member = iterator.q.poll()) != null) {
+			bh.consume(member);
+		}
+	}
+
+	@Benchmark
+	public int memberPageJSONObjectCodec(Blackhole bh) throws IOException {
+		return JSONObjectCodec.INSTANCE.readPage(null, new ByteArrayInputStream(pageBytes), Member::new, bh::consume);
+	}
+
+	@Benchmark
+	public int memberPageStreamingCodec(Blackhole bh) throws IOException {
+		return StreamingCodec.INSTANCE.readPage(null, new ByteArrayInputStream(pageBytes), Member::new, bh::consume);
+	}
+
+	@Benchmark
+	public int memberPageJSONObjectCodecLazy(Blackhole bh) throws IOException {
+		return JSONObjectCodec.INSTANCE.readPage(lazyConnection, new ByteArrayInputStream(pageBytes), Member::new, m -> bh.consume(m.getEmailAddress()));
+	}
+
+	@Benchmark
+	public int memberPageStreamingCodecLazy(Blackhole bh) throws IOException {
+		return StreamingCodec.INSTANCE.readPage(lazyConnection, new ByteArrayInputStream(pageBytes), Member::new, m -> bh.consume(m.getEmailAddress()));
+	}
+}
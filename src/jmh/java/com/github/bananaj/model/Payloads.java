@@ -0,0 +1,75 @@
+package com.github.bananaj.model;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.github.bananaj.utils.MD5;
+
+/**
+ * Realistic API payloads shared by the benchmarks, captured from MailChimp
+ * responses with the personal data replaced.
+ */
+public final class Payloads {
+
+	private Payloads() {
+	}
+
+	/**
+	 * @return A list member as returned by <code>GET /lists/{list_id}/members/{subscriber_hash}</code>
+	 */
+	public static String member() {
+		return read("member.json");
+	}
+
+	/**
+	 * @return A campaign report as returned by <code>GET /reports/{campaign_id}</code>
+	 */
+	public static String report() {
+		return read("report.json");
+	}
+
+	/**
+	 * @param count Number of members on the page
+	 * @return A page of distinct members as returned by <code>GET /lists/{list_id}/members</code>
+	 */
+	public static String memberPage(int count) {
+		JSONArray members = new JSONArray();
+		for (int i = 0; i < count; i++) {
+			JSONObject member = new JSONObject(member());
+			String email = "member." + i + "@example.com";
+			member.put("id", MD5.getMD5(email));
+			member.put("email_address", email);
+			member.put("web_id", 123455501 + i);
+			member.getJSONObject("merge_fields").put("FNAME", "First" + i);
+			members.put(member);
+		}
+		return new JSONObject()
+				.put("members", members)
+				.put("list_id", "abc6de12f4")
+				.put("total_items", count * 10)
+				.toString();
+	}
+
+	private static String read(String name) {
+		try (InputStream in = Payloads.class.getResourceAsStream(name)) {
+			if (in == null) {
+				throw new IllegalStateException("Missing benchmark payload " + name);
+			}
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			byte[] buf = new byte[8192];
+			int n;
+			while ((n = in.read(buf)) >= 0) {
+				bytes.write(buf, 0, n);
+			}
+			return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
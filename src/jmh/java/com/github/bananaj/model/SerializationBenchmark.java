@@ -0,0 +1,67 @@
+package com.github.bananaj.model;
+
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bananaj.model.batch.BatchOperation;
+import com.github.bananaj.model.batch.OperationMethod;
+import com.github.bananaj.model.list.member.Member;
+
+/**
+ * Cost of building request bodies. The <code>*Text</code> benchmarks include
+ * writing the JSON text that is sent.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SerializationBenchmark {
+
+	private Member member;
+	private BatchOperation operation;
+
+	@Setup
+	public void setup() {
+		member = new Member();
+		member.parse(null, new JSONObject(Payloads.member()));
+		operation = new BatchOperation.Builder()
+				.method(OperationMethod.PUT)
+				.path("/lists/" + member.getListId() + "/members/" + member.getId())
+				.body(member.getJsonRepresentation().toString())
+				.operationId(member.getId())
+				.build();
+	}
+
+	@Benchmark
+	public JSONObject memberJson() {
+		return member.getJsonRepresentation();
+	}
+
+	@Benchmark
+	public String memberText() {
+		return member.getJsonRepresentation().toString();
+	}
+
+	@Benchmark
+	public JSONObject batchOperationJson() {
+		return operation.getJsonRepresentation();
+	}
+
+	@Benchmark
+	public String batchOperationText() {
+		return operation.getJsonRepresentation().toString();
+	}
+}
@@ -0,0 +1,58 @@
+package com.github.bananaj.utils;
+
+import java.time.ZonedDateTime;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.github.bananaj.model.list.member.Member;
+
+/**
+ * Per call cost of the helpers invoked for every member: date parsing,
+ * subscriber hashing and email validation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class UtilsBenchmark {
+
+	private String timestamp = "2019-01-09T16:19:25+00:00";
+	private String email = "Mr.Test@Example.com";
+	private String invalidEmail = "mr.test@example";
+
+	@Benchmark
+	public ZonedDateTime fromISO8601() {
+		return DateConverter.fromISO8601(timestamp);
+	}
+
+	@Benchmark
+	public String md5() {
+		return MD5.getMD5(email);
+	}
+
+	@Benchmark
+	public String subscriberHash() {
+		return Member.subscriberHash(email);
+	}
+
+	@Benchmark
+	public boolean validateEmail() {
+		return EmailValidator.getInstance().validate(email);
+	}
+
+	@Benchmark
+	public boolean validateInvalidEmail() {
+		return EmailValidator.getInstance().validate(invalidEmail);
+	}
+}
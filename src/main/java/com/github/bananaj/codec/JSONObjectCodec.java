@@ -0,0 +1,54 @@
+package com.github.bananaj.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.jfr.JfrEvents;
+import com.github.bananaj.model.JSONParser;
+
+/**
+ * Decodes pages into an org.json {@link JSONObject} tree and parses each
+ * model from its element of the tree.
+ */
+public final class JSONObjectCodec implements ModelCodec {
+
+	public static final JSONObjectCodec INSTANCE = new JSONObjectCodec();
+
+	private JSONObjectCodec() {
+	}
+
+	@Override
+	public <T extends JSONParser> int readPage(MailChimpConnection connection, InputStream in, Supplier<T> factory, Consumer<? super T> action) throws IOException {
+		JSONObject page;
+		try {
+			page = new JSONObject(new JSONTokener(new InputStreamReader(in, StandardCharsets.UTF_8)));
+		} catch (JSONException e) {
+			throw new IOException(e.getMessage(), e);
+		}
+		for (String key : page.keySet()) {
+			if (key.equals("_links")) { continue; }
+			Object value = page.get(key);
+			if (value instanceof JSONArray) {
+				JSONArray array = (JSONArray) value;
+				for (int i = 0; i < array.length(); i++) {
+					T model = factory.get();
+					JfrEvents.parse(model, connection, array.getJSONObject(i));
+					action.accept(model);
+				}
+				break;
+			}
+		}
+		return page.has("total_items") ? page.getInt("total_items") : -1;
+	}
+
+}
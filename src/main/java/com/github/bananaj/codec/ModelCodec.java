@@ -0,0 +1,36 @@
+package com.github.bananaj.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.model.JSONParser;
+
+/**
+ * Decodes pages of paginated API responses into model objects. A page is a
+ * JSON object holding the entity array, e.g. <code>members</code>, alongside
+ * <code>total_items</code> and <code>_links</code>.
+ * <p>
+ * {@link JSONObjectCodec}, the default, builds an org.json tree of the page
+ * before parsing the models from it. {@link StreamingCodec} binds models
+ * directly from parser tokens as the response arrives. Select the codec with
+ * {@link MailChimpConnection#setModelCodec(ModelCodec)}.
+ */
+public interface ModelCodec {
+
+	/**
+	 * Decode a page, building a model for each element of the entity array.
+	 * The entity array is the first array at the root of the page other than
+	 * <code>_links</code>.
+	 * @param connection
+	 * @param in UTF-8 encoded JSON page
+	 * @param factory Supplies a new, unpopulated model for each element
+	 * @param action Receives each model in page order
+	 * @return total_items reported by the page or -1 when not reported
+	 * @throws IOException
+	 */
+	public <T extends JSONParser> int readPage(MailChimpConnection connection, InputStream in, Supplier<T> factory, Consumer<? super T> action) throws IOException;
+
+}
@@ -0,0 +1,75 @@
+package com.github.bananaj.codec;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.jfr.JfrEvents;
+import com.github.bananaj.model.JSONParser;
+import com.github.bananaj.model.JSONStreamParser;
+import com.github.bananaj.utils.JsonTokens;
+
+/**
+ * Decodes pages with a Jackson streaming {@link JsonParser} as the response
+ * arrives. Models implementing {@link JSONStreamParser} are bound directly
+ * from the parser tokens, no intermediate tree is built. Other models are
+ * parsed from a {@link org.json.JSONObject} built for their element only, so
+ * at most one element is held as a tree at a time.
+ */
+public final class StreamingCodec implements ModelCodec {
+
+	public static final StreamingCodec INSTANCE = new StreamingCodec();
+
+	private final JsonFactory factory = new JsonFactory();	// thread safe once configured
+
+	private StreamingCodec() {
+	}
+
+	@Override
+	public <T extends JSONParser> int readPage(MailChimpConnection connection, InputStream in, Supplier<T> factory, Consumer<? super T> action) throws IOException {
+		int totalItems = -1;
+		boolean found = false;
+		try (JsonParser parser = this.factory.createParser(in)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new JsonParseException(parser, "Expected a JSON object");
+			}
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				JsonToken token = parser.nextToken();
+				if ("total_items".equals(name)) {
+					Integer total = JsonTokens.getInt(parser);
+					totalItems = total != null ? total : -1;
+				} else if (token == JsonToken.START_ARRAY && !found && !"_links".equals(name)) {
+					found = true;
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						action.accept(readModel(connection, parser, factory));
+					}
+				} else {
+					parser.skipChildren();
+				}
+			}
+		}
+		return totalItems;
+	}
+
+	private <T extends JSONParser> T readModel(MailChimpConnection connection, JsonParser parser, Supplier<T> factory) throws IOException {
+		if (parser.currentToken() != JsonToken.START_OBJECT) {
+			throw new JsonParseException(parser, "Expected a JSON object, found " + parser.currentToken());
+		}
+		T model = factory.get();
+		if (model instanceof JSONStreamParser) {
+			JfrEvents.parse((JSONStreamParser) model, connection, parser);
+		} else {
+			JfrEvents.parse(model, connection, JsonTokens.getJSONObject(parser));
+		}
+		return model;
+	}
+
+}
@@ -0,0 +1,186 @@
+package com.github.bananaj.connection;
+
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+
+import org.apache.http.entity.AbstractHttpEntity;
+import org.apache.http.entity.ContentType;
+
+import com.github.bananaj.model.batch.BatchOperation;
+
+/**
+ * Request body of a batch request written directly to the connection. Each
+ * operation is serialized as it is taken from the iterator so the operations
+ * and the request body are never held in memory as a whole. The body is sent
+ * using chunked transfer encoding. A body created from an iterator can only be
+ * written once, one created from an {@link Iterable} or from operations
+ * already serialized with {@link #serialized(List)} is repeatable.
+ */
+class BatchOperationsEntity extends AbstractHttpEntity {
+
+	private static final int BUFFER_SIZE = 8192;
+	private static final String PREFIX = "{\"operations\":[";
+	private static final String SUFFIX = "]}";
+
+	private final Iterable<BatchOperation> source;	// null when not repeatable
+	private final Iterator<BatchOperation> operations;
+	private final List<String> serialized;	// JSON of each operation, when measured beforehand
+	private boolean consumed = false;
+	private int operationCount = 0;
+	private long bytesWritten = 0;
+
+	BatchOperationsEntity(Iterator<BatchOperation> operations) {
+		this.source = null;
+		this.operations = operations;
+		this.serialized = null;
+		setContentType(ContentType.APPLICATION_JSON.toString());
+		setChunked(true);
+	}
+
+	BatchOperationsEntity(Iterable<BatchOperation> operations) {
+		this.source = operations;
+		this.operations = null;
+		this.serialized = null;
+		setContentType(ContentType.APPLICATION_JSON.toString());
+		setChunked(true);
+	}
+
+	private BatchOperationsEntity(List<String> serialized) {
+		this.source = null;
+		this.operations = null;
+		this.serialized = serialized;
+		setContentType(ContentType.APPLICATION_JSON.toString());
+		setChunked(true);
+	}
+
+	/**
+	 * Body of operations already serialized with {@link #toJson(BatchOperation)}
+	 * @param serialized JSON of each operation
+	 */
+	static BatchOperationsEntity serialized(List<String> serialized) {
+		return new BatchOperationsEntity(serialized);
+	}
+
+	/**
+	 * @return The JSON of an operation as written to the request body
+	 */
+	static String toJson(BatchOperation operation) {
+		return operation.getJsonRepresentation().toString();
+	}
+
+	/**
+	 * @return Number of bytes added to the request body by an operation with
+	 *         the given JSON, including the separator
+	 */
+	static long sizeOf(String json) {
+		long size = 1;	// separator
+		for (int i = 0; i < json.length(); i++) {
+			char c = json.charAt(i);
+			if (c < 0x80) {
+				size++;
+			} else if (c < 0x800) {
+				size += 2;
+			} else if (Character.isHighSurrogate(c) && i + 1 < json.length() && Character.isLowSurrogate(json.charAt(i + 1))) {
+				size += 4;
+				i++;
+			} else {
+				size += 3;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return Number of bytes of the request body besides the operations
+	 */
+	static long envelopeSize() {
+		return PREFIX.length() + SUFFIX.length();
+	}
+
+	@Override
+	public boolean isRepeatable() {
+		return source != null || serialized != null;
+	}
+
+	@Override
+	public long getContentLength() {
+		return -1;
+	}
+
+	@Override
+	public InputStream getContent() throws IOException {
+		throw new UnsupportedOperationException("Batch request body can only be written to a stream");
+	}
+
+	@Override
+	public void writeTo(OutputStream outstream) throws IOException {
+		if (consumed && !isRepeatable()) {
+			throw new IllegalStateException("Batch request body has already been written");
+		}
+		consumed = true;
+		operationCount = 0;
+		bytesWritten = 0;
+		OutputStream counting = new FilterOutputStream(outstream) {
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				bytesWritten += len;
+			}
+
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				bytesWritten++;
+			}
+		};
+		Writer writer = new BufferedWriter(new OutputStreamWriter(counting, StandardCharsets.UTF_8), BUFFER_SIZE);
+		writer.write(PREFIX);
+		if (serialized != null) {
+			for (String json : serialized) {
+				if (operationCount > 0) {
+					writer.write(',');
+				}
+				writer.write(json);
+				operationCount++;
+			}
+		} else {
+			Iterator<BatchOperation> operations = source != null ? source.iterator() : this.operations;
+			while (operations.hasNext()) {
+				if (operationCount > 0) {
+					writer.write(',');
+				}
+				operations.next().getJsonRepresentation().write(writer);
+				operationCount++;
+			}
+		}
+		writer.write(SUFFIX);
+		writer.flush();	// the connection stream is closed by the client
+	}
+
+	@Override
+	public boolean isStreaming() {
+		return !isRepeatable() && !consumed;
+	}
+
+	/**
+	 * @return Number of operations written
+	 */
+	int getOperationCount() {
+		return operationCount;
+	}
+
+	/**
+	 * @return Number of bytes written
+	 */
+	long getBytesWritten() {
+		return bytesWritten;
+	}
+}
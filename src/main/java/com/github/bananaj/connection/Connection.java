@@ -1,16 +1,36 @@
 package com.github.bananaj.connection;
 
 import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.nio.charset.UnsupportedCharsetException;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
+import org.apache.http.Header;
 import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpResponse;
+import org.apache.http.ParseException;
+import org.apache.http.client.config.RequestConfig;
 import org.apache.http.client.entity.EntityBuilder;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpDelete;
@@ -18,223 +38,1081 @@ import org.apache.http.client.methods.HttpGet;
 import org.apache.http.client.methods.HttpPatch;
 import org.apache.http.client.methods.HttpPost;
 import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.methods.HttpRequestBase;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.entity.ContentType;
+import org.apache.http.conn.ConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.DefaultConnectionKeepAliveStrategy;
 import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.util.EntityUtils;
 import org.apache.log4j.Logger;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import com.github.bananaj.jfr.JfrEvents;
 
 /**
- * Low level HTTP/HTTPS protocol handler
+ * Low level HTTP/HTTPS protocol handler. A single pooled HTTP client is shared
+ * by all requests made through a connection. Each blocking <code>do_*</code>
+ * verb has a <code>do_*Async</code> counterpart executed on a non-blocking
+ * client that returns a {@link CompletableFuture}. Call {@link #close()} to
+ * release pooled connections when the connection is no longer needed.
+ * <p>
+ * The number of requests in flight is limited, by default to the 10
+ * simultaneous connections MailChimp allows per account. Requests rejected
+ * with 429 Too Many Requests or 503 Service Unavailable, and idempotent
+ * requests failing with 502 Bad Gateway or 504 Gateway Timeout, are retried
+ * with exponential backoff and jitter, honoring any Retry-After header.
+ * <p>
+ * Listeners added with {@link #addListener(ConnectionListener)} receive a
+ * {@link RequestEvent} with the timings and sizes of every request.
  */
-public class Connection {
+public class Connection implements Closeable {
 
 	final static Logger logger = Logger.getLogger(Connection.class);
-	
+
+	public static final int DEFAULT_MAX_CONNECTIONS = 20;
+	public static final int DEFAULT_MAX_CONNECTIONS_PER_ROUTE = 10;	// MailChimp allows 10 simultaneous connections per account
+	public static final long DEFAULT_KEEP_ALIVE_MILLIS = 30000;
+	public static final long DEFAULT_IDLE_TIMEOUT_MILLIS = 60000;
+	public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 10;	// MailChimp allows 10 simultaneous connections per account
+	public static final int DEFAULT_MAX_RETRIES = 3;
+	public static final long DEFAULT_RETRY_BASE_DELAY_MILLIS = 1000;
+	public static final long DEFAULT_RETRY_MAX_DELAY_MILLIS = 60000;
+	public static final boolean DEFAULT_CONTENT_COMPRESSION = true;
+	private static final int BUFFER_SIZE = 8192;
+
+	private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+	private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+	private long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+	private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+	private long connectTimeoutMillis = -1;
+	private long socketTimeoutMillis = -1;
+	private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+	private volatile int maxRetries = DEFAULT_MAX_RETRIES;
+	private volatile long retryBaseDelayMillis = DEFAULT_RETRY_BASE_DELAY_MILLIS;
+	private volatile long retryMaxDelayMillis = DEFAULT_RETRY_MAX_DELAY_MILLIS;
+	private boolean contentCompression = DEFAULT_CONTENT_COMPRESSION;
+	private volatile RequestLimiter limiter;
+	private volatile ContentCompression compression;
+	private volatile CloseableHttpClient httpclient;
+	private volatile CloseableHttpAsyncClient asyncclient;
+	private volatile boolean closed = false;
+	private final List<ConnectionListener> listeners = new CopyOnWriteArrayList<ConnectionListener>();
+
     public String do_Get(URL url, String authorization) throws IOException, URISyntaxException {
     	log("GET", url, null);
-        CloseableHttpClient httpclient;
+        HttpGet httpget = new HttpGet(url.toURI());
+        httpget.addHeader("Authorization", authorization);
+        return execute(httpget, url, "GET " + url.toExternalForm() + " failed");
+    }
 
+    /**
+     * GET a JSON object. The response is parsed as it is read from the
+     * connection so the body is never held in memory as a String.
+     * @param url
+     * @param authorization
+     * @return The parsed response or null when the response has no body
+     * @throws IOException
+     * @throws URISyntaxException
+     */
+    public JSONObject do_GetJSON(URL url, String authorization) throws IOException, URISyntaxException {
+    	log("GET", url, null);
         HttpGet httpget = new HttpGet(url.toURI());
         httpget.addHeader("Authorization", authorization);
-        httpclient = HttpClients.createDefault();
-        
-        /*// TODO: Add option to ignore certificate issues for testing (i.e. like curl -k) 
-        try {
-        	// ignore certificate issues
-        	httpclient = HttpClients
-        			.custom()
-        			.setSSLContext(new SSLContextBuilder().loadTrustMaterial(null, TrustAllStrategy.INSTANCE).build())
-        			.setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE)
-        			.build();
-        } catch (Exception e) {
-        	logger.error("GET " + url.toString() + " : " + e.getMessage(), e);
-        	System.exit(1);
-        	httpclient = null;
-        }
-        */
-        
-        try (CloseableHttpResponse response = httpclient.execute(httpget)) {
+        return execute(httpget, url, "GET " + url.toExternalForm() + " failed", this::createJSONFromEntity);
+    }
 
-            int responseCode = response.getStatusLine().getStatusCode();
-            logger.debug(response.getStatusLine().getReasonPhrase().toString());
-            if (responseCode < 200 || responseCode > 299) {
-                throw buildTransportError("GET", url.toExternalForm(), response);
-            }
+    /**
+     * GET a response and read the body as it arrives from the connection,
+     * e.g. with a streaming JSON parser. The stream passed to the reader is
+     * closed once the reader returns.
+     * @param url
+     * @param authorization
+     * @param reader Reads the response body
+     * @return The value returned by the reader or null when the response has no body
+     * @throws IOException
+     * @throws URISyntaxException
+     */
+    public <T> T do_Get(URL url, String authorization, ResponseBodyReader<T> reader) throws IOException, URISyntaxException {
+    	log("GET", url, null);
+        HttpGet httpget = new HttpGet(url.toURI());
+        httpget.addHeader("Authorization", authorization);
+        return execute(httpget, url, "GET " + url.toExternalForm() + " failed", entity -> readEntity(entity, reader));
+    }
 
-            return createResponseFromEntity(response.getEntity());
-        } catch (IOException e) {
-        	logger.error("GET " + url.toString() + " : " + e.getMessage(), e);
-        	throw e;
-        } catch (Exception e) {
-        	logger.error("GET " + url.toString() + " : " + e.getMessage(), e);
-            throw new IOException("GET " + url.toExternalForm() + " failed", e);
-        }
+    /**
+     * GET a response body as a stream for reading large downloads without
+     * holding them in memory. The stream must be closed, closing it before the
+     * end aborts the download. The request is not subject to the request
+     * limit or retries, it is intended for downloads from other hosts such as
+     * batch response archives.
+     * @param url
+     * @param authorization Authorization header value or null to send none
+     * @return Stream of the response body
+     * @throws IOException
+     * @throws URISyntaxException
+     */
+    public InputStream do_GetStream(URL url, String authorization) throws IOException, URISyntaxException {
+    	log("GET", url, null);
+    	HttpGet httpget = new HttpGet(url.toURI());
+    	if (authorization != null) {
+    		httpget.addHeader("Authorization", authorization);
+    	}
+    	final RequestMetrics metrics = new RequestMetrics("GET", url, false);
+    	final CloseableHttpResponse response;
+    	try {
+    		response = getHttpClient().execute(httpget, context(metrics));
+    	} catch (IOException | RuntimeException e) {
+    		completed(metrics, e);
+    		throw e;
+    	}
+    	try {
+    		getCompression().decode(response, metrics);
+    		int responseCode = response.getStatusLine().getStatusCode();
+    		metrics.statusCode = responseCode;
+    		logger.debug(response.getStatusLine().getReasonPhrase());
+    		if (responseCode < 200 || responseCode > 299) {
+    			throw buildTransportError("GET", url.toExternalForm(), response);
+    		}
+    		HttpEntity entity = response.getEntity();
+    		InputStream content = entity != null ? entity.getContent() : new ByteArrayInputStream(new byte[0]);
+    		final long bodyStart = System.nanoTime();
+    		return new FilterInputStream(content) {
+    			private boolean done = false;
+
+    			@Override
+    			public void close() throws IOException {
+    				// closing the response releases the connection without reading the remaining content
+    				try {
+    					response.close();
+    				} finally {
+    					if (!done) {
+    						done = true;
+    						metrics.bodyNanos = System.nanoTime() - bodyStart;
+    						completed(metrics, null);
+    					}
+    				}
+    			}
+    		};
+    	} catch (IOException | RuntimeException e) {
+    		logger.error("GET " + url.toString() + " : " + e.getMessage(), e);
+    		response.close();
+    		completed(metrics, e);
+    		throw e;
+    	}
     }
 
     public String do_Post(URL url, String post_string, String authorization) throws IOException, URISyntaxException {
     	log("POST", url, post_string);
-        CloseableHttpClient httpclient;
-
         HttpPost httppost = new HttpPost(url.toURI());
         httppost.addHeader("Content-Type", "application/json; charset=UTF-8");
         httppost.addHeader("Authorization", authorization);
         httppost.setEntity(EntityBuilder.create().setBinary(post_string.getBytes(StandardCharsets.UTF_8)).build());
-
-        httpclient = HttpClients.createDefault();
-        try (CloseableHttpResponse response = httpclient.execute(httppost)) {
-
-            int responseCode = response.getStatusLine().getStatusCode();
-            logger.debug(response.getStatusLine().getReasonPhrase());
-            if (responseCode < 200 || responseCode > 299) {
-                throw buildTransportError("POST", url.toExternalForm(), response);
-            }
-
-
-            return createResponseFromEntity(response.getEntity());
-        } catch (IOException e) {
-        	logger.error("POST " + url.toString() + " : " + e.getMessage(), e);
-        	throw e;
-        } catch (Exception e) {
-        	logger.error("POST " + url.toString() + " : " + e.getMessage(), e);
-            throw new IOException("POST " + post_string.length() + " bytes to " + url.toExternalForm() + " failed", e);
-        }
+        return execute(httppost, url, "POST " + post_string.length() + " bytes to " + url.toExternalForm() + " failed");
     }
 
     public String do_Patch(URL url, String patch_string, String authorization) throws IOException, URISyntaxException {
     	log("PATCH", url, patch_string);
-        CloseableHttpClient httpclient;
-
         HttpPatch httppatch = new HttpPatch(url.toURI());
         httppatch.addHeader("Content-Type", "application/json; charset=UTF-8");
         httppatch.addHeader("Authorization", authorization);
         httppatch.setEntity(EntityBuilder.create().setBinary(patch_string.getBytes(StandardCharsets.UTF_8)).build());
-
-        httpclient = HttpClients.createDefault();
-        try (CloseableHttpResponse response = httpclient.execute(httppatch)) {
-
-            int responseCode = response.getStatusLine().getStatusCode();
-            logger.debug(response.getStatusLine().getReasonPhrase());
-            if (responseCode < 200 || responseCode > 299) {
-                throw buildTransportError("PATCH", url.toExternalForm(), response);
-            }
-
-            return createResponseFromEntity(response.getEntity());
-        } catch (IOException e) {
-        	logger.error("PATCH " + url.toString() + " : " + e.getMessage(), e);
-        	throw e;
-        } catch (Exception e) {
-        	logger.error("PATCH " + url.toString() + " : " + e.getMessage(), e);
-            throw new IOException("PATCH " + patch_string.length() + " bytes to " + url.toExternalForm() + " failed", e);
-        }
+        return execute(httppatch, url, "PATCH " + patch_string.length() + " bytes to " + url.toExternalForm() + " failed");
     }
 
-
     public String do_Put(URL url, String put_string, String authorization) throws IOException, URISyntaxException {
     	log("PUT", url, put_string);
-        CloseableHttpClient httpclient;
-
         HttpPut httpput = new HttpPut(url.toURI());
         httpput.addHeader("Content-Type", "application/json; charset=UTF-8");
         httpput.addHeader("Authorization", authorization);
         httpput.setEntity(EntityBuilder.create().setBinary(put_string.getBytes(StandardCharsets.UTF_8)).build());
+        return execute(httpput, url, "PUT " + put_string.length() + " bytes to " + url.toExternalForm() + " failed");
+    }
 
-        httpclient = HttpClients.createDefault();
-        try (CloseableHttpResponse response = httpclient.execute(httpput)) {
-
-
-            int responseCode = response.getStatusLine().getStatusCode();
-            logger.debug(response.getStatusLine().getReasonPhrase());
-            if (responseCode < 200 || responseCode > 299) {
-                throw buildTransportError("PUT", url.toExternalForm(), response);
-            }
-
-            return createResponseFromEntity(response.getEntity());
-        } catch (IOException e) {
-        	logger.error("PUT " + url.toString() + " : " + e.getMessage(), e);
-        	throw e;
-        } catch (Exception e) {
-        	logger.error("PUT " + url.toString() + " : " + e.getMessage(), e);
-            throw new IOException("PUT " + put_string.length() + " bytes to " + url.toExternalForm() + " failed", e);
-        }
+    /**
+     * POST a request body supplied by an entity. Used for bodies that are
+     * written as they are sent rather than built in memory. Requests with
+     * an entity that is not repeatable are not retried.
+     * @param url
+     * @param entity
+     * @param authorization
+     * @return The response body
+     * @throws IOException
+     * @throws URISyntaxException
+     */
+    public String do_Post(URL url, HttpEntity entity, String authorization) throws IOException, URISyntaxException {
+    	log("POST", url, null);
+        HttpPost httppost = new HttpPost(url.toURI());
+        httppost.addHeader("Content-Type", "application/json; charset=UTF-8");
+        httppost.addHeader("Authorization", authorization);
+        httppost.setEntity(entity);
+        return execute(httppost, url, "POST " + url.toExternalForm() + " failed");
     }
 
     public String do_Post(URL url, String authorization) throws IOException, URISyntaxException {
     	log("POST", url, null);
-        CloseableHttpClient httpclient = null;
-
         HttpPost httppost = new HttpPost(url.toURI());
         httppost.addHeader("Content-Type", "application/json; charset=UTF-8");
         httppost.addHeader("Authorization", authorization);
-        httpclient = HttpClients.createDefault();
-
-        try (CloseableHttpResponse response = httpclient.execute(httppost)) {
-
-            int responseCode = response.getStatusLine().getStatusCode();
-            logger.debug(response.getStatusLine().getReasonPhrase());
-            if (responseCode < 200 || responseCode > 299) {
-                throw buildTransportError("POST", url.toExternalForm(), response);
-            }
-
-            return createResponseFromEntity(response.getEntity());
-        } catch (IOException e) {
-        	logger.error("POST " + url.toString() + " : " + e.getMessage(), e);
-        	throw e;
-        } catch (Exception e) {
-        	logger.error("POST " + url.toString() + " : " + e.getMessage(), e);
-            throw new IOException("POST " + url.toExternalForm() + " failed", e);
-        }
+        return execute(httppost, url, "POST " + url.toExternalForm() + " failed");
     }
 
     public String do_Delete(URL url, String authorization) throws IOException, URISyntaxException {
     	log("DELETE", url, null);
-        CloseableHttpClient httpclient;
-
         HttpDelete httpdelete = new HttpDelete(url.toURI());
         httpdelete.addHeader("Content-Type", "application/json; charset=UTF-8");
         httpdelete.addHeader("Authorization", authorization);
+        return execute(httpdelete, url, "DELETE " + url.toExternalForm() + " failed");
+    }
+
+    /**
+     * Asynchronous GET. The request is performed on a non-blocking HTTP client
+     * and the returned future completes with the response body. Cancelling the
+     * future aborts the request.
+     * @param url
+     * @param authorization
+     * @return Future response body
+     */
+    public CompletableFuture<String> do_GetAsync(URL url, String authorization) {
+    	log("GET", url, null);
+    	try {
+    		HttpGet httpget = new HttpGet(url.toURI());
+    		httpget.addHeader("Authorization", authorization);
+    		return executeAsync(httpget, url, "GET " + url.toExternalForm() + " failed");
+    	} catch (URISyntaxException e) {
+    		return failedFuture(e);
+    	}
+    }
 
-        httpclient = HttpClients.createDefault();
-        try (CloseableHttpResponse response = httpclient.execute(httpdelete)) {
+    /**
+     * Asynchronous POST. See {@link #do_GetAsync(URL, String)}.
+     * @param url
+     * @param post_string
+     * @param authorization
+     * @return Future response body
+     */
+    public CompletableFuture<String> do_PostAsync(URL url, String post_string, String authorization) {
+    	log("POST", url, post_string);
+    	try {
+    		HttpPost httppost = new HttpPost(url.toURI());
+    		httppost.addHeader("Content-Type", "application/json; charset=UTF-8");
+    		httppost.addHeader("Authorization", authorization);
+    		if (post_string != null) {
+    			httppost.setEntity(EntityBuilder.create().setBinary(post_string.getBytes(StandardCharsets.UTF_8)).build());
+    			return executeAsync(httppost, url, "POST " + post_string.length() + " bytes to " + url.toExternalForm() + " failed");
+    		}
+    		return executeAsync(httppost, url, "POST " + url.toExternalForm() + " failed");
+    	} catch (URISyntaxException e) {
+    		return failedFuture(e);
+    	}
+    }
 
-            int responseCode = response.getStatusLine().getStatusCode();
-            logger.debug(response.getStatusLine().getReasonPhrase());
-            if (responseCode < 200 || responseCode > 299) {
-                throw buildTransportError("DELETE", url.toExternalForm(), response);
-            }
+    /**
+     * Asynchronous PATCH. See {@link #do_GetAsync(URL, String)}.
+     * @param url
+     * @param patch_string
+     * @param authorization
+     * @return Future response body
+     */
+    public CompletableFuture<String> do_PatchAsync(URL url, String patch_string, String authorization) {
+    	log("PATCH", url, patch_string);
+    	try {
+    		HttpPatch httppatch = new HttpPatch(url.toURI());
+    		httppatch.addHeader("Content-Type", "application/json; charset=UTF-8");
+    		httppatch.addHeader("Authorization", authorization);
+    		httppatch.setEntity(EntityBuilder.create().setBinary(patch_string.getBytes(StandardCharsets.UTF_8)).build());
+    		return executeAsync(httppatch, url, "PATCH " + patch_string.length() + " bytes to " + url.toExternalForm() + " failed");
+    	} catch (URISyntaxException e) {
+    		return failedFuture(e);
+    	}
+    }
 
-            return createResponseFromEntity(response.getEntity());
-        } catch (IOException e) {
-        	logger.error("DELETE " + url.toString() + " : " + e.getMessage(), e);
-        	throw e;
-        } catch (Exception e) {
-        	logger.error("DELETE " + url.toString() + " : " + e.getMessage(), e);
-            throw new IOException("DELETE " + url.toExternalForm() + " failed", e);
-        }
+    /**
+     * Asynchronous PUT. See {@link #do_GetAsync(URL, String)}.
+     * @param url
+     * @param put_string
+     * @param authorization
+     * @return Future response body
+     */
+    public CompletableFuture<String> do_PutAsync(URL url, String put_string, String authorization) {
+    	log("PUT", url, put_string);
+    	try {
+    		HttpPut httpput = new HttpPut(url.toURI());
+    		httpput.addHeader("Content-Type", "application/json; charset=UTF-8");
+    		httpput.addHeader("Authorization", authorization);
+    		httpput.setEntity(EntityBuilder.create().setBinary(put_string.getBytes(StandardCharsets.UTF_8)).build());
+    		return executeAsync(httpput, url, "PUT " + put_string.length() + " bytes to " + url.toExternalForm() + " failed");
+    	} catch (URISyntaxException e) {
+    		return failedFuture(e);
+    	}
+    }
+
+    /**
+     * Asynchronous DELETE. See {@link #do_GetAsync(URL, String)}.
+     * @param url
+     * @param authorization
+     * @return Future response body
+     */
+    public CompletableFuture<String> do_DeleteAsync(URL url, String authorization) {
+    	log("DELETE", url, null);
+    	try {
+    		HttpDelete httpdelete = new HttpDelete(url.toURI());
+    		httpdelete.addHeader("Content-Type", "application/json; charset=UTF-8");
+    		httpdelete.addHeader("Authorization", authorization);
+    		return executeAsync(httpdelete, url, "DELETE " + url.toExternalForm() + " failed");
+    	} catch (URISyntaxException e) {
+    		return failedFuture(e);
+    	}
+    }
+
+    /**
+     * Execute a request using the shared HTTP client and return the response body.
+     * @param request
+     * @param url
+     * @param failureMessage Message used when wrapping unexpected exceptions
+     * @return the response body
+     * @throws IOException
+     */
+    private String execute(HttpRequestBase request, URL url, String failureMessage) throws IOException {
+    	return execute(request, url, failureMessage, this::createResponseFromEntity);
+    }
+
+    /**
+     * Execute a request using the shared HTTP client converting the response entity with the given reader.
+     * @param request
+     * @param url
+     * @param failureMessage Message used when wrapping unexpected exceptions
+     * @param entityReader Converts a successful response entity into the result
+     * @return the converted response
+     * @throws IOException
+     */
+    private <T> T execute(HttpRequestBase request, URL url, String failureMessage, EntityReader<T> entityReader) throws IOException {
+    	final String verb = request.getMethod();
+    	final RequestMetrics metrics = new RequestMetrics(verb, url, false);
+    	try {
+    		T result = execute(request, url, failureMessage, entityReader, metrics);
+    		completed(metrics, null);
+    		return result;
+    	} catch (IOException | RuntimeException e) {
+    		completed(metrics, e);
+    		throw e;
+    	}
+    }
+
+    private <T> T execute(HttpRequestBase request, URL url, String failureMessage, EntityReader<T> entityReader, RequestMetrics metrics) throws IOException {
+    	final String verb = request.getMethod();
+    	final RequestLimiter limiter = getLimiter();
+    	final HttpClientContext context = context(metrics);
+    	countRequestBody(request, metrics);
+    	for (int attempt = 0; ; attempt++) {
+    		long delay;
+    		metrics.retries = attempt;
+    		long queued = System.nanoTime();
+    		limiter.acquire();
+    		metrics.queueWaitNanos += System.nanoTime() - queued;
+    		try (CloseableHttpResponse response = getHttpClient().execute(request, context)) {
+    			getCompression().decode(response, metrics);
+
+    			int responseCode = response.getStatusLine().getStatusCode();
+    			metrics.statusCode = responseCode;
+    			logger.debug(response.getStatusLine().getReasonPhrase());
+    			if (responseCode >= 200 && responseCode <= 299) {
+    				long bodyStart = System.nanoTime();
+    				T result = entityReader.read(response.getEntity());
+    				metrics.bodyNanos += System.nanoTime() - bodyStart;
+    				return result;
+    			}
+
+    			delay = retryDelay(request, response, attempt);
+    			if (delay < 0) {
+    				throw buildTransportError(verb, url.toExternalForm(), response);
+    			}
+    			logRetry(verb, url, responseCode, delay, attempt);
+    			EntityUtils.consumeQuietly(response.getEntity());
+    		} catch (IOException e) {
+    			logger.error(verb + " " + url.toString() + " : " + e.getMessage(), e);
+    			throw e;
+    		} catch (Exception e) {
+    			logger.error(verb + " " + url.toString() + " : " + e.getMessage(), e);
+    			throw new IOException(failureMessage, e);
+    		} finally {
+    			limiter.release();
+    		}
+
+    		try {
+    			Thread.sleep(delay);
+    		} catch (InterruptedException e) {
+    			Thread.currentThread().interrupt();
+    			throw new InterruptedIOException(failureMessage + ": interrupted waiting to retry");
+    		}
+    	}
+    }
+
+    /**
+     * Execute a request using the shared non-blocking HTTP client. Error
+     * responses complete the future exceptionally with the same IOException
+     * the blocking calls throw.
+     * @param request
+     * @param url
+     * @param failureMessage Message used when wrapping unexpected exceptions
+     * @return Future response body
+     */
+    private CompletableFuture<String> executeAsync(HttpRequestBase request, URL url, String failureMessage) {
+    	final CompletableFuture<String> result = new CompletableFuture<String>();
+    	final AtomicReference<Future<?>> inFlight = new AtomicReference<Future<?>>();
+    	final RequestMetrics metrics = new RequestMetrics(request.getMethod(), url, true);
+    	result.whenComplete((r, t) -> completed(metrics, t));
+    	countRequestBody(request, metrics);
+    	executeAsync(request, url, failureMessage, result, inFlight, metrics, 0);
+
+    	// propagate cancellation of the returned future to the pending permit or in-flight request
+    	result.whenComplete((r, t) -> {
+    		if (result.isCancelled()) {
+    			Future<?> f = inFlight.get();
+    			if (f != null) {
+    				f.cancel(true);
+    			}
+    		}
+    	});
+    	return result;
     }
 
+    private void executeAsync(HttpRequestBase request, URL url, String failureMessage,
+    		CompletableFuture<String> result, AtomicReference<Future<?>> inFlight, RequestMetrics metrics, int attempt) {
+    	final String verb = request.getMethod();
+    	final RequestLimiter limiter;
+    	try {
+    		limiter = getLimiter();
+    	} catch (RuntimeException e) {
+    		result.completeExceptionally(e);
+    		return;
+    	}
+    	metrics.retries = attempt;
+    	final long queued = System.nanoTime();
+    	final CompletableFuture<Void> permit = limiter.acquireAsync();
+    	inFlight.set(permit);
+    	permit.thenRun(() -> {
+    		metrics.queueWaitNanos += System.nanoTime() - queued;
+    		if (result.isDone()) {
+    			limiter.release();
+    			return;
+    		}
+    		try {
+    			Future<HttpResponse> future = getHttpAsyncClient().execute(request, context(metrics), new FutureCallback<HttpResponse>() {
+
+    				@Override
+    				public void completed(HttpResponse response) {
+    					int responseCode = response.getStatusLine().getStatusCode();
+    					long delay = -1;
+    					metrics.statusCode = responseCode;
+    					try {
+    						getCompression().decode(response, metrics);
+    						logger.debug(response.getStatusLine().getReasonPhrase());
+    						if (responseCode >= 200 && responseCode <= 299) {
+    							long bodyStart = System.nanoTime();
+    							String body = createResponseFromEntity(response.getEntity());
+    							metrics.bodyNanos += System.nanoTime() - bodyStart;
+    							result.complete(body);
+    						} else {
+    							delay = retryDelay(request, response, attempt);
+    							if (delay < 0) {
+    								throw buildTransportError(verb, url.toExternalForm(), response);
+    							}
+    							EntityUtils.consumeQuietly(response.getEntity());
+    						}
+    					} catch (IOException e) {
+    						logger.error(verb + " " + url.toString() + " : " + e.getMessage(), e);
+    						result.completeExceptionally(e);
+    					} catch (Exception e) {
+    						logger.error(verb + " " + url.toString() + " : " + e.getMessage(), e);
+    						result.completeExceptionally(new IOException(failureMessage, e));
+    					} finally {
+    						limiter.release();
+    					}
+
+    					if (delay >= 0) {
+    						logRetry(verb, url, responseCode, delay, attempt);
+    						RetryScheduler.INSTANCE.schedule(
+    								() -> executeAsync(request, url, failureMessage, result, inFlight, metrics, attempt + 1),
+    								delay, TimeUnit.MILLISECONDS);
+    					}
+    				}
+
+    				@Override
+    				public void failed(Exception e) {
+    					limiter.release();
+    					logger.error(verb + " " + url.toString() + " : " + e.getMessage(), e);
+    					result.completeExceptionally(e instanceof IOException ? e : new IOException(failureMessage, e));
+    				}
+
+    				@Override
+    				public void cancelled() {
+    					limiter.release();
+    					result.cancel(false);
+    				}
+    			});
+    			inFlight.set(future);
+    			if (result.isCancelled()) {
+    				future.cancel(true);
+    			}
+    		} catch (RuntimeException e) {
+    			limiter.release();
+    			result.completeExceptionally(e);
+    		}
+    	});
+    }
+
+    /**
+     * Determine if a failed request should be retried and how long to wait.
+     * 429 and 503 responses mean the request was not processed and are
+     * retried for any method. 502 and 504 responses are only retried for
+     * idempotent methods since the request may have been processed. Requests
+     * with a body that can not be resent are never retried.
+     * @param request
+     * @param response
+     * @param attempt Number of retries already made
+     * @return Delay in milliseconds before retrying, or -1 to fail the request
+     */
+    private long retryDelay(HttpRequestBase request, HttpResponse response, int attempt) {
+    	if (attempt >= maxRetries) {
+    		return -1;
+    	}
+    	int responseCode = response.getStatusLine().getStatusCode();
+    	boolean idempotent = !"POST".equals(request.getMethod()) && !"PATCH".equals(request.getMethod());
+    	if (responseCode != 429 && responseCode != 503 && !(idempotent && (responseCode == 502 || responseCode == 504))) {
+    		return -1;
+    	}
+    	if (request instanceof HttpEntityEnclosingRequest) {
+    		HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+    		if (entity != null && !entity.isRepeatable()) {
+    			return -1;
+    		}
+    	}
+
+    	long retryAfter = retryAfterMillis(response);
+    	if (retryAfter >= 0) {
+    		// don't tie up the caller when told to come back much later
+    		return retryAfter <= retryMaxDelayMillis ? retryAfter : -1;
+    	}
+    	// exponential backoff, randomized over the upper half to spread out competing clients
+    	long ceiling = Math.min(retryMaxDelayMillis, retryBaseDelayMillis << Math.min(attempt, 20));
+    	return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
+
+    /**
+     * @return The Retry-After header value in milliseconds or -1 when absent or invalid
+     */
+    private static long retryAfterMillis(HttpResponse response) {
+    	Header header = response.getFirstHeader("Retry-After");
+    	if (header == null || header.getValue() == null) {
+    		return -1;
+    	}
+    	String value = header.getValue().trim();
+    	try {
+    		return Math.max(Long.parseLong(value), 0) * 1000;
+    	} catch (NumberFormatException e) {
+    		Date date = DateUtils.parseDate(value);
+    		return date != null ? Math.max(date.getTime() - System.currentTimeMillis(), 0) : -1;
+    	}
+    }
+
+    private void logRetry(String verb, URL url, int responseCode, long delay, int attempt) {
+    	logger.warn(verb + " " + url.toString() + " : status " + responseCode + ", retry " + (attempt + 1) + " of " + maxRetries + " in " + delay + " ms");
+    }
+
+    /**
+     * Timer used to resubmit asynchronous requests after a backoff delay.
+     */
+    private static class RetryScheduler {
+    	static final ScheduledExecutorService INSTANCE = Executors.newSingleThreadScheduledExecutor(r -> {
+    		Thread t = new Thread(r, "bananaj-retry-scheduler");
+    		t.setDaemon(true);
+    		return t;
+    	});
+    }
+
+    private static <T> CompletableFuture<T> failedFuture(Throwable t) {
+    	CompletableFuture<T> f = new CompletableFuture<T>();
+    	f.completeExceptionally(t);
+    	return f;
+    }
+
+    private static HttpClientContext context(RequestMetrics metrics) {
+    	HttpClientContext context = HttpClientContext.create();
+    	context.setAttribute(RequestMetrics.ATTRIBUTE, metrics);
+    	return context;
+    }
+
+    /**
+     * Count the request body bytes sent, including any retries.
+     */
+    private static void countRequestBody(HttpRequestBase request, RequestMetrics metrics) {
+    	if (request instanceof HttpEntityEnclosingRequest) {
+    		HttpEntityEnclosingRequest r = (HttpEntityEnclosingRequest) request;
+    		if (r.getEntity() != null) {
+    			r.setEntity(new CountingEntity(r.getEntity(), n -> metrics.bytesSent += n));
+    		}
+    	}
+    }
+
+    /**
+     * Notify listeners of a completed request.
+     */
+    private void completed(RequestMetrics metrics, Throwable failure) {
+    	if (listeners.isEmpty() && metrics.jfrEvent == null) {
+    		return;
+    	}
+    	metrics.completed(failure);
+    	JfrEvents.commitHttpRequest(metrics.jfrEvent, metrics.verb, metrics.url, metrics.statusCode, metrics.bytesSent,
+    			metrics.bytesReceived, metrics.decodedBytesReceived, metrics.retries, metrics.async, failure);
+    	if (listeners.isEmpty()) {
+    		return;
+    	}
+    	RequestEvent event = new RequestEvent(metrics);
+    	for (ConnectionListener listener : listeners) {
+    		try {
+    			listener.requestCompleted(event);
+    		} catch (RuntimeException e) {
+    			logger.error("Connection listener failed: " + e.getMessage(), e);
+    		}
+    	}
+    }
+
+    /**
+     * Get the request limiter, creating it on first use.
+     * @return the request limiter
+     */
+    private RequestLimiter getLimiter() {
+    	if (limiter == null) {
+    		synchronized(this) {
+    			if (closed) {
+    				throw new IllegalStateException("Connection has been closed");
+    			}
+    			if (limiter == null) {
+    				limiter = new RequestLimiter(maxConcurrentRequests > 0 ? maxConcurrentRequests : Integer.MAX_VALUE);
+    			}
+    		}
+    	}
+    	return limiter;
+    }
+
+    /**
+     * Get the response content decoder, creating it on first use.
+     * @return the response content decoder
+     */
+    private ContentCompression getCompression() {
+    	if (compression == null) {
+    		synchronized(this) {
+    			if (compression == null) {
+    				compression = new ContentCompression(contentCompression);
+    			}
+    		}
+    	}
+    	return compression;
+    }
+
+    /**
+     * Get the shared HTTP client, creating it on first use.
+     * @return the pooled HTTP client
+     */
+    protected CloseableHttpClient getHttpClient() {
+    	if (httpclient == null) {
+    		synchronized(this) {
+    			if (closed) {
+    				throw new IllegalStateException("Connection has been closed");
+    			}
+    			if (httpclient == null) {
+    				httpclient = createHttpClient();
+    			}
+    		}
+    	}
+    	return httpclient;
+    }
+
+    private CloseableHttpClient createHttpClient() {
+    	PoolingHttpClientConnectionManager cm = new PoolingHttpClientConnectionManager(TimingSocketFactory.registry());
+    	cm.setMaxTotal(maxConnections);
+    	cm.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+    	cm.setValidateAfterInactivity(2000);
+
+        /*// TODO: Add option to ignore certificate issues for testing (i.e. like curl -k) 
+        	// ignore certificate issues
+        	.setSSLContext(new SSLContextBuilder().loadTrustMaterial(null, TrustAllStrategy.INSTANCE).build())
+        	.setSSLHostnameVerifier(NoopHostnameVerifier.INSTANCE)
+        */
+
+    	return HttpClients.custom()
+    			.setConnectionManager(cm)
+    			.setKeepAliveStrategy(keepAliveStrategy())
+    			.setDefaultRequestConfig(requestConfig())
+    			.disableContentCompression()
+    			.addInterceptorLast(getCompression())
+    			.evictExpiredConnections()
+    			.evictIdleConnections(idleTimeoutMillis, TimeUnit.MILLISECONDS)
+    			.build();
+    }
+
+    /**
+     * Get the shared non-blocking HTTP client, creating and starting it on first use.
+     * @return the non-blocking HTTP client
+     */
+    protected CloseableHttpAsyncClient getHttpAsyncClient() {
+    	if (asyncclient == null) {
+    		synchronized(this) {
+    			if (closed) {
+    				throw new IllegalStateException("Connection has been closed");
+    			}
+    			if (asyncclient == null) {
+    				CloseableHttpAsyncClient client = HttpAsyncClients.custom()
+    						.setMaxConnTotal(maxConnections)
+    						.setMaxConnPerRoute(maxConnectionsPerRoute)
+    						.setKeepAliveStrategy(keepAliveStrategy())
+    						.setDefaultRequestConfig(requestConfig())
+    						.addInterceptorLast(getCompression())
+    						.build();
+    				client.start();
+    				asyncclient = client;
+    			}
+    		}
+    	}
+    	return asyncclient;
+    }
+
+    private ConnectionKeepAliveStrategy keepAliveStrategy() {
+    	return new DefaultConnectionKeepAliveStrategy() {
+    		@Override
+    		public long getKeepAliveDuration(HttpResponse response, HttpContext context) {
+    			// honor the servers Keep-Alive timeout when given, otherwise use our default
+    			long duration = super.getKeepAliveDuration(response, context);
+    			return duration > 0 ? Math.min(duration, keepAliveMillis) : keepAliveMillis;
+    		}
+    	};
+    }
+
+    private RequestConfig requestConfig() {
+    	return RequestConfig.custom()
+    			.setConnectTimeout((int) connectTimeoutMillis)
+    			.setConnectionRequestTimeout((int) connectTimeoutMillis)
+    			.setSocketTimeout((int) socketTimeoutMillis)
+    			.build();
+    }
+
+    /**
+     * Release all pooled connections, stop the idle connection evictor and
+     * shut down the non-blocking client.
+     * The connection can not be used after it has been closed.
+     */
+	@Override
+	public void close() throws IOException {
+		CloseableHttpClient client;
+		CloseableHttpAsyncClient aclient;
+		synchronized(this) {
+			closed = true;
+			client = httpclient;
+			aclient = asyncclient;
+			httpclient = null;
+			asyncclient = null;
+		}
+		try {
+			if (client != null) {
+				client.close();
+			}
+		} finally {
+			if (aclient != null) {
+				aclient.close();
+			}
+		}
+	}
+
+	/**
+	 * @return The maximum number of pooled connections
+	 */
+	public int getMaxConnections() {
+		return maxConnections;
+	}
+
+	/**
+	 * Set the maximum number of pooled connections. Must be set before the first request is made.
+	 * @param maxConnections
+	 */
+	public void setMaxConnections(int maxConnections) {
+		checkNotStarted();
+		this.maxConnections = maxConnections;
+	}
+
+	/**
+	 * @return The maximum number of pooled connections per route (host)
+	 */
+	public int getMaxConnectionsPerRoute() {
+		return maxConnectionsPerRoute;
+	}
+
+	/**
+	 * Set the maximum number of pooled connections per route (host). Must be set before the first request is made.
+	 * @param maxConnectionsPerRoute
+	 */
+	public void setMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+		checkNotStarted();
+		this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+	}
+
+	/**
+	 * @return Maximum time in milliseconds a pooled connection is kept alive between requests
+	 */
+	public long getKeepAliveMillis() {
+		return keepAliveMillis;
+	}
+
+	/**
+	 * Set the maximum time a pooled connection is kept alive between requests. Must be set before the first request is made.
+	 * @param keepAliveMillis
+	 */
+	public void setKeepAliveMillis(long keepAliveMillis) {
+		checkNotStarted();
+		this.keepAliveMillis = keepAliveMillis;
+	}
+
+	/**
+	 * @return Time in milliseconds after which idle pooled connections are evicted
+	 */
+	public long getIdleTimeoutMillis() {
+		return idleTimeoutMillis;
+	}
+
+	/**
+	 * Set the time after which idle pooled connections are evicted. Must be set before the first request is made.
+	 * @param idleTimeoutMillis
+	 */
+	public void setIdleTimeoutMillis(long idleTimeoutMillis) {
+		checkNotStarted();
+		this.idleTimeoutMillis = idleTimeoutMillis;
+	}
+
+	/**
+	 * @return Timeout in milliseconds for establishing a connection, or -1 for the system default
+	 */
+	public long getConnectTimeoutMillis() {
+		return connectTimeoutMillis;
+	}
+
+	/**
+	 * Set the timeout for establishing a connection and for leasing one from
+	 * the pool. Must be set before the first request is made.
+	 * @param connectTimeoutMillis Timeout in milliseconds, or -1 for the system default
+	 */
+	public void setConnectTimeoutMillis(long connectTimeoutMillis) {
+		checkNotStarted();
+		this.connectTimeoutMillis = connectTimeoutMillis;
+	}
+
+	/**
+	 * @return Maximum time in milliseconds to wait for response data, or -1 for the system default
+	 */
+	public long getSocketTimeoutMillis() {
+		return socketTimeoutMillis;
+	}
+
+	/**
+	 * Set the maximum time to wait for response data. Must be set before the first request is made.
+	 * @param socketTimeoutMillis Timeout in milliseconds, or -1 for the system default
+	 */
+	public void setSocketTimeoutMillis(long socketTimeoutMillis) {
+		checkNotStarted();
+		this.socketTimeoutMillis = socketTimeoutMillis;
+	}
+
+	/**
+	 * @return The maximum number of requests in flight, or 0 when unlimited
+	 */
+	public int getMaxConcurrentRequests() {
+		return maxConcurrentRequests;
+	}
+
+	/**
+	 * Set the maximum number of requests in flight at once across blocking and
+	 * asynchronous calls. Requests beyond the limit wait for an earlier request
+	 * to complete. Must be set before the first request is made.
+	 * @param maxConcurrentRequests Maximum concurrent requests, or 0 for no limit
+	 */
+	public void setMaxConcurrentRequests(int maxConcurrentRequests) {
+		checkNotStarted();
+		this.maxConcurrentRequests = maxConcurrentRequests;
+	}
+
+	/**
+	 * @return The maximum number of times a throttled or failed request is retried
+	 */
+	public int getMaxRetries() {
+		return maxRetries;
+	}
+
+	/**
+	 * Set the maximum number of times a throttled or failed request is retried.
+	 * @param maxRetries Maximum retries, 0 to disable retrying
+	 */
+	public void setMaxRetries(int maxRetries) {
+		this.maxRetries = maxRetries;
+	}
+
+	/**
+	 * @return Initial delay in milliseconds before retrying a request
+	 */
+	public long getRetryBaseDelayMillis() {
+		return retryBaseDelayMillis;
+	}
+
+	/**
+	 * Set the initial delay before retrying a request. The delay doubles with each retry.
+	 * @param retryBaseDelayMillis
+	 */
+	public void setRetryBaseDelayMillis(long retryBaseDelayMillis) {
+		this.retryBaseDelayMillis = retryBaseDelayMillis;
+	}
+
+	/**
+	 * @return Maximum delay in milliseconds before retrying a request
+	 */
+	public long getRetryMaxDelayMillis() {
+		return retryMaxDelayMillis;
+	}
+
+	/**
+	 * Set the maximum delay before retrying a request. Requests whose
+	 * Retry-After exceeds this delay fail instead of being retried.
+	 * @param retryMaxDelayMillis
+	 */
+	public void setRetryMaxDelayMillis(long retryMaxDelayMillis) {
+		this.retryMaxDelayMillis = retryMaxDelayMillis;
+	}
+
+	/**
+	 * @return true if compressed responses are requested
+	 */
+	public boolean isContentCompression() {
+		return contentCompression;
+	}
+
+	/**
+	 * Set whether gzip/deflate compressed responses are requested. Compressed
+	 * responses are decoded transparently. Must be set before the first request is made.
+	 * @param contentCompression
+	 */
+	public void setContentCompression(boolean contentCompression) {
+		checkNotStarted();
+		this.contentCompression = contentCompression;
+	}
+
+	/**
+	 * @return Number of response body bytes received, before decoding any content encoding
+	 */
+	public long getWireBytesReceived() {
+		ContentCompression c = compression;
+		return c != null ? c.getWireBytes() : 0;
+	}
+
+	/**
+	 * @return Number of response body bytes read after decoding any content encoding
+	 */
+	public long getDecodedBytesReceived() {
+		ContentCompression c = compression;
+		return c != null ? c.getDecodedBytes() : 0;
+	}
+
+	/**
+	 * Add a listener notified of every request made through this connection
+	 * @param listener
+	 */
+	public void addListener(ConnectionListener listener) {
+		listeners.add(listener);
+	}
+
+	/**
+	 * Remove a listener added with {@link #addListener(ConnectionListener)}
+	 * @param listener
+	 */
+	public void removeListener(ConnectionListener listener) {
+		listeners.remove(listener);
+	}
+
+	private void checkNotStarted() {
+		if (httpclient != null || asyncclient != null || limiter != null || compression != null || closed) {
+			throw new IllegalStateException("Connection pool settings must be set before the first request");
+		}
+	}
 
     private String createResponseFromEntity(HttpEntity entity) throws IOException {
-        InputStream entityStream;
         if (entity != null) {
             long length = entity.getContentLength();
-            entityStream = entity.getContent();
             StringBuilder strbuilder = new StringBuilder(length > 16 && length < Integer.MAX_VALUE ? (int) length : 200);
-            try (Reader reader = new BufferedReader(new InputStreamReader
-                    (entityStream, Charset.forName(StandardCharsets.UTF_8.name())))) {
-                int c;
-                while ((c = reader.read()) != -1) {
-                    strbuilder.append((char) c);
+            try (Reader reader = new InputStreamReader(entity.getContent(), entityCharset(entity))) {
+                char[] buffer = new char[BUFFER_SIZE];
+                int n;
+                while ((n = reader.read(buffer)) != -1) {
+                    strbuilder.append(buffer, 0, n);
                 }
             }
-            logger.trace(strbuilder.toString());
-            return strbuilder.toString();
+            String response = strbuilder.toString();
+            if (logger.isTraceEnabled()) {
+            	logger.trace(response);
+            }
+            return response;
         }
         return null;
     }
 
-    private IOException buildTransportError(String verb, String url, CloseableHttpResponse response) {
+    /**
+     * Parse the response entity directly from the response stream without
+     * first building a String of the whole body.
+     */
+    private JSONObject createJSONFromEntity(HttpEntity entity) throws IOException {
+    	if (entity == null) {
+    		return null;
+    	}
+    	if (logger.isTraceEnabled()) {
+    		// trace logging needs the whole response body
+    		return new JSONObject(createResponseFromEntity(entity));
+    	}
+    	try (Reader reader = new BufferedReader(new InputStreamReader(entity.getContent(), entityCharset(entity)), BUFFER_SIZE)) {
+    		return new JSONObject(new JSONTokener(reader));
+    	}
+    }
+
+    private <T> T readEntity(HttpEntity entity, ResponseBodyReader<T> reader) throws IOException {
+    	if (entity == null) {
+    		return null;
+    	}
+    	if (logger.isTraceEnabled()) {
+    		// trace logging needs the whole response body
+    		return reader.read(new ByteArrayInputStream(createResponseFromEntity(entity).getBytes(StandardCharsets.UTF_8)));
+    	}
+    	try (InputStream in = entity.getContent()) {
+    		return reader.read(in);
+    	}
+    }
+
+    private Charset entityCharset(HttpEntity entity) {
+    	try {
+    		ContentType contentType = ContentType.get(entity);
+    		if (contentType != null && contentType.getCharset() != null) {
+    			return contentType.getCharset();
+    		}
+    	} catch (ParseException | UnsupportedCharsetException e) {
+    		logger.debug("Invalid response content type: " + e.getMessage());
+    	}
+    	return StandardCharsets.UTF_8;
+    }
+
+    private IOException buildTransportError(String verb, String url, HttpResponse response) {
         int responseCode = response.getStatusLine().getStatusCode();
         JSONObject errObj;
         try {
@@ -264,6 +1142,14 @@ public class Connection {
     }
 
 
+    /**
+     * Converts a successful response entity into a result.
+     */
+    @FunctionalInterface
+    private interface EntityReader<T> {
+    	T read(HttpEntity entity) throws IOException;
+    }
+
     private String getErrorObjString(JSONObject errObj, String key) {
         if (errObj.has(key)) {
             return errObj.getString(key);
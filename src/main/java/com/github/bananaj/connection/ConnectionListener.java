@@ -0,0 +1,21 @@
+package com.github.bananaj.connection;
+
+/**
+ * Receives an event for every request made through a {@link Connection},
+ * for example to collect metrics. See {@link ConnectionStats} for an
+ * in-memory implementation.
+ * <p>
+ * Listeners are called on the thread completing the request, which may be an
+ * I/O thread of the non-blocking client, so they must return quickly and
+ * must not block. Exceptions thrown by a listener are logged and ignored.
+ */
+public interface ConnectionListener {
+
+	/**
+	 * Called once when a request has completed, successfully or not,
+	 * including all retries.
+	 * @param event
+	 */
+	void requestCompleted(RequestEvent event);
+
+}
@@ -0,0 +1,220 @@
+package com.github.bananaj.connection;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.log4j.Logger;
+
+/**
+ * In-memory request statistics per endpoint. Add it to a connection with
+ * {@link Connection#addListener(ConnectionListener)} and inspect
+ * {@link #getEndpoints()} or log {@link #toString()} to find slow or busy
+ * endpoints. Requests are grouped by method and templated endpoint, e.g.
+ * <code>GET /lists/{id}/members</code>, with a latency histogram for each.
+ * <p>
+ * Requests slower than the slow request threshold are also logged at WARN
+ * level with all their measurements.
+ */
+public class ConnectionStats implements ConnectionListener {
+	final static Logger logger = Logger.getLogger(ConnectionStats.class);
+
+	private final ConcurrentMap<String, EndpointStats> endpoints = new ConcurrentHashMap<String, EndpointStats>();
+	private volatile long slowRequestNanos = Long.MAX_VALUE;
+
+	/**
+	 * Statistics of the requests to one endpoint
+	 */
+	public static class EndpointStats {
+		private final String name;
+		private final LatencyHistogram latency = new LatencyHistogram();
+		private final LongAdder failures = new LongAdder();
+		private final LongAdder retries = new LongAdder();
+		private final LongAdder bytesSent = new LongAdder();
+		private final LongAdder bytesReceived = new LongAdder();
+		private final LongAdder decodedBytesReceived = new LongAdder();
+		private final LongAdder queueWaitNanos = new LongAdder();
+		private final LongAdder connectNanos = new LongAdder();
+		private final LongAdder connects = new LongAdder();
+		private final LongAdder bodyNanos = new LongAdder();
+
+		EndpointStats(String name) {
+			this.name = name;
+		}
+
+		void record(RequestEvent event) {
+			latency.record(event.getTotalNanos(), TimeUnit.NANOSECONDS);
+			if (!event.isSuccess()) {
+				failures.increment();
+			}
+			retries.add(event.getRetries());
+			bytesSent.add(event.getBytesSent());
+			bytesReceived.add(event.getBytesReceived());
+			decodedBytesReceived.add(event.getDecodedBytesReceived());
+			queueWaitNanos.add(event.getQueueWaitNanos());
+			if (event.getConnectNanos() > 0) {
+				connectNanos.add(event.getConnectNanos());
+				connects.increment();
+			}
+			bodyNanos.add(event.getBodyNanos());
+		}
+
+		/**
+		 * @return Method and templated endpoint, e.g. <code>GET /lists/{id}/members</code>
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Histogram of the total request latencies in microseconds
+		 */
+		public LatencyHistogram getLatency() {
+			return latency;
+		}
+
+		/**
+		 * @return Number of requests
+		 */
+		public long getRequests() {
+			return latency.getCount();
+		}
+
+		/**
+		 * @return Number of requests that did not complete with a 2xx response
+		 */
+		public long getFailures() {
+			return failures.sum();
+		}
+
+		/**
+		 * @return Number of retries
+		 */
+		public long getRetries() {
+			return retries.sum();
+		}
+
+		/**
+		 * @return Request body bytes sent
+		 */
+		public long getBytesSent() {
+			return bytesSent.sum();
+		}
+
+		/**
+		 * @return Response body bytes received before decoding
+		 */
+		public long getBytesReceived() {
+			return bytesReceived.sum();
+		}
+
+		/**
+		 * @return Response body bytes after decoding
+		 */
+		public long getDecodedBytesReceived() {
+			return decodedBytesReceived.sum();
+		}
+
+		/**
+		 * @return Total time spent waiting for the concurrent request limit in microseconds
+		 */
+		public long getQueueWaitMicros() {
+			return TimeUnit.NANOSECONDS.toMicros(queueWaitNanos.sum());
+		}
+
+		/**
+		 * @return Number of new connections opened
+		 */
+		public long getConnects() {
+			return connects.sum();
+		}
+
+		/**
+		 * @return Total time spent opening connections in microseconds
+		 */
+		public long getConnectMicros() {
+			return TimeUnit.NANOSECONDS.toMicros(connectNanos.sum());
+		}
+
+		/**
+		 * @return Total time spent reading response bodies in microseconds, see {@link RequestEvent#getBodyNanos()}
+		 */
+		public long getBodyMicros() {
+			return TimeUnit.NANOSECONDS.toMicros(bodyNanos.sum());
+		}
+
+		@Override
+		public String toString() {
+			long requests = Math.max(getRequests(), 1);
+			return name + ": " + latency
+					+ " failures=" + getFailures()
+					+ " retries=" + getRetries()
+					+ " queue=" + getQueueWaitMicros() / requests + "us/req"
+					+ " connect=" + getConnectMicros() / Math.max(getConnects(), 1) + "us/conn (" + getConnects() + ")"
+					+ " body=" + getBodyMicros() / requests + "us/req"
+					+ " sent=" + getBytesSent()
+					+ " received=" + getBytesReceived() + "/" + getDecodedBytesReceived();
+		}
+	}
+
+	@Override
+	public void requestCompleted(RequestEvent event) {
+		String name = event.getVerb() + " " + event.getEndpoint();
+		EndpointStats stats = endpoints.get(name);
+		if (stats == null) {
+			stats = endpoints.computeIfAbsent(name, EndpointStats::new);
+		}
+		stats.record(event);
+		if (event.getTotalNanos() >= slowRequestNanos) {
+			logger.warn("Slow request: " + event);
+		}
+	}
+
+	/**
+	 * @return Statistics of each endpoint, ordered by the total time spent on requests to the endpoint
+	 */
+	public List<EndpointStats> getEndpoints() {
+		List<EndpointStats> list = new ArrayList<EndpointStats>(endpoints.values());
+		list.sort(Comparator.comparingLong((EndpointStats e) -> e.getLatency().getTotal()).reversed());
+		return list;
+	}
+
+	/**
+	 * @param verb
+	 * @param endpoint Templated endpoint, see {@link RequestEvent#templateOf(String)}
+	 * @return Statistics of the endpoint or null if no requests have been made to it
+	 */
+	public EndpointStats getEndpoint(String verb, String endpoint) {
+		return endpoints.get(verb + " " + endpoint);
+	}
+
+	/**
+	 * Log requests taking longer than the threshold at WARN level
+	 * @param threshold
+	 * @param unit
+	 */
+	public void setSlowRequestThreshold(long threshold, TimeUnit unit) {
+		this.slowRequestNanos = unit.toNanos(threshold);
+	}
+
+	/**
+	 * Clear all statistics
+	 */
+	public void reset() {
+		endpoints.clear();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Connection Stats:" + System.lineSeparator());
+		for (EndpointStats e : getEndpoints()) {
+			sb.append("  " + e + System.lineSeparator());
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,100 @@
+package com.github.bananaj.connection;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.entity.DeflateDecompressingEntity;
+import org.apache.http.client.entity.GzipDecompressingEntity;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Negotiates gzip/deflate compressed responses and decodes them, counting the
+ * response body bytes received on the wire and after decoding. Used instead
+ * of the HTTP client's own content compression so blocking, non-blocking and
+ * streamed requests are handled and counted alike.
+ */
+class ContentCompression implements HttpRequestInterceptor {
+
+	private static final String ACCEPT_ENCODING = "gzip, deflate";
+
+	private final boolean enabled;
+	private final LongAdder wireBytes = new LongAdder();
+	private final LongAdder decodedBytes = new LongAdder();
+
+	ContentCompression(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	/**
+	 * Request compressed responses when enabled
+	 */
+	@Override
+	public void process(HttpRequest request, HttpContext context) {
+		if (enabled && !request.containsHeader("Accept-Encoding")) {
+			request.addHeader("Accept-Encoding", ACCEPT_ENCODING);
+		}
+	}
+
+	/**
+	 * Replace the response entity with one that decodes the content according
+	 * to its Content-Encoding and counts the bytes read.
+	 * @param response
+	 * @param metrics Metrics of the request also counting the bytes read, may be null
+	 * @throws ClientProtocolException If the content encoding is not supported
+	 */
+	void decode(HttpResponse response, RequestMetrics metrics) throws ClientProtocolException {
+		HttpEntity entity = response.getEntity();
+		if (entity == null || entity instanceof CountingEntity) {
+			return;
+		}
+		HttpEntity wire = new CountingEntity(entity, metrics == null ? wireBytes::add : n -> {
+			wireBytes.add(n);
+			metrics.bytesReceived += n;
+		});
+		HttpEntity decoded;
+		Header contentEncoding = entity.getContentEncoding();
+		String encoding = contentEncoding != null ? contentEncoding.getValue().trim().toLowerCase(Locale.ROOT) : "";
+		switch (encoding) {
+		case "":
+		case "identity":
+			decoded = wire;
+			break;
+		case "gzip":
+		case "x-gzip":
+			decoded = new GzipDecompressingEntity(wire);
+			break;
+		case "deflate":
+			decoded = new DeflateDecompressingEntity(wire);
+			break;
+		default:
+			throw new ClientProtocolException("Unsupported Content-Encoding: " + contentEncoding.getValue());
+		}
+		if (decoded != wire) {
+			response.removeHeaders("Content-Length");
+			response.removeHeaders("Content-Encoding");
+			response.removeHeaders("Content-MD5");
+		}
+		response.setEntity(new CountingEntity(decoded, metrics == null ? decodedBytes::add : n -> {
+			decodedBytes.add(n);
+			metrics.decodedBytesReceived += n;
+		}));
+	}
+
+	boolean isEnabled() {
+		return enabled;
+	}
+
+	long getWireBytes() {
+		return wireBytes.sum();
+	}
+
+	long getDecodedBytes() {
+		return decodedBytes.sum();
+	}
+}
@@ -0,0 +1,63 @@
+package com.github.bananaj.connection;
+
+import java.io.FilterInputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.function.LongConsumer;
+
+import org.apache.http.HttpEntity;
+import org.apache.http.entity.HttpEntityWrapper;
+
+/**
+ * Entity reporting the number of content bytes read from it or written by it
+ */
+class CountingEntity extends HttpEntityWrapper {
+	private final LongConsumer counter;
+
+	CountingEntity(HttpEntity entity, LongConsumer counter) {
+		super(entity);
+		this.counter = counter;
+	}
+
+	@Override
+	public InputStream getContent() throws IOException {
+		return new FilterInputStream(super.getContent()) {
+			@Override
+			public int read() throws IOException {
+				int b = in.read();
+				if (b >= 0) {
+					counter.accept(1);
+				}
+				return b;
+			}
+
+			@Override
+			public int read(byte[] b, int off, int len) throws IOException {
+				int n = in.read(b, off, len);
+				if (n > 0) {
+					counter.accept(n);
+				}
+				return n;
+			}
+		};
+	}
+
+	@Override
+	public void writeTo(OutputStream outstream) throws IOException {
+		super.writeTo(new FilterOutputStream(outstream) {
+			@Override
+			public void write(int b) throws IOException {
+				out.write(b);
+				counter.accept(1);
+			}
+
+			@Override
+			public void write(byte[] b, int off, int len) throws IOException {
+				out.write(b, off, len);
+				counter.accept(len);
+			}
+		});
+	}
+}
@@ -0,0 +1,142 @@
+package com.github.bananaj.connection;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed size log-linear histogram of latencies in the style of HdrHistogram.
+ * Values are recorded in microseconds into buckets that double in width for
+ * each power of two, each split into 64 linear sub-buckets, so recorded
+ * values and reported percentiles are accurate to within about 1.6% over the
+ * whole range. Values above one hour are recorded as one hour.
+ * <p>
+ * Recording is lock free and does not allocate, making the histogram cheap
+ * enough to be updated on every request.
+ */
+public class LatencyHistogram {
+
+	private static final int SUB_BUCKET_BITS = 6;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final long MAX_VALUE = TimeUnit.HOURS.toMicros(1);
+
+	private final AtomicLongArray counts = new AtomicLongArray(indexOf(MAX_VALUE) + 1);
+	private final AtomicLong totalCount = new AtomicLong();
+	private final AtomicLong totalMicros = new AtomicLong();
+	private final AtomicLong maxMicros = new AtomicLong();
+
+	/**
+	 * Record a latency
+	 * @param duration
+	 * @param unit
+	 */
+	public void record(long duration, TimeUnit unit) {
+		long micros = Math.min(Math.max(unit.toMicros(duration), 0), MAX_VALUE);
+		counts.incrementAndGet(indexOf(micros));
+		totalCount.incrementAndGet();
+		totalMicros.addAndGet(micros);
+		long max;
+		while (micros > (max = maxMicros.get()) && !maxMicros.compareAndSet(max, micros)) {
+			// retry
+		}
+	}
+
+	/**
+	 * @return Number of recorded values
+	 */
+	public long getCount() {
+		return totalCount.get();
+	}
+
+	/**
+	 * @return Mean of the recorded values in microseconds
+	 */
+	public double getMean() {
+		long count = totalCount.get();
+		return count > 0 ? (double) totalMicros.get() / count : 0;
+	}
+
+	/**
+	 * @return Largest recorded value in microseconds
+	 */
+	public long getMax() {
+		return maxMicros.get();
+	}
+
+	/**
+	 * @return Sum of the recorded values in microseconds
+	 */
+	public long getTotal() {
+		return totalMicros.get();
+	}
+
+	/**
+	 * Get the value at a percentile. Values recorded concurrently with this
+	 * call may or may not be included.
+	 * @param percentile Percentile between 0 and 100, e.g. 99.9
+	 * @return The highest value equivalent to the value at the percentile in microseconds, or 0 if empty
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long count = 0;
+		long[] snapshot = new long[counts.length()];
+		for (int i = 0; i < snapshot.length; i++) {
+			snapshot[i] = counts.get(i);
+			count += snapshot[i];
+		}
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(Math.min(Math.max(percentile, 0), 100) / 100 * count));
+		long seen = 0;
+		for (int i = 0; i < snapshot.length; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(highestEquivalentValue(i), maxMicros.get());
+			}
+		}
+		return maxMicros.get();
+	}
+
+	/**
+	 * Clear all recorded values
+	 */
+	public void reset() {
+		for (int i = 0; i < counts.length(); i++) {
+			counts.set(i, 0);
+		}
+		totalCount.set(0);
+		totalMicros.set(0);
+		maxMicros.set(0);
+	}
+
+	/**
+	 * Values below 2 * SUB_BUCKET_COUNT have their own bucket, larger values
+	 * keep their top SUB_BUCKET_BITS + 1 bits.
+	 */
+	static int indexOf(long value) {
+		if (value < 2 * SUB_BUCKET_COUNT) {
+			return (int) value;
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) (value >>> shift) - SUB_BUCKET_COUNT;
+	}
+
+	static long highestEquivalentValue(int index) {
+		if (index < 2 * SUB_BUCKET_COUNT) {
+			return index;
+		}
+		int shift = index / SUB_BUCKET_COUNT - 1;
+		long sub = index - shift * SUB_BUCKET_COUNT;
+		return ((sub + 1) << shift) - 1;
+	}
+
+	@Override
+	public String toString() {
+		return "count=" + getCount()
+				+ " mean=" + Math.round(getMean()) + "us"
+				+ " p50=" + getValueAtPercentile(50) + "us"
+				+ " p90=" + getValueAtPercentile(90) + "us"
+				+ " p99=" + getValueAtPercentile(99) + "us"
+				+ " max=" + getMax() + "us";
+	}
+}
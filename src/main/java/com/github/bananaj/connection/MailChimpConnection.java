@@ -6,16 +6,25 @@ import java.net.URISyntaxException;
 import java.net.URL;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import org.json.JSONArray;
 import org.json.JSONObject;
 
 import com.github.bananaj.model.ModelIterator;
+import com.github.bananaj.codec.ModelCodec;
+import com.github.bananaj.codec.JSONObjectCodec;
+import com.github.bananaj.exceptions.BatchException;
+import com.github.bananaj.jfr.JfrEvents;
 import com.github.bananaj.model.automation.Automation;
 import com.github.bananaj.model.automation.AutomationRecipient;
 import com.github.bananaj.model.automation.AutomationSettings;
 import com.github.bananaj.model.automation.emails.AutomationEmail;
+import com.github.bananaj.model.batch.BatchGroup;
 import com.github.bananaj.model.batch.BatchInfo;
 import com.github.bananaj.model.batch.BatchOperation;
 import com.github.bananaj.model.campaign.Campaign;
@@ -42,19 +51,33 @@ import com.github.bananaj.model.report.ReportLocation;
 import com.github.bananaj.model.report.ReportSentTo;
 import com.github.bananaj.model.template.Template;
 import com.github.bananaj.model.template.TemplateFolder;
+import com.github.bananaj.utils.StringInterner;
 import com.github.bananaj.utils.URLHelper;
 
 /**
  * Primary class in the bananaj library that provides access to the Mailchimp
  * Marketing API. Used to establish a connection with the Mailchimp Marketing
  * API and provides methods to call most of the exposed Mailchimp API.
- * 
+ * <p>
+ * HTTP connections are pooled and reused across calls. Close the connection
+ * when it is no longer needed to release pooled resources.
  * 
  * @see <a href="https://mailchimp.com/developer/marketing/api/" target="MailchimpAPIDoc">MAILCHIMP MARKETING API</a>
  *
  */
 public class MailChimpConnection extends Connection {
 
+	/**
+	 * Default number of operations per batch when splitting large jobs
+	 */
+	public static final int DEFAULT_BATCH_SIZE = 1000;
+
+	/**
+	 * Default maximum size in bytes of a batch request body when splitting
+	 * large jobs, kept well below the request size accepted by the API
+	 */
+	public static final long DEFAULT_BATCH_MAX_BYTES = 8L * 1024 * 1024;
+
 	private String server;
 	private String authorization;
 	private final String apiendpoint;
@@ -70,6 +93,9 @@ public class MailChimpConnection extends Connection {
 	private final String reportsendpoint;
 	private Account account;
 	private FileManager fileManager;
+	private volatile ModelCodec modelCodec = JSONObjectCodec.INSTANCE;
+	private volatile StringInterner stringInterner = StringInterner.NONE;
+	private volatile boolean lazyDecoding = false;
 
 	/**
 	 * Create a api key based mailchimp connection.
@@ -81,19 +107,34 @@ public class MailChimpConnection extends Connection {
 	}
 
 	public MailChimpConnection(final String server, final String tokenType, final String token){
+		this(server, tokenType, token, "https://"+server+".api.mailchimp.com/3.0/");
+	}
+
+	/**
+	 * Create a mailchimp connection to an API root other than the Mailchimp
+	 * data center of the server, e.g. a proxy or a local stand-in server used
+	 * for testing.
+	 *
+	 * @param server The server identifier (data center) of the account
+	 * @param tokenType Authorization type, <code>apikey</code> or <code>Bearer</code>
+	 * @param token The api key or OAuth token
+	 * @param apiRoot Base URL of the API, e.g. <code>http://localhost:8080/3.0/</code>
+	 */
+	public MailChimpConnection(final String server, final String tokenType, final String token, final String apiRoot){
+		String root = apiRoot.endsWith("/") ? apiRoot : apiRoot + "/";
 		this.server = server;
 		this.authorization = tokenType + " " + token;
-		this.apiendpoint = "https://"+server+".api.mailchimp.com/3.0/";
-		this.batchendpoint = "https://"+server+".api.mailchimp.com/3.0/batches";
-		this.listendpoint = "https://"+server+".api.mailchimp.com/3.0/lists";
-		this.campaignfolderendpoint =  "https://"+server+".api.mailchimp.com/3.0/campaign-folders";
-		this.campaignendpoint ="https://"+server+".api.mailchimp.com/3.0/campaigns";
-		this.templatefolderendpoint = "https://"+server+".api.mailchimp.com/3.0/template-folders";
-		this.templateendpoint = "https://"+server+".api.mailchimp.com/3.0/templates";
-		this.automationendpoint = "https://"+server+".api.mailchimp.com/3.0/automations";
-		this.filemanagerfolderendpoint = "https://"+server+".api.mailchimp.com/3.0/file-manager/folders";
-		this.filesendpoint = "https://"+server+".api.mailchimp.com/3.0/file-manager/files";
-		this.reportsendpoint = "https://"+server+".api.mailchimp.com/3.0/reports";
+		this.apiendpoint = root;
+		this.batchendpoint = root + "batches";
+		this.listendpoint = root + "lists";
+		this.campaignfolderendpoint = root + "campaign-folders";
+		this.campaignendpoint = root + "campaigns";
+		this.templatefolderendpoint = root + "template-folders";
+		this.templateendpoint = root + "templates";
+		this.automationendpoint = root + "automations";
+		this.filemanagerfolderendpoint = root + "file-manager/folders";
+		this.filesendpoint = root + "file-manager/files";
+		this.reportsendpoint = root + "reports";
 	}
 
 	/**
@@ -104,7 +145,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception 
 	 */
 	public Iterable<MailChimpList> getLists() throws IOException, Exception {
-		return new ModelIterator<MailChimpList>(MailChimpList.class, listendpoint, this);
+		return new ModelIterator<MailChimpList>(MailChimpList::new, listendpoint, this);
 	}
 
 	/**
@@ -116,7 +157,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception
 	 */
 	public Iterable<MailChimpList> getLists(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
-		return new ModelIterator<MailChimpList>(MailChimpList.class, listendpoint, this, queryParameters);
+		return new ModelIterator<MailChimpList>(MailChimpList::new, listendpoint, this, queryParameters);
 	}
 
 	/**
@@ -185,7 +226,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception 
      */
     public Iterable<CampaignFolder> getCampaignFolders() throws IOException, Exception {
-		return new ModelIterator<CampaignFolder>(CampaignFolder.class, campaignfolderendpoint, this);
+		return new ModelIterator<CampaignFolder>(CampaignFolder::new, campaignfolderendpoint, this);
     }
 
     /**
@@ -197,7 +238,7 @@ public class MailChimpConnection extends Connection {
      * @throws Exception
      */
     public Iterable<CampaignFolder> getCampaignFolders(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
-		return new ModelIterator<CampaignFolder>(CampaignFolder.class, campaignfolderendpoint, this, queryParameters);
+		return new ModelIterator<CampaignFolder>(CampaignFolder::new, campaignfolderendpoint, this, queryParameters);
     }
 
     /**
@@ -248,7 +289,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception 
      */
     public Iterable<Campaign> getCampaigns() throws IOException, Exception {
-		return new ModelIterator<Campaign>(Campaign.class, campaignendpoint, this, 500);
+		return new ModelIterator<Campaign>(Campaign::new, campaignendpoint, this, 500);
     }
 
     /**
@@ -262,7 +303,7 @@ public class MailChimpConnection extends Connection {
      * @throws Exception
      */
     public Iterable<Campaign> getCampaigns(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
-		return new ModelIterator<Campaign>(Campaign.class, campaignendpoint, this, queryParameters);
+		return new ModelIterator<Campaign>(Campaign::new, campaignendpoint, this, queryParameters);
     }
     
     /**
@@ -427,7 +468,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception
 	 */
 	public Iterable<Report> getCampaignReports(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
-		return new ModelIterator<Report>(Report.class, reportsendpoint, this, queryParameters);
+		return new ModelIterator<Report>(Report::new, reportsendpoint, this, queryParameters);
 	}
 
 	/**
@@ -503,7 +544,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<AbuseReport>  getCampaignAbuseReports(String campaignId, final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/abuse-reports");
-		return new ModelIterator<AbuseReport>(AbuseReport.class, baseURL, this, queryParameters);
+		return new ModelIterator<AbuseReport>(AbuseReport::new, baseURL, this, queryParameters);
 	}
 
 	/**
@@ -515,7 +556,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<AbuseReport>  getCampaignAbuseReports(String campaignId) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/abuse-reports");
-		return new ModelIterator<AbuseReport>(AbuseReport.class, baseURL, this);
+		return new ModelIterator<AbuseReport>(AbuseReport::new, baseURL, this);
 	}
 
 	/**
@@ -573,7 +614,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<ClickReport> getCampaignClickReports(String campaignId, final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/click-details");
-		return new ModelIterator<ClickReport>(ClickReport.class, baseURL, this, queryParameters);
+		return new ModelIterator<ClickReport>(ClickReport::new, baseURL, this, queryParameters);
 	}
 	
 	/**
@@ -585,7 +626,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<ClickReport> getCampaignClickReports(String campaignId) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/click-details");
-		return new ModelIterator<ClickReport>(ClickReport.class, baseURL, this, 500);
+		return new ModelIterator<ClickReport>(ClickReport::new, baseURL, this, 500);
 	}
 	
 	/**
@@ -618,7 +659,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<ClickReportMember> getCampaignMembersClickReports(String campaignId, String linkId, final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/click-details/", linkId, "/members");
-		return new ModelIterator<ClickReportMember>(ClickReportMember.class, baseURL, this, queryParameters);
+		return new ModelIterator<ClickReportMember>(ClickReportMember::new, baseURL, this, queryParameters);
 	}
 	
 	/**
@@ -631,7 +672,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<ClickReportMember> getCampaignMembersClickReports(String campaignId, String linkId) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/click-details/", linkId, "/members");
-		return new ModelIterator<ClickReportMember>(ClickReportMember.class, baseURL, this, 500);
+		return new ModelIterator<ClickReportMember>(ClickReportMember::new, baseURL, this, 500);
 	}
 	
 	/**
@@ -681,7 +722,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<EcommerceProductActivity> getEcommerceProductActivityReports(String campaignId, final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/ecommerce-product-activity");
-		return new ModelIterator<EcommerceProductActivity>(EcommerceProductActivity.class, baseURL, this);
+		return new ModelIterator<EcommerceProductActivity>(EcommerceProductActivity::new, baseURL, this);
 	}
 
 	/**
@@ -695,7 +736,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<ReportSentTo> getCampaignSentToReports(String campaignId, final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/sent-to");
-		return new ModelIterator<ReportSentTo>(ReportSentTo.class, baseURL, this, queryParameters);
+		return new ModelIterator<ReportSentTo>(ReportSentTo::new, baseURL, this, queryParameters);
 	}
 	
 	/**
@@ -707,7 +748,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<ReportSentTo> getCampaignSentToReports(String campaignId) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/sent-to");
-		return new ModelIterator<ReportSentTo>(ReportSentTo.class, baseURL, this);
+		return new ModelIterator<ReportSentTo>(ReportSentTo::new, baseURL, this);
 	}
 	
 	/**
@@ -739,7 +780,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<EmailActivity> getCampaignEmailActivityReports(String campaignId, final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/email-activity");
-		return new ModelIterator<EmailActivity>(EmailActivity.class, baseURL, this, queryParameters);
+		return new ModelIterator<EmailActivity>(EmailActivity::new, baseURL, this, queryParameters);
 	}
 	
 	/**
@@ -751,7 +792,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<EmailActivity> getCampaignEmailActivityReports(String campaignId) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/email-activity");
-		return new ModelIterator<EmailActivity>(EmailActivity.class, baseURL, this);
+		return new ModelIterator<EmailActivity>(EmailActivity::new, baseURL, this);
 	}
 	
 	/**
@@ -782,7 +823,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<ReportLocation> getCampaignLocationsReports(String campaignId, final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getReportsendpoint(), "/", campaignId, "/locations");
-		return new ModelIterator<ReportLocation>(ReportLocation.class, baseURL, this, queryParameters);
+		return new ModelIterator<ReportLocation>(ReportLocation::new, baseURL, this, queryParameters);
 	}
 	
 	// TODO: Report - Sub-Reports- A list of reports for child campaigns of a specific parent campaign. For example, use this endpoint to view Multivariate, RSS, and A/B Testing Campaign reports.
@@ -798,7 +839,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception 
      */
 	public Iterable<TemplateFolder> getTemplateFolders() throws IOException, Exception {
-		return new ModelIterator<TemplateFolder>(TemplateFolder.class, templatefolderendpoint, this);
+		return new ModelIterator<TemplateFolder>(TemplateFolder::new, templatefolderendpoint, this);
 	}
 
 	/**
@@ -810,7 +851,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception
 	 */
 	public Iterable<TemplateFolder> getTemplateFolders(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
-		return new ModelIterator<TemplateFolder>(TemplateFolder.class, templatefolderendpoint, this, queryParameters);
+		return new ModelIterator<TemplateFolder>(TemplateFolder::new, templatefolderendpoint, this, queryParameters);
 	}
 	
     /**
@@ -858,7 +899,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception 
 	 */
 	public Iterable<Template> getTemplates() throws IOException, Exception {
-		return new ModelIterator<Template>(Template.class, templateendpoint, this, 500);
+		return new ModelIterator<Template>(Template::new, templateendpoint, this, 500);
 	}
 
 	/**
@@ -870,7 +911,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception
 	 */
 	public Iterable<Template> getTemplates(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
-		return new ModelIterator<Template>(Template.class, templateendpoint, this, queryParameters);
+		return new ModelIterator<Template>(Template::new, templateendpoint, this, queryParameters);
 	}
 	
 	/**
@@ -956,7 +997,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception 
 	 */
 	public Iterable<Automation> getAutomations() throws IOException, Exception {
-		return new ModelIterator<Automation>(Automation.class, automationendpoint, this);
+		return new ModelIterator<Automation>(Automation::new, automationendpoint, this);
 	}
 	
 	/**
@@ -972,7 +1013,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception 
 	 */
 	public Iterable<Automation> getAutomations(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
-		return new ModelIterator<Automation>(Automation.class, automationendpoint, this, queryParameters);
+		return new ModelIterator<Automation>(Automation::new, automationendpoint, this, queryParameters);
 	}
 	
 	/**
@@ -1050,7 +1091,7 @@ public class MailChimpConnection extends Connection {
 	 */
 	public Iterable<AutomationEmail> getAutomationEmails(String workflowId) throws IOException, Exception {
 		final String baseURL = URLHelper.join(automationendpoint, "/", workflowId, "/emails");
-		return new ModelIterator<AutomationEmail>(AutomationEmail.class, baseURL, this);
+		return new ModelIterator<AutomationEmail>(AutomationEmail::new, baseURL, this);
 	}
 	
 // Does this endpoint support query parameters? 
@@ -1065,7 +1106,7 @@ public class MailChimpConnection extends Connection {
 //	 */
 //	public Iterable<AutomationEmail> getAutomationEmails(String workflowId, final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 //		final String baseURL = URLHelper.join(automationendpoint, "/", workflowId, "/emails");
-//		return new ModelIterator<AutomationEmail>(AutomationEmail.class, baseURL, this, queryParameters);
+//		return new ModelIterator<AutomationEmail>(AutomationEmail::new, baseURL, this, queryParameters);
 //	}
 	
 	/**
@@ -1118,7 +1159,7 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception
 	 */
 	public Iterable<BatchInfo> getBatches(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
-		return new ModelIterator<BatchInfo>(BatchInfo.class, batchendpoint, this, queryParameters);
+		return new ModelIterator<BatchInfo>(BatchInfo::new, batchendpoint, this, queryParameters);
 	}
 
 	/**
@@ -1145,15 +1186,140 @@ public class MailChimpConnection extends Connection {
 	 * @throws Exception
 	 */
 	public BatchInfo createBatch(final List<BatchOperation> operations) throws IOException, Exception {
-		JSONObject jsonObj = new JSONObject();
-		JSONArray a = new JSONArray();
-		for (BatchOperation batch : operations) {
-			a.put(batch.getJsonRepresentation());
+		return postBatch(new BatchOperationsEntity(operations));
+	}
+
+	/**
+	 * Start batch operation. Operations are serialized and sent as they are
+	 * taken from the iterator so the operations never need to be held in
+	 * memory at once. Because the request body can't be resent the request is
+	 * not retried if it is throttled.
+	 * @param operations Operations to perform in a batch
+	 * @return The status of a batch request
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public BatchInfo createBatch(final Iterator<BatchOperation> operations) throws IOException, Exception {
+		return postBatch(new BatchOperationsEntity(operations));
+	}
+
+	/**
+	 * Start batch operation. See {@link #createBatch(Iterator)}.
+	 * @param operations Operations to perform in a batch
+	 * @return The status of a batch request
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public BatchInfo createBatch(final Stream<BatchOperation> operations) throws IOException, Exception {
+		return createBatch(operations.iterator());
+	}
+
+	/**
+	 * Start batch operations, splitting the operations into batches of at most
+	 * <code>maxOperations</code> and at most {@link #DEFAULT_BATCH_MAX_BYTES}
+	 * request bytes. See {@link #createBatches(Iterator, int, long)}.
+	 * 
+	 * @param operations Operations to perform
+	 * @param maxOperations Maximum number of operations per batch
+	 * @return Handle tracking the status of the submitted batches
+	 * @throws BatchException If a batch could not be submitted. Batches
+	 *                        submitted before the failure are available from
+	 *                        {@link BatchException#getSubmitted()}.
+	 */
+	public BatchGroup createBatches(final Iterator<BatchOperation> operations, int maxOperations) throws BatchException {
+		return createBatches(operations, maxOperations, DEFAULT_BATCH_MAX_BYTES);
+	}
+
+	/**
+	 * Start batch operations, splitting the operations into batches of at most
+	 * <code>maxOperations</code> whose request body is at most
+	 * <code>maxBytes</code>. Each operation is serialized once as it is taken
+	 * from the iterator to measure its size, and a batch is submitted as soon
+	 * as the next operation would exceed either limit. Only a single batch is
+	 * held in memory.
+	 * 
+	 * @param operations Operations to perform
+	 * @param maxOperations Maximum number of operations per batch
+	 * @param maxBytes Maximum size in bytes of the request body of a batch
+	 * @return Handle tracking the combined status of the submitted batches
+	 * @throws BatchException If a batch could not be submitted or a single
+	 *                        operation exceeds <code>maxBytes</code>. Batches
+	 *                        submitted before the failure are available from
+	 *                        {@link BatchException#getSubmitted()}. Operations
+	 *                        following the failure are not submitted.
+	 */
+	public BatchGroup createBatches(final Iterator<BatchOperation> operations, int maxOperations, long maxBytes) throws BatchException {
+		if (maxOperations < 1) {
+			throw new IllegalArgumentException("maxOperations < 1");
+		}
+		if (maxBytes <= BatchOperationsEntity.envelopeSize()) {
+			throw new IllegalArgumentException("maxBytes too small");
+		}
+		BatchGroup group = new BatchGroup(this);
+		List<String> batch = new ArrayList<String>(Math.min(maxOperations, DEFAULT_BATCH_SIZE));
+		long batchBytes = BatchOperationsEntity.envelopeSize();
+		int submitted = 0;	// total_operations of a pending batch is reported as 0, count locally
+		while (operations.hasNext()) {
+			BatchOperation operation = operations.next();
+			String json = BatchOperationsEntity.toJson(operation);
+			long size = BatchOperationsEntity.sizeOf(json);
+			if (BatchOperationsEntity.envelopeSize() + size > maxBytes) {
+				BatchException oversized = new BatchException("Operation " + (submitted + batch.size() + 1) + " (" + operation.getMethod() + " " + operation.getPath()
+						+ (operation.getOperationId() != null ? ", operation_id " + operation.getOperationId() : "") + ") of " + size
+						+ " bytes exceeds the batch size limit of " + maxBytes + " bytes. It and the remaining operations were not submitted", null, group);
+				// operations preceding it are still submitted, a failure to do so is attached rather than hiding the size error
+				try {
+					submit(group, batch, submitted);
+				} catch (BatchException e) {
+					oversized.addSuppressed(e);
+				}
+				throw oversized;
+			}
+			if (!batch.isEmpty() && batchBytes + size > maxBytes) {
+				submitted += submit(group, batch, submitted);
+				batchBytes = BatchOperationsEntity.envelopeSize();
+			}
+			batch.add(json);
+			batchBytes += size;
+			if (batch.size() == maxOperations) {
+				submitted += submit(group, batch, submitted);
+				batchBytes = BatchOperationsEntity.envelopeSize();
+			}
+		}
+		submit(group, batch, submitted);
+		return group;
+	}
+
+	/**
+	 * Submit the serialized operations as a batch, add it to the group and clear the list
+	 * @param submitted Number of operations submitted in earlier batches of the group
+	 * @return Number of operations submitted
+	 */
+	private int submit(BatchGroup group, List<String> batch, int submitted) throws BatchException {
+		if (batch.isEmpty()) {
+			return 0;
+		}
+		try {
+			group.add(postBatch(BatchOperationsEntity.serialized(batch)));
+		} catch (Exception e) {
+			throw new BatchException("Failed to submit batch " + (group.size() + 1) + " after " + submitted + " operations", e, group);
+		}
+		int count = batch.size();
+		batch.clear();
+		return count;
+	}
+
+	private BatchInfo postBatch(BatchOperationsEntity entity) throws IOException, Exception {
+		Object event = JfrEvents.beginBatchSubmit();
+		String batchId = null;
+		try {
+			String results = do_Post(URLHelper.url(batchendpoint), entity, getApikey());
+			BatchInfo batch = new BatchInfo(this, new JSONObject(results));
+			batchId = batch.getId();
+			return batch;
+		} finally {
+			JfrEvents.commitBatchSubmit(event, batchId, entity.getOperationCount(), entity.getBytesWritten());
 		}
-		jsonObj.put("operations", a);
-		
-		String results = do_Post(URLHelper.url(batchendpoint), jsonObj.toString(),getApikey());
-		return new BatchInfo(this, new JSONObject(results));
 	}
 
 	/**
@@ -1280,6 +1446,59 @@ public class MailChimpConnection extends Connection {
 		return reportsendpoint;
 	}
 
+	/**
+	 * @return Codec used to decode pages of paginated results into models
+	 */
+	public ModelCodec getModelCodec() {
+		return modelCodec;
+	}
+
+	/**
+	 * @param modelCodec Codec used to decode pages of paginated results into
+	 *                   models. Default is {@link JSONObjectCodec}, use
+	 *                   {@link com.github.bananaj.codec.StreamingCodec} to
+	 *                   bind models directly from the response as it arrives.
+	 */
+	public void setModelCodec(ModelCodec modelCodec) {
+		this.modelCodec = Objects.requireNonNull(modelCodec, "modelCodec");
+	}
+
+	/**
+	 * @return Interner used for repeated values while parsing models
+	 */
+	public StringInterner getStringInterner() {
+		return stringInterner;
+	}
+
+	/**
+	 * @param stringInterner Interner used to share repeated values, such as
+	 *                       list ids, statuses, tag names and merge field keys,
+	 *                       between models parsed with this connection. Default
+	 *                       is {@link StringInterner#NONE}.
+	 */
+	public void setStringInterner(StringInterner stringInterner) {
+		this.stringInterner = Objects.requireNonNull(stringInterner, "stringInterner");
+	}
+
+	/**
+	 * @return true if models parsed with this connection decode timestamps and
+	 *         nested objects on first access
+	 */
+	public boolean isLazyDecoding() {
+		return lazyDecoding;
+	}
+
+	/**
+	 * @param lazyDecoding true to keep the raw value of timestamps and nested
+	 *                     objects, such as member stats, last note and tags,
+	 *                     and decode them when their getter is first called.
+	 *                     A malformed value is then reported by the getter
+	 *                     rather than while parsing. Default is false.
+	 */
+	public void setLazyDecoding(boolean lazyDecoding) {
+		this.lazyDecoding = lazyDecoding;
+	}
+
 	/**
 	 * @return the account information
 	 * @throws IOException 
@@ -1316,6 +1535,22 @@ public class MailChimpConnection extends Connection {
 		private String token;
 		private TokenType tokenType;
 		private String dc;
+		private String baseUrl;
+		private int maxConnections = DEFAULT_MAX_CONNECTIONS;
+		private int maxConnectionsPerRoute = DEFAULT_MAX_CONNECTIONS_PER_ROUTE;
+		private long keepAliveMillis = DEFAULT_KEEP_ALIVE_MILLIS;
+		private long idleTimeoutMillis = DEFAULT_IDLE_TIMEOUT_MILLIS;
+		private long connectTimeoutMillis = -1;
+		private long socketTimeoutMillis = -1;
+		private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+		private int maxRetries = DEFAULT_MAX_RETRIES;
+		private long retryBaseDelayMillis = DEFAULT_RETRY_BASE_DELAY_MILLIS;
+		private long retryMaxDelayMillis = DEFAULT_RETRY_MAX_DELAY_MILLIS;
+		private boolean contentCompression = DEFAULT_CONTENT_COMPRESSION;
+		private final List<ConnectionListener> listeners = new ArrayList<ConnectionListener>();
+		private ModelCodec modelCodec = JSONObjectCodec.INSTANCE;
+		private StringInterner stringInterner = StringInterner.NONE;
+		private boolean lazyDecoding = false;
 
 		public Builder usingApiKey(String apiKey) {
 			this.apiKey = apiKey;
@@ -1334,22 +1569,194 @@ public class MailChimpConnection extends Connection {
 			return this;
 		}
 
+		/**
+		 * @param baseUrl Base URL of the API, e.g. a local stand-in server used
+		 *                for testing. Default is the Mailchimp data center of
+		 *                the account, <code>https://{dc}.api.mailchimp.com/3.0/</code>.
+		 */
+		public Builder withBaseUrl(String baseUrl) {
+			this.baseUrl = baseUrl;
+			return this;
+		}
+
+		/**
+		 * @param maxConnections Maximum number of pooled HTTP connections. Default is 20.
+		 */
+		public Builder withMaxConnections(int maxConnections) {
+			this.maxConnections = maxConnections;
+			return this;
+		}
+
+		/**
+		 * @param maxConnectionsPerRoute Maximum number of pooled HTTP connections to a
+		 *                               single host. Default is 10, the number of
+		 *                               simultaneous connections MailChimp allows.
+		 */
+		public Builder withMaxConnectionsPerRoute(int maxConnectionsPerRoute) {
+			this.maxConnectionsPerRoute = maxConnectionsPerRoute;
+			return this;
+		}
+
+		/**
+		 * @param duration Maximum time an idle pooled connection is kept alive between requests. Default is 30 seconds.
+		 * @param unit
+		 */
+		public Builder withKeepAlive(long duration, TimeUnit unit) {
+			this.keepAliveMillis = unit.toMillis(duration);
+			return this;
+		}
+
+		/**
+		 * @param duration Time after which idle pooled connections are evicted from the pool. Default is 60 seconds.
+		 * @param unit
+		 */
+		public Builder withIdleTimeout(long duration, TimeUnit unit) {
+			this.idleTimeoutMillis = unit.toMillis(duration);
+			return this;
+		}
+
+		/**
+		 * @param duration Timeout for establishing a connection. Applies to blocking and asynchronous requests.
+		 * @param unit
+		 */
+		public Builder withConnectTimeout(long duration, TimeUnit unit) {
+			this.connectTimeoutMillis = unit.toMillis(duration);
+			return this;
+		}
+
+		/**
+		 * @param duration Maximum time to wait for response data. Applies to blocking and asynchronous requests.
+		 * @param unit
+		 */
+		public Builder withSocketTimeout(long duration, TimeUnit unit) {
+			this.socketTimeoutMillis = unit.toMillis(duration);
+			return this;
+		}
+
+		/**
+		 * @param maxConcurrentRequests Maximum number of requests in flight at once.
+		 *                              Default is 10, the number of simultaneous
+		 *                              connections MailChimp allows. 0 for no limit.
+		 */
+		public Builder withMaxConcurrentRequests(int maxConcurrentRequests) {
+			this.maxConcurrentRequests = maxConcurrentRequests;
+			return this;
+		}
+
+		/**
+		 * @param maxRetries Maximum number of times a request throttled with 429, or
+		 *                   failed with 502, 503 or 504, is retried. Default is 3. 0
+		 *                   disables retrying.
+		 */
+		public Builder withMaxRetries(int maxRetries) {
+			this.maxRetries = maxRetries;
+			return this;
+		}
+
+		/**
+		 * @param baseDelay Delay before the first retry, doubled for each following retry. Default is 1 second.
+		 * @param maxDelay Upper bound on the delay between retries, including delays requested by Retry-After. Default is 60 seconds.
+		 * @param unit
+		 */
+		public Builder withRetryBackoff(long baseDelay, long maxDelay, TimeUnit unit) {
+			this.retryBaseDelayMillis = unit.toMillis(baseDelay);
+			this.retryMaxDelayMillis = unit.toMillis(maxDelay);
+			return this;
+		}
+
+		/**
+		 * @param contentCompression Request gzip/deflate compressed responses. Default is true.
+		 */
+		public Builder withContentCompression(boolean contentCompression) {
+			this.contentCompression = contentCompression;
+			return this;
+		}
+
+		/**
+		 * @param listener Listener notified of every request made through the connection, e.g. {@link ConnectionStats}
+		 */
+		public Builder withListener(ConnectionListener listener) {
+			this.listeners.add(listener);
+			return this;
+		}
+
+		/**
+		 * @param modelCodec Codec used to decode pages of paginated results into models. Default is {@link JSONObjectCodec},
+		 *        {@link com.github.bananaj.codec.StreamingCodec} binds models directly from the response.
+		 */
+		public Builder withModelCodec(ModelCodec modelCodec) {
+			this.modelCodec = modelCodec;
+			return this;
+		}
+
+		/**
+		 * @param stringInterner Interner shared by models parsed with the connection, for example
+		 *        <code>new StringInterner(StringInterner.DEFAULT_CAPACITY, StringInterner.DEFAULT_MAX_LENGTH)</code>.
+		 *        Default is {@link StringInterner#NONE}.
+		 */
+		public Builder withStringInterner(StringInterner stringInterner) {
+			this.stringInterner = stringInterner;
+			return this;
+		}
+
+		/**
+		 * @param lazyDecoding true to decode timestamps and nested objects of models on first access
+		 *        rather than while parsing. Default is false.
+		 * @see MailChimpConnection#setLazyDecoding(boolean)
+		 */
+		public Builder withLazyDecoding(boolean lazyDecoding) {
+			this.lazyDecoding = lazyDecoding;
+			return this;
+		}
+
 		public MailChimpConnection build() {
 			if (this.tokenType == null) {
 				throw new NullPointerException("No token specified");
 			}
 
+			String server;
+			String type;
+			String credentials;
 			switch (tokenType) {
 				case APIKEY:
-					return new MailChimpConnection(apiKey.split("-")[1], "apikey", apiKey);
+					server = apiKey.split("-")[1];
+					type = "apikey";
+					credentials = apiKey;
+					break;
 				case BEARER:
 					if (this.dc == null) {
 						throw new NullPointerException("No datacenter specified");
 					}
-					return new MailChimpConnection(this.dc, "Bearer", this.token);
+					server = this.dc;
+					type = "Bearer";
+					credentials = this.token;
+					break;
 				default:
 					throw new IllegalArgumentException();
 			}
+
+			MailChimpConnection connection = baseUrl != null
+					? new MailChimpConnection(server, type, credentials, baseUrl)
+					: new MailChimpConnection(server, type, credentials);
+
+			connection.setMaxConnections(maxConnections);
+			connection.setMaxConnectionsPerRoute(maxConnectionsPerRoute);
+			connection.setKeepAliveMillis(keepAliveMillis);
+			connection.setIdleTimeoutMillis(idleTimeoutMillis);
+			connection.setConnectTimeoutMillis(connectTimeoutMillis);
+			connection.setSocketTimeoutMillis(socketTimeoutMillis);
+			connection.setMaxConcurrentRequests(maxConcurrentRequests);
+			connection.setMaxRetries(maxRetries);
+			connection.setRetryBaseDelayMillis(retryBaseDelayMillis);
+			connection.setRetryMaxDelayMillis(retryMaxDelayMillis);
+			connection.setContentCompression(contentCompression);
+			connection.setModelCodec(modelCodec);
+			connection.setStringInterner(stringInterner);
+			connection.setLazyDecoding(lazyDecoding);
+			for (ConnectionListener listener : listeners) {
+				connection.addListener(listener);
+			}
+			return connection;
 		}
 	}
 }
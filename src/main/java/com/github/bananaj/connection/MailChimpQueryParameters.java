@@ -196,10 +196,16 @@ public class MailChimpQueryParameters implements Cloneable {
 	    return URLEncoder.encode(value, StandardCharsets.UTF_8.toString());
 	}
 
+	@SuppressWarnings("unchecked")
 	@Override
 	public Object clone() {
 		try {
-			return super.clone();
+			MailChimpQueryParameters clone = (MailChimpQueryParameters) super.clone();
+			if (queryParams != null) {
+				// copy parameters so changes to the clone, such as paging offset, don't leak back into this
+				clone.queryParams = (HashMap<String, String>) queryParams.clone();
+			}
+			return clone;
 		} catch (CloneNotSupportedException e) {
 			throw new InternalError(e);
 		}
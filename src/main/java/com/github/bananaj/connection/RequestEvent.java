@@ -0,0 +1,219 @@
+package com.github.bananaj.connection;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * A completed request made through a {@link Connection}. Times are in
+ * nanoseconds and include all retries of the request.
+ */
+public final class RequestEvent {
+
+	private static final String API_ROOT = "/3.0";
+	// path segments grouping resources that are not followed by an id
+	private static final Set<String> NAMESPACES = new HashSet<String>(Arrays.asList(
+			"ecommerce", "file-manager", "reporting", "customer-journeys", "activity-feed"));
+
+	private final String verb;
+	private final String host;
+	private final String endpoint;
+	private final int statusCode;
+	private final long bytesSent;
+	private final long bytesReceived;
+	private final long decodedBytesReceived;
+	private final long queueWaitNanos;
+	private final long connectNanos;
+	private final long bodyNanos;
+	private final long totalNanos;
+	private final int retries;
+	private final boolean async;
+	private final Throwable failure;
+
+	RequestEvent(RequestMetrics metrics) {
+		this.verb = metrics.verb;
+		this.host = metrics.url.getHost();
+		this.endpoint = templateOf(metrics.url.getPath());
+		this.statusCode = metrics.statusCode;
+		this.bytesSent = metrics.bytesSent;
+		this.bytesReceived = metrics.bytesReceived;
+		this.decodedBytesReceived = metrics.decodedBytesReceived;
+		this.queueWaitNanos = metrics.queueWaitNanos;
+		this.connectNanos = metrics.connectNanos;
+		this.bodyNanos = metrics.bodyNanos;
+		this.totalNanos = metrics.endNanos - metrics.startNanos;
+		this.retries = metrics.retries;
+		this.async = metrics.async;
+		this.failure = metrics.failure;
+	}
+
+	/**
+	 * @return The HTTP method
+	 */
+	public String getVerb() {
+		return verb;
+	}
+
+	/**
+	 * @return The host the request was sent to
+	 */
+	public String getHost() {
+		return host;
+	}
+
+	/**
+	 * @return The request path with ids replaced by <code>{id}</code>, e.g. <code>/lists/{id}/members</code>
+	 */
+	public String getEndpoint() {
+		return endpoint;
+	}
+
+	/**
+	 * @return Status code of the last response, or 0 if no response was received
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * @return Number of request body bytes sent
+	 */
+	public long getBytesSent() {
+		return bytesSent;
+	}
+
+	/**
+	 * @return Number of response body bytes received, before decoding any content encoding
+	 */
+	public long getBytesReceived() {
+		return bytesReceived;
+	}
+
+	/**
+	 * @return Number of response body bytes after decoding any content encoding
+	 */
+	public long getDecodedBytesReceived() {
+		return decodedBytesReceived;
+	}
+
+	/**
+	 * @return Time spent waiting for the concurrent request limit
+	 */
+	public long getQueueWaitNanos() {
+		return queueWaitNanos;
+	}
+
+	/**
+	 * @return Time spent opening connections including the TLS handshake, 0
+	 *         when a pooled connection was reused, or -1 if not measured as
+	 *         for asynchronous requests
+	 */
+	public long getConnectNanos() {
+		return connectNanos;
+	}
+
+	/**
+	 * @return Time spent reading the response body after the response headers
+	 *         were received. Pages decoded by the
+	 *         {@link com.github.bananaj.codec.ModelCodec} as the response
+	 *         arrives include the decoding; bodies returned as a String are
+	 *         parsed by the caller afterwards, outside this time.
+	 */
+	public long getBodyNanos() {
+		return bodyNanos;
+	}
+
+	/**
+	 * @return Time from the call until the request completed
+	 */
+	public long getTotalNanos() {
+		return totalNanos;
+	}
+
+	/**
+	 * @return Number of times the request was retried
+	 */
+	public int getRetries() {
+		return retries;
+	}
+
+	/**
+	 * @return true if the request was made using the non-blocking client
+	 */
+	public boolean isAsync() {
+		return async;
+	}
+
+	/**
+	 * @return true if the request completed with a 2xx response
+	 */
+	public boolean isSuccess() {
+		return failure == null && statusCode >= 200 && statusCode <= 299;
+	}
+
+	/**
+	 * @return The exception the request failed with, or null
+	 */
+	public Throwable getFailure() {
+		return failure;
+	}
+
+	/**
+	 * Replace the ids in a request path by <code>{id}</code> so requests to
+	 * the same endpoint can be grouped. MailChimp API paths alternate between
+	 * resource names and ids, for other paths segments containing digits
+	 * are taken to be ids.
+	 * @param path
+	 * @return The templated path without the API version
+	 */
+	public static String templateOf(String path) {
+		if (path == null || path.isEmpty()) {
+			return "/";
+		}
+		boolean api = path.equals(API_ROOT) || path.startsWith(API_ROOT + "/");
+		String[] segments = (api ? path.substring(API_ROOT.length()) : path).split("/");
+		StringBuilder sb = new StringBuilder(path.length());
+		boolean idNext = false;
+		boolean action = false;
+		for (String segment : segments) {
+			if (segment.isEmpty()) {
+				continue;
+			}
+			sb.append('/');
+			if (api ? idNext && !action : containsDigit(segment)) {
+				sb.append("{id}");
+				idNext = false;
+			} else {
+				sb.append(segment);
+				action = "actions".equals(segment);
+				idNext = !NAMESPACES.contains(segment);
+			}
+		}
+		return sb.length() > 0 ? sb.toString() : "/";
+	}
+
+	private static boolean containsDigit(String s) {
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			if (c >= '0' && c <= '9') {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	@Override
+	public String toString() {
+		return verb + " " + endpoint
+				+ " status=" + statusCode
+				+ " total=" + totalNanos / 1000 + "us"
+				+ " queue=" + queueWaitNanos / 1000 + "us"
+				+ " connect=" + (connectNanos >= 0 ? connectNanos / 1000 + "us" : "n/a")
+				+ " body=" + bodyNanos / 1000 + "us"
+				+ " sent=" + bytesSent
+				+ " received=" + bytesReceived + "/" + decodedBytesReceived
+				+ " retries=" + retries
+				+ (async ? " async" : "")
+				+ (failure != null ? " failure=" + failure : "");
+	}
+}
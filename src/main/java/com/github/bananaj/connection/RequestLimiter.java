@@ -0,0 +1,97 @@
+package com.github.bananaj.connection;
+
+import java.io.InterruptedIOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Limits the number of requests in flight on a connection. Blocking and
+ * asynchronous requests share the same permits and are granted them in
+ * arrival order. Asynchronous requests waiting for a permit do not hold a
+ * thread.
+ */
+class RequestLimiter {
+
+	private final int maxPermits;
+	private final Deque<CompletableFuture<Void>> waiters = new ArrayDeque<CompletableFuture<Void>>();
+	private int permits;
+
+	/**
+	 * @param maxPermits Maximum number of concurrent requests
+	 */
+	RequestLimiter(int maxPermits) {
+		if (maxPermits < 1) {
+			throw new IllegalArgumentException("maxPermits < 1");
+		}
+		this.maxPermits = maxPermits;
+		this.permits = maxPermits;
+	}
+
+	/**
+	 * Wait for a permit.
+	 * @throws InterruptedIOException if interrupted while waiting
+	 */
+	void acquire() throws InterruptedIOException {
+		CompletableFuture<Void> permit = acquireAsync();
+		try {
+			permit.get();
+		} catch (InterruptedException e) {
+			if (!permit.cancel(false)) {
+				release();	// granted while being interrupted
+			}
+			Thread.currentThread().interrupt();
+			throw new InterruptedIOException("Interrupted waiting for a request permit");
+		} catch (ExecutionException e) {
+			throw new IllegalStateException(e.getCause());	// never completed exceptionally
+		}
+	}
+
+	/**
+	 * Request a permit without blocking. Cancel the returned future to give up
+	 * waiting; a permit granted to a cancelled waiter is passed on.
+	 * @return Future completed once the permit is granted
+	 */
+	CompletableFuture<Void> acquireAsync() {
+		CompletableFuture<Void> permit = new CompletableFuture<Void>();
+		synchronized (this) {
+			if (permits == 0) {
+				waiters.offer(permit);
+				return permit;
+			}
+			permits--;
+		}
+		permit.complete(null);
+		return permit;
+	}
+
+	/**
+	 * Return a permit, handing it to the longest waiting request if any.
+	 */
+	void release() {
+		while (true) {
+			CompletableFuture<Void> next;
+			synchronized (this) {
+				next = waiters.poll();
+				if (next == null) {
+					if (permits < maxPermits) {
+						permits++;
+					}
+					return;
+				}
+			}
+			// complete outside the lock, dependent requests run on this thread
+			if (next.complete(null)) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * @return Maximum number of concurrent requests
+	 */
+	int getMaxPermits() {
+		return maxPermits;
+	}
+}
@@ -0,0 +1,56 @@
+package com.github.bananaj.connection;
+
+import java.net.URL;
+
+import org.apache.http.protocol.HttpContext;
+
+import com.github.bananaj.jfr.JfrEvents;
+
+/**
+ * Measurements collected while a request is executed, turned into a
+ * {@link RequestEvent} once the request completes. A request runs on one
+ * thread at a time so the fields are not synchronized.
+ */
+class RequestMetrics {
+
+	/**
+	 * HTTP context attribute holding the metrics of the request
+	 */
+	static final String ATTRIBUTE = RequestMetrics.class.getName();
+
+	final String verb;
+	final URL url;
+	final boolean async;
+	final long startNanos = System.nanoTime();
+	final Object jfrEvent = JfrEvents.beginHttpRequest();
+	long endNanos;
+	int statusCode;
+	long bytesSent;
+	long bytesReceived;
+	long decodedBytesReceived;
+	long queueWaitNanos;
+	long connectNanos;
+	long bodyNanos;
+	int retries;
+	Throwable failure;
+
+	RequestMetrics(String verb, URL url, boolean async) {
+		this.verb = verb;
+		this.url = url;
+		this.async = async;
+		this.connectNanos = async ? -1 : 0;
+	}
+
+	/**
+	 * @return The metrics of the request executing with the context, or null
+	 */
+	static RequestMetrics of(HttpContext context) {
+		Object metrics = context != null ? context.getAttribute(ATTRIBUTE) : null;
+		return metrics instanceof RequestMetrics ? (RequestMetrics) metrics : null;
+	}
+
+	void completed(Throwable failure) {
+		this.endNanos = System.nanoTime();
+		this.failure = failure;
+	}
+}
@@ -0,0 +1,21 @@
+package com.github.bananaj.connection;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reads a response body as it arrives from the connection. See
+ * {@link Connection#do_Get(java.net.URL, String, ResponseBodyReader)}.
+ *
+ * @param <T> Type of the value read from the body
+ */
+@FunctionalInterface
+public interface ResponseBodyReader<T> {
+
+	/**
+	 * @param body The decoded response body, UTF-8 encoded JSON for API responses
+	 * @return The value read from the body
+	 * @throws IOException
+	 */
+	T read(InputStream body) throws IOException;
+}
@@ -0,0 +1,73 @@
+package com.github.bananaj.connection;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.http.HttpHost;
+import org.apache.http.config.Registry;
+import org.apache.http.config.RegistryBuilder;
+import org.apache.http.conn.socket.ConnectionSocketFactory;
+import org.apache.http.conn.socket.LayeredConnectionSocketFactory;
+import org.apache.http.conn.socket.PlainConnectionSocketFactory;
+import org.apache.http.conn.ssl.SSLConnectionSocketFactory;
+import org.apache.http.protocol.HttpContext;
+
+/**
+ * Socket factory adding the time taken to open a connection, including the
+ * TLS handshake for https, to the {@link RequestMetrics} of the request.
+ */
+class TimingSocketFactory implements LayeredConnectionSocketFactory {
+
+	private final ConnectionSocketFactory delegate;
+
+	TimingSocketFactory(ConnectionSocketFactory delegate) {
+		this.delegate = delegate;
+	}
+
+	/**
+	 * @return The default socket factories with connect timing
+	 */
+	static Registry<ConnectionSocketFactory> registry() {
+		return RegistryBuilder.<ConnectionSocketFactory>create()
+				.register("http", new TimingSocketFactory(PlainConnectionSocketFactory.getSocketFactory()))
+				.register("https", new TimingSocketFactory(SSLConnectionSocketFactory.getSocketFactory()))
+				.build();
+	}
+
+	@Override
+	public Socket createSocket(HttpContext context) throws IOException {
+		return delegate.createSocket(context);
+	}
+
+	@Override
+	public Socket connectSocket(int connectTimeout, Socket sock, HttpHost host, InetSocketAddress remoteAddress,
+			InetSocketAddress localAddress, HttpContext context) throws IOException {
+		long start = System.nanoTime();
+		try {
+			return delegate.connectSocket(connectTimeout, sock, host, remoteAddress, localAddress, context);
+		} finally {
+			record(context, start);
+		}
+	}
+
+	@Override
+	public Socket createLayeredSocket(Socket socket, String target, int port, HttpContext context) throws IOException {
+		if (!(delegate instanceof LayeredConnectionSocketFactory)) {
+			throw new IOException("Protocol does not support layered connections");
+		}
+		long start = System.nanoTime();
+		try {
+			return ((LayeredConnectionSocketFactory) delegate).createLayeredSocket(socket, target, port, context);
+		} finally {
+			record(context, start);
+		}
+	}
+
+	private static void record(HttpContext context, long start) {
+		RequestMetrics metrics = RequestMetrics.of(context);
+		if (metrics != null) {
+			metrics.connectNanos += System.nanoTime() - start;
+		}
+	}
+}
@@ -0,0 +1,26 @@
+package com.github.bananaj.exceptions;
+
+import com.github.bananaj.model.batch.BatchGroup;
+
+/**
+ * Thrown when submitting a batch fails part way through a job split across
+ * several batches. Batches submitted before the failure keep running and are
+ * available from {@link #getSubmitted()}.
+ */
+public class BatchException extends Exception {
+
+	private final BatchGroup submitted;
+
+	public BatchException(String message, Throwable cause, BatchGroup submitted) {
+		super(message, cause);
+		this.submitted = submitted;
+	}
+
+	/**
+	 * @return The batches submitted before the failure
+	 */
+	public BatchGroup getSubmitted() {
+		return submitted;
+	}
+
+}
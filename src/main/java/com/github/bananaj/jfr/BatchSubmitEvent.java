@@ -0,0 +1,23 @@
+package com.github.bananaj.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.bananaj.BatchSubmit")
+@Label("Batch Submit")
+@Category({"bananaj", "Batch"})
+class BatchSubmitEvent extends Event {
+
+	@Label("Batch Id")
+	String batchId;
+
+	@Label("Operations")
+	int operations;
+
+	@Label("Request Bytes")
+	@DataAmount
+	long bytes;
+}
@@ -0,0 +1,50 @@
+package com.github.bananaj.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.bananaj.HttpRequest")
+@Label("HTTP Request")
+@Category({"bananaj", "HTTP"})
+@Description("A request to the MailChimp API including retries")
+class HttpRequestEvent extends Event {
+
+	@Label("Method")
+	String method;
+
+	@Label("Host")
+	String host;
+
+	@Label("Endpoint")
+	@Description("Request path with ids replaced by {id}")
+	String endpoint;
+
+	@Label("Status Code")
+	int statusCode;
+
+	@Label("Bytes Sent")
+	@DataAmount
+	long bytesSent;
+
+	@Label("Bytes Received")
+	@Description("Response body bytes before decoding any content encoding")
+	@DataAmount
+	long bytesReceived;
+
+	@Label("Decoded Bytes Received")
+	@DataAmount
+	long decodedBytesReceived;
+
+	@Label("Retries")
+	int retries;
+
+	@Label("Async")
+	boolean async;
+
+	@Label("Failure")
+	String failure;
+}
@@ -0,0 +1,125 @@
+package com.github.bananaj.jfr;
+
+import java.io.IOException;
+import java.net.URL;
+
+import org.apache.log4j.Logger;
+import org.json.JSONObject;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.model.JSONParser;
+import com.github.bananaj.model.JSONStreamParser;
+
+/**
+ * Java Flight Recorder events for HTTP requests, ModelIterator page loads,
+ * model parsing and batch submissions. Record with e.g.
+ * <code>-XX:StartFlightRecording</code>, the events are listed under
+ * <em>bananaj</em>.
+ * <p>
+ * The events are only used when the JVM provides the flight recorder
+ * (<code>jdk.jfr</code>), otherwise every method does nothing beyond checking
+ * a constant. When recording is off or an event is disabled the cost is a
+ * check of the event's enabled state. The <code>begin*</code> methods return
+ * an opaque handle, or null when the event is not recorded, that must be
+ * passed to the matching <code>commit*</code> method.
+ * <p>
+ * Used internally by bananaj, not intended to be called by applications.
+ */
+public final class JfrEvents {
+	final static Logger logger = Logger.getLogger(JfrEvents.class);
+
+	private static final boolean AVAILABLE = available();
+
+	private JfrEvents() {
+	}
+
+	private static boolean available() {
+		try {
+			Class.forName("jdk.jfr.Event", false, JfrEvents.class.getClassLoader());
+			return JfrSupport.isAvailable();
+		} catch (ClassNotFoundException | LinkageError e) {
+			return false;
+		} catch (RuntimeException e) {
+			logger.debug("Flight recorder events disabled: " + e.getMessage());
+			return false;
+		}
+	}
+
+	/**
+	 * @return true if the flight recorder events can be recorded in this JVM
+	 */
+	public static boolean isAvailable() {
+		return AVAILABLE;
+	}
+
+	public static Object beginHttpRequest() {
+		return AVAILABLE ? JfrSupport.beginHttpRequest() : null;
+	}
+
+	public static void commitHttpRequest(Object event, String method, URL url, int statusCode, long bytesSent, long bytesReceived,
+			long decodedBytesReceived, int retries, boolean async, Throwable failure) {
+		if (event != null) {
+			JfrSupport.commitHttpRequest(event, method, url, statusCode, bytesSent, bytesReceived, decodedBytesReceived, retries, async, failure);
+		}
+	}
+
+	public static Object beginPageLoad() {
+		return AVAILABLE ? JfrSupport.beginPageLoad() : null;
+	}
+
+	/**
+	 * @param event Handle returned by {@link #beginPageLoad()}
+	 * @param url Page URL, may be null when not known
+	 * @param modelClass Class of the entities on the page
+	 * @param offset
+	 * @param count Requested page size
+	 * @param items Number of entities on the page
+	 * @param totalItems Total number of entities, may be null
+	 */
+	public static void commitPageLoad(Object event, URL url, Class<?> modelClass, int offset, int count, int items, Integer totalItems) {
+		if (event != null) {
+			JfrSupport.commitPageLoad(event, url, modelClass, offset, count, items, totalItems);
+		}
+	}
+
+	/**
+	 * Parse a model from JSON recording a model parse event
+	 * @param model
+	 * @param connection
+	 * @param json
+	 */
+	public static void parse(JSONParser model, MailChimpConnection connection, JSONObject json) {
+		if (AVAILABLE) {
+			JfrSupport.parse(model, connection, json);
+		} else {
+			model.parse(connection, json);
+		}
+	}
+
+	/**
+	 * Bind a model from a streaming parser recording a model parse event
+	 * @param model
+	 * @param connection
+	 * @param parser
+	 * @throws IOException
+	 */
+	public static void parse(JSONStreamParser model, MailChimpConnection connection, JsonParser parser) throws IOException {
+		if (AVAILABLE) {
+			JfrSupport.parse(model, connection, parser);
+		} else {
+			model.parse(connection, parser);
+		}
+	}
+
+	public static Object beginBatchSubmit() {
+		return AVAILABLE ? JfrSupport.beginBatchSubmit() : null;
+	}
+
+	public static void commitBatchSubmit(Object event, String batchId, int operations, long bytes) {
+		if (event != null) {
+			JfrSupport.commitBatchSubmit(event, batchId, operations, bytes);
+		}
+	}
+}
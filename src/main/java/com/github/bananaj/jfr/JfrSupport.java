@@ -0,0 +1,135 @@
+package com.github.bananaj.jfr;
+
+import java.io.IOException;
+import java.net.URL;
+
+import org.json.JSONObject;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.connection.RequestEvent;
+import com.github.bananaj.model.JSONParser;
+import com.github.bananaj.model.JSONStreamParser;
+
+import jdk.jfr.FlightRecorder;
+
+/**
+ * Creates and commits the flight recorder events. Only loaded once
+ * {@link JfrEvents} has found the flight recorder to be available.
+ */
+final class JfrSupport {
+
+	// only asked isEnabled(), so parsing a model allocates no event while it isn't recorded
+	private static final ModelParseEvent PARSE_PROBE = new ModelParseEvent();
+
+	private JfrSupport() {
+	}
+
+	static boolean isAvailable() {
+		return FlightRecorder.isAvailable();
+	}
+
+	static Object beginHttpRequest() {
+		HttpRequestEvent event = new HttpRequestEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	static void commitHttpRequest(Object e, String method, URL url, int statusCode, long bytesSent, long bytesReceived,
+			long decodedBytesReceived, int retries, boolean async, Throwable failure) {
+		HttpRequestEvent event = (HttpRequestEvent) e;
+		event.end();
+		if (event.shouldCommit()) {
+			event.method = method;
+			event.host = url.getHost();
+			event.endpoint = RequestEvent.templateOf(url.getPath());
+			event.statusCode = statusCode;
+			event.bytesSent = bytesSent;
+			event.bytesReceived = bytesReceived;
+			event.decodedBytesReceived = decodedBytesReceived;
+			event.retries = retries;
+			event.async = async;
+			event.failure = failure != null ? failure.toString() : null;
+			event.commit();
+		}
+	}
+
+	static Object beginPageLoad() {
+		PageLoadEvent event = new PageLoadEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	static void commitPageLoad(Object e, URL url, Class<?> modelClass, int offset, int count, int items, Integer totalItems) {
+		PageLoadEvent event = (PageLoadEvent) e;
+		event.end();
+		if (event.shouldCommit()) {
+			event.endpoint = url != null ? RequestEvent.templateOf(url.getPath()) : null;
+			event.modelClass = modelClass;
+			event.offset = offset;
+			event.count = count;
+			event.items = items;
+			event.totalItems = totalItems != null ? totalItems : -1;
+			event.commit();
+		}
+	}
+
+	static void parse(JSONParser model, MailChimpConnection connection, JSONObject json) {
+		if (!PARSE_PROBE.isEnabled()) {
+			model.parse(connection, json);
+			return;
+		}
+		ModelParseEvent event = new ModelParseEvent();
+		event.begin();
+		model.parse(connection, json);
+		event.end();
+		if (event.shouldCommit()) {
+			event.modelClass = model.getClass();
+			event.fields = json.length();
+			event.commit();
+		}
+	}
+
+	static void parse(JSONStreamParser model, MailChimpConnection connection, JsonParser parser) throws IOException {
+		if (!PARSE_PROBE.isEnabled()) {
+			model.parse(connection, parser);
+			return;
+		}
+		ModelParseEvent event = new ModelParseEvent();
+		event.begin();
+		model.parse(connection, parser);
+		event.end();
+		if (event.shouldCommit()) {
+			event.modelClass = model.getClass();
+			event.fields = -1;	// not counted when streaming
+			event.commit();
+		}
+	}
+
+	static Object beginBatchSubmit() {
+		BatchSubmitEvent event = new BatchSubmitEvent();
+		if (!event.isEnabled()) {
+			return null;
+		}
+		event.begin();
+		return event;
+	}
+
+	static void commitBatchSubmit(Object e, String batchId, int operations, long bytes) {
+		BatchSubmitEvent event = (BatchSubmitEvent) e;
+		event.end();
+		if (event.shouldCommit()) {
+			event.batchId = batchId;
+			event.operations = operations;
+			event.bytes = bytes;
+			event.commit();
+		}
+	}
+}
@@ -0,0 +1,20 @@
+package com.github.bananaj.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.github.bananaj.ModelParse")
+@Label("Model Parse")
+@Category({"bananaj", "Model"})
+@StackTrace(false)	// recorded for every entity, keep the events small
+class ModelParseEvent extends Event {
+
+	@Label("Model Class")
+	Class<?> modelClass;
+
+	@Label("Fields")
+	int fields;
+}
@@ -0,0 +1,35 @@
+package com.github.bananaj.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.github.bananaj.PageLoad")
+@Label("Page Load")
+@Category({"bananaj", "Model"})
+@Description("A page of entities fetched and parsed by a ModelIterator")
+class PageLoadEvent extends Event {
+
+	@Label("Endpoint")
+	@Description("Request path with ids replaced by {id}")
+	String endpoint;
+
+	@Label("Model Class")
+	Class<?> modelClass;
+
+	@Label("Offset")
+	@Description("Offset of the page, or -1 for pages fetched ahead in the background")
+	int offset;
+
+	@Label("Page Size")
+	int count;
+
+	@Label("Items")
+	int items;
+
+	@Label("Total Items")
+	@Description("Total number of items matching the query, or -1 if unknown")
+	int totalItems;
+}
@@ -0,0 +1,27 @@
+package com.github.bananaj.model;
+
+import java.io.IOException;
+
+import com.fasterxml.jackson.core.JsonParser;
+
+import com.github.bananaj.connection.MailChimpConnection;
+
+/**
+ * Implemented by models that can be bound directly from a streaming JSON
+ * parser, without first building a {@link org.json.JSONObject}. Used by
+ * {@link com.github.bananaj.codec.StreamingCodec}. The result must be the
+ * same as parsing the equivalent JSONObject with
+ * {@link JSONParser#parse(MailChimpConnection, org.json.JSONObject)}.
+ */
+public interface JSONStreamParser {
+	/**
+	 * Parse a JSON representation of an entity into this.
+	 * @param connection
+	 * @param parser Positioned at the START_OBJECT token of the entity. On
+	 *               return the parser must be positioned at the matching
+	 *               END_OBJECT token.
+	 * @throws IOException
+	 */
+	public void parse(MailChimpConnection connection, JsonParser parser) throws IOException;
+
+}
@@ -1,35 +1,63 @@
 package com.github.bananaj.model;
 
 import java.io.IOException;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
 import java.net.URISyntaxException;
 import java.net.URL;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.LinkedList;
+import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Queue;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.json.JSONArray;
-import org.json.JSONException;
 import org.json.JSONObject;
 
+import com.github.bananaj.codec.ModelCodec;
 import com.github.bananaj.connection.MailChimpConnection;
 import com.github.bananaj.connection.MailChimpQueryParameters;
+import com.github.bananaj.jfr.JfrEvents;
 
 /**
  * Iterator class wrapper for MailChimp AIP. This class wraps MailChimp 
  * paginated APIs in a unified Iterator interface internally handling
  * all the pagination mechanics.
+ * <p>
+ * Results can also be processed with {@link #stream()} or
+ * {@link #parallelStream()}. Closing the stream, or the iterator, stops any
+ * further page loads.
+ * <p>
+ * Pages are decoded with the {@link ModelCodec} of the connection. Subclasses
+ * overriding the JSONObject parsing hooks are given the page as a JSONObject.
  * 
  * @param <T>
  */
-public class ModelIterator<T extends JSONParser> implements Iterable<T> {
+public class ModelIterator<T extends JSONParser> implements Iterable<T>, AutoCloseable {
 	
 	protected MailChimpConnection connection;
 	protected Queue<T> q = new LinkedList<T>();
-	private Class<T> typeClasse;
+	private final Supplier<T> factory;
+	private final ModelCodec codec;	// null to build models from the JSONObject of the page
 	protected Integer totalItems;
 	private long currentIndex = 0;
 	private MailChimpQueryParameters queryParams;
+	private int readAhead = 0;
+	private int fetchThreads = 1;
+	private boolean ordered = true;
+	private PageFetcher<Page<T>> pageFetcher;
+	private final Set<PageFetcher<Page<T>>> splitFetchers = ConcurrentHashMap.newKeySet();
+	private volatile boolean closed = false;
+	private volatile Class<?> modelClass;	// class of the built elements, for flight recorder events
 	
 	/**
 	 * 
@@ -38,8 +66,35 @@ public class ModelIterator<T extends JSONParser> implements Iterable<T> {
 	 * @param connection
 	 */
 	public ModelIterator(Class<T> typeClasse, String query, MailChimpConnection connection) {
-		this.typeClasse = typeClasse;
+		this(reflectiveFactory(typeClasse), query, connection);
+	}
+
+	/**
+	 * Create iterator with a specified fetch size
+	 * @param typeClasse
+	 * @param query
+	 * @param connection
+	 * @param count Number of records to fetch per query. Maximum value is 1000.
+	 */
+	public ModelIterator(Class<T> typeClasse, String query, MailChimpConnection connection, int count) {
+		this(reflectiveFactory(typeClasse), query, connection, count);
+	}
+
+	public ModelIterator(Class<T> typeClasse, String query, MailChimpConnection connection, final MailChimpQueryParameters params) {
+		this(reflectiveFactory(typeClasse), query, connection, params);
+	}
+
+	/**
+	 * Create iterator using a factory to construct each element, typically a
+	 * constructor reference such as <code>Member::new</code>.
+	 * @param factory Supplies a new, unpopulated element to parse each result into
+	 * @param query
+	 * @param connection
+	 */
+	public ModelIterator(Supplier<T> factory, String query, MailChimpConnection connection) {
+		this.factory = factory;
 		this.connection = connection;
+		this.codec = codecOf(connection);
 		queryParams = new MailChimpQueryParameters(query)
 				.count(100)
 				.offset(0);
@@ -50,23 +105,25 @@ public class ModelIterator<T extends JSONParser> implements Iterable<T> {
 
 	/**
 	 * Create iterator with a specified fetch size
-	 * @param typeClasse
+	 * @param factory Supplies a new, unpopulated element to parse each result into
 	 * @param query
 	 * @param connection
 	 * @param count Number of records to fetch per query. Maximum value is 1000.
 	 */
-	public ModelIterator(Class<T> typeClasse, String query, MailChimpConnection connection, int count) {
-		this.typeClasse = typeClasse;
+	public ModelIterator(Supplier<T> factory, String query, MailChimpConnection connection, int count) {
+		this.factory = factory;
 		this.connection = connection;
+		this.codec = codecOf(connection);
 		queryParams = new MailChimpQueryParameters(query)
 				.count(count)
 				.offset(0);
 		readPagedEntities();
 	}
 
-	public ModelIterator(Class<T> typeClasse, String query, MailChimpConnection connection, final MailChimpQueryParameters params) {
-		this.typeClasse = typeClasse;
+	public ModelIterator(Supplier<T> factory, String query, MailChimpConnection connection, final MailChimpQueryParameters params) {
+		this.factory = factory;
 		this.connection = connection;
+		this.codec = codecOf(connection);
 		queryParams = params != null ? (MailChimpQueryParameters) params.clone() : new MailChimpQueryParameters();
 		Integer count = queryParams.getCount();
 		Integer offset = queryParams.getOffset();
@@ -81,13 +138,103 @@ public class ModelIterator<T extends JSONParser> implements Iterable<T> {
 		readPagedEntities();
 	}
 	
+	/**
+	 * Enable read-ahead. While a page of results is being consumed the
+	 * following pages are fetched in the background so the next page is
+	 * usually available without waiting on a round trip. At most
+	 * <code>depth</code> pages are held ahead of the consumer. Errors fetching
+	 * a page are reported when that page is reached by the consumer.
+	 * <p>
+	 * Read-ahead requires the total number of items to be reported by the API
+	 * and takes effect from the next page load.
+	 * 
+	 * @param depth Number of pages to fetch ahead. 0 disables read-ahead.
+	 * @return this
+	 */
+	public ModelIterator<T> readAhead(int depth) {
+		if (depth < 0) {
+			throw new IllegalArgumentException("depth < 0");
+		}
+		this.readAhead = depth;
+		return this;
+	}
+
+	/**
+	 * Enable parallel fetching. Once the total number of items is known, the
+	 * remaining offset range is split into pages which are fetched
+	 * concurrently by a bounded pool of worker threads. Pages can be delivered
+	 * in offset order or, when order does not matter, as soon as they arrive.
+	 * Read-ahead depth is raised to at least the number of threads.
+	 * 
+	 * @param threads Maximum number of pages fetched concurrently. Mailchimp
+	 *                allows 10 simultaneous connections per account.
+	 * @param ordered true to deliver results in the order returned by the API,
+	 *                false to deliver pages in the order they arrive.
+	 * @return this
+	 */
+	public ModelIterator<T> parallel(int threads, boolean ordered) {
+		if (threads < 1) {
+			throw new IllegalArgumentException("threads < 1");
+		}
+		this.fetchThreads = threads;
+		this.ordered = ordered;
+		this.readAhead = Math.max(readAhead, threads);
+		return this;
+	}
+
+	/**
+	 * @return A sequential stream of the results. Close the stream to stop further page loads when abandoning it early.
+	 */
+	public Stream<T> stream() {
+		return StreamSupport.stream(spliterator(), false).onClose(this::close);
+	}
+
+	/**
+	 * @return A parallel stream of the results. Pages are fetched concurrently,
+	 *         one page per split. Close the stream to stop further page loads
+	 *         when abandoning it early.
+	 */
+	public Stream<T> parallelStream() {
+		return StreamSupport.stream(spliterator(), true).onClose(this::close);
+	}
+
+	/**
+	 * Stop loading pages. Pages being fetched in the background are abandoned
+	 * and iteration ends once already loaded elements have been consumed.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		if (pageFetcher != null) {
+			pageFetcher.close();
+		}
+		for (PageFetcher<Page<T>> f : splitFetchers) {
+			f.close();
+		}
+		splitFetchers.clear();
+	}
+
 	private void readPagedEntities() {
+		if (closed) {
+			return;
+		}
+		if (readAhead > 0 && totalItems != null) {
+			readAheadPagedEntities();
+			return;
+		}
+
 		try {
 			URL url = queryParams.getURL();
+			int offset = queryParams.getOffset();
 			queryParams.offset(queryParams.getOffset() + queryParams.getCount()); // step offset for next iteration
-			final JSONObject list = new JSONObject(connection.do_Get(url,connection.getApikey()));
-			parseEntities(list);
-		} catch (IOException | JSONException | URISyntaxException e) {
+			Object event = JfrEvents.beginPageLoad();
+			final Page<T> page = fetchPage(url, offset);
+			int queued = q.size();
+			addPage(page);
+			JfrEvents.commitPageLoad(event, url, modelClass, offset, queryParams.getCount(), q.size() - queued, totalItems);
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
 			// Wrap checked exceptions in a RuntimeException.
 			// Checked exceptions are warped in a RuntimeException to reduce the need for
 			// boilerplate code inside of lambdas.
@@ -95,6 +242,115 @@ public class ModelIterator<T extends JSONParser> implements Iterable<T> {
 		} 
 	}
 	
+	private void readAheadPagedEntities() {
+		try {
+			if (pageFetcher == null) {
+				pageFetcher = new PageFetcher<Page<T>>(this::fetchPage, queryParams, queryParams.getOffset(), totalItems, readAhead, fetchThreads, ordered);
+			}
+			Page<T> list;
+			do {
+				Object event = JfrEvents.beginPageLoad();
+				list = pageFetcher.next();
+				if (list != null) {
+					int queued = q.size();
+					addPage(list);
+					JfrEvents.commitPageLoad(event, list.url, modelClass, list.offset, queryParams.getCount(), q.size() - queued, totalItems);
+				}
+			} while (list != null && q.peek() == null);	// skip pages emptied since total_items was read
+		} catch (RuntimeException e) {
+			throw e;
+		} catch (Exception e) {
+			// Wrap checked exceptions in a RuntimeException.
+			throw new RuntimeException(e);
+		}
+	}
+
+	/**
+	 * A page of results, either the JSONObject returned by the API or the
+	 * models decoded from it by the codec, with the URL and offset it was
+	 * read from.
+	 */
+	private static class Page<T> {
+		final URL url;
+		final int offset;
+		final JSONObject root;
+		final List<T> items;
+		final int totalItems;
+
+		Page(URL url, int offset, JSONObject root) {
+			this.url = url;
+			this.offset = offset;
+			this.root = root;
+			this.items = null;
+			this.totalItems = -1;
+		}
+
+		Page(URL url, int offset, List<T> items, int totalItems) {
+			this.url = url;
+			this.offset = offset;
+			this.root = null;
+			this.items = items;
+			this.totalItems = totalItems;
+		}
+	}
+
+	/**
+	 * Subclasses are given the page through the JSONObject parse hooks so
+	 * only the base class uses the codec of the connection.
+	 */
+	private ModelCodec codecOf(MailChimpConnection connection) {
+		return connection != null && getClass() == ModelIterator.class ? connection.getModelCodec() : null;
+	}
+
+	/**
+	 * Get a page. Called on a background thread when reading ahead.
+	 * @return The page or null if the response has no body
+	 */
+	private Page<T> fetchPage(URL url, int offset) throws IOException, URISyntaxException {
+		if (codec == null) {
+			JSONObject root = connection.do_GetJSON(url, connection.getApikey());
+			return root != null ? new Page<T>(url, offset, root) : null;
+		}
+		final List<T> items = new ArrayList<T>(queryParams.getCount());
+		Integer total = connection.do_Get(url, connection.getApikey(), in -> codec.readPage(connection, in, factory, items::add));
+		if (total == null) {
+			return null;
+		}
+		if (modelClass == null && !items.isEmpty()) {
+			modelClass = items.get(0).getClass();
+		}
+		return new Page<T>(url, offset, items, total);
+	}
+
+	/**
+	 * Offer the elements of a page to q
+	 */
+	private void addPage(Page<T> page) {
+		if (page == null) {
+			return;
+		}
+		if (page.root != null) {
+			parseEntities(page.root);
+			return;
+		}
+		if (page.totalItems >= 0) {
+			totalItems = page.totalItems;
+		}
+		q.addAll(page.items);
+	}
+
+	/**
+	 * Pass the elements of a page to action
+	 * @return Number of elements
+	 */
+	private int pageEntities(Page<T> page, Consumer<? super T> action) {
+		if (page.root != null) {
+			return parseEntityArray(page.root, action);
+		}
+		page.items.forEach(action);
+		return page.items.size();
+	}
+
 	/**
 	 * Finds and extracts array elements for iteration and offers them to q.
 	 * Override to handle special parsing requirements such as when base entity
@@ -104,7 +360,16 @@ public class ModelIterator<T extends JSONParser> implements Iterable<T> {
 	 */
 	protected void parseEntities(final JSONObject rootObj) {
 		parseRoot(rootObj);
+		parseEntityArray(rootObj, q::offer);
+	}
 
+	/**
+	 * Finds the main entity array and builds an object of type T for each element.
+	 * @param rootObj The base, or root, element returned by the MailChimp API.
+	 * @param action Receives each constructed object
+	 * @return Number of objects constructed
+	 */
+	private int parseEntityArray(final JSONObject rootObj, Consumer<? super T> action) {
 		Iterator<String> keys = rootObj.keys();
 		while(keys.hasNext()) {
 			final String key = keys.next();
@@ -116,11 +381,12 @@ public class ModelIterator<T extends JSONParser> implements Iterable<T> {
 				for (int i = 0 ; i < entArray.length(); i++)
 				{
 					final JSONObject objDetail = entArray.getJSONObject(i);
-					q.offer(buildRefObj(connection, objDetail));
+					action.accept(buildRefObj(connection, objDetail));
 				}
-				break;	// found entity array, no need to keep looking
+				return entArray.length();	// found entity array, no need to keep looking
 			}
 		}
+		return 0;
 	}
 
 	/**
@@ -136,22 +402,44 @@ public class ModelIterator<T extends JSONParser> implements Iterable<T> {
 	}
 	
 	/**
-	 * Constructs type T using reflection. Override to provide a concrete constructor.
+	 * Constructs type T using the element factory. Override to provide a concrete constructor.
 	 * @param con
 	 * @param objDetail
 	 * @return Constructed object of type T
 	 */
 	protected T buildRefObj(MailChimpConnection con, JSONObject objDetail) {
-		try {
-			T ent;
-			ent = typeClasse.newInstance();
-			ent.parse(connection, objDetail);
-			return ent;
-		} catch (InstantiationException e) {
-			throw new RuntimeException("Class " + typeClasse.getCanonicalName() + " missing default constructor", e);  
-		} catch (IllegalAccessException e) {
-			throw new RuntimeException(e); 
+		T ent = factory.get();
+		if (modelClass == null) {
+			modelClass = ent.getClass();
 		}
+		JfrEvents.parse(ent, connection, objDetail);
+		return ent;
+	}
+
+	/**
+	 * Element factory for the {@link Class} based constructors. The default
+	 * constructor is looked up once and reused for every element.
+	 */
+	private static <T> Supplier<T> reflectiveFactory(final Class<T> typeClasse) {
+		return new Supplier<T>() {
+			private Constructor<T> constructor;
+
+			@Override
+			public T get() {
+				try {
+					if (constructor == null) {
+						constructor = typeClasse.getDeclaredConstructor();
+					}
+					return constructor.newInstance();
+				} catch (NoSuchMethodException e) {
+					throw new RuntimeException("Class " + typeClasse.getCanonicalName() + " missing default constructor", e);  
+				} catch (InvocationTargetException e) {
+					throw new RuntimeException(e.getCause());
+				} catch (ReflectiveOperationException e) {
+					throw new RuntimeException(e); 
+				}
+			}
+		};
 	}
 	
 	public Integer getTotalItems() {
@@ -194,4 +482,121 @@ public class ModelIterator<T extends JSONParser> implements Iterable<T> {
 		return it;
 	}
 	
+
+	/**
+	 * Creates a {@link Spliterator} over the remaining elements. When the total
+	 * number of items is known the spliterator is {@link Spliterator#SIZED}
+	 * and splits on page boundaries so
+	 * <code>StreamSupport.stream(iterable.spliterator(), true)</code> fetches
+	 * pages concurrently, one page per split. Otherwise elements are read
+	 * sequentially through {@link #iterator()}, as they always are for
+	 * subclasses so pages pass through their parse hooks in order.
+	 * <p>
+	 * The size is derived from total_items reported with the first page.
+	 * Stream operations relying on an exact size may fail if the collection is
+	 * modified while it is being read.
+	 */
+	@Override
+	public Spliterator<T> spliterator() {
+		if (totalItems == null || pageFetcher != null || getClass() != ModelIterator.class) {
+			return Spliterators.spliteratorUnknownSize(iterator(), characteristics());
+		}
+		Queue<T> buffer = new LinkedList<T>(q);
+		q.clear();
+		return new PageSpliterator(buffer, queryParams.getOffset(), Math.max(totalItems, queryParams.getOffset()));
+	}
+
+	private int characteristics() {
+		return (ordered ? Spliterator.ORDERED : 0) | Spliterator.NONNULL;
+	}
+
+	/**
+	 * Spliterator over a range of page offsets. Splitting divides the remaining
+	 * pages in half. Each spliterator fetches its own pages, using read-ahead
+	 * when enabled on the iterator.
+	 */
+	private class PageSpliterator implements Spliterator<T> {
+		private Queue<T> buffer;
+		private int nextOffset;
+		private int endOffset;
+		private PageFetcher<Page<T>> fetcher;
+
+		PageSpliterator(Queue<T> buffer, int startOffset, int endOffset) {
+			this.buffer = buffer;
+			this.nextOffset = startOffset;
+			this.endOffset = endOffset;
+		}
+
+		@Override
+		public boolean tryAdvance(Consumer<? super T> action) {
+			while (buffer.isEmpty() && hasMorePages()) {
+				readPage();
+			}
+			T element = buffer.poll();
+			if (element == null) {
+				return false;
+			}
+			action.accept(element);
+			return true;
+		}
+
+		@Override
+		public Spliterator<T> trySplit() {
+			final int count = queryParams.getCount();
+			final int pages = (endOffset - nextOffset + count - 1) / count;
+			if (fetcher != null || pages < 2) {
+				return null;
+			}
+			// prefix keeps buffered elements and the first half of the pages
+			final int mid = nextOffset + (pages / 2) * count;
+			PageSpliterator prefix = new PageSpliterator(buffer, nextOffset, mid);
+			buffer = new LinkedList<T>();
+			nextOffset = mid;
+			return prefix;
+		}
+
+		@Override
+		public long estimateSize() {
+			return buffer.size() + Math.max(endOffset - nextOffset, 0);
+		}
+
+		@Override
+		public int characteristics() {
+			return ModelIterator.this.characteristics() | Spliterator.SIZED | Spliterator.SUBSIZED;
+		}
+
+		private boolean hasMorePages() {
+			if (closed) {
+				return false;
+			}
+			return fetcher != null ? !fetcher.isDone() : nextOffset < endOffset;
+		}
+
+		private void readPage() {
+			try {
+				Page<T> page;
+				Object event = JfrEvents.beginPageLoad();
+				if (readAhead > 0) {
+					if (fetcher == null) {
+						fetcher = new PageFetcher<Page<T>>(ModelIterator.this::fetchPage, queryParams, nextOffset, endOffset, readAhead, fetchThreads, ordered);
+						splitFetchers.add(fetcher);
+					}
+					page = fetcher.next();
+				} else {
+					MailChimpQueryParameters params = (MailChimpQueryParameters) queryParams.clone();
+					params.offset(nextOffset);
+					page = fetchPage(params.getURL(), nextOffset);
+				}
+				nextOffset += queryParams.getCount();
+				if (page != null) {
+					int items = pageEntities(page, buffer::offer);
+					JfrEvents.commitPageLoad(event, page.url, modelClass, page.offset, queryParams.getCount(), items, totalItems);
+				}
+			} catch (RuntimeException e) {
+				throw e;
+			} catch (Exception e) {
+				throw new RuntimeException(e);
+			}
+		}
+	}
 }
@@ -0,0 +1,170 @@
+package com.github.bananaj.model;
+
+import java.net.URL;
+import java.util.Deque;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.github.bananaj.connection.MailChimpQueryParameters;
+
+/**
+ * Fetches pages of a paginated MailChimp API in the background. Page offsets
+ * are known up front from the page size and total number of items so up to
+ * <code>depth</code> pages following the page being consumed are requested
+ * ahead of time using a bounded pool of worker threads. Pages are delivered in
+ * offset order or, when unordered, in the order they arrive. Pages are read
+ * in the background by a {@link PageReader}, which decodes the page into
+ * model objects when a {@link com.github.bananaj.codec.ModelCodec} is used,
+ * or into a JSONObject left for the consumer to build models from.
+ *
+ * @param <P> Type of the pages read
+ */
+class PageFetcher<P> {
+
+	/**
+	 * Reads the page at a URL
+	 * @param <P> Type of the page
+	 */
+	@FunctionalInterface
+	interface PageReader<P> {
+		/**
+		 * @param url URL of the page
+		 * @param offset Offset of the page, for the page to record where it was read from
+		 */
+		P read(URL url, int offset) throws Exception;
+	}
+
+	private static final AtomicInteger threadNumber = new AtomicInteger(1);
+
+	private final PageReader<P> reader;
+	private final MailChimpQueryParameters queryParams;
+	private final int count;
+	private final int endOffset;
+	private final int depth;
+	private final Deque<Future<P>> pending = new ConcurrentLinkedDeque<Future<P>>();
+	private final ExecutorService executor;
+	private final CompletionService<P> completion;	// null when pages are delivered in order
+	private int nextOffset;
+	private volatile boolean closed = false;
+
+	/**
+	 * @param reader Reads each page, called on the worker threads
+	 * @param queryParams Query parameters of the paged request. Offset is replaced for each page.
+	 * @param startOffset Offset of the first page to fetch
+	 * @param endOffset Offset at which to stop fetching, normally total_items
+	 * @param depth Maximum number of pages fetched ahead of the consumer
+	 * @param threads Number of worker threads fetching pages concurrently
+	 * @param ordered true to deliver pages in offset order, false to deliver them as they arrive
+	 */
+	PageFetcher(PageReader<P> reader, MailChimpQueryParameters queryParams, int startOffset, int endOffset, int depth, int threads, boolean ordered) {
+		this.reader = reader;
+		this.queryParams = (MailChimpQueryParameters) queryParams.clone();
+		this.count = queryParams.getCount();
+		this.nextOffset = startOffset;
+		this.endOffset = endOffset;
+		this.depth = Math.max(depth, 1);
+		int poolSize = Math.max(Math.min(threads, this.depth), 1);
+		ThreadPoolExecutor pool = new ThreadPoolExecutor(poolSize, poolSize, 30, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory());
+		pool.allowCoreThreadTimeOut(true);	// don't hold threads for abandoned iterators
+		this.executor = pool;
+		this.completion = ordered ? null : new ExecutorCompletionService<P>(pool);
+	}
+
+	/**
+	 * Get the next page, waiting for it to arrive if needed, and request the
+	 * pages following it. Errors encountered fetching the page in the
+	 * background are thrown here, on the consuming thread.
+	 * @return The next page or null when all pages have been fetched
+	 * @throws Exception
+	 */
+	P next() throws Exception {
+		fill();
+		if (closed || pending.isEmpty()) {
+			return null;
+		}
+		Future<P> page;
+		if (completion != null) {
+			page = completion.take();
+			pending.remove(page);
+		} else {
+			page = pending.poll();
+		}
+		fill();
+
+		try {
+			return page.get();
+		} catch (CancellationException e) {
+			if (closed) {
+				return null;
+			}
+			throw e;
+		} catch (ExecutionException e) {
+			close();
+			Throwable cause = e.getCause();
+			if (cause instanceof Exception) {
+				throw (Exception) cause;
+			}
+			throw e;
+		} finally {
+			if (isDone()) {
+				executor.shutdown();
+			}
+		}
+	}
+
+	/**
+	 * @return true if there are no more pages to fetch
+	 */
+	boolean isDone() {
+		return closed || (pending.isEmpty() && nextOffset >= endOffset);
+	}
+
+	/**
+	 * Stop fetching pages. Requests in progress are interrupted. May be called
+	 * from a thread other than the consumer, in which case a consumer waiting
+	 * for a page receives null.
+	 */
+	void close() {
+		closed = true;
+		for (Future<P> f : pending) {
+			f.cancel(true);
+		}
+		executor.shutdownNow();
+	}
+
+	private void fill() {
+		while (!closed && pending.size() < depth && nextOffset < endOffset) {
+			final int offset = nextOffset;
+			nextOffset += count;
+			pending.offer(completion != null ? 
+					completion.submit(() -> fetch(offset)) : 
+					executor.submit(() -> fetch(offset)));
+		}
+	}
+
+	private P fetch(int offset) throws Exception {
+		MailChimpQueryParameters params = (MailChimpQueryParameters) queryParams.clone();
+		params.offset(offset);
+		return reader.read(params.getURL(), offset);
+	}
+
+	private static class DaemonThreadFactory implements ThreadFactory {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "bananaj-page-fetcher-" + threadNumber.getAndIncrement());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -97,7 +97,7 @@ public class Automation implements JSONParser {
 	 */
 	public Iterable<AutomationEmail> getEmails() throws IOException, Exception {
 		final String baseURL = URLHelper.join(connection.getAutomationendpoint(), "/", getId(), "/emails");
-		return new ModelIterator<AutomationEmail>(AutomationEmail.class, baseURL, connection);
+		return new ModelIterator<AutomationEmail>(AutomationEmail::new, baseURL, connection);
 	}
 
 // Does this endpoint support query parameters? 
@@ -110,7 +110,7 @@ public class Automation implements JSONParser {
 //	 */
 //	public Iterable<AutomationEmail> getEmails(MailChimpQueryParameters queryParameters) throws IOException, Exception {
 //		final String baseURL = URLHelper.join(connection.getAutomationendpoint(), "/", getId(), "/emails");
-//		return new ModelIterator<AutomationEmail>(AutomationEmail.class, baseURL, connection, queryParameters);
+//		return new ModelIterator<AutomationEmail>(AutomationEmail::new, baseURL, connection, queryParameters);
 //	}
 
 	/**
@@ -0,0 +1,184 @@
+package com.github.bananaj.model.batch;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import com.github.bananaj.connection.MailChimpConnection;
+
+/**
+ * Tracks a set of batch operations submitted together, such as a large job
+ * split across several batches. Progress is reported as the sum over all
+ * batches.
+ */
+public class BatchGroup {
+	private final MailChimpConnection connection;
+	private final List<BatchInfo> batches = new ArrayList<BatchInfo>();
+
+	public BatchGroup(MailChimpConnection connection) {
+		this.connection = connection;
+	}
+
+	public BatchGroup(MailChimpConnection connection, List<BatchInfo> batches) {
+		this.connection = connection;
+		this.batches.addAll(batches);
+	}
+
+	/**
+	 * Add a batch to the group
+	 * @param batch
+	 */
+	public synchronized void add(BatchInfo batch) {
+		batches.add(batch);
+	}
+
+	/**
+	 * @return the MailChimp com.github.bananaj.connection
+	 */
+	public MailChimpConnection getConnection() {
+		return connection;
+	}
+
+	/**
+	 * @return The batches in the order they were submitted
+	 */
+	public synchronized List<BatchInfo> getBatches() {
+		return Collections.unmodifiableList(new ArrayList<BatchInfo>(batches));
+	}
+
+	/**
+	 * @return Number of batches in the group
+	 */
+	public synchronized int size() {
+		return batches.size();
+	}
+
+	/**
+	 * @return Number of operations in all batches
+	 */
+	public synchronized int getTotalOperations() {
+		int total = 0;
+		for (BatchInfo b : batches) {
+			total += valueOf(b.getTotalOperations());
+		}
+		return total;
+	}
+
+	/**
+	 * @return Number of finished operations in all batches
+	 */
+	public synchronized int getFinishedOperations() {
+		int total = 0;
+		for (BatchInfo b : batches) {
+			total += valueOf(b.getFinishedOperations());
+		}
+		return total;
+	}
+
+	/**
+	 * @return Number of errored operations in all batches
+	 */
+	public synchronized int getErroredOperations() {
+		int total = 0;
+		for (BatchInfo b : batches) {
+			total += valueOf(b.getErroredOperations());
+		}
+		return total;
+	}
+
+	/**
+	 * @return true when every batch in the group has finished
+	 */
+	public synchronized boolean isFinished() {
+		for (BatchInfo b : batches) {
+			if (b.getStatus() != BatchStatus.FINISHED) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Refresh the status of batches that have not finished
+	 * @return this
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public BatchGroup update() throws IOException, Exception {
+		for (BatchInfo b : getBatches()) {
+			if (b.getStatus() != BatchStatus.FINISHED) {
+				b.update(null);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Poll the status of the batches until all have finished
+	 * @param pollInterval Time to wait between status checks
+	 * @param unit
+	 * @return this
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public BatchGroup waitForCompletion(long pollInterval, TimeUnit unit) throws IOException, Exception {
+		while (!update().isFinished()) {
+			unit.sleep(pollInterval);
+		}
+		return this;
+	}
+
+	/**
+	 * Download the results of all batches in the group, one batch at a time in
+	 * the order they were submitted. See {@link BatchInfo#getResults()}. The
+	 * stream must be closed to release the current download.
+	 * @return Stream of operation results of all batches
+	 * @throws IllegalStateException If a batch has not finished
+	 */
+	public Stream<BatchResult> getResults() {
+		for (BatchInfo b : getBatches()) {
+			if (b.getStatus() != BatchStatus.FINISHED) {
+				throw new IllegalStateException("Batch " + b.getId() + " results are not available until the batch has finished");
+			}
+		}
+		return getBatches().stream().flatMap(b -> {
+			try {
+				return b.getResults();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} catch (URISyntaxException e) {
+				throw new IllegalStateException("Invalid response body url for batch " + b.getId(), e);
+			}
+		});
+	}
+
+	/**
+	 * Download the results of all batches keeping only failed operations. See {@link #getResults()}.
+	 * @return Stream of results for operations that did not succeed
+	 */
+	public Stream<BatchResult> getFailedResults() {
+		return getResults().filter(r -> !r.isSuccess());
+	}
+
+	private static int valueOf(Integer i) {
+		return i != null ? i : 0;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("Batch Group: " + size() + " batches" + System.lineSeparator());
+		sb.append("  TotalOperations: " + getTotalOperations() + System.lineSeparator());
+		sb.append("  Finished Operations: " + getFinishedOperations() + System.lineSeparator());
+		sb.append("  Errored Operations: " + getErroredOperations() + System.lineSeparator());
+		for (BatchInfo b : getBatches()) {
+			sb.append("  " + b.getId() + " " + b.getStatus() + System.lineSeparator());
+		}
+		return sb.toString();
+	}
+}
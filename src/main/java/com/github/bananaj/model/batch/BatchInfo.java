@@ -1,7 +1,17 @@
 package com.github.bananaj.model.batch;
 
+import java.io.BufferedInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.net.URL;
 import java.time.ZonedDateTime;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import java.util.zip.GZIPInputStream;
 
 import org.json.JSONObject;
 
@@ -9,9 +19,9 @@ import com.github.bananaj.connection.MailChimpConnection;
 import com.github.bananaj.connection.MailChimpQueryParameters;
 import com.github.bananaj.model.JSONParser;
 import com.github.bananaj.utils.JSONObjectCheck;
+import com.github.bananaj.utils.TarInputStream;
 import com.github.bananaj.utils.URLHelper;
 
-// TODO: add methods to download response body
 /**
  * Object representing the status of a mailchimp batch operation
  *
@@ -49,6 +59,19 @@ public class BatchInfo implements JSONParser {
 		responseBodyUrl = jObj.getString("response_body_url");
 	}
 
+	/**
+	 * Update this with the status of another instance of the same batch
+	 */
+	void copyFrom(BatchInfo other) {
+		status = other.status;
+		totalOperations = other.totalOperations;
+		finishedOperations = other.finishedOperations;
+		erroredOperations = other.erroredOperations;
+		submittedAt = other.submittedAt;
+		completedAt = other.completedAt;
+		responseBodyUrl = other.responseBodyUrl;
+	}
+
 	/**
 	 * @return the MailChimp com.github.bananaj.connection
 	 */
@@ -136,6 +159,52 @@ public class BatchInfo implements JSONParser {
 		return this;
 	}
 
+	/**
+	 * Download and parse the results of the batch operations. The response
+	 * body archive is read as the returned stream is consumed, it is never
+	 * held in memory or written to disk. The stream must be closed to release
+	 * the download, preferably using try-with-resources.
+	 * <p>
+	 * Results are only available once the batch has finished. Update the batch
+	 * status first if needed.
+	 * 
+	 * @return Stream of operation results
+	 * @throws IOException
+	 * @throws URISyntaxException
+	 */
+	public Stream<BatchResult> getResults() throws IOException, URISyntaxException {
+		if (responseBodyUrl == null || responseBodyUrl.isEmpty()) {
+			throw new IllegalStateException("Batch " + getId() + " results are not available until the batch has finished");
+		}
+		// pre-signed download url, the MailChimp credentials must not be sent
+		InputStream in = connection.do_GetStream(new URL(responseBodyUrl), null);
+		final BatchResultIterator it;
+		try {
+			it = new BatchResultIterator(new TarInputStream(new GZIPInputStream(new BufferedInputStream(in, 65536))));
+		} catch (IOException | RuntimeException e) {
+			in.close();
+			throw e;
+		}
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(it, Spliterator.ORDERED | Spliterator.NONNULL), false)
+				.onClose(() -> {
+					try {
+						it.close();
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				});
+	}
+
+	/**
+	 * Download the batch results keeping only failed operations. See {@link #getResults()}.
+	 * @return Stream of results for operations that did not succeed
+	 * @throws IOException
+	 * @throws URISyntaxException
+	 */
+	public Stream<BatchResult> getFailedResults() throws IOException, URISyntaxException {
+		return getResults().filter(r -> !r.isSuccess());
+	}
+
 	/**
 	 * Stops a batch request from running. Since only one batch request is run at a
 	 * time, this can be used to cancel a long running request. The results of any
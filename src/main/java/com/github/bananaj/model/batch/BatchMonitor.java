@@ -0,0 +1,303 @@
+package com.github.bananaj.model.batch;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.connection.MailChimpQueryParameters;
+import com.github.bananaj.model.ModelIterator;
+
+/**
+ * Tracks batch operations until they finish. A single background thread polls
+ * the status of all watched batches and completes the future returned for
+ * each batch once it has finished.
+ * <p>
+ * Polling adapts to each batch: batches waiting to start are polled with
+ * increasing intervals, running batches are polled at about half their
+ * estimated remaining time based on the observed rate of progress. When many
+ * batches are due at once their status is refreshed from a single page of the
+ * <code>GET /batches</code> listing instead of one request per batch. The API
+ * has no status filter for the listing, batches not on the first page are
+ * polled individually.
+ * <p>
+ * Progress callbacks are invoked on the polling thread whenever the status or
+ * number of finished operations of a batch changes and must not block.
+ */
+public class BatchMonitor implements Closeable {
+	final static Logger logger = Logger.getLogger(BatchMonitor.class);
+
+	public static final long DEFAULT_MIN_POLL_MILLIS = 2000;
+	public static final long DEFAULT_MAX_POLL_MILLIS = 60000;
+	private static final int LIST_THRESHOLD = 5;	// due batches at which a single listing is cheaper than individual requests
+	private static final int LIST_COUNT = 1000;		// batches read from the listing, a single page
+	private static final int MAX_FAILURES = 5;
+	private static final String LIST_FIELDS = "total_items,batches.id,batches.status,batches.total_operations,batches.finished_operations,"
+			+ "batches.errored_operations,batches.submitted_at,batches.completed_at,batches.response_body_url";
+
+	private final MailChimpConnection connection;
+	private final long minPollMillis;
+	private final long maxPollMillis;
+	private final ScheduledExecutorService scheduler;
+	private final Set<Watch> watches = ConcurrentHashMap.newKeySet();
+
+	private static class Watch {
+		final String id;
+		final CompletableFuture<BatchInfo> future = new CompletableFuture<BatchInfo>();
+		final Consumer<? super BatchInfo> progress;
+		BatchInfo batch;
+		long nextPoll;
+		long interval;
+		long lastPoll;
+		int lastFinished = -1;
+		BatchStatus lastStatus;
+		int failures;
+
+		Watch(String id, BatchInfo batch, Consumer<? super BatchInfo> progress) {
+			this.id = id;
+			this.batch = batch;
+			this.progress = progress;
+		}
+	}
+
+	public BatchMonitor(MailChimpConnection connection) {
+		this(connection, DEFAULT_MIN_POLL_MILLIS, DEFAULT_MAX_POLL_MILLIS, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * @param connection
+	 * @param minPollInterval Shortest time between status checks of a batch
+	 * @param maxPollInterval Longest time between status checks of a batch
+	 * @param unit
+	 */
+	public BatchMonitor(MailChimpConnection connection, long minPollInterval, long maxPollInterval, TimeUnit unit) {
+		this.connection = connection;
+		this.minPollMillis = Math.max(unit.toMillis(minPollInterval), 1);
+		this.maxPollMillis = Math.max(unit.toMillis(maxPollInterval), this.minPollMillis);
+		this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+			Thread t = new Thread(r, "bananaj-batch-monitor");
+			t.setDaemon(true);
+			return t;
+		});
+		scheduler.scheduleWithFixedDelay(this::poll, 0, minPollMillis, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Watch a batch until it finishes.
+	 * @param batchId
+	 * @return Future completed with the final batch status. Cancel it to stop watching.
+	 */
+	public CompletableFuture<BatchInfo> watch(String batchId) {
+		return watch(batchId, null);
+	}
+
+	/**
+	 * Watch a batch until it finishes.
+	 * @param batchId
+	 * @param progress Called with the current status when progress is made, may be null
+	 * @return Future completed with the final batch status. Cancel it to stop watching.
+	 */
+	public CompletableFuture<BatchInfo> watch(String batchId, Consumer<? super BatchInfo> progress) {
+		return add(new Watch(batchId, null, progress));
+	}
+
+	/**
+	 * Watch a batch until it finishes. The batch is updated in place as its
+	 * status is polled.
+	 * @param batch
+	 * @return Future completed with the batch once finished. Cancel it to stop watching.
+	 */
+	public CompletableFuture<BatchInfo> watch(BatchInfo batch) {
+		return watch(batch, null);
+	}
+
+	/**
+	 * Watch a batch until it finishes. The batch is updated in place as its
+	 * status is polled.
+	 * @param batch
+	 * @param progress Called with the batch when progress is made, may be null
+	 * @return Future completed with the batch once finished. Cancel it to stop watching.
+	 */
+	public CompletableFuture<BatchInfo> watch(BatchInfo batch, Consumer<? super BatchInfo> progress) {
+		Watch w = new Watch(batch.getId(), batch, progress);
+		if (batch.getStatus() == BatchStatus.FINISHED) {
+			w.future.complete(batch);
+			return w.future;
+		}
+		return add(w);
+	}
+
+	/**
+	 * Watch all batches of a group until they finish. The batches are updated
+	 * in place as their status is polled.
+	 * @param group
+	 * @param progress Called with the group when progress is made on any batch, may be null
+	 * @return Future completed with the group once all batches have finished
+	 */
+	public CompletableFuture<BatchGroup> watch(BatchGroup group, Consumer<? super BatchGroup> progress) {
+		List<CompletableFuture<BatchInfo>> futures = new ArrayList<CompletableFuture<BatchInfo>>();
+		for (BatchInfo b : group.getBatches()) {
+			futures.add(watch(b, progress != null ? info -> progress.accept(group) : null));
+		}
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).thenApply(v -> group);
+	}
+
+	/**
+	 * @return Number of batches being watched
+	 */
+	public int size() {
+		return watches.size();
+	}
+
+	/**
+	 * Stop polling. Futures of batches still being watched are cancelled.
+	 */
+	@Override
+	public void close() {
+		scheduler.shutdownNow();
+		for (Watch w : watches) {
+			w.future.cancel(false);
+		}
+		watches.clear();
+	}
+
+	private CompletableFuture<BatchInfo> add(Watch w) {
+		if (scheduler.isShutdown()) {
+			throw new IllegalStateException("BatchMonitor has been closed");
+		}
+		w.interval = minPollMillis;
+		w.nextPoll = now();
+		watches.add(w);
+		w.future.whenComplete((b, t) -> watches.remove(w));
+		return w.future;
+	}
+
+	/**
+	 * Poll all batches that are due. Runs on the scheduler thread.
+	 */
+	private void poll() {
+		try {
+			long now = now();
+			List<Watch> due = new ArrayList<Watch>();
+			for (Watch w : watches) {
+				if (!w.future.isDone() && w.nextPoll <= now) {
+					due.add(w);
+				}
+			}
+			if (due.size() >= LIST_THRESHOLD) {
+				due = pollListing(due);
+			}
+			for (Watch w : due) {
+				try {
+					update(w, connection.getBatch(w.id, null));
+				} catch (Exception e) {
+					failed(w, e);
+				}
+			}
+		} catch (RuntimeException e) {
+			logger.error("Batch status poll failed: " + e.getMessage(), e);	// keep the scheduler running
+		}
+	}
+
+	/**
+	 * Refresh due batches from the first page of the list of recent batches.
+	 * @return Batches that were not found in the listing
+	 */
+	private List<Watch> pollListing(List<Watch> due) {
+		Map<String, List<Watch>> remaining = new HashMap<String, List<Watch>>();
+		for (Watch w : due) {
+			remaining.computeIfAbsent(w.id, k -> new ArrayList<Watch>()).add(w);
+		}
+		MailChimpQueryParameters query = new MailChimpQueryParameters()
+				.count(LIST_COUNT)
+				.includeFields(LIST_FIELDS);
+		try (ModelIterator<BatchInfo> listing = new ModelIterator<BatchInfo>(BatchInfo::new, connection.getBatchendpoint(), connection, query)) {
+			Iterator<BatchInfo> it = listing.iterator();
+			// stop at the end of the first page, the next page would be requested by hasNext()
+			for (int i = 0; i < LIST_COUNT && !remaining.isEmpty() && it.hasNext(); i++) {
+				BatchInfo b = it.next();
+				List<Watch> matches = remaining.remove(b.getId());
+				if (matches != null) {
+					for (Watch w : matches) {
+						update(w, b);
+					}
+				}
+			}
+		} catch (Exception e) {
+			logger.warn("Batch listing failed, polling batches individually: " + e.getMessage());
+		}
+		List<Watch> notListed = new ArrayList<Watch>();
+		for (List<Watch> l : remaining.values()) {
+			notListed.addAll(l);
+		}
+		return notListed;
+	}
+
+	private void update(Watch w, BatchInfo current) {
+		long now = now();
+		if (w.batch == null) {
+			w.batch = current;
+		} else if (w.batch != current) {
+			w.batch.copyFrom(current);
+		}
+		w.failures = 0;
+
+		BatchInfo b = w.batch;
+		int finished = b.getFinishedOperations() != null ? b.getFinishedOperations() : 0;
+		int total = b.getTotalOperations() != null ? b.getTotalOperations() : 0;
+		if (w.progress != null && (finished != w.lastFinished || b.getStatus() != w.lastStatus)) {
+			try {
+				w.progress.accept(b);
+			} catch (RuntimeException e) {
+				logger.error("Batch progress callback failed: " + e.getMessage(), e);
+			}
+		}
+
+		if (b.getStatus() == BatchStatus.FINISHED) {
+			w.future.complete(b);
+			return;
+		}
+
+		if (b.getStatus() == BatchStatus.FINALIZING) {
+			w.interval = minPollMillis;
+		} else if (b.getStatus() == BatchStatus.STARTED && w.lastFinished >= 0 && finished > w.lastFinished && total > finished) {
+			// poll at half the estimated time to completion
+			double rate = (double) (finished - w.lastFinished) / Math.max(now - w.lastPoll, 1);
+			long eta = (long) ((total - finished) / rate);
+			w.interval = Math.max(minPollMillis, Math.min(maxPollMillis, eta / 2));
+		} else {
+			w.interval = Math.min(w.interval * 2, maxPollMillis);	// not started or no progress, back off
+		}
+		w.lastFinished = finished;
+		w.lastStatus = b.getStatus();
+		w.lastPoll = now;
+		w.nextPoll = now + w.interval;
+	}
+
+	private void failed(Watch w, Exception e) {
+		if (++w.failures >= MAX_FAILURES) {
+			logger.error("Batch " + w.id + " status poll failed: " + e.getMessage(), e);
+			w.future.completeExceptionally(e);
+			return;
+		}
+		logger.warn("Batch " + w.id + " status poll failed, will retry: " + e.getMessage());
+		w.interval = Math.min(w.interval * 2, maxPollMillis);
+		w.nextPoll = now() + w.interval;
+	}
+
+	private static long now() {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+	}
+}
@@ -0,0 +1,66 @@
+package com.github.bananaj.model.batch;
+
+import org.json.JSONObject;
+
+import com.github.bananaj.utils.JSONObjectCheck;
+
+/**
+ * The result of a single operation in a batch, as reported in the batch
+ * response body archive.
+ * 
+ * @see BatchInfo#getResults()
+ */
+public class BatchResult {
+	private String operationId;
+	private int statusCode;
+	private String response;
+
+	public BatchResult() {
+
+	}
+
+	public BatchResult(JSONObject result) {
+		parse(result);
+	}
+
+	public void parse(JSONObject result) {
+		JSONObjectCheck jObj = new JSONObjectCheck(result);
+		operationId = jObj.getString("operation_id");
+		Integer status = jObj.getInt("status_code");
+		statusCode = status != null ? status : 0;
+		response = jObj.getString("response");
+	}
+
+	/**
+	 * @return The operation id supplied when the operation was created, or null
+	 */
+	public String getOperationId() {
+		return operationId;
+	}
+
+	/**
+	 * @return The HTTP status code of the operation
+	 */
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	/**
+	 * @return The JSON response body of the operation
+	 */
+	public String getResponse() {
+		return response;
+	}
+
+	/**
+	 * @return true if the operation succeeded with a 2xx status code
+	 */
+	public boolean isSuccess() {
+		return statusCode >= 200 && statusCode <= 299;
+	}
+
+	@Override
+	public String toString() {
+		return (operationId != null ? operationId + " " : "") + statusCode + " " + response;
+	}
+}
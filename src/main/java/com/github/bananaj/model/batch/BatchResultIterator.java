@@ -0,0 +1,100 @@
+package com.github.bananaj.model.batch;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.json.JSONObject;
+import org.json.JSONTokener;
+
+import com.github.bananaj.utils.TarInputStream;
+
+/**
+ * Reads operation results from a batch response body archive. Each JSON file
+ * in the archive holds an array of results which are parsed one element at a
+ * time as the iterator advances.
+ */
+class BatchResultIterator implements Iterator<BatchResult>, Closeable {
+
+	private final TarInputStream tar;
+	private JSONTokener tokener;	// positioned within the result array of the current file, null between files
+	private BatchResult next;
+	private boolean done = false;
+
+	BatchResultIterator(TarInputStream tar) {
+		this.tar = tar;
+	}
+
+	@Override
+	public boolean hasNext() {
+		if (next == null && !done) {
+			try {
+				next = readNext();
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+			done = next == null;
+		}
+		return next != null;
+	}
+
+	@Override
+	public BatchResult next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		BatchResult result = next;
+		next = null;
+		return result;
+	}
+
+	@Override
+	public void close() throws IOException {
+		done = true;
+		next = null;
+		tar.close();
+	}
+
+	private BatchResult readNext() throws IOException {
+		while (true) {
+			if (tokener == null) {
+				TarInputStream.Entry entry = tar.getNextEntry();
+				if (entry == null) {
+					return null;
+				}
+				if (!entry.isFile() || !entry.getName().endsWith(".json")) {
+					continue;
+				}
+				// the reader is bounded by the entry and is abandoned, not closed, at its end
+				tokener = new JSONTokener(new InputStreamReader(tar, StandardCharsets.UTF_8));
+				char c = tokener.nextClean();
+				if (c == 0) {
+					tokener = null;
+					continue;	// empty file
+				}
+				if (c != '[') {
+					throw new IOException("Unexpected content in batch response " + entry.getName());
+				}
+				if (tokener.nextClean() == ']') {
+					tokener = null;
+					continue;
+				}
+				tokener.back();
+			} else {
+				char c = tokener.nextClean();
+				if (c == ']') {
+					tokener = null;
+					continue;
+				}
+				if (c != ',') {
+					throw tokener.syntaxError("Expected ',' or ']'");
+				}
+			}
+			return new BatchResult(new JSONObject(tokener));
+		}
+	}
+}
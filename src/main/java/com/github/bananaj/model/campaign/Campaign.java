@@ -36,16 +36,22 @@ public class Campaign implements JSONParser {
 	private String parentCampaignId;
 	private CampaignType type;
 	private ZonedDateTime createTime;
+	private String rawCreateTime;		// undecoded ISO 8601 text with lazy decoding
 	private String archiveUrl;
 	private String longArchiveUrl;
 	private CampaignStatus status;
 	private Integer emailsSent;
 	private ZonedDateTime sendTime;
+	private String rawSendTime;
 	private CampaignContentType contentType;
 	private Boolean needsBlockRefresh;
 	private Boolean resendable;
 	private CampaignRecipients recipients;
 	private CampaignSettings settings;
+	private JSONObject rawRecipients;	// undecoded objects with lazy decoding
+	private JSONObject rawSettings;
+	private JSONObject rawTracking;
+	private JSONObject rawReportSummary;
 	//private VariateSettings variate_settings;
 	private Tracking tracking;
 	//private RssOpts rss_opts;
@@ -66,32 +72,50 @@ public class Campaign implements JSONParser {
 
 	public void parse(MailChimpConnection connection, JSONObject campaign) {
 		JSONObjectCheck jObj = new JSONObjectCheck(campaign);
+		boolean lazy = connection != null && connection.isLazyDecoding();
 		this.connection = connection;
 		id = jObj.getString("id");
 		this.webId = jObj.getInt("web_id");
 		this.parentCampaignId = jObj.getString("parent_campaign_id");
 		this.type = jObj.getEnum(CampaignType.class, "type");
-		this.createTime = jObj.getISO8601Date("create_time");
 		this.archiveUrl = jObj.getString("archive_url");
 		this.longArchiveUrl = jObj.getString("long_archive_url");
 		this.status =  jObj.getEnum(CampaignStatus.class, "status");
 		this.emailsSent = jObj.getInt("emails_sent");
-		this.sendTime = jObj.getISO8601Date("send_time");
 		this.contentType = jObj.getEnum(CampaignContentType.class, "content_type");
 		this.needsBlockRefresh = jObj.getBoolean("needs_block_refresh");
 		this.resendable = jObj.getBoolean("resendable");
 
-		if (campaign.has("recipients")) {
-			this.recipients = new CampaignRecipients(campaign.getJSONObject("recipients"));
-		}
-		if (campaign.has("settings")) {
-			this.settings = new CampaignSettings(campaign.getJSONObject("settings"));
-		}
-		if (campaign.has("tracking")) {
-			this.tracking = new Tracking(campaign.getJSONObject("tracking"));
-		}
-		if (campaign.has("report_summary")) {
-			this.reportSummary = new ReportSummary(campaign.getJSONObject("report_summary"));
+		if (lazy) {
+			this.createTime = null;
+			this.sendTime = null;
+			this.rawCreateTime = jObj.getISO8601Text("create_time");
+			this.rawSendTime = jObj.getISO8601Text("send_time");
+			this.rawRecipients = jObj.getJSONObject("recipients");
+			this.rawSettings = jObj.getJSONObject("settings");
+			this.rawTracking = jObj.getJSONObject("tracking");
+			this.rawReportSummary = jObj.getJSONObject("report_summary");
+		} else {
+			this.createTime = jObj.getISO8601Date("create_time");
+			this.sendTime = jObj.getISO8601Date("send_time");
+			this.rawCreateTime = null;
+			this.rawSendTime = null;
+			this.rawRecipients = null;
+			this.rawSettings = null;
+			this.rawTracking = null;
+			this.rawReportSummary = null;
+			if (campaign.has("recipients")) {
+				this.recipients = new CampaignRecipients(campaign.getJSONObject("recipients"));
+			}
+			if (campaign.has("settings")) {
+				this.settings = new CampaignSettings(campaign.getJSONObject("settings"));
+			}
+			if (campaign.has("tracking")) {
+				this.tracking = new Tracking(campaign.getJSONObject("tracking"));
+			}
+			if (campaign.has("report_summary")) {
+				this.reportSummary = new ReportSummary(campaign.getJSONObject("report_summary"));
+			}
 		}
 	}
 	
@@ -109,9 +133,9 @@ public class Campaign implements JSONParser {
 	public void update() throws IOException, Exception {
 		JSONObject jsonObj = new JSONObject();
 		//jsonObj.put("recipients", recipients.getJsonRepresentation());
-		jsonObj.put("settings", settings.getJsonRepresentation());
+		jsonObj.put("settings", getSettings().getJsonRepresentation());
 		//jsonObj.put("variate_settings", settings.getJsonRepresentation());
-		jsonObj.put("tracking", settings.getJsonRepresentation());
+		jsonObj.put("tracking", getSettings().getJsonRepresentation());
 		//jsonObj.put("rss_opts", settings.getJsonRepresentation());
 		//jsonObj.put("social_card", settings.getJsonRepresentation());
 		String response = getConnection().do_Patch(new URL(getConnection().getCampaignendpoint()+"/"+getId()), jsonObj.toString(), getConnection().getApikey());
@@ -350,6 +374,10 @@ public class Campaign implements JSONParser {
 	 * The date and time the campaign was created
 	 */
 	public ZonedDateTime getCreateTime() {
+		if (rawCreateTime != null) {
+			createTime = DateConverter.fromISO8601(rawCreateTime);
+			rawCreateTime = null;
+		}
 		return createTime;
 	}
 
@@ -385,6 +413,10 @@ public class Campaign implements JSONParser {
 	 * The date and time a campaign was sent
 	 */
 	public ZonedDateTime getSendTime() {
+		if (rawSendTime != null) {
+			sendTime = DateConverter.fromISO8601(rawSendTime);
+			rawSendTime = null;
+		}
 		return sendTime;
 	}
 
@@ -413,6 +445,10 @@ public class Campaign implements JSONParser {
 	 * List settings for the campaign
 	 */
 	public CampaignRecipients getRecipients() {
+		if (rawRecipients != null) {
+			recipients = new CampaignRecipients(rawRecipients);
+			rawRecipients = null;
+		}
 		return recipients;
 	}
 
@@ -420,6 +456,10 @@ public class Campaign implements JSONParser {
 	 * The settings for your campaign, including subject, from name, reply-to address, and more
 	 */
 	public CampaignSettings getSettings() {
+		if (rawSettings != null) {
+			settings = new CampaignSettings(rawSettings);
+			rawSettings = null;
+		}
 		return settings;
 	}
 
@@ -427,6 +467,10 @@ public class Campaign implements JSONParser {
 	 * The tracking options for a campaign
 	 */
 	public Tracking getTracking() {
+		if (rawTracking != null) {
+			tracking = new Tracking(rawTracking);
+			rawTracking = null;
+		}
 		return tracking;
 	}
 
@@ -434,6 +478,10 @@ public class Campaign implements JSONParser {
 	 * For sent campaigns, a summary of opens, clicks, and e-commerce data
 	 */
 	public ReportSummary getReportSummary() {
+		if (rawReportSummary != null) {
+			reportSummary = new ReportSummary(rawReportSummary);
+			rawReportSummary = null;
+		}
 		return reportSummary;
 	}
 
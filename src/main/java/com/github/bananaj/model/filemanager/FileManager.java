@@ -35,7 +35,7 @@ public class FileManager {
 	 * @throws Exception 
 	 */
 	public Iterable<FileManagerFolder> getFolders() throws IOException, Exception {
-		return new ModelIterator<FileManagerFolder>(FileManagerFolder.class, getConnection().getFilemanagerfolderendpoint(), getConnection());
+		return new ModelIterator<FileManagerFolder>(FileManagerFolder::new, getConnection().getFilemanagerfolderendpoint(), getConnection());
 	}
 
 	/**
@@ -47,7 +47,7 @@ public class FileManager {
 	 * @throws Exception
 	 */
 	public Iterable<FileManagerFolder> getFolders(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
-		return new ModelIterator<FileManagerFolder>(FileManagerFolder.class, getConnection().getFilemanagerfolderendpoint(), getConnection(), queryParameters);
+		return new ModelIterator<FileManagerFolder>(FileManagerFolder::new, getConnection().getFilemanagerfolderendpoint(), getConnection(), queryParameters);
 	}
 
 	/**
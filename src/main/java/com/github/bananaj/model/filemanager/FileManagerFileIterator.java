@@ -16,15 +16,15 @@ public class FileManagerFileIterator extends ModelIterator<FileManagerFile> {
 	Long totalFileSize;
 
 	public FileManagerFileIterator(MailChimpConnection connection, int count) {
-		super(FileManagerFile.class, connection.getFilesendpoint(), connection, count);
+		super(FileManagerFile::new, connection.getFilesendpoint(), connection, count);
 	}
 
 	public FileManagerFileIterator(MailChimpConnection connection, final MailChimpQueryParameters params) {
-		super(FileManagerFile.class, connection.getFilesendpoint(), connection, params);
+		super(FileManagerFile::new, connection.getFilesendpoint(), connection, params);
 	}
 
 	public FileManagerFileIterator(MailChimpConnection connection) {
-		super(FileManagerFile.class, connection.getFilesendpoint(), connection);
+		super(FileManagerFile::new, connection.getFilesendpoint(), connection);
 	}
 
 	@Override
@@ -13,17 +13,23 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.stream.Stream;
 
 import org.json.JSONException;
 import org.json.JSONObject;
 
 import com.github.bananaj.connection.MailChimpConnection;
 import com.github.bananaj.connection.MailChimpQueryParameters;
+import com.github.bananaj.exceptions.BatchException;
 import com.github.bananaj.exceptions.EmailException;
 import com.github.bananaj.model.JSONParser;
 import com.github.bananaj.model.ModelIterator;
 import com.github.bananaj.model.SortDirection;
+import com.github.bananaj.model.batch.BatchGroup;
+import com.github.bananaj.model.batch.BatchOperation;
+import com.github.bananaj.model.batch.OperationMethod;
 import com.github.bananaj.model.list.interests.Interest;
+import com.github.bananaj.model.list.interests.InterestCatalogue;
 import com.github.bananaj.model.list.interests.InterestCategory;
 import com.github.bananaj.model.list.member.Member;
 import com.github.bananaj.model.list.member.MemberNote;
@@ -69,6 +75,7 @@ public class MailChimpList implements JSONParser {
 	//private List<?> modules;		// Any list-specific modules installed for this list.
 	private ListStats stats;		// Stats for the list. Many of these are cached for at least five minutes.
 	private MailChimpConnection connection;
+	private InterestCatalogue interestCatalogue;
 	
 
 	public MailChimpList() {
@@ -140,7 +147,7 @@ public class MailChimpList implements JSONParser {
 	public Iterable<AbuseReport> getAbuseReports(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/abuse-reports");
-		return new ModelIterator<AbuseReport>(AbuseReport.class, baseURL, connection, queryParameters);
+		return new ModelIterator<AbuseReport>(AbuseReport::new, baseURL, connection, queryParameters);
 	}
 	
 	/**
@@ -154,7 +161,7 @@ public class MailChimpList implements JSONParser {
 	public Iterable<AbuseReport> getAbuseReports() throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/abuse-reports");
-		return new ModelIterator<AbuseReport>(AbuseReport.class, baseURL, connection);
+		return new ModelIterator<AbuseReport>(AbuseReport::new, baseURL, connection);
 	}
 
 	/**
@@ -236,7 +243,7 @@ public class MailChimpList implements JSONParser {
 	public Iterable<Member> getMembers(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/members");
-		return new ModelIterator<Member>(Member.class, baseURL, connection, queryParameters);
+		return new ModelIterator<Member>(Member::new, baseURL, connection, queryParameters);
 	}
 
 	/**
@@ -253,7 +260,23 @@ public class MailChimpList implements JSONParser {
 	public Iterable<Member> getMembers() throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/members");
-		return new ModelIterator<Member>(Member.class, baseURL, connection);
+		return new ModelIterator<Member>(Member::new, baseURL, connection);
+	}
+
+	/**
+	 * Get information about members in this list, holding each member's
+	 * interests as a bitset indexed by position in the catalogue rather than a
+	 * map. See {@link Member#getInterestBits()}.
+	 * @param queryParameters Optional query parameters to send to the MailChimp API.
+	 * @param catalogue The interest catalogue of this list, see {@link #getInterestCatalogue()}
+	 * @return List of members
+	 * @throws IOException
+	 * @throws Exception 
+	 */
+	public Iterable<Member> getMembers(final MailChimpQueryParameters queryParameters, final InterestCatalogue catalogue) throws IOException, Exception {
+		Objects.requireNonNull(connection, "MailChimpConnection");
+		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/members");
+		return new ModelIterator<Member>(() -> new Member(catalogue), baseURL, connection, queryParameters);
 	}
 
 	/**
@@ -392,6 +415,54 @@ public class MailChimpList implements JSONParser {
 		return member;
 	}
 
+	/**
+	 * Add or update list members in bulk using batch operations. Each member is
+	 * converted to a PUT operation, as with {@link #addOrUpdateMember(Member)},
+	 * and operations are submitted in batches of
+	 * {@link MailChimpConnection#DEFAULT_BATCH_SIZE}. Members are read from
+	 * the stream as batches are submitted so the stream may be arbitrarily
+	 * large. The operation id of each operation is the subscriber hash of the
+	 * member.
+	 * 
+	 * @param members
+	 * @return Handle tracking the submitted batches
+	 * @throws BatchException If a batch could not be submitted. Batches
+	 *                        submitted before the failure are available from
+	 *                        {@link BatchException#getSubmitted()}.
+	 */
+	public BatchGroup upsertMembers(Stream<Member> members) throws BatchException {
+		return upsertMembers(members, MailChimpConnection.DEFAULT_BATCH_SIZE);
+	}
+
+	/**
+	 * Add or update list members in bulk using batch operations. See {@link #upsertMembers(Stream)}.
+	 * 
+	 * @param members
+	 * @param batchSize Maximum number of members per batch
+	 * @return Handle tracking the submitted batches
+	 * @throws BatchException If a batch could not be submitted. Batches
+	 *                        submitted before the failure are available from
+	 *                        {@link BatchException#getSubmitted()}.
+	 */
+	public BatchGroup upsertMembers(Stream<Member> members, int batchSize) throws BatchException {
+		Objects.requireNonNull(connection, "MailChimpConnection");
+		return connection.createBatches(members.map(this::upsertOperation).iterator(), batchSize);
+	}
+
+	private BatchOperation upsertOperation(Member member) {
+		JSONObject json = member.getJsonRepresentation();
+		if (member.getStatusIfNew() == null) {
+			json.put("status_if_new", MemberStatus.SUBSCRIBED.toString());
+		}
+		String subscriberHash = Member.subscriberHash(member.getEmailAddress());
+		return new BatchOperation.Builder()
+				.method(OperationMethod.PUT)
+				.path("/lists/" + getId() + "/members/" + subscriberHash)
+				.body(json.toString())
+				.operationId(subscriberHash)
+				.build();
+	}
+
 	/**
 	 * Delete a member from list.
 	 * 
@@ -436,7 +507,7 @@ public class MailChimpList implements JSONParser {
 		Objects.requireNonNull(subscriber, "Subscriber itentifyer");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/members/", 
 				Member.subscriberHash(subscriber), "/tags");
-		return new ModelIterator<MemberTag>(MemberTag.class, baseURL, connection, queryParameters);
+		return new ModelIterator<MemberTag>(MemberTag::new, baseURL, connection, queryParameters);
 	}
 
 	/**
@@ -456,7 +527,7 @@ public class MailChimpList implements JSONParser {
 		Objects.requireNonNull(subscriber, "Subscriber itentifyer");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/members/", 
 				Member.subscriberHash(subscriber), "/tags");
-		return new ModelIterator<MemberTag>(MemberTag.class, baseURL, connection);
+		return new ModelIterator<MemberTag>(MemberTag::new, baseURL, connection);
 	}
 
 	//
@@ -477,7 +548,7 @@ public class MailChimpList implements JSONParser {
 		Objects.requireNonNull(subscriber, "Subscriber itentifyer");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/members/",
 				Member.subscriberHash(subscriber),"/notes");
-		return new ModelIterator<MemberNote>(MemberNote.class, baseURL, connection, queryParameters);
+		return new ModelIterator<MemberNote>(MemberNote::new, baseURL, connection, queryParameters);
 	}
 	
 	/**
@@ -497,7 +568,7 @@ public class MailChimpList implements JSONParser {
 		Objects.requireNonNull(subscriber, "Subscriber itentifyer");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/members/",
 				Member.subscriberHash(subscriber),"/notes");
-		return new ModelIterator<MemberNote>(MemberNote.class, baseURL, connection);
+		return new ModelIterator<MemberNote>(MemberNote::new, baseURL, connection);
 	}
 
 	/**
@@ -539,7 +610,7 @@ public class MailChimpList implements JSONParser {
 		final String baseURL = URLHelper.join(connection.getListendpoint(), "/", getId(), "/growth-history");
 		if (query.getParam("sort_field") == null) {query.param("sort_field", "month");}
 		if (query.getParam("sort_dir") == null) {query.param("sort_dir", SortDirection.DESC.toString());}
-		return new ModelIterator<GrowthHistory>(GrowthHistory.class, baseURL, connection, query);
+		return new ModelIterator<GrowthHistory>(GrowthHistory::new, baseURL, connection, query);
 	}
 
 	/**
@@ -582,7 +653,7 @@ public class MailChimpList implements JSONParser {
 	public Iterable<InterestCategory> getInterestCategories(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/interest-categories");
-		return new ModelIterator<InterestCategory>(InterestCategory.class, baseURL, connection, queryParameters);
+		return new ModelIterator<InterestCategory>(InterestCategory::new, baseURL, connection, queryParameters);
 	}
 
 	/**
@@ -600,7 +671,7 @@ public class MailChimpList implements JSONParser {
 	public Iterable<InterestCategory> getInterestCategories() throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/interest-categories");
-		return new ModelIterator<InterestCategory>(InterestCategory.class, baseURL, connection);
+		return new ModelIterator<InterestCategory>(InterestCategory::new, baseURL, connection);
 	}
 
 	/**
@@ -654,6 +725,34 @@ public class MailChimpList implements JSONParser {
 	//     Mailchimp application.
 	//
 	
+	/**
+	 * Get the interests of every interest category of this list. The
+	 * catalogue is loaded on first use and kept for the lifetime of this
+	 * object, call {@link #refreshInterestCatalogue()} after changing
+	 * interests.
+	 * @return Interest catalogue
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public synchronized InterestCatalogue getInterestCatalogue() throws IOException, Exception {
+		if (interestCatalogue == null) {
+			Objects.requireNonNull(connection, "MailChimpConnection");
+			interestCatalogue = InterestCatalogue.load(this);
+		}
+		return interestCatalogue;
+	}
+
+	/**
+	 * Reload the interest catalogue of this list.
+	 * @return Interest catalogue
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public synchronized InterestCatalogue refreshInterestCatalogue() throws IOException, Exception {
+		interestCatalogue = null;
+		return getInterestCatalogue();
+	}
+
 	/**
 	 * Get list/audience interests in category. Interests are referred to as ‘group names’ in
 	 * the MailChimp application.
@@ -669,7 +768,7 @@ public class MailChimpList implements JSONParser {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(), "/", getId(), "/interest-categories/",
 				interestCategoryId, "/interests");
-		return new ModelIterator<Interest>(Interest.class, baseURL, connection, queryParameters);
+		return new ModelIterator<Interest>(Interest::new, baseURL, connection, queryParameters);
 	}
 
 	/**
@@ -689,7 +788,7 @@ public class MailChimpList implements JSONParser {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(), "/", getId(), "/interest-categories/",
 				interestCategoryId, "/interests");
-		return new ModelIterator<Interest>(Interest.class, baseURL, connection);
+		return new ModelIterator<Interest>(Interest::new, baseURL, connection);
 	}
 
 	/**
@@ -729,7 +828,7 @@ public class MailChimpList implements JSONParser {
 	public Iterable<Segment> getSegments(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/segments");
-		return new ModelIterator<Segment>(Segment.class, baseURL, connection, queryParameters);
+		return new ModelIterator<Segment>(Segment::new, baseURL, connection, queryParameters);
 	}
 
 	/**
@@ -747,7 +846,7 @@ public class MailChimpList implements JSONParser {
 	public Iterable<Segment> getSegments() throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/segments");
-		return new ModelIterator<Segment>(Segment.class, baseURL, connection);
+		return new ModelIterator<Segment>(Segment::new, baseURL, connection);
 	}
 
 	/**
@@ -767,7 +866,7 @@ public class MailChimpList implements JSONParser {
 	public Iterable<Segment> getSegments(SegmentType type) throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/segments","?","type=",type.toString());
-		return new ModelIterator<Segment>(Segment.class, baseURL, connection);
+		return new ModelIterator<Segment>(Segment::new, baseURL, connection);
 	}
 
 	/**
@@ -876,7 +975,7 @@ public class MailChimpList implements JSONParser {
 	public Iterable<MergeField> getMergeFields(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/merge-fields");
-		return new ModelIterator<MergeField>(MergeField.class, baseURL, connection, queryParameters);
+		return new ModelIterator<MergeField>(MergeField::new, baseURL, connection, queryParameters);
 	}
 
 	/**
@@ -892,7 +991,7 @@ public class MailChimpList implements JSONParser {
 	public Iterable<MergeField> getMergeFields() {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getId(),"/merge-fields");
-		return new ModelIterator<MergeField>(MergeField.class, baseURL, connection);
+		return new ModelIterator<MergeField>(MergeField::new, baseURL, connection);
 	}
 
 	/**
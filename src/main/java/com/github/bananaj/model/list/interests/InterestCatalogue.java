@@ -0,0 +1,157 @@
+package com.github.bananaj.model.list.interests;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.github.bananaj.connection.MailChimpQueryParameters;
+import com.github.bananaj.model.list.MailChimpList;
+
+/**
+ * The interests of a list, each assigned a position. Members read with a
+ * catalogue hold their interests as a bitset indexed by position, see
+ * {@link com.github.bananaj.model.list.member.Member#getInterestBits()},
+ * instead of a map keyed by interest id. Use an {@link InterestFilter} to
+ * select members by interest with word-wise bit operations.
+ * <p>
+ * A catalogue is a snapshot. Interests added to the list after it was loaded
+ * are not in the catalogue and members subscribed to them fall back to the
+ * map representation. InterestCatalogue is immutable and may be shared
+ * between threads.
+ */
+public final class InterestCatalogue {
+
+	private final String listId;
+	private final List<Interest> interests;
+	private final Map<String, Integer> positions;
+	private final int words;
+
+	/**
+	 * @param listId
+	 * @param interests The interests of the list. The position of an interest is its index in the list.
+	 */
+	public InterestCatalogue(String listId, List<Interest> interests) {
+		this.listId = listId;
+		this.interests = Collections.unmodifiableList(new ArrayList<Interest>(interests));
+		this.positions = new HashMap<String, Integer>(interests.size() * 2);
+		for (int i = 0; i < interests.size(); i++) {
+			if (positions.put(interests.get(i).getId(), i) != null) {
+				throw new IllegalArgumentException("Duplicate interest " + interests.get(i).getId());
+			}
+		}
+		this.words = Math.max((interests.size() + 63) >>> 6, 1);
+	}
+
+	/**
+	 * Load the interests of every interest category of a list. Prefer
+	 * {@link MailChimpList#getInterestCatalogue()}, which loads the catalogue
+	 * of a list once.
+	 * @param list
+	 * @return The catalogue with interests ordered by category then interest
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public static InterestCatalogue load(MailChimpList list) throws IOException, Exception {
+		List<Interest> interests = new ArrayList<Interest>();
+		for (InterestCategory category : list.getInterestCategories(new MailChimpQueryParameters().count(1000))) {
+			for (Interest interest : category.getInterests(new MailChimpQueryParameters().count(1000))) {
+				interests.add(interest);
+			}
+		}
+		return new InterestCatalogue(list.getId(), interests);
+	}
+
+	public String getListId() {
+		return listId;
+	}
+
+	/**
+	 * @return Number of interests in the catalogue
+	 */
+	public int size() {
+		return interests.size();
+	}
+
+	/**
+	 * @return Length of the bitsets of this catalogue in longs
+	 */
+	public int words() {
+		return words;
+	}
+
+	/**
+	 * @param interestId
+	 * @return Position of the interest or -1 if it is not in the catalogue
+	 */
+	public int indexOf(String interestId) {
+		Integer i = positions.get(interestId);
+		return i != null ? i : -1;
+	}
+
+	/**
+	 * @param index
+	 * @return The interest at a position
+	 */
+	public Interest getInterest(int index) {
+		return interests.get(index);
+	}
+
+	/**
+	 * @return The interests in position order
+	 */
+	public List<Interest> getInterests() {
+		return interests;
+	}
+
+	/**
+	 * @param bits
+	 * @param interestId
+	 * @return true if the bitset includes the interest
+	 */
+	public boolean contains(long[] bits, String interestId) {
+		int i = indexOf(interestId);
+		return i >= 0 && (bits[i >>> 6] & (1L << i)) != 0;
+	}
+
+	/**
+	 * @param interest Interests as returned by the API, keyed by interest id
+	 * @return Bitset of the subscribed interests, or null if an interest is not in the catalogue
+	 */
+	public long[] toBits(Map<String, Boolean> interest) {
+		long[] bits = new long[words];
+		for (Map.Entry<String, Boolean> e : interest.entrySet()) {
+			int i = indexOf(e.getKey());
+			if (i < 0) {
+				return null;
+			}
+			if (Boolean.TRUE.equals(e.getValue())) {
+				bits[i >>> 6] |= 1L << i;
+			}
+		}
+		return bits;
+	}
+
+	/**
+	 * @param bits
+	 * @return Every interest of the catalogue keyed by interest id, true if in the bitset
+	 */
+	public Map<String, Boolean> toMap(long[] bits) {
+		Map<String, Boolean> interest = new LinkedHashMap<String, Boolean>(interests.size() * 2);
+		for (int i = 0; i < interests.size(); i++) {
+			interest.put(interests.get(i).getId(), (bits[i >>> 6] & (1L << i)) != 0);
+		}
+		return interest;
+	}
+
+	/**
+	 * @return A filter matching every member, narrowed with {@link InterestFilter#with(String...)}
+	 *         and {@link InterestFilter#without(String...)}
+	 */
+	public InterestFilter filter() {
+		return new InterestFilter(this, new long[words], new long[words]);
+	}
+}
@@ -172,7 +172,7 @@ public class InterestCategory implements JSONParser {
 	public Iterable<Interest> getInterests(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		final String baseURL = connection.getListendpoint() + "/" + getListId() + "/interest-categories/"
 				+ getId() + "/interests";
-		return new ModelIterator<Interest>(Interest.class, baseURL, connection, queryParameters);
+		return new ModelIterator<Interest>(Interest::new, baseURL, connection, queryParameters);
 	}
 
 	/**
@@ -186,7 +186,7 @@ public class InterestCategory implements JSONParser {
 	public Iterable<Interest> getInterests() throws IOException, Exception {
 		final String baseURL = connection.getListendpoint() + "/" + getListId() + "/interest-categories/"
 				+ getId() + "/interests";
-		return new ModelIterator<Interest>(Interest.class, baseURL, connection);
+		return new ModelIterator<Interest>(Interest::new, baseURL, connection);
 	}
 
 	/**
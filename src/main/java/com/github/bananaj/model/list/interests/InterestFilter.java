@@ -0,0 +1,76 @@
+package com.github.bananaj.model.list.interests;
+
+import java.util.Arrays;
+
+/**
+ * Selects members by interest, for example members with interest A and not
+ * interest B, by comparing their interest bitsets with a mask one word at a
+ * time. Created by {@link InterestCatalogue#filter()}. Filters are immutable.
+ */
+public final class InterestFilter {
+
+	private final InterestCatalogue catalogue;
+	private final long[] required;
+	private final long[] excluded;
+
+	InterestFilter(InterestCatalogue catalogue, long[] required, long[] excluded) {
+		this.catalogue = catalogue;
+		this.required = required;
+		this.excluded = excluded;
+	}
+
+	/**
+	 * @param interestIds
+	 * @return A filter that also requires members to be subscribed to the interests
+	 * @throws IllegalArgumentException if an interest is not in the catalogue
+	 */
+	public InterestFilter with(String... interestIds) {
+		return new InterestFilter(catalogue, add(required, interestIds), excluded);
+	}
+
+	/**
+	 * @param interestIds
+	 * @return A filter that also requires members not to be subscribed to the interests
+	 * @throws IllegalArgumentException if an interest is not in the catalogue
+	 */
+	public InterestFilter without(String... interestIds) {
+		return new InterestFilter(catalogue, required, add(excluded, interestIds));
+	}
+
+	public InterestCatalogue getCatalogue() {
+		return catalogue;
+	}
+
+	/**
+	 * @param bits Interest bitset of a member, from the same catalogue. Null for no interests.
+	 * @return true if the member has every required interest and none of the excluded interests
+	 */
+	public boolean matches(long[] bits) {
+		if (bits == null) {
+			for (long w : required) {
+				if (w != 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+		long miss = 0;
+		for (int i = 0; i < required.length; i++) {
+			miss |= (bits[i] & required[i]) ^ required[i];
+			miss |= bits[i] & excluded[i];
+		}
+		return miss == 0;
+	}
+
+	private long[] add(long[] mask, String[] interestIds) {
+		long[] result = Arrays.copyOf(mask, mask.length);
+		for (String id : interestIds) {
+			int i = catalogue.indexOf(id);
+			if (i < 0) {
+				throw new IllegalArgumentException("Interest " + id + " is not in the catalogue of list " + catalogue.getListId());
+			}
+			result[i >>> 6] |= 1L << i;
+		}
+		return result;
+	}
+}
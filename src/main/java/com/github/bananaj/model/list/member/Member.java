@@ -8,6 +8,7 @@ import java.io.IOException;
 import java.net.URL;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -18,15 +19,22 @@ import java.util.Optional;
 import org.json.JSONArray;
 import org.json.JSONObject;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
 import com.github.bananaj.connection.MailChimpConnection;
 import com.github.bananaj.connection.MailChimpQueryParameters;
 import com.github.bananaj.model.JSONParser;
+import com.github.bananaj.model.JSONStreamParser;
 import com.github.bananaj.model.ModelIterator;
 import com.github.bananaj.model.list.MailChimpList;
+import com.github.bananaj.model.list.interests.InterestCatalogue;
 import com.github.bananaj.utils.DateConverter;
 import com.github.bananaj.utils.EmailValidator;
 import com.github.bananaj.utils.JSONObjectCheck;
+import com.github.bananaj.utils.JsonTokens;
 import com.github.bananaj.utils.MD5;
+import com.github.bananaj.utils.StringInterner;
 import com.github.bananaj.utils.URLHelper;
 
 
@@ -35,7 +43,7 @@ import com.github.bananaj.utils.URLHelper;
  * @author alexanderweiss
  *
  */
-public class Member implements JSONParser {
+public class Member implements JSONParser, JSONStreamParser {
 
 	private String id;
 	private String emailAddress;
@@ -44,20 +52,27 @@ public class Member implements JSONParser {
 	private MemberStatus status;
 	private String unsubscribeReason;
 	private Map<String, Object> mergeFields;
-	private Map<String, Boolean> interest;
+	private Map<String, Boolean> interest;		// null while interests are held in interestBits
+	private long[] interestBits;
+	private InterestCatalogue interestCatalogue;
 	private MemberStats stats;
+	private JSONObject rawStats;		// undecoded stats with lazy decoding
 	private String ipSignup;
 	private ZonedDateTime timestampSignup;
+	private String rawTimestampSignup;	// undecoded ISO 8601 text with lazy decoding
 	private String ipOpt;
 	private ZonedDateTime timestampOpt;
+	private String rawTimestampOpt;
 	private Integer rating;
 	private ZonedDateTime lastChanged;
+	private String rawLastChanged;
 	private String language;
 	private boolean vip;
 	private String emailClient;
 	//private MemberLocation location;
 	//private List<MemberMarketingPermissions> marketingPermissions;
 	private LastNote lastNote;
+	private JSONObject rawLastNote;
 	private Integer tagsCount;
 	private List<MemberTag> tags;
 	private String listId;
@@ -95,6 +110,21 @@ public class Member implements JSONParser {
 
 	}
 
+	/**
+	 * A member that holds its interests as a bitset indexed by position in the
+	 * catalogue once parsed, rather than a map keyed by interest id.
+	 * @param interestCatalogue The interests of the member's list
+	 * @see MailChimpList#getMembers(MailChimpQueryParameters, InterestCatalogue)
+	 */
+	public Member(InterestCatalogue interestCatalogue) {
+		this.interestCatalogue = interestCatalogue;
+	}
+
+	public Member(MailChimpConnection connection, JSONObject member, InterestCatalogue interestCatalogue) {
+		this.interestCatalogue = interestCatalogue;
+		parse(connection, member);
+	}
+
 //	public static Member newInstance(MailChimpConnection connection, JSONObject member) {
 //		return new Member(connection, member);
 //	}
@@ -106,48 +136,91 @@ public class Member implements JSONParser {
 	 */
 	public void parse(MailChimpConnection connection, JSONObject member) {
 		JSONObjectCheck jObj = new JSONObjectCheck(member);
+		StringInterner strings = connection != null ? connection.getStringInterner() : StringInterner.NONE;
+		boolean lazy = connection != null && connection.isLazyDecoding();
 		this.connection = connection;
         id = jObj.getString("id");
 		emailAddress = jObj.getString("email_address");
 		uniqueEmailId = jObj.getString("unique_email_id");
 		emailType =  jObj.getEnum(EmailType.class, "email_type");
 		status = jObj.getEnum(MemberStatus.class, "status");
-		unsubscribeReason = jObj.getString("unsubscribe_reason");
+		unsubscribeReason = strings.intern(jObj.getString("unsubscribe_reason"));
 		
 		mergeFields = new HashMap<String, Object>();
 		final JSONObject mergeFieldsObj = jObj.getJSONObject("merge_fields");
 		if (mergeFieldsObj != null) {
 			for(String key : mergeFieldsObj.keySet()) {
-				mergeFields.put(key, mergeFieldsObj.get(key));
+				mergeFields.put(strings.intern(key), mergeFieldsObj.get(key));
 			}
 		}
 		
-		interest = new HashMap<String, Boolean>();
+		interest = null;
+		interestBits = null;
 		final JSONObject interests = jObj.getJSONObject("interests");
-		if (interests != null) {
+		if (interests != null && interestCatalogue != null) {
+			interestBits = new long[interestCatalogue.words()];
 			for(String key : interests.keySet()) {
-				interest.put(key, interests.getBoolean(key));
+				int i = interestCatalogue.indexOf(key);
+				if (i < 0) {
+					interestBits = null;	// not in the catalogue, keep the interests in a map
+					break;
+				}
+				if (interests.getBoolean(key)) {
+					interestBits[i >>> 6] |= 1L << i;
+				}
+			}
+		}
+		if (interestBits == null) {
+			interest = new HashMap<String, Boolean>();
+			if (interests != null) {
+				for(String key : interests.keySet()) {
+					interest.put(strings.intern(key), interests.getBoolean(key));
+				}
 			}
 		}
 		
+		stats = null;
+		rawStats = null;
 		if (jObj.has("stats")) {
-			stats = new MemberStats(jObj.getJSONObject("stats"));
+			if (lazy) {
+				rawStats = jObj.getJSONObject("stats");
+			} else {
+				stats = new MemberStats(jObj.getJSONObject("stats"));
+			}
 		}
 		
 		ipSignup = jObj.getString("ip_signup");
-		timestampSignup = jObj.getISO8601Date("timestamp_signup");
 		rating = jObj.getInt("member_rating");
 		ipOpt = jObj.getString("ip_opt");
-		timestampOpt = jObj.getISO8601Date("timestamp_opt");
-		lastChanged = jObj.getISO8601Date("last_changed");
-		language = jObj.getString("language");
+		if (lazy) {
+			timestampSignup = null;
+			timestampOpt = null;
+			lastChanged = null;
+			rawTimestampSignup = jObj.getISO8601Text("timestamp_signup");
+			rawTimestampOpt = jObj.getISO8601Text("timestamp_opt");
+			rawLastChanged = jObj.getISO8601Text("last_changed");
+		} else {
+			timestampSignup = jObj.getISO8601Date("timestamp_signup");
+			timestampOpt = jObj.getISO8601Date("timestamp_opt");
+			lastChanged = jObj.getISO8601Date("last_changed");
+			rawTimestampSignup = null;
+			rawTimestampOpt = null;
+			rawLastChanged = null;
+		}
+		language = strings.intern(jObj.getString("language"));
 		vip = jObj.getBoolean("vip");
-		emailClient = jObj.getString("email_client");
+		emailClient = strings.intern(jObj.getString("email_client"));
 		//location
 		//marketing_permissions
 		
+		lastNote = null;
+		rawLastNote = null;
 		if (jObj.has("last_note")) {
-			lastNote =  new LastNote(jObj.getJSONObject("last_note"));
+			if (lazy) {
+				rawLastNote = jObj.getJSONObject("last_note");
+			} else {
+				lastNote =  new LastNote(jObj.getJSONObject("last_note"));
+			}
 		}
 
 		tagsCount = jObj.getInt("tags_count");
@@ -155,11 +228,207 @@ public class Member implements JSONParser {
 		final JSONArray tagsArray = jObj.getJSONArray("tags");
 		if (tagsArray != null) {
 			for(int i = 0; i < tagsArray.length(); i++) {
-				tags.add(new MemberTag(tagsArray.getJSONObject(i)));
+				MemberTag tag = new MemberTag();
+				tag.parse(connection, tagsArray.getJSONObject(i));
+				tags.add(tag);
 			}
 		}
 
-		listId = jObj.getString("list_id");
+		listId = strings.intern(jObj.getString("list_id"));
+	}
+
+	/**
+	 * Bind a member from a streaming parser into this, without building a
+	 * JSONObject for the member. Equivalent to {@link #parse(MailChimpConnection, JSONObject)}.
+	 * @param connection
+	 * @param parser Positioned at the START_OBJECT token of the member
+	 * @throws IOException
+	 */
+	@Override
+	public void parse(MailChimpConnection connection, JsonParser parser) throws IOException {
+		StringInterner strings = connection != null ? connection.getStringInterner() : StringInterner.NONE;
+		boolean lazy = connection != null && connection.isLazyDecoding();
+		this.connection = connection;
+		id = null;
+		emailAddress = null;
+		uniqueEmailId = null;
+		emailType = null;
+		status = null;
+		unsubscribeReason = null;
+		mergeFields = new HashMap<String, Object>();
+		interest = new HashMap<String, Boolean>();
+		interestBits = null;
+		stats = null;
+		rawStats = null;
+		ipSignup = null;
+		timestampSignup = null;
+		rawTimestampSignup = null;
+		rating = null;
+		ipOpt = null;
+		timestampOpt = null;
+		rawTimestampOpt = null;
+		lastChanged = null;
+		rawLastChanged = null;
+		language = null;
+		vip = false;
+		emailClient = null;
+		lastNote = null;
+		rawLastNote = null;
+		tagsCount = null;
+		tags = null;
+		listId = null;
+
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			JsonToken token = parser.nextToken();
+			switch (name) {
+			case "id":
+				id = JsonTokens.getString(parser);
+				break;
+			case "email_address":
+				emailAddress = JsonTokens.getString(parser);
+				break;
+			case "unique_email_id":
+				uniqueEmailId = JsonTokens.getString(parser);
+				break;
+			case "email_type":
+				emailType = JsonTokens.getEnum(EmailType.class, parser);
+				break;
+			case "status":
+				status = JsonTokens.getEnum(MemberStatus.class, parser);
+				break;
+			case "unsubscribe_reason":
+				unsubscribeReason = JsonTokens.getString(parser, strings);
+				break;
+			case "merge_fields":
+				if (token == JsonToken.START_OBJECT) {
+					while (parser.nextToken() == JsonToken.FIELD_NAME) {
+						String key = parser.getCurrentName();
+						parser.nextToken();
+						mergeFields.put(key, JsonTokens.readValue(parser));
+					}
+				} else {
+					parser.skipChildren();
+				}
+				break;
+			case "interests":
+				if (token == JsonToken.START_OBJECT) {
+					long[] seen = null;		// interests read into the bitset so far
+					if (interestCatalogue != null) {
+						interest = null;
+						interestBits = new long[interestCatalogue.words()];
+						seen = new long[interestCatalogue.words()];
+					}
+					while (parser.nextToken() == JsonToken.FIELD_NAME) {
+						String key = parser.getCurrentName();
+						parser.nextToken();
+						Boolean value = JsonTokens.getBoolean(parser);
+						int i = interestBits != null ? interestCatalogue.indexOf(key) : -1;
+						if (i >= 0) {
+							seen[i >>> 6] |= 1L << i;
+							if (Boolean.TRUE.equals(value)) {
+								interestBits[i >>> 6] |= 1L << i;
+							}
+						} else {
+							if (interestBits != null) {
+								// not in the catalogue, keep the interests read so far in a map
+								interest = new HashMap<String, Boolean>();
+								for (int j = 0; j < interestCatalogue.size(); j++) {
+									if ((seen[j >>> 6] & (1L << j)) != 0) {
+										interest.put(interestCatalogue.getInterest(j).getId(), (interestBits[j >>> 6] & (1L << j)) != 0);
+									}
+								}
+								interestBits = null;
+							}
+							interest.put(key, value);
+						}
+					}
+				} else {
+					parser.skipChildren();
+				}
+				break;
+			case "stats":
+				if (token == JsonToken.START_OBJECT) {
+					stats = new MemberStats(parser);
+				} else {
+					parser.skipChildren();
+				}
+				break;
+			case "ip_signup":
+				ipSignup = JsonTokens.getString(parser);
+				break;
+			case "timestamp_signup":
+				if (lazy) {
+					rawTimestampSignup = JsonTokens.getString(parser);
+				} else {
+					timestampSignup = JsonTokens.getISO8601Date(parser);
+				}
+				break;
+			case "member_rating":
+				rating = JsonTokens.getInt(parser);
+				break;
+			case "ip_opt":
+				ipOpt = JsonTokens.getString(parser);
+				break;
+			case "timestamp_opt":
+				if (lazy) {
+					rawTimestampOpt = JsonTokens.getString(parser);
+				} else {
+					timestampOpt = JsonTokens.getISO8601Date(parser);
+				}
+				break;
+			case "last_changed":
+				if (lazy) {
+					rawLastChanged = JsonTokens.getString(parser);
+				} else {
+					lastChanged = JsonTokens.getISO8601Date(parser);
+				}
+				break;
+			case "language":
+				language = JsonTokens.getString(parser, strings);
+				break;
+			case "vip":
+				Boolean v = JsonTokens.getBoolean(parser);
+				vip = v != null && v;
+				break;
+			case "email_client":
+				emailClient = JsonTokens.getString(parser, strings);
+				break;
+			case "last_note":
+				JSONObject note = JsonTokens.getJSONObject(parser);
+				if (lazy) {
+					rawLastNote = note;
+				} else {
+					lastNote = note != null ? new LastNote(note) : null;
+				}
+				break;
+			case "tags_count":
+				tagsCount = JsonTokens.getInt(parser);
+				break;
+			case "tags":
+				tags = new ArrayList<MemberTag>(tagsCount != null ? tagsCount.intValue() : 0);
+				if (token == JsonToken.START_ARRAY) {
+					while (parser.nextToken() != JsonToken.END_ARRAY) {
+						if (parser.currentToken() == JsonToken.START_OBJECT) {
+							tags.add(new MemberTag(parser, connection));
+						} else {
+							parser.skipChildren();
+						}
+					}
+				} else {
+					parser.skipChildren();
+				}
+				break;
+			case "list_id":
+				listId = JsonTokens.getString(parser, strings);
+				break;
+			default:
+				parser.skipChildren();	// location, marketing_permissions, _links, ...
+			}
+		}
+		if (tags == null) {
+			tags = new ArrayList<MemberTag>(0);
+		}
 	}
 
 	/**
@@ -312,7 +581,7 @@ public class Member implements JSONParser {
 	public Iterable<MemberNote> getNotes(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(), "/", getListId(), "/members/", getId(), "/notes");
-		return new ModelIterator<MemberNote>(MemberNote.class, baseURL, connection, queryParameters);
+		return new ModelIterator<MemberNote>(MemberNote::new, baseURL, connection, queryParameters);
 	}
 	
 	/**
@@ -323,7 +592,7 @@ public class Member implements JSONParser {
 	public Iterable<MemberNote> getNotes() throws IOException, Exception {
 		Objects.requireNonNull(connection, "MailChimpConnection");
 		final String baseURL = URLHelper.join(connection.getListendpoint(), "/", getListId(), "/members/", getId(), "/notes");
-		return new ModelIterator<MemberNote>(MemberNote.class, baseURL, connection);
+		return new ModelIterator<MemberNote>(MemberNote::new, baseURL, connection);
 	}
 	
 	/**
@@ -504,13 +773,61 @@ public class Member implements JSONParser {
 	}
 
 	/**
-	 * The members collection of interests. 
+	 * The members collection of interests. For a member read with an interest
+	 * catalogue the map is an unmodifiable copy of the bitset, use
+	 * {@link #putInterest(String, boolean)} to change interests.
 	 * @return the member interests. The map key is the interest/segment identifier and value is the subscription boolean.
 	 */
 	public Map<String, Boolean> getInterest() {
+		if (interest == null && interestBits != null) {
+			return Collections.unmodifiableMap(interestCatalogue.toMap(interestBits));
+		}
+		return interest;
+	}
+
+	/**
+	 * @return The interest map, replacing the bitset so the map may be modified
+	 */
+	private Map<String, Boolean> mutableInterest() {
+		if (interest == null && interestBits != null) {
+			interest = new HashMap<String, Boolean>(interestCatalogue.toMap(interestBits));
+			interestBits = null;
+		}
 		return interest;
 	}
 
+	/**
+	 * The member's interests as a bitset indexed by position in the member's
+	 * interest catalogue. Only available for members read with a catalogue.
+	 * @return The subscribed interests, or null if the member has no catalogue or
+	 *         an interest of the member is not in the catalogue
+	 * @see InterestCatalogue
+	 */
+	public long[] getInterestBits() {
+		if (interestBits != null || interestCatalogue == null || interest == null) {
+			return interestBits;
+		}
+		return interestCatalogue.toBits(interest);
+	}
+
+	/**
+	 * @return The catalogue used for {@link #getInterestBits()} or null
+	 */
+	public InterestCatalogue getInterestCatalogue() {
+		return interestCatalogue;
+	}
+
+	/**
+	 * @param interestId
+	 * @return true if the member is subscribed to the interest
+	 */
+	public boolean hasInterest(String interestId) {
+		if (interestBits != null) {
+			return interestCatalogue.contains(interestBits, interestId);
+		}
+		return interest != null && Boolean.TRUE.equals(interest.get(interestId));
+	}
+
 	/**
 	 * Add or update an interest. You must call {@link #update()},
 	 * {@link #addOrUpdate()}, {@link MailChimpList#addOrUpdateMember(Member)}, or
@@ -521,13 +838,17 @@ public class Member implements JSONParser {
 	 * @return The previous value associated with id, or null if there was none.
 	 */
 	public Boolean putInterest(String id, boolean active) {
-		return interest.put(id, active);
+		return mutableInterest().put(id, active);
 	}
 	
 	/**
 	 * Open and click rates for this subscriber.
 	 */
 	public MemberStats getStats() {
+		if (rawStats != null) {
+			stats = new MemberStats(rawStats);
+			rawStats = null;
+		}
 		return stats;
 	}
 
@@ -554,6 +875,10 @@ public class Member implements JSONParser {
 	 * The date and time the subscriber signed up for the list.
 	 */
 	public ZonedDateTime getTimestampSignup() {
+		if (rawTimestampSignup != null) {
+			timestampSignup = DateConverter.fromISO8601(rawTimestampSignup);
+			rawTimestampSignup = null;
+		}
 		return timestampSignup;
 	}
 
@@ -567,6 +892,7 @@ public class Member implements JSONParser {
 	 */
 	public Member setTimestampSignup(ZonedDateTime timestampSignup) {
 		this.timestampSignup = timestampSignup;
+		this.rawTimestampSignup = null;
 		return this;
 	}
 
@@ -594,6 +920,10 @@ public class Member implements JSONParser {
 	 * The date and time the subscribe confirmed their opt-in status.
 	 */
 	public ZonedDateTime getTimestampOpt() {
+		if (rawTimestampOpt != null) {
+			timestampOpt = DateConverter.fromISO8601(rawTimestampOpt);
+			rawTimestampOpt = null;
+		}
 		return timestampOpt;
 	}
 
@@ -607,6 +937,7 @@ public class Member implements JSONParser {
 	 */
 	public Member setTimestampOpt(ZonedDateTime timestampOpt) {
 		this.timestampOpt = timestampOpt;
+		this.rawTimestampOpt = null;
 		return this;
 	}
 
@@ -621,6 +952,10 @@ public class Member implements JSONParser {
 	 * @return The date and time the member’s info was last changed
 	 */
 	public ZonedDateTime getLastChanged() {
+		if (rawLastChanged != null) {
+			lastChanged = DateConverter.fromISO8601(rawLastChanged);
+			rawLastChanged = null;
+		}
 		return lastChanged;
 	}
 
@@ -673,6 +1008,10 @@ public class Member implements JSONParser {
 	 * @return The most recent Note added about this member.
 	 */
 	public LastNote getLastNote() {
+		if (rawLastNote != null) {
+			lastNote = new LastNote(rawLastNote);
+			rawLastNote = null;
+		}
 		return lastNote;
 	}
 
@@ -703,7 +1042,7 @@ public class Member implements JSONParser {
 		}
 		
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getListId(),"/members/", getId(), "/tags");
-		return new ModelIterator<MemberTag>(MemberTag.class, baseURL, connection);
+		return new ModelIterator<MemberTag>(MemberTag::new, baseURL, connection);
 	}
 	
 	/**
@@ -715,7 +1054,7 @@ public class Member implements JSONParser {
 	 */
 	public Iterable<MemberTag> getTags(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		final String baseURL = URLHelper.join(connection.getListendpoint(),"/",getListId(),"/members/", getId(), "/tags");
-		return new ModelIterator<MemberTag>(MemberTag.class, baseURL, connection, queryParameters);
+		return new ModelIterator<MemberTag>(MemberTag::new, baseURL, connection, queryParameters);
 	}
 
 	/**
@@ -732,7 +1071,7 @@ public class Member implements JSONParser {
 	 * @return the previous value associated with key, or null if there was none.)
 	 */
 	public Boolean putInterest(String key, Boolean subscribe) {
-		return interest.put(key, subscribe);
+		return mutableInterest().put(key, subscribe);
 	}
 
 	/**
@@ -861,9 +1200,10 @@ public class Member implements JSONParser {
 				stringBuilder.append("    ").append(tagObj.toString()).append(System.lineSeparator());
 			}
 		}
-		if (interest != null && interest.size() > 0) {
+		Map<String, Boolean> interests = getInterest();
+		if (interests != null && interests.size() > 0) {
 			stringBuilder.append("    Interests:").append(System.lineSeparator());
-			for (Entry<String, Boolean> pair : interest.entrySet()) {
+			for (Entry<String, Boolean> pair : interests.entrySet()) {
 				stringBuilder.append("        ").append(pair.getKey()).append(":").append(pair.getValue().toString()).append(System.lineSeparator());
 			}
 		}
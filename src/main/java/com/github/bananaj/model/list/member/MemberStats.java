@@ -1,8 +1,14 @@
 package com.github.bananaj.model.list.member;
 
+import java.io.IOException;
+
 import org.json.JSONObject;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
 import com.github.bananaj.utils.JSONObjectCheck;
+import com.github.bananaj.utils.JsonTokens;
 
 /**
  * Open and click rates for this subscriber.
@@ -24,6 +30,32 @@ public class MemberStats {
 		ecommerceData = jObj.has("stats") ? new EcommerceData(jObj.getJSONObject("stats")) : null;
 	}
 
+	/**
+	 * Bind stats from a streaming parser positioned at the START_OBJECT token
+	 * @param parser
+	 * @throws IOException
+	 */
+	public MemberStats(JsonParser parser) throws IOException {
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String name = parser.getCurrentName();
+			parser.nextToken();
+			switch (name) {
+			case "avg_open_rate":
+				avgOpenRate = JsonTokens.getDouble(parser);
+				break;
+			case "avg_click_rate":
+				avgClickRate = JsonTokens.getDouble(parser);
+				break;
+			case "stats":
+				JSONObject stats = JsonTokens.getJSONObject(parser);
+				ecommerceData = stats != null ? new EcommerceData(stats) : null;
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+	}
+
 	/**
 	 * @return A subscriber’s average open rate.
 	 */
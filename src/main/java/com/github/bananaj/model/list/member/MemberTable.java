@@ -0,0 +1,842 @@
+package com.github.bananaj.model.list.member;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.IntConsumer;
+
+import com.github.bananaj.model.list.interests.InterestCatalogue;
+
+/**
+ * Read-only columnar copy of list members for audience breakdowns. Each
+ * attribute is held in a primitive array indexed by row: enums as ordinals,
+ * low cardinality strings such as language and email client as codes into a
+ * dictionary, timestamps as epoch seconds, and <code>vip</code> and each
+ * interest as a bitset. Apart from the subscriber hash a member takes about
+ * 50 bytes, a fraction of the size of a {@link Member} and its boxed values,
+ * maps and dates.
+ * <p>
+ * Filters scan a single column in a tight loop over its array and return a
+ * {@link Selection} of matching rows. Selections are combined with word-wise
+ * bit operations and passed to the aggregates, for example
+ * <pre>
+ * MemberTable table = MemberTable.of(list.getMembers());
+ * Selection active = table.whereStatus(MemberStatus.SUBSCRIBED)
+ *         .and(table.whereLastChanged(since, null));
+ * Map&lt;String, Integer&gt; byLanguage = table.countByLanguage(active);
+ * </pre>
+ * Merge fields, tags, notes and IP addresses are not part of the table.
+ * MemberTable is immutable and may be shared between threads.
+ */
+public final class MemberTable {
+
+	/** Value of a timestamp column for a missing timestamp */
+	public static final long NO_TIMESTAMP = Long.MIN_VALUE;
+
+	private static final EmailType[] EMAIL_TYPES = EmailType.values();
+	private static final MemberStatus[] STATUSES = MemberStatus.values();
+
+	private final int rows;
+	private final String[] ids;
+	private final byte[] status;		// ordinal + 1, 0 when missing
+	private final byte[] emailType;		// ordinal + 1, 0 when missing
+	private final byte[] rating;		// 0 when missing
+	private final int[] language;		// dictionary code, -1 when missing
+	private final String[] languages;
+	private final int[] emailClient;	// dictionary code, -1 when missing
+	private final String[] emailClients;
+	private final long[] vip;
+	private final long[] timestampSignup;
+	private final long[] timestampOpt;
+	private final long[] lastChanged;
+	private final double[] avgOpenRate;		// NaN when missing
+	private final double[] avgClickRate;	// NaN when missing
+	private final String[] interestIds;
+	private final long[][] interests;		// bitset of members subscribed to each interest
+	private final Map<String, Integer> interestIndex;
+
+	private MemberTable(Builder b) {
+		rows = b.rows;
+		ids = Arrays.copyOf(b.ids, rows);
+		status = Arrays.copyOf(b.status, rows);
+		emailType = Arrays.copyOf(b.emailType, rows);
+		rating = Arrays.copyOf(b.rating, rows);
+		language = Arrays.copyOf(b.language, rows);
+		languages = b.languages.values();
+		emailClient = Arrays.copyOf(b.emailClient, rows);
+		emailClients = b.emailClients.values();
+		int words = words(rows);
+		vip = Arrays.copyOf(b.vip, words);
+		timestampSignup = Arrays.copyOf(b.timestampSignup, rows);
+		timestampOpt = Arrays.copyOf(b.timestampOpt, rows);
+		lastChanged = Arrays.copyOf(b.lastChanged, rows);
+		avgOpenRate = Arrays.copyOf(b.avgOpenRate, rows);
+		avgClickRate = Arrays.copyOf(b.avgClickRate, rows);
+		interestIds = b.interestIds.values();
+		interests = new long[interestIds.length][];
+		for (int i = 0; i < interests.length; i++) {
+			interests[i] = Arrays.copyOf(b.interests.get(i), words);
+		}
+		interestIndex = new HashMap<String, Integer>(b.interestIds.codes);
+	}
+
+	/**
+	 * Build a table from members, for example those returned by
+	 * {@link com.github.bananaj.model.list.MailChimpList#getMembers()}
+	 * @param members
+	 */
+	public static MemberTable of(Iterable<Member> members) {
+		return new Builder().addAll(members).build();
+	}
+
+	/**
+	 * @return Number of members in the table
+	 */
+	public int size() {
+		return rows;
+	}
+
+	/*
+	 * Values of a single row
+	 */
+
+	/**
+	 * @param row
+	 * @return The subscriber hash of the member
+	 */
+	public String getId(int row) {
+		return ids[checkRow(row)];
+	}
+
+	public MemberStatus getStatus(int row) {
+		int ordinal = status[checkRow(row)];
+		return ordinal > 0 ? STATUSES[ordinal - 1] : null;
+	}
+
+	public EmailType getEmailType(int row) {
+		int ordinal = emailType[checkRow(row)];
+		return ordinal > 0 ? EMAIL_TYPES[ordinal - 1] : null;
+	}
+
+	public Integer getRating(int row) {
+		int r = rating[checkRow(row)];
+		return r > 0 ? r : null;
+	}
+
+	public String getLanguage(int row) {
+		int code = language[checkRow(row)];
+		return code >= 0 ? languages[code] : null;
+	}
+
+	public String getEmailClient(int row) {
+		int code = emailClient[checkRow(row)];
+		return code >= 0 ? emailClients[code] : null;
+	}
+
+	public boolean isVip(int row) {
+		return bit(vip, checkRow(row));
+	}
+
+	public ZonedDateTime getTimestampSignup(int row) {
+		return time(timestampSignup[checkRow(row)]);
+	}
+
+	public ZonedDateTime getTimestampOpt(int row) {
+		return time(timestampOpt[checkRow(row)]);
+	}
+
+	public ZonedDateTime getLastChanged(int row) {
+		return time(lastChanged[checkRow(row)]);
+	}
+
+	public Double getAvgOpenRate(int row) {
+		double v = avgOpenRate[checkRow(row)];
+		return Double.isNaN(v) ? null : v;
+	}
+
+	public Double getAvgClickRate(int row) {
+		double v = avgClickRate[checkRow(row)];
+		return Double.isNaN(v) ? null : v;
+	}
+
+	/**
+	 * @param row
+	 * @param interestId
+	 * @return true if the member is subscribed to the interest
+	 */
+	public boolean hasInterest(int row, String interestId) {
+		Integer i = interestIndex.get(interestId);
+		return i != null && bit(interests[i], checkRow(row));
+	}
+
+	/**
+	 * @return Ids of the interests found on the members, in order of first appearance
+	 */
+	public List<String> getInterestIds() {
+		return Collections.unmodifiableList(Arrays.asList(interestIds));
+	}
+
+	/*
+	 * Filters
+	 */
+
+	/**
+	 * @return Selection of every row
+	 */
+	public Selection all() {
+		Selection s = new Selection(rows);
+		Arrays.fill(s.words, -1L);
+		s.clearTail();
+		return s;
+	}
+
+	/**
+	 * @param statuses
+	 * @return Members with any of the statuses
+	 */
+	public Selection whereStatus(MemberStatus... statuses) {
+		boolean[] match = new boolean[STATUSES.length + 1];
+		for (MemberStatus st : statuses) {
+			match[st.ordinal() + 1] = true;
+		}
+		Selection s = new Selection(rows);
+		for (int i = 0; i < rows; i++) {
+			if (match[status[i]]) {
+				s.words[i >>> 6] |= 1L << i;
+			}
+		}
+		return s;
+	}
+
+	/**
+	 * @param type
+	 * @return Members with the email type
+	 */
+	public Selection whereEmailType(EmailType type) {
+		return equal(emailType, (byte) (type.ordinal() + 1));
+	}
+
+	/**
+	 * @param minRating
+	 * @param maxRating
+	 * @return Members rated from minRating to maxRating inclusive
+	 */
+	public Selection whereRating(int minRating, int maxRating) {
+		Selection s = new Selection(rows);
+		long[] words = s.words;
+		for (int w = 0; w < words.length; w++) {
+			long bits = 0;
+			int base = w << 6;
+			int end = Math.min(64, rows - base);
+			for (int b = 0; b < end; b++) {
+				int r = rating[base + b];
+				bits |= (r > 0 && r >= minRating && r <= maxRating ? 1L : 0L) << b;
+			}
+			words[w] = bits;
+		}
+		return s;
+	}
+
+	/**
+	 * @param lang
+	 * @return Members whose language is lang
+	 */
+	public Selection whereLanguage(String lang) {
+		return equal(language, code(languages, lang));
+	}
+
+	/**
+	 * @param client
+	 * @return Members whose email client is client
+	 */
+	public Selection whereEmailClient(String client) {
+		return equal(emailClient, code(emailClients, client));
+	}
+
+	/**
+	 * @return VIP members
+	 */
+	public Selection whereVip() {
+		Selection s = new Selection(rows);
+		System.arraycopy(vip, 0, s.words, 0, vip.length);
+		return s;
+	}
+
+	/**
+	 * @param interestId
+	 * @return Members subscribed to the interest
+	 */
+	public Selection whereInterest(String interestId) {
+		Selection s = new Selection(rows);
+		Integer i = interestIndex.get(interestId);
+		if (i != null) {
+			System.arraycopy(interests[i], 0, s.words, 0, s.words.length);
+		}
+		return s;
+	}
+
+	/**
+	 * @param from Earliest time, inclusive, or null for no lower bound
+	 * @param to Latest time, exclusive, or null for no upper bound
+	 * @return Members last changed in the range
+	 */
+	public Selection whereLastChanged(ZonedDateTime from, ZonedDateTime to) {
+		return between(lastChanged, from, to);
+	}
+
+	/**
+	 * @param from Earliest time, inclusive, or null for no lower bound
+	 * @param to Latest time, exclusive, or null for no upper bound
+	 * @return Members that signed up in the range
+	 */
+	public Selection whereTimestampSignup(ZonedDateTime from, ZonedDateTime to) {
+		return between(timestampSignup, from, to);
+	}
+
+	/**
+	 * @param from Earliest time, inclusive, or null for no lower bound
+	 * @param to Latest time, exclusive, or null for no upper bound
+	 * @return Members that opted in in the range
+	 */
+	public Selection whereTimestampOpt(ZonedDateTime from, ZonedDateTime to) {
+		return between(timestampOpt, from, to);
+	}
+
+	/**
+	 * @param min
+	 * @param max
+	 * @return Members whose average open rate is from min to max inclusive
+	 */
+	public Selection whereAvgOpenRate(double min, double max) {
+		return between(avgOpenRate, min, max);
+	}
+
+	/**
+	 * @param min
+	 * @param max
+	 * @return Members whose average click rate is from min to max inclusive
+	 */
+	public Selection whereAvgClickRate(double min, double max) {
+		return between(avgClickRate, min, max);
+	}
+
+	/*
+	 * Aggregates
+	 */
+
+	/**
+	 * @param selection
+	 * @return Number of selected members of each status
+	 */
+	public Map<MemberStatus, Integer> countByStatus(Selection selection) {
+		int[] counts = counts(status, STATUSES.length + 1, check(selection));
+		Map<MemberStatus, Integer> result = new EnumMap<MemberStatus, Integer>(MemberStatus.class);
+		for (int i = 0; i < STATUSES.length; i++) {
+			if (counts[i + 1] > 0) {
+				result.put(STATUSES[i], counts[i + 1]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param selection
+	 * @return Number of selected members of each email type
+	 */
+	public Map<EmailType, Integer> countByEmailType(Selection selection) {
+		int[] counts = counts(emailType, EMAIL_TYPES.length + 1, check(selection));
+		Map<EmailType, Integer> result = new EnumMap<EmailType, Integer>(EmailType.class);
+		for (int i = 0; i < EMAIL_TYPES.length; i++) {
+			if (counts[i + 1] > 0) {
+				result.put(EMAIL_TYPES[i], counts[i + 1]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param selection
+	 * @return Number of selected members of each rating
+	 */
+	public Map<Integer, Integer> countByRating(Selection selection) {
+		int[] counts = counts(rating, 256, check(selection));
+		Map<Integer, Integer> result = new LinkedHashMap<Integer, Integer>();
+		for (int i = 1; i < counts.length; i++) {
+			if (counts[i] > 0) {
+				result.put(i, counts[i]);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param selection
+	 * @return Number of selected members of each language
+	 */
+	public Map<String, Integer> countByLanguage(Selection selection) {
+		return dictionaryCounts(language, languages, check(selection));
+	}
+
+	/**
+	 * @param selection
+	 * @return Number of selected members using each email client
+	 */
+	public Map<String, Integer> countByEmailClient(Selection selection) {
+		return dictionaryCounts(emailClient, emailClients, check(selection));
+	}
+
+	/**
+	 * @param selection
+	 * @return Number of selected members subscribed to each interest
+	 */
+	public Map<String, Integer> countByInterest(Selection selection) {
+		check(selection);
+		Map<String, Integer> result = new LinkedHashMap<String, Integer>();
+		for (int i = 0; i < interests.length; i++) {
+			result.put(interestIds[i], and(interests[i], selection.words));
+		}
+		return result;
+	}
+
+	/**
+	 * @param selection
+	 * @return Average rating of the selected members with a rating, or NaN if none have one
+	 */
+	public double averageRating(Selection selection) {
+		check(selection);
+		long sum = 0;
+		int n = 0;
+		for (int i = 0; i < rows; i++) {
+			if (bit(selection.words, i) && rating[i] > 0) {
+				sum += rating[i];
+				n++;
+			}
+		}
+		return n > 0 ? (double) sum / n : Double.NaN;
+	}
+
+	/**
+	 * @param selection
+	 * @return Average open rate of the selected members with stats, or NaN if none have stats
+	 */
+	public double averageOpenRate(Selection selection) {
+		return average(avgOpenRate, check(selection));
+	}
+
+	/**
+	 * @param selection
+	 * @return Average click rate of the selected members with stats, or NaN if none have stats
+	 */
+	public double averageClickRate(Selection selection) {
+		return average(avgClickRate, check(selection));
+	}
+
+	/**
+	 * Rows of a {@link MemberTable} chosen by a filter. Selections are
+	 * immutable; combining selections creates a new selection.
+	 */
+	public static final class Selection {
+		private final int rows;
+		private final long[] words;
+
+		private Selection(int rows) {
+			this.rows = rows;
+			this.words = new long[words(rows)];
+		}
+
+		/**
+		 * @return Rows selected in both selections
+		 */
+		public Selection and(Selection other) {
+			Selection s = combine(other);
+			for (int i = 0; i < words.length; i++) {
+				s.words[i] = words[i] & other.words[i];
+			}
+			return s;
+		}
+
+		/**
+		 * @return Rows selected in either selection
+		 */
+		public Selection or(Selection other) {
+			Selection s = combine(other);
+			for (int i = 0; i < words.length; i++) {
+				s.words[i] = words[i] | other.words[i];
+			}
+			return s;
+		}
+
+		/**
+		 * @return Rows of this selection not in the other selection
+		 */
+		public Selection andNot(Selection other) {
+			Selection s = combine(other);
+			for (int i = 0; i < words.length; i++) {
+				s.words[i] = words[i] & ~other.words[i];
+			}
+			return s;
+		}
+
+		/**
+		 * @return Rows not in this selection
+		 */
+		public Selection not() {
+			Selection s = new Selection(rows);
+			for (int i = 0; i < words.length; i++) {
+				s.words[i] = ~words[i];
+			}
+			s.clearTail();
+			return s;
+		}
+
+		public boolean contains(int row) {
+			return row >= 0 && row < rows && bit(words, row);
+		}
+
+		/**
+		 * @return Number of selected rows
+		 */
+		public int count() {
+			int n = 0;
+			for (long w : words) {
+				n += Long.bitCount(w);
+			}
+			return n;
+		}
+
+		public boolean isEmpty() {
+			for (long w : words) {
+				if (w != 0) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Call action with each selected row in ascending order
+		 * @param action
+		 */
+		public void forEach(IntConsumer action) {
+			for (int w = 0; w < words.length; w++) {
+				long bits = words[w];
+				while (bits != 0) {
+					action.accept((w << 6) + Long.numberOfTrailingZeros(bits));
+					bits &= bits - 1;
+				}
+			}
+		}
+
+		private Selection combine(Selection other) {
+			if (other.rows != rows) {
+				throw new IllegalArgumentException("Selections of different tables");
+			}
+			return new Selection(rows);
+		}
+
+		private void clearTail() {
+			if ((rows & 63) != 0) {
+				words[words.length - 1] &= (1L << rows) - 1;
+			}
+		}
+	}
+
+	/**
+	 * Builds a {@link MemberTable} one member at a time, so a table can be
+	 * filled while members are paged in without holding the members.
+	 */
+	public static class Builder {
+		private int rows;
+		private String[] ids = new String[1024];
+		private byte[] status = new byte[1024];
+		private byte[] emailType = new byte[1024];
+		private byte[] rating = new byte[1024];
+		private int[] language = new int[1024];
+		private final Dictionary languages = new Dictionary();
+		private int[] emailClient = new int[1024];
+		private final Dictionary emailClients = new Dictionary();
+		private long[] vip = new long[16];
+		private long[] timestampSignup = new long[1024];
+		private long[] timestampOpt = new long[1024];
+		private long[] lastChanged = new long[1024];
+		private double[] avgOpenRate = new double[1024];
+		private double[] avgClickRate = new double[1024];
+		private final Dictionary interestIds = new Dictionary();
+		private final List<long[]> interests = new ArrayList<long[]>();
+		private InterestCatalogue catalogue;	// last catalogue whose interests were added
+		private int[] catalogueCodes;			// interest code of each catalogue position
+
+		public Builder add(Member member) {
+			if (rows == ids.length) {
+				grow();
+			}
+			int row = rows++;
+			ids[row] = member.getId();
+			status[row] = (byte) (member.getStatus() != null ? member.getStatus().ordinal() + 1 : 0);
+			emailType[row] = (byte) (member.getEmailType() != null ? member.getEmailType().ordinal() + 1 : 0);
+			rating[row] = (byte) (member.getRating() != null ? Math.max(0, Math.min(member.getRating(), 127)) : 0);
+			language[row] = languages.code(member.getLanguage());
+			emailClient[row] = emailClients.code(member.getEmailClient());
+			if (member.isVip()) {
+				vip[row >>> 6] |= 1L << row;
+			}
+			timestampSignup[row] = epochSecond(member.getTimestampSignup());
+			timestampOpt[row] = epochSecond(member.getTimestampOpt());
+			lastChanged[row] = epochSecond(member.getLastChanged());
+			MemberStats stats = member.getStats();
+			avgOpenRate[row] = stats != null && stats.getAvgOpenRate() != null ? stats.getAvgOpenRate() : Double.NaN;
+			avgClickRate[row] = stats != null && stats.getAvgClickRate() != null ? stats.getAvgClickRate() : Double.NaN;
+			long[] bits = member.getInterestCatalogue() != null ? member.getInterestBits() : null;
+			if (bits != null) {
+				// copy set bits without building the member's interest map
+				InterestCatalogue c = member.getInterestCatalogue();
+				if (c != catalogue) {
+					catalogueCodes = new int[c.size()];
+					for (int i = 0; i < catalogueCodes.length; i++) {
+						catalogueCodes[i] = interest(c.getInterest(i).getId());
+					}
+					catalogue = c;
+				}
+				for (int w = 0; w < bits.length; w++) {
+					for (long word = bits[w]; word != 0; word &= word - 1) {
+						int code = catalogueCodes[(w << 6) + Long.numberOfTrailingZeros(word)];
+						interests.get(code)[row >>> 6] |= 1L << row;
+					}
+				}
+			} else if (member.getInterest() != null) {
+				for (Entry<String, Boolean> e : member.getInterest().entrySet()) {
+					int code = interest(e.getKey());
+					if (Boolean.TRUE.equals(e.getValue())) {
+						interests.get(code)[row >>> 6] |= 1L << row;
+					}
+				}
+			}
+			return this;
+		}
+
+		private int interest(String id) {
+			int code = interestIds.code(id);
+			if (code == interests.size()) {
+				interests.add(new long[vip.length]);
+			}
+			return code;
+		}
+
+		public Builder addAll(Iterable<Member> members) {
+			for (Member member : members) {
+				add(member);
+			}
+			return this;
+		}
+
+		public MemberTable build() {
+			return new MemberTable(this);
+		}
+
+		private void grow() {
+			int capacity = ids.length * 2;
+			ids = Arrays.copyOf(ids, capacity);
+			status = Arrays.copyOf(status, capacity);
+			emailType = Arrays.copyOf(emailType, capacity);
+			rating = Arrays.copyOf(rating, capacity);
+			language = Arrays.copyOf(language, capacity);
+			emailClient = Arrays.copyOf(emailClient, capacity);
+			vip = Arrays.copyOf(vip, words(capacity));
+			timestampSignup = Arrays.copyOf(timestampSignup, capacity);
+			timestampOpt = Arrays.copyOf(timestampOpt, capacity);
+			lastChanged = Arrays.copyOf(lastChanged, capacity);
+			avgOpenRate = Arrays.copyOf(avgOpenRate, capacity);
+			avgClickRate = Arrays.copyOf(avgClickRate, capacity);
+			for (int i = 0; i < interests.size(); i++) {
+				interests.set(i, Arrays.copyOf(interests.get(i), words(capacity)));
+			}
+		}
+	}
+
+	/**
+	 * Assigns a code to each distinct string
+	 */
+	private static class Dictionary {
+		private final Map<String, Integer> codes = new HashMap<String, Integer>();
+		private final List<String> values = new ArrayList<String>();
+
+		/**
+		 * @return The code of value, -1 for null
+		 */
+		int code(String value) {
+			if (value == null) {
+				return -1;
+			}
+			Integer code = codes.get(value);
+			if (code == null) {
+				code = values.size();
+				codes.put(value, code);
+				values.add(value);
+			}
+			return code;
+		}
+
+		String[] values() {
+			return values.toArray(new String[values.size()]);
+		}
+	}
+
+	private Selection equal(byte[] column, byte value) {
+		Selection s = new Selection(rows);
+		long[] words = s.words;
+		for (int w = 0; w < words.length; w++) {
+			long bits = 0;
+			int base = w << 6;
+			int end = Math.min(64, rows - base);
+			for (int b = 0; b < end; b++) {
+				bits |= (column[base + b] == value ? 1L : 0L) << b;
+			}
+			words[w] = bits;
+		}
+		return s;
+	}
+
+	private Selection equal(int[] column, int value) {
+		Selection s = new Selection(rows);
+		if (value < 0) {
+			return s;
+		}
+		long[] words = s.words;
+		for (int w = 0; w < words.length; w++) {
+			long bits = 0;
+			int base = w << 6;
+			int end = Math.min(64, rows - base);
+			for (int b = 0; b < end; b++) {
+				bits |= (column[base + b] == value ? 1L : 0L) << b;
+			}
+			words[w] = bits;
+		}
+		return s;
+	}
+
+	private Selection between(long[] column, ZonedDateTime from, ZonedDateTime to) {
+		// NO_TIMESTAMP sorts below every bound so missing timestamps never match
+		long min = from != null ? from.toEpochSecond() : NO_TIMESTAMP + 1;
+		long max = to != null ? to.toEpochSecond() - 1 : Long.MAX_VALUE;
+		Selection s = new Selection(rows);
+		long[] words = s.words;
+		for (int w = 0; w < words.length; w++) {
+			long bits = 0;
+			int base = w << 6;
+			int end = Math.min(64, rows - base);
+			for (int b = 0; b < end; b++) {
+				long v = column[base + b];
+				bits |= (v >= min && v <= max ? 1L : 0L) << b;
+			}
+			words[w] = bits;
+		}
+		return s;
+	}
+
+	private Selection between(double[] column, double min, double max) {
+		Selection s = new Selection(rows);
+		long[] words = s.words;
+		for (int w = 0; w < words.length; w++) {
+			long bits = 0;
+			int base = w << 6;
+			int end = Math.min(64, rows - base);
+			for (int b = 0; b < end; b++) {
+				double v = column[base + b];	// NaN fails both comparisons
+				bits |= (v >= min && v <= max ? 1L : 0L) << b;
+			}
+			words[w] = bits;
+		}
+		return s;
+	}
+
+	private int[] counts(byte[] column, int values, Selection selection) {
+		int[] counts = new int[values];
+		selection.forEach(row -> counts[column[row] & 0xFF]++);
+		return counts;
+	}
+
+	private Map<String, Integer> dictionaryCounts(int[] column, String[] dictionary, Selection selection) {
+		int[] counts = new int[dictionary.length];
+		selection.forEach(row -> {
+			if (column[row] >= 0) {
+				counts[column[row]]++;
+			}
+		});
+		Map<String, Integer> result = new LinkedHashMap<String, Integer>();
+		for (int i = 0; i < counts.length; i++) {
+			if (counts[i] > 0) {
+				result.put(dictionary[i], counts[i]);
+			}
+		}
+		return result;
+	}
+
+	private double average(double[] column, Selection selection) {
+		double sum = 0;
+		int n = 0;
+		for (int i = 0; i < rows; i++) {
+			double v = column[i];
+			if (bit(selection.words, i) && !Double.isNaN(v)) {
+				sum += v;
+				n++;
+			}
+		}
+		return n > 0 ? sum / n : Double.NaN;
+	}
+
+	private Selection check(Selection selection) {
+		if (selection.rows != rows) {
+			throw new IllegalArgumentException("Selection of a different table");
+		}
+		return selection;
+	}
+
+	private int checkRow(int row) {
+		if (row < 0 || row >= rows) {
+			throw new IndexOutOfBoundsException("Row " + row + " of " + rows);
+		}
+		return row;
+	}
+
+	private static int code(String[] dictionary, String value) {
+		for (int i = 0; i < dictionary.length; i++) {
+			if (dictionary[i].equals(value)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	private static int and(long[] a, long[] b) {
+		int n = 0;
+		for (int i = 0; i < b.length; i++) {
+			n += Long.bitCount(a[i] & b[i]);
+		}
+		return n;
+	}
+
+	private static boolean bit(long[] words, int row) {
+		return (words[row >>> 6] & (1L << row)) != 0;
+	}
+
+	private static int words(int rows) {
+		return (rows + 63) >>> 6;
+	}
+
+	private static long epochSecond(ZonedDateTime time) {
+		return time != null ? time.toEpochSecond() : NO_TIMESTAMP;
+	}
+
+	private static ZonedDateTime time(long epochSecond) {
+		return epochSecond != NO_TIMESTAMP ? ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC) : null;
+	}
+}
@@ -1,13 +1,19 @@
 package com.github.bananaj.model.list.member;
 
+import java.io.IOException;
 import java.time.ZonedDateTime;
 
 import org.json.JSONObject;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
 import com.github.bananaj.connection.MailChimpConnection;
 import com.github.bananaj.model.JSONParser;
 import com.github.bananaj.utils.DateConverter;
 import com.github.bananaj.utils.JSONObjectCheck;
+import com.github.bananaj.utils.JsonTokens;
+import com.github.bananaj.utils.StringInterner;
 
 /**
  * A tag that has been assigned to a contact.
@@ -16,6 +22,7 @@ public class MemberTag implements JSONParser {
 	private String name;
 	private Integer id;
 	private ZonedDateTime dateAdded;
+	private String rawDateAdded;	// undecoded ISO 8601 text with lazy decoding
 
 	public MemberTag() {
 		
@@ -31,16 +38,55 @@ public class MemberTag implements JSONParser {
 		dateAdded = null;
 	}
 
+	/**
+	 * Bind a tag from a streaming parser positioned at the START_OBJECT token
+	 * @param parser
+	 * @param connection Used for its string interner and decoding mode, may be null
+	 * @throws IOException
+	 */
+	public MemberTag(JsonParser parser, MailChimpConnection connection) throws IOException {
+		StringInterner strings = connection != null ? connection.getStringInterner() : StringInterner.NONE;
+		boolean lazy = connection != null && connection.isLazyDecoding();
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			switch (field) {
+			case "name":
+				name = JsonTokens.getString(parser, strings);
+				break;
+			case "id":
+				id = JsonTokens.getInt(parser);
+				break;
+			case "date_added":
+				if (lazy) {
+					rawDateAdded = JsonTokens.getString(parser);
+				} else {
+					dateAdded = JsonTokens.getISO8601Date(parser);
+				}
+				break;
+			default:
+				parser.skipChildren();
+			}
+		}
+	}
+
 	/**
 	 * Parse a JSON representation of member tag into this.
-	 * @param connection Not used
+	 * @param connection Used for its string interner and decoding mode, may be null
 	 * @param jsonObj
 	 */
 	public void parse(MailChimpConnection connection, JSONObject jsonObj) {
 		JSONObjectCheck jObj = new JSONObjectCheck(jsonObj);
-		name = jObj.getString("name");
+		StringInterner strings = connection != null ? connection.getStringInterner() : StringInterner.NONE;
+		name = strings.intern(jObj.getString("name"));
 		id = jObj.getInt("id");
-		dateAdded = jObj.getISO8601Date("date_added");
+		if (connection != null && connection.isLazyDecoding()) {
+			dateAdded = null;
+			rawDateAdded = jObj.getISO8601Text("date_added");
+		} else {
+			dateAdded = jObj.getISO8601Date("date_added");
+			rawDateAdded = null;
+		}
 	}
 	
 	/**
@@ -61,6 +107,10 @@ public class MemberTag implements JSONParser {
 	 * @return The date and time the tag was added to the list member.
 	 */
 	public ZonedDateTime getDateAdded() {
+		if (rawDateAdded != null) {
+			dateAdded = DateConverter.fromISO8601(rawDateAdded);
+			rawDateAdded = null;
+		}
 		return dateAdded;
 	}
 
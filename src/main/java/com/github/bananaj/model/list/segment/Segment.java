@@ -105,7 +105,7 @@ public class Segment implements JSONParser {
      */
     public Iterable<Member> getMembers(final MailChimpQueryParameters queryParameters) throws IOException, Exception {
 		final String baseURL = URLHelper.join(getConnection().getListendpoint(), "/", this.getListId(), "/segments/", Integer.toString(this.getId()), "/members");
-		return new ModelIterator<Member>(Member.class, baseURL, getConnection(), queryParameters);
+		return new ModelIterator<Member>(Member::new, baseURL, getConnection(), queryParameters);
     }
 
     /**
@@ -115,7 +115,7 @@ public class Segment implements JSONParser {
      */
     public Iterable<Member> getMembers() throws IOException, Exception {
 		final String baseURL = URLHelper.join(getConnection().getListendpoint(), "/", this.getListId(), "/segments/", Integer.toString(this.getId()), "/members");
-		return new ModelIterator<Member>(Member.class, baseURL, getConnection());
+		return new ModelIterator<Member>(Member::new, baseURL, getConnection());
     }
 
     /**
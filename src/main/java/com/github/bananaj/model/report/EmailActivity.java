@@ -15,6 +15,7 @@ import com.github.bananaj.connection.MailChimpConnection;
 import com.github.bananaj.model.JSONParser;
 import com.github.bananaj.utils.DateConverter;
 import com.github.bananaj.utils.JSONObjectCheck;
+import com.github.bananaj.utils.StringInterner;
 
 /**
  * Mailchimp's campaign and Automation reports analyze clicks, opens, subscribers' social activity, e-commerce data, and more.
@@ -41,8 +42,9 @@ public class EmailActivity implements JSONParser {
 	@Override
 	public void parse(MailChimpConnection connection, JSONObject entity) {
 		JSONObjectCheck jObj = new JSONObjectCheck(entity);
-		campaignId = jObj.getString("campaign_id");
-		listId = jObj.getString("list_id");
+		StringInterner strings = connection != null ? connection.getStringInterner() : StringInterner.NONE;
+		campaignId = strings.intern(jObj.getString("campaign_id"));
+		listId = strings.intern(jObj.getString("list_id"));
 		listIsActive = jObj.getBoolean("list_is_active");
 		emailId = jObj.getString("email_id");
 		emailAddress = jObj.getString("email_address");
@@ -52,7 +54,9 @@ public class EmailActivity implements JSONParser {
 		if (array != null) {
 			for( int i = 0; i< array.length(); i++)
 			{
-				activity.add(new Activity(array.getJSONObject(i)));
+				Activity a = new Activity();
+				a.parse(connection, array.getJSONObject(i));
+				activity.add(a);
 			}
 		}
 	}
@@ -121,14 +125,15 @@ public class EmailActivity implements JSONParser {
 
 		@Override
 		public void parse(MailChimpConnection connection, JSONObject entity) {
+			StringInterner strings = connection != null ? connection.getStringInterner() : StringInterner.NONE;
 			if (entity.has("action")) {
-				action = entity.getString("action");
+				action = strings.intern(entity.getString("action"));
 			}
 			if (entity.has("type")) {
-				type = entity.getString("type");
+				type = strings.intern(entity.getString("type"));
 			}
 			if (entity.has("url")) {
-				url = entity.getString("url");
+				url = strings.intern(entity.getString("url"));
 			}
 			if (entity.has("ip")) {
 				ip = entity.getString("ip");
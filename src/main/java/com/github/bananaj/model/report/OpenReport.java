@@ -23,11 +23,11 @@ public class OpenReport extends ModelIterator<OpenReportMember> {
 	private Integer totalItems;
 
 	protected OpenReport(String query, MailChimpConnection connection) {
-		super(OpenReportMember.class, query, connection);
+		super(OpenReportMember::new, query, connection);
 	}
 
 	protected OpenReport(String query, MailChimpConnection connection, final MailChimpQueryParameters queryParameters) {
-		super(OpenReportMember.class, query, connection, queryParameters);
+		super(OpenReportMember::new, query, connection, queryParameters);
 	}
 	
 	public static OpenReport getOpenReport(MailChimpConnection connection, String campaignId, final MailChimpQueryParameters queryParameters) throws Exception {
@@ -12,6 +12,7 @@ import org.json.JSONObject;
 import com.github.bananaj.connection.MailChimpConnection;
 import com.github.bananaj.model.JSONParser;
 import com.github.bananaj.utils.JSONObjectCheck;
+import com.github.bananaj.utils.StringInterner;
 
 /**
  * a list member who opened a campaign email. Each members object will contain
@@ -43,10 +44,11 @@ public class OpenReportMember implements JSONParser {
 	@Override
 	public void parse(MailChimpConnection connection, JSONObject entity) {
 		JSONObjectCheck jObj = new JSONObjectCheck(entity);
-		campaignId = jObj.getString("campaign_id");
-		listId = jObj.getString("list_id");
+		StringInterner strings = connection != null ? connection.getStringInterner() : StringInterner.NONE;
+		campaignId = strings.intern(jObj.getString("campaign_id"));
+		listId = strings.intern(jObj.getString("list_id"));
 		listIsActive = jObj.getBoolean("list_is_active");
-		contactStatus = jObj.getString("contact_status");
+		contactStatus = strings.intern(jObj.getString("contact_status"));
 		emailId = jObj.getString("email_id");
 		emailAddress = jObj.getString("email_address");
 
@@ -54,7 +56,7 @@ public class OpenReportMember implements JSONParser {
 		if (jObj.has("merge_fields")) {
 			final JSONObject mergeFieldsObj = jObj.getJSONObject("merge_fields");
 			for(String key : mergeFieldsObj.keySet()) {
-				mergeFields.put(key, mergeFieldsObj.get(key));
+				mergeFields.put(strings.intern(key), mergeFieldsObj.get(key));
 			}
 		}
 
@@ -41,6 +41,8 @@ public class Report implements JSONParser {
 	private Integer unsubscribed;
 	private ZonedDateTime sendtime;
 	private ZonedDateTime rssLastSend;
+	private String rawSendtime;		// undecoded ISO 8601 text with lazy decoding
+	private String rawRssLastSend;
 	private Bounce bounces;
 	private Forward forwards;
 	private Open opens;
@@ -51,6 +53,11 @@ public class Report implements JSONParser {
 	private ABSplit abSplit;
 	private List<Timewarp> timewarp;
 	private List<TimeSeries> timeseries;
+	private JSONObject rawOpens;		// undecoded values with lazy decoding
+	private JSONObject rawClicks;
+	private JSONObject rawAbSplit;
+	private JSONArray rawTimewarp;
+	private JSONArray rawTimeseries;
 	private ShareReport shareReport;
 	private Ecommerce ecommerce;
 	private DeliveryStatus deliveryStatus;
@@ -66,6 +73,7 @@ public class Report implements JSONParser {
 	@Override
 	public void parse(MailChimpConnection connection, JSONObject entity) {
 		JSONObjectCheck jObj = new JSONObjectCheck(entity);
+		boolean lazy = connection != null && connection.isLazyDecoding();
 		id = jObj.getString("id");
 		this.connection = connection;
 		campaignTitle = jObj.getString("campaign_title");
@@ -78,31 +86,43 @@ public class Report implements JSONParser {
 		emailsSent = jObj.getInt("emails_sent");
 		abuseReport = jObj.getInt("abuse_reports");
 		unsubscribed = jObj.getInt("unsubscribed");
-		sendtime = jObj.getISO8601Date("send_time");
-		rssLastSend = jObj.getISO8601Date("rss_last_send");
 		bounces = jObj.has("bounces") ? new Bounce(jObj.getJSONObject("bounces")) : null;
 		forwards = jObj.has("forwards") ? new Forward(jObj.getJSONObject("forwards")) : null;
-		clicks = jObj.has("clicks") ? new Click(jObj.getJSONObject("clicks")) : null;
-		opens = jObj.has("opens") ? new Open(jObj.getJSONObject("opens")) : null;
 		facebookLikes = jObj.has("facebook_likes") ? new FacebookLikes(jObj.getJSONObject("facebook_likes")) : null;
 		industryStats = jObj.has("industry_stats") ? new IndustryStats(jObj.getJSONObject("industry_stats")) : null;
 		listStats = jObj.has("list_stats") ? new ReportListStats(jObj.getJSONObject("list_stats")) : null;
-		abSplit = jObj.has("ab_split") ? new ABSplit(jObj.getJSONObject("ab_split")) : null;
-		
-		if (jObj.has("timewarp")) {
-			final JSONArray series = jObj.getJSONArray("timewarp");
-			timewarp = new ArrayList<Timewarp>(series.length());
-			for(int i=0; i<series.length(); i++) {
-				timewarp.add(new Timewarp(series.getJSONObject(i)));
-			}
-		}
-		
-		if (jObj.has("timeseries")) {
-			final JSONArray series = jObj.getJSONArray("timeseries");
-			timeseries = new ArrayList<TimeSeries>(series.length());
-			for(int i=0; i<series.length(); i++) {
-				timeseries.add(new TimeSeries(series.getJSONObject(i)));
-			}
+
+		// the values holding timestamps are kept undecoded with lazy decoding
+		if (lazy) {
+			sendtime = null;
+			rssLastSend = null;
+			clicks = null;
+			opens = null;
+			abSplit = null;
+			timewarp = null;
+			timeseries = null;
+			rawSendtime = jObj.getISO8601Text("send_time");
+			rawRssLastSend = jObj.getISO8601Text("rss_last_send");
+			rawClicks = jObj.getJSONObject("clicks");
+			rawOpens = jObj.getJSONObject("opens");
+			rawAbSplit = jObj.getJSONObject("ab_split");
+			rawTimewarp = jObj.getJSONArray("timewarp");
+			rawTimeseries = jObj.getJSONArray("timeseries");
+		} else {
+			sendtime = jObj.getISO8601Date("send_time");
+			rssLastSend = jObj.getISO8601Date("rss_last_send");
+			clicks = jObj.has("clicks") ? new Click(jObj.getJSONObject("clicks")) : null;
+			opens = jObj.has("opens") ? new Open(jObj.getJSONObject("opens")) : null;
+			abSplit = jObj.has("ab_split") ? new ABSplit(jObj.getJSONObject("ab_split")) : null;
+			timewarp = jObj.has("timewarp") ? timewarp(jObj.getJSONArray("timewarp")) : null;
+			timeseries = jObj.has("timeseries") ? timeseries(jObj.getJSONArray("timeseries")) : null;
+			rawSendtime = null;
+			rawRssLastSend = null;
+			rawClicks = null;
+			rawOpens = null;
+			rawAbSplit = null;
+			rawTimewarp = null;
+			rawTimeseries = null;
 		}
 		
 		shareReport = jObj.has("share_report") ? new ShareReport(jObj.getJSONObject("share_report")) : null;
@@ -110,6 +130,22 @@ public class Report implements JSONParser {
 		deliveryStatus = jObj.has("delivery_status") ? new DeliveryStatus(jObj.getJSONObject("delivery_status")) : null;
 	}
 
+	private static List<Timewarp> timewarp(JSONArray series) {
+		List<Timewarp> timewarp = new ArrayList<Timewarp>(series.length());
+		for(int i=0; i<series.length(); i++) {
+			timewarp.add(new Timewarp(series.getJSONObject(i)));
+		}
+		return timewarp;
+	}
+
+	private static List<TimeSeries> timeseries(JSONArray series) {
+		List<TimeSeries> timeseries = new ArrayList<TimeSeries>(series.length());
+		for(int i=0; i<series.length(); i++) {
+			timeseries.add(new TimeSeries(series.getJSONObject(i)));
+		}
+		return timeseries;
+	}
+
 	/**
 	 * @return A string that uniquely identifies this campaign.
 	 */
@@ -149,13 +185,17 @@ public class Report implements JSONParser {
 	 * @return The date and time a campaign was sent.
 	 */
 	public ZonedDateTime getSendTime() {
-		return sendtime;
+		return getSendtime();
 	}
 
 	/**
 	 * @return For RSS campaigns, the date and time of the last send.
 	 */
 	public ZonedDateTime getRssLastSend() {
+		if (rawRssLastSend != null) {
+			rssLastSend = DateConverter.fromISO8601(rawRssLastSend);
+			rawRssLastSend = null;
+		}
 		return rssLastSend;
 	}
 
@@ -177,6 +217,10 @@ public class Report implements JSONParser {
 	 * @return The click activity for the campaign.
 	 */
 	public Click getClicks() {
+		if (rawClicks != null) {
+			clicks = new Click(rawClicks);
+			rawClicks = null;
+		}
 		return clicks;
 	}
 
@@ -184,6 +228,10 @@ public class Report implements JSONParser {
 	 * @return The open activity for the campaign.
 	 */
 	public Open getOpens() {
+		if (rawOpens != null) {
+			opens = new Open(rawOpens);
+			rawOpens = null;
+		}
 		return opens;
 	}
 
@@ -213,6 +261,10 @@ public class Report implements JSONParser {
 	 * information about Mailchimp Pro's Multivariate Campaigns.
 	 */
 	public ABSplit getAbSplit() {
+		if (rawAbSplit != null) {
+			abSplit = new ABSplit(rawAbSplit);
+			rawAbSplit = null;
+		}
 		return abSplit;
 	}
 
@@ -220,6 +272,10 @@ public class Report implements JSONParser {
 	 * @return An hourly breakdown of sends, opens, and clicks if a campaign is sent using timewarp.
 	 */
 	public List<Timewarp> getTimewarp() {
+		if (rawTimewarp != null) {
+			timewarp = timewarp(rawTimewarp);
+			rawTimewarp = null;
+		}
 		return timewarp;
 	}
 
@@ -227,6 +283,10 @@ public class Report implements JSONParser {
 	 * @return An hourly breakdown of the performance of the campaign over the first 24 hours.
 	 */
 	public List<TimeSeries> getTimeseries() {
+		if (rawTimeseries != null) {
+			timeseries = timeseries(rawTimeseries);
+			rawTimeseries = null;
+		}
 		return timeseries;
 	}
 
@@ -297,6 +357,10 @@ public class Report implements JSONParser {
 	 * @return The date and time a campaign was sent
 	 */
 	public ZonedDateTime getSendtime() {
+		if (rawSendtime != null) {
+			sendtime = DateConverter.fromISO8601(rawSendtime);
+			rawSendtime = null;
+		}
 		return sendtime;
 	}
 
@@ -14,6 +14,7 @@ import com.github.bananaj.connection.MailChimpConnection;
 import com.github.bananaj.model.JSONParser;
 import com.github.bananaj.utils.DateConverter;
 import com.github.bananaj.utils.JSONObjectCheck;
+import com.github.bananaj.utils.StringInterner;
 
 /**
  * Mailchimp's campaign and Automation reports analyze clicks, opens, subscribers' social activity, e-commerce data, and more.
@@ -46,8 +47,9 @@ public class ReportSentTo implements JSONParser {
 	@Override
 	public void parse(MailChimpConnection connection, JSONObject entity) {
 		JSONObjectCheck jObj = new JSONObjectCheck(entity);
-		campaignId = jObj.getString("campaign_id");
-		listId = jObj.getString("list_id");
+		StringInterner strings = connection != null ? connection.getStringInterner() : StringInterner.NONE;
+		campaignId = strings.intern(jObj.getString("campaign_id"));
+		listId = strings.intern(jObj.getString("list_id"));
 		listIsActive = jObj.getBoolean("list_is_active");
 		emailId = jObj.getString("email_id");
 		emailAddress = jObj.getString("email_address");
@@ -56,15 +58,15 @@ public class ReportSentTo implements JSONParser {
 		if (jObj.has("merge_fields")) {
 			final JSONObject mergeFieldsObj = jObj.getJSONObject("merge_fields");
 			for(String key : mergeFieldsObj.keySet()) {
-				mergeFields.put(key, mergeFieldsObj.get(key));
+				mergeFields.put(strings.intern(key), mergeFieldsObj.get(key));
 			}
 		}
 		
 		vip = jObj.getBoolean("vip");
-		status = jObj.getString("status");
+		status = strings.intern(jObj.getString("status"));
 		openCount = jObj.getInt("open_count");
 		lastOpen = jObj.getISO8601Date("last_open");
-		abSplitGroup = jObj.getString("absplit_group");
+		abSplitGroup = strings.intern(jObj.getString("absplit_group"));
 		gmtOffset = jObj.getInt("gmt_offset");
 	}
 
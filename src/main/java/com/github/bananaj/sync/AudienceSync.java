@@ -0,0 +1,154 @@
+package com.github.bananaj.sync;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+
+import com.github.bananaj.codec.ModelCodec;
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.connection.MailChimpQueryParameters;
+import com.github.bananaj.model.list.MailChimpList;
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.utils.URLHelper;
+
+/**
+ * Incrementally syncs list members into a {@link MemberStore}. The store
+ * keeps a checkpoint per list, each sync pulls only the members changed since
+ * the checkpoint using <code>since_last_changed</code> and then advances the
+ * checkpoint. The first sync of a list pulls every member.
+ * <p>
+ * A sync reads the window of members changed between the previous checkpoint
+ * and the time the sync started, <code>before_last_changed</code>, and
+ * commits the start time as the new checkpoint once every page has been
+ * stored. Members edited while the sync runs leave the window, their new
+ * state is pulled by the next sync. Because the window can only shrink while
+ * it is read, pages are read from the last offset to the first so members
+ * shifting to lower offsets are never skipped; at worst a member is delivered
+ * twice. Each sync starts the window an overlap before the checkpoint to
+ * allow for clock differences between this host and MailChimp.
+ * <p>
+ * Members deleted permanently are not reported by
+ * <code>since_last_changed</code>, archived, unsubscribed and cleaned members
+ * are reported with their new status.
+ */
+public class AudienceSync {
+	final static Logger logger = Logger.getLogger(AudienceSync.class);
+
+	public static final long DEFAULT_OVERLAP_MILLIS = 5 * 60 * 1000;
+	public static final int DEFAULT_PAGE_SIZE = 1000;
+
+	private final MailChimpConnection connection;
+	private final MemberStore store;
+	private final long overlapMillis;
+	private final int pageSize;
+
+	public AudienceSync(MailChimpConnection connection, MemberStore store) {
+		this(connection, store, DEFAULT_OVERLAP_MILLIS, TimeUnit.MILLISECONDS, DEFAULT_PAGE_SIZE);
+	}
+
+	/**
+	 * @param connection
+	 * @param store Store receiving the members and checkpoints
+	 * @param overlap How far before the checkpoint each sync starts the window of changes
+	 * @param unit
+	 * @param pageSize Number of members requested per page. Maximum value is 1000.
+	 */
+	public AudienceSync(MailChimpConnection connection, MemberStore store, long overlap, TimeUnit unit, int pageSize) {
+		if (pageSize <= 0 || pageSize > 1000) {
+			throw new IllegalArgumentException("pageSize out of range (1-1000)");
+		}
+		this.connection = Objects.requireNonNull(connection, "MailChimpConnection");
+		this.store = Objects.requireNonNull(store, "MemberStore");
+		this.overlapMillis = Math.max(unit.toMillis(overlap), 0);
+		this.pageSize = pageSize;
+	}
+
+	/**
+	 * Pull the members of the list changed since its checkpoint, or all
+	 * members when the list has no checkpoint, and advance the checkpoint.
+	 * @param list
+	 * @return The outcome of the sync
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public SyncResult sync(MailChimpList list) throws IOException, Exception {
+		return sync(list.getId());
+	}
+
+	/**
+	 * Pull the members of the list changed since its checkpoint, or all
+	 * members when the list has no checkpoint, and advance the checkpoint.
+	 * @param listId
+	 * @return The outcome of the sync
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public SyncResult sync(String listId) throws IOException, Exception {
+		ZonedDateTime checkpoint = store.getCheckpoint(listId);
+		return sync(listId, checkpoint != null ? checkpoint.minus(overlapMillis, ChronoUnit.MILLIS) : null);
+	}
+
+	/**
+	 * Pull every member of the list regardless of its checkpoint and advance
+	 * the checkpoint.
+	 * @param listId
+	 * @return The outcome of the sync
+	 * @throws IOException
+	 * @throws Exception
+	 */
+	public SyncResult fullSync(String listId) throws IOException, Exception {
+		return sync(listId, null);
+	}
+
+	private SyncResult sync(String listId, ZonedDateTime since) throws IOException, Exception {
+		final long start = System.currentTimeMillis();
+		final ZonedDateTime before = ZonedDateTime.now(ZoneOffset.UTC).truncatedTo(ChronoUnit.SECONDS);
+		MailChimpQueryParameters params = new MailChimpQueryParameters(URLHelper.join(connection.getListendpoint(),"/",listId,"/members"))
+				.param("since_last_changed", since)
+				.param("before_last_changed", before);
+
+		MailChimpQueryParameters totalParams = (MailChimpQueryParameters) params.clone();
+		totalParams.count(1).offset(0).includeFields("total_items");
+		final int totalItems = readPage(totalParams, new ArrayList<Member>(1));
+		if (totalItems < 0) {
+			throw new IOException("total_items not reported for members of list " + listId);
+		}
+
+		// last page first, members leaving the window only shift later members to lower offsets
+		int members = 0;
+		int pages = 0;
+		for (int offset = ((totalItems - 1) / pageSize) * pageSize; offset >= 0 && totalItems > 0; offset -= pageSize) {
+			MailChimpQueryParameters pageParams = (MailChimpQueryParameters) params.clone();
+			pageParams.count(pageSize).offset(offset);
+			List<Member> page = new ArrayList<Member>(pageSize);
+			readPage(pageParams, page);
+			pages++;
+			if (!page.isEmpty()) {
+				store.upsert(listId, page);
+				members += page.size();
+			}
+		}
+
+		store.commit(listId, before);
+		SyncResult result = new SyncResult(listId, since, before, totalItems, members, pages, System.currentTimeMillis() - start);
+		logger.debug(result);
+		return result;
+	}
+
+	/**
+	 * @return total_items reported by the page
+	 */
+	private int readPage(MailChimpQueryParameters params, List<Member> members) throws IOException, URISyntaxException {
+		final ModelCodec codec = connection.getModelCodec();
+		Integer totalItems = connection.do_Get(params.getURL(), connection.getApikey(), in -> codec.readPage(connection, in, Member::new, members::add));
+		return totalItems != null ? totalItems : -1;
+	}
+}
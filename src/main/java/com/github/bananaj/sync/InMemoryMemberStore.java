@@ -0,0 +1,67 @@
+package com.github.bananaj.sync;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.github.bananaj.model.list.member.Member;
+
+/**
+ * {@link MemberStore} holding members and checkpoints in memory. Nothing
+ * survives a restart so every run starts with a full sync.
+ */
+public class InMemoryMemberStore implements MemberStore {
+
+	private final Map<String, Map<String, Member>> lists = new ConcurrentHashMap<String, Map<String, Member>>();
+	private final Map<String, ZonedDateTime> checkpoints = new ConcurrentHashMap<String, ZonedDateTime>();
+
+	@Override
+	public ZonedDateTime getCheckpoint(String listId) {
+		return checkpoints.get(listId);
+	}
+
+	@Override
+	public void upsert(String listId, List<Member> members) {
+		Map<String, Member> list = lists.computeIfAbsent(listId, k -> new ConcurrentHashMap<String, Member>());
+		for (Member member : members) {
+			list.put(member.getId(), member);
+		}
+	}
+
+	@Override
+	public void commit(String listId, ZonedDateTime checkpoint) {
+		// never move backwards when syncs of a list overlap
+		checkpoints.merge(listId, checkpoint, (a, b) -> b.isAfter(a) ? b : a);
+	}
+
+	/**
+	 * @param listId
+	 * @param subscriberHash
+	 * @return The stored member or null
+	 */
+	public Member getMember(String listId, String subscriberHash) {
+		Map<String, Member> list = lists.get(listId);
+		return list != null ? list.get(subscriberHash) : null;
+	}
+
+	/**
+	 * @param listId
+	 * @return The stored members of the list
+	 */
+	public Collection<Member> getMembers(String listId) {
+		Map<String, Member> list = lists.get(listId);
+		return list != null ? Collections.unmodifiableCollection(list.values()) : Collections.<Member>emptyList();
+	}
+
+	/**
+	 * @param listId
+	 * @return Number of stored members of the list
+	 */
+	public int size(String listId) {
+		Map<String, Member> list = lists.get(listId);
+		return list != null ? list.size() : 0;
+	}
+}
@@ -0,0 +1,74 @@
+package com.github.bananaj.sync;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import com.github.bananaj.model.list.interests.InterestCatalogue;
+
+/**
+ * The interest ids of a catalogue as UTF-8 bytes in an open addressing table,
+ * so the interest keys of a record are matched to catalogue positions in
+ * place, without decoding them to Strings. Immutable.
+ */
+final class InterestKeys {
+
+	private final byte[][] keys;	// null for an empty slot
+	private final int[] positions;
+	private final int mask;
+
+	InterestKeys(InterestCatalogue catalogue) {
+		int capacity = 4;
+		while (capacity < catalogue.size() * 2) {
+			capacity <<= 1;
+		}
+		keys = new byte[capacity][];
+		positions = new int[capacity];
+		mask = capacity - 1;
+		for (int i = 0; i < catalogue.size(); i++) {
+			byte[] key = catalogue.getInterest(i).getId().getBytes(StandardCharsets.UTF_8);
+			int h = 0;
+			for (byte b : key) {
+				h = 31 * h + b;
+			}
+			int slot = mix(h);
+			while (keys[slot] != null) {
+				slot = (slot + 1) & mask;
+			}
+			keys[slot] = key;
+			positions[slot] = i;
+		}
+	}
+
+	/**
+	 * @return Catalogue position of the interest whose id is the UTF-8 bytes at
+	 *         offset, or -1 if it is not in the catalogue
+	 */
+	int indexOf(ByteBuffer buf, int offset, int length) {
+		int h = 0;
+		for (int i = 0; i < length; i++) {
+			h = 31 * h + buf.get(offset + i);
+		}
+		for (int slot = mix(h); keys[slot] != null; slot = (slot + 1) & mask) {
+			if (matches(keys[slot], buf, offset, length)) {
+				return positions[slot];
+			}
+		}
+		return -1;
+	}
+
+	private int mix(int h) {
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	private static boolean matches(byte[] key, ByteBuffer buf, int offset, int length) {
+		if (key.length != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (buf.get(offset + i) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,497 @@
+package com.github.bananaj.sync;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+
+import com.github.bananaj.model.list.interests.InterestFilter;
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.utils.DateConverter;
+
+/**
+ * Persistent local copy of list members stored in memory-mapped files. Filled
+ * from {@link com.github.bananaj.model.list.MailChimpList#getMembers()} or kept
+ * up to date by {@link AudienceSync}, the mirror survives restarts so a
+ * restarted application continues with a delta sync rather than downloading
+ * the audience again.
+ * <p>
+ * Each list is an append-only log of compact binary member records in its own
+ * subdirectory. An in-memory index, rebuilt from the log when the mirror is
+ * opened, maps the subscriber hash to the latest record of the member. Point
+ * lookups and scans return {@link MemberRecord} views that decode fields from
+ * the mapped files as they are read rather than building {@link Member}
+ * objects. Replaced and removed members leave superseded records in the log
+ * until the list is {@link #compact(String) compacted}.
+ * <p>
+ * Records are written to the files by {@link #commit(String, ZonedDateTime)},
+ * {@link #flush()} and {@link #close()}. Records appended after the last of
+ * these may be lost in a crash, in which case the next sync repeats from the
+ * last checkpoint. The location and e-commerce statistics of members are not
+ * stored.
+ * <p>
+ * A mirror directory must only be opened by one MemberMirror at a time.
+ * Methods are thread safe; writes to a list are serialized.
+ */
+public class MemberMirror implements MemberStore, Closeable {
+	final static Logger logger = Logger.getLogger(MemberMirror.class);
+
+	public static final int DEFAULT_SEGMENT_SIZE = 64 * 1024 * 1024;
+	private static final Pattern LIST_ID = Pattern.compile("[A-Za-z0-9_-]+");
+	private static final String VERSION_FILE = "mirror.version";
+	private static final String CHECKPOINT_FILE = "checkpoint";
+	private static final String COMPACT_SUFFIX = ".compact";
+	private static final String OLD_SUFFIX = ".old";
+
+	private final Path dir;
+	private final int segmentSize;
+	private final Map<String, ListMirror> lists = new ConcurrentHashMap<String, ListMirror>();
+	private volatile boolean closed = false;
+
+	private static class ListMirror {
+		final String listId;
+		final Path dir;
+		final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+		MirrorLog log;
+		MirrorIndex index;
+		ZonedDateTime checkpoint;
+
+		ListMirror(String listId, Path dir) {
+			this.listId = listId;
+			this.dir = dir;
+		}
+	}
+
+	public MemberMirror(Path dir) throws IOException {
+		this(dir, DEFAULT_SEGMENT_SIZE);
+	}
+
+	/**
+	 * Open or create a mirror, reading the index of every list it contains.
+	 * @param dir Directory holding the mirror files
+	 * @param segmentSize Size of each memory-mapped file, which limits the size of a single member record
+	 * @throws IOException
+	 */
+	public MemberMirror(Path dir, int segmentSize) throws IOException {
+		if (segmentSize < RecordFormat.HEADER) {
+			throw new IllegalArgumentException("Segment size " + segmentSize + " is too small");
+		}
+		this.dir = dir;
+		this.segmentSize = segmentSize;
+		Files.createDirectories(dir);
+		Path version = dir.resolve(VERSION_FILE);
+		if (Files.exists(version)) {
+			String v = new String(Files.readAllBytes(version), StandardCharsets.UTF_8).trim();
+			if (!v.equals(Integer.toString(RecordFormat.VERSION))) {
+				throw new IOException("Unsupported mirror version " + v + " in " + dir);
+			}
+		} else {
+			Files.write(version, Integer.toString(RecordFormat.VERSION).getBytes(StandardCharsets.UTF_8));
+		}
+
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			for (Path p : stream) {
+				String name = p.getFileName().toString();
+				if (Files.isDirectory(p) && LIST_ID.matcher(name).matches()) {
+					lists.put(name, open(name));
+				}
+			}
+		}
+		// a list whose compaction was interrupted after the old files were moved aside
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, "*" + OLD_SUFFIX)) {
+			for (Path p : stream) {
+				String name = p.getFileName().toString();
+				name = name.substring(0, name.length() - OLD_SUFFIX.length());
+				if (LIST_ID.matcher(name).matches() && !lists.containsKey(name)) {
+					lists.put(name, open(name));
+				}
+			}
+		}
+	}
+
+	@Override
+	public ZonedDateTime getCheckpoint(String listId) throws IOException {
+		ListMirror list = lists.get(checkListId(listId));
+		if (list == null) {
+			return null;
+		}
+		list.lock.readLock().lock();
+		try {
+			return list.checkpoint;
+		} finally {
+			list.lock.readLock().unlock();
+		}
+	}
+
+	@Override
+	public void upsert(String listId, List<Member> members) throws IOException {
+		putAll(listId, members);
+	}
+
+	/**
+	 * Add or replace members of a list
+	 * @param listId
+	 * @param members
+	 * @throws IOException
+	 */
+	public void putAll(String listId, Iterable<Member> members) throws IOException {
+		ListMirror list = list(listId);
+		list.lock.writeLock().lock();
+		try {
+			checkOpen(list);
+			for (Member member : members) {
+				append(list, RecordFormat.encode(member));
+			}
+		} finally {
+			list.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Add or replace a member
+	 * @param listId
+	 * @param member
+	 * @throws IOException
+	 */
+	public void put(String listId, Member member) throws IOException {
+		putAll(listId, Collections.singletonList(member));
+	}
+
+	/**
+	 * Remove a member from the mirror
+	 * @param listId
+	 * @param subscriberHash The subscriber hash or email address of the member
+	 * @return true if the member was in the mirror
+	 * @throws IOException
+	 */
+	public boolean remove(String listId, String subscriberHash) throws IOException {
+		ListMirror list = lists.get(checkListId(listId));
+		if (list == null) {
+			return false;
+		}
+		long[] hash = RecordFormat.hashOf(Member.subscriberHash(subscriberHash));
+		list.lock.writeLock().lock();
+		try {
+			checkOpen(list);
+			if (list.index.get(hash[0], hash[1]) < 0) {
+				return false;
+			}
+			list.log.append(RecordFormat.tombstone(hash[0], hash[1]));
+			list.index.remove(hash[0], hash[1]);
+			return true;
+		} finally {
+			list.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Record that every member changed before the checkpoint has been stored.
+	 * Members stored so far are written to disk before the checkpoint.
+	 */
+	@Override
+	public void commit(String listId, ZonedDateTime checkpoint) throws IOException {
+		ListMirror list = list(listId);
+		list.lock.writeLock().lock();
+		try {
+			checkOpen(list);
+			if (list.checkpoint != null && !checkpoint.isAfter(list.checkpoint)) {
+				return;	// never move backwards when syncs of a list overlap
+			}
+			list.log.force();
+			writeCheckpoint(list.dir, checkpoint);
+			list.checkpoint = checkpoint;
+		} finally {
+			list.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Look up a member by subscriber hash
+	 * @param listId
+	 * @param subscriberHash The subscriber hash or email address of the member
+	 * @return The member or null if not in the mirror
+	 */
+	public MemberRecord get(String listId, String subscriberHash) {
+		ListMirror list = lists.get(checkListId(listId));
+		if (list == null) {
+			return null;
+		}
+		long[] hash = RecordFormat.hashOf(Member.subscriberHash(subscriberHash));
+		list.lock.readLock().lock();
+		try {
+			checkOpen(list);
+			long location = list.index.get(hash[0], hash[1]);
+			return location >= 0 ? record(list, location) : null;
+		} finally {
+			list.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Visit every member of a list. Writes to the list wait until the scan
+	 * completes.
+	 * @param listId
+	 * @param action Called with each member in storage order
+	 */
+	public void forEach(String listId, Consumer<? super MemberRecord> action) {
+		ListMirror list = lists.get(checkListId(listId));
+		if (list == null) {
+			return;
+		}
+		list.lock.readLock().lock();
+		try {
+			checkOpen(list);
+			list.log.scan((location, segment, offset) -> {
+				if ((segment.get(offset + RecordFormat.FLAGS) & RecordFormat.FLAG_TOMBSTONE) == 0
+						&& list.index.get(segment.getLong(offset + RecordFormat.HASH_HI), segment.getLong(offset + RecordFormat.HASH_LO)) == location) {
+					action.accept(new MemberRecord(list.listId, segment, offset));
+				}
+			});
+		} finally {
+			list.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Visit the members of a list selected by interest, for example members
+	 * with interest A and not interest B. The interest keys of each record are
+	 * matched in place against the UTF-8 bytes of the catalogue's ids, read
+	 * into a bitset and compared with the filter word by word.
+	 * @param listId
+	 * @param filter Created from the interest catalogue of the list
+	 * @param action Called with each matching member in storage order
+	 */
+	public void forEach(String listId, InterestFilter filter, Consumer<? super MemberRecord> action) {
+		InterestKeys keys = new InterestKeys(filter.getCatalogue());
+		long[] bits = new long[filter.getCatalogue().words()];
+		forEach(listId, r -> {
+			if (filter.matches(r.interestBits(keys, bits))) {
+				action.accept(r);
+			}
+		});
+	}
+
+	/**
+	 * @param listId
+	 * @return Number of members of the list in the mirror
+	 */
+	public int size(String listId) {
+		ListMirror list = lists.get(checkListId(listId));
+		if (list == null) {
+			return 0;
+		}
+		list.lock.readLock().lock();
+		try {
+			return list.index.size();
+		} finally {
+			list.lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * @return Ids of the lists in the mirror
+	 */
+	public List<String> getListIds() {
+		List<String> ids = new ArrayList<String>(lists.keySet());
+		Collections.sort(ids);
+		return ids;
+	}
+
+	/**
+	 * Rewrite the files of a list keeping only the current record of each
+	 * member, reclaiming the space of replaced and removed members.
+	 * @param listId
+	 * @throws IOException
+	 */
+	public void compact(String listId) throws IOException {
+		ListMirror list = lists.get(checkListId(listId));
+		if (list == null) {
+			return;
+		}
+		list.lock.writeLock().lock();
+		try {
+			checkOpen(list);
+			long before = list.log.usedBytes();
+			Path compactDir = dir.resolve(listId + COMPACT_SUFFIX);
+			Path oldDir = dir.resolve(listId + OLD_SUFFIX);
+			deleteDirectory(compactDir);
+			MirrorIndex index = new MirrorIndex();
+			try (MirrorLog compacted = new MirrorLog(compactDir, segmentSize, (location, segment, offset) -> {})) {
+				IOException[] error = new IOException[1];
+				list.log.scan((location, segment, offset) -> {
+					long hi = segment.getLong(offset + RecordFormat.HASH_HI);
+					long lo = segment.getLong(offset + RecordFormat.HASH_LO);
+					if (error[0] == null && list.index.get(hi, lo) == location) {
+						byte[] record = new byte[segment.getInt(offset)];
+						for (int i = 0; i < record.length; i++) {
+							record[i] = segment.get(offset + i);
+						}
+						try {
+							index.put(hi, lo, compacted.append(record));
+						} catch (IOException e) {
+							error[0] = e;
+						}
+					}
+				});
+				if (error[0] != null) {
+					throw error[0];
+				}
+			}
+			if (list.checkpoint != null) {
+				writeCheckpoint(compactDir, list.checkpoint);
+			}
+
+			list.log.close();
+			list.log = null;
+			// the old files are removed once the compacted files are in place, see open
+			Files.move(list.dir, oldDir, StandardCopyOption.ATOMIC_MOVE);
+			Files.move(compactDir, list.dir, StandardCopyOption.ATOMIC_MOVE);
+			deleteDirectory(oldDir);
+			list.log = new MirrorLog(list.dir, segmentSize, (location, segment, offset) -> {});
+			list.index = index;
+			logger.debug("Compacted mirror of list " + listId + " from " + before + " to " + list.log.usedBytes() + " bytes");
+		} finally {
+			list.lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * Write records stored so far to disk
+	 */
+	public void flush() {
+		for (ListMirror list : lists.values()) {
+			list.lock.writeLock().lock();
+			try {
+				if (list.log != null) {
+					list.log.force();
+				}
+			} finally {
+				list.lock.writeLock().unlock();
+			}
+		}
+	}
+
+	@Override
+	public void close() {
+		closed = true;
+		for (ListMirror list : lists.values()) {
+			list.lock.writeLock().lock();
+			try {
+				if (list.log != null) {
+					list.log.close();
+					list.log = null;
+				}
+			} finally {
+				list.lock.writeLock().unlock();
+			}
+		}
+	}
+
+	private ListMirror list(String listId) throws IOException {
+		checkListId(listId);
+		if (closed) {
+			throw new IllegalStateException("MemberMirror has been closed");
+		}
+		ListMirror list = lists.get(listId);
+		if (list == null) {
+			synchronized (lists) {
+				list = lists.get(listId);
+				if (list == null) {
+					list = open(listId);
+					lists.put(listId, list);
+				}
+			}
+		}
+		return list;
+	}
+
+	private ListMirror open(String listId) throws IOException {
+		ListMirror list = new ListMirror(listId, dir.resolve(listId));
+		Path compactDir = dir.resolve(listId + COMPACT_SUFFIX);
+		Path oldDir = dir.resolve(listId + OLD_SUFFIX);
+		if (Files.exists(oldDir)) {
+			if (Files.exists(list.dir)) {
+				deleteDirectory(oldDir);	// compacted files are in place
+			} else if (Files.exists(compactDir)) {
+				Files.move(compactDir, list.dir, StandardCopyOption.ATOMIC_MOVE);
+				deleteDirectory(oldDir);
+			} else {
+				Files.move(oldDir, list.dir, StandardCopyOption.ATOMIC_MOVE);
+			}
+		}
+		deleteDirectory(compactDir);
+
+		MirrorIndex index = new MirrorIndex();
+		list.log = new MirrorLog(list.dir, segmentSize, (location, segment, offset) -> {
+			long hi = segment.getLong(offset + RecordFormat.HASH_HI);
+			long lo = segment.getLong(offset + RecordFormat.HASH_LO);
+			if ((segment.get(offset + RecordFormat.FLAGS) & RecordFormat.FLAG_TOMBSTONE) != 0) {
+				index.remove(hi, lo);
+			} else {
+				index.put(hi, lo, location);
+			}
+		});
+		list.index = index;
+		Path checkpoint = list.dir.resolve(CHECKPOINT_FILE);
+		if (Files.exists(checkpoint)) {
+			list.checkpoint = DateConverter.fromISO8601(new String(Files.readAllBytes(checkpoint), StandardCharsets.UTF_8).trim());
+		}
+		return list;
+	}
+
+	private static void append(ListMirror list, byte[] record) throws IOException {
+		ByteBuffer buf = ByteBuffer.wrap(record);
+		list.index.put(buf.getLong(RecordFormat.HASH_HI), buf.getLong(RecordFormat.HASH_LO), list.log.append(record));
+	}
+
+	private static MemberRecord record(ListMirror list, long location) {
+		return new MemberRecord(list.listId, list.log.segment(location), MirrorLog.offset(location));
+	}
+
+	private static void writeCheckpoint(Path listDir, ZonedDateTime checkpoint) throws IOException {
+		Path file = listDir.resolve(CHECKPOINT_FILE);
+		Path tmp = listDir.resolve(CHECKPOINT_FILE + ".tmp");
+		Files.write(tmp, DateConverter.toISO8601UTC(checkpoint).getBytes(StandardCharsets.UTF_8));
+		Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	private static void deleteDirectory(Path dir) throws IOException {
+		if (!Files.exists(dir)) {
+			return;
+		}
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+			for (Path p : stream) {
+				Files.delete(p);
+			}
+		}
+		Files.delete(dir);
+	}
+
+	private static String checkListId(String listId) {
+		if (listId == null || !LIST_ID.matcher(listId).matches()) {
+			throw new IllegalArgumentException("Invalid list id " + listId);
+		}
+		return listId;
+	}
+
+	private static void checkOpen(ListMirror list) {
+		if (list.log == null) {
+			throw new IllegalStateException("MemberMirror has been closed");
+		}
+	}
+}
@@ -0,0 +1,483 @@
+package com.github.bananaj.sync;
+
+import static com.github.bananaj.sync.RecordFormat.*;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.model.list.interests.InterestCatalogue;
+import com.github.bananaj.model.list.member.EmailType;
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.model.list.member.MemberStatus;
+import com.github.bananaj.model.list.member.MemberTag;
+import com.github.bananaj.utils.DateConverter;
+
+/**
+ * A member stored in a {@link MemberMirror}, read in place from the mirror's
+ * memory-mapped files. Each getter decodes only the field it returns; use
+ * {@link #toMember()} when a complete {@link Member} is needed.
+ * <p>
+ * A record is the state of the member when it was read from the mirror, it is
+ * not updated by later changes to the mirror.
+ */
+public final class MemberRecord {
+
+	private static final EmailType[] EMAIL_TYPES = EmailType.values();
+	private static final MemberStatus[] STATUSES = MemberStatus.values();
+
+	private final String listId;
+	private final ByteBuffer buf;
+	private final int offset;
+
+	MemberRecord(String listId, ByteBuffer buf, int offset) {
+		this.listId = listId;
+		this.buf = buf;
+		this.offset = offset;
+	}
+
+	public String getListId() {
+		return listId;
+	}
+
+	/**
+	 * @return The subscriber hash, the MD5 hash of the lowercase version of the member's email address
+	 */
+	public String getId() {
+		return hashString(buf.getLong(offset + HASH_HI), buf.getLong(offset + HASH_LO));
+	}
+
+	public String getEmailAddress() {
+		return string(EMAIL_ADDRESS);
+	}
+
+	public String getUniqueEmailId() {
+		return string(UNIQUE_EMAIL_ID);
+	}
+
+	public EmailType getEmailType() {
+		int ordinal = buf.get(offset + EMAIL_TYPE);
+		return ordinal > 0 ? EMAIL_TYPES[ordinal - 1] : null;
+	}
+
+	public MemberStatus getStatus() {
+		int ordinal = buf.get(offset + STATUS);
+		return ordinal > 0 ? STATUSES[ordinal - 1] : null;
+	}
+
+	public String getUnsubscribeReason() {
+		return string(UNSUBSCRIBE_REASON);
+	}
+
+	/**
+	 * @param name Merge field tag, e.g. FNAME
+	 * @return The value of the merge field or null. Values are String, Boolean,
+	 *         Number, {@link JSONObject}, {@link JSONArray} or {@link JSONObject#NULL}
+	 *         as parsed from the API.
+	 */
+	public Object getMergeField(String name) {
+		if (isNull(MERGE_FIELDS)) {
+			return null;
+		}
+		byte[] key = name.getBytes(StandardCharsets.UTF_8);
+		int[] pos = { start(MERGE_FIELDS) };
+		int count = varint(pos);
+		for (int i = 0; i < count; i++) {
+			int len = varint(pos);
+			boolean match = equals(pos[0], len, key);
+			pos[0] += len;
+			if (match) {
+				return readValue(pos);
+			}
+			skipValue(pos);
+		}
+		return null;
+	}
+
+	/**
+	 * @return The merge fields of the member
+	 */
+	public Map<String, Object> getMergeFields() {
+		Map<String, Object> fields = new LinkedHashMap<String, Object>();
+		if (!isNull(MERGE_FIELDS)) {
+			int[] pos = { start(MERGE_FIELDS) };
+			int count = varint(pos);
+			for (int i = 0; i < count; i++) {
+				String key = readString(pos);
+				fields.put(key, readValue(pos));
+			}
+		}
+		return fields;
+	}
+
+	/**
+	 * @param interestId
+	 * @return Whether the member is subscribed to the interest, null if not known
+	 */
+	public Boolean getInterest(String interestId) {
+		if (isNull(INTERESTS)) {
+			return null;
+		}
+		byte[] key = interestId.getBytes(StandardCharsets.UTF_8);
+		int[] pos = { start(INTERESTS) };
+		int count = varint(pos);
+		for (int i = 0; i < count; i++) {
+			int len = varint(pos);
+			boolean match = equals(pos[0], len, key);
+			pos[0] += len;
+			byte value = buf.get(pos[0]++);
+			if (match) {
+				return value == TYPE_NULL ? null : value == TYPE_TRUE;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return The interests of the member
+	 */
+	public Map<String, Boolean> getInterest() {
+		Map<String, Boolean> interests = new LinkedHashMap<String, Boolean>();
+		if (!isNull(INTERESTS)) {
+			int[] pos = { start(INTERESTS) };
+			int count = varint(pos);
+			for (int i = 0; i < count; i++) {
+				String key = readString(pos);
+				byte value = buf.get(pos[0]++);
+				interests.put(key, value == TYPE_NULL ? null : value == TYPE_TRUE);
+			}
+		}
+		return interests;
+	}
+
+	/**
+	 * @param catalogue The interest catalogue of the member's list
+	 * @return Bitset of the subscribed interests indexed by position in the
+	 *         catalogue. Interests not in the catalogue are left out.
+	 */
+	public long[] getInterestBits(InterestCatalogue catalogue) {
+		return interestBits(new InterestKeys(catalogue), new long[catalogue.words()]);
+	}
+
+	/**
+	 * Read the subscribed interests into bits, which is cleared first
+	 */
+	long[] interestBits(InterestKeys keys, long[] bits) {
+		Arrays.fill(bits, 0);
+		if (!isNull(INTERESTS)) {
+			int[] pos = { start(INTERESTS) };
+			int count = varint(pos);
+			for (int i = 0; i < count; i++) {
+				int len = varint(pos);
+				int keyStart = pos[0];
+				pos[0] += len;
+				if (buf.get(pos[0]++) == TYPE_TRUE) {
+					int index = keys.indexOf(buf, keyStart, len);
+					if (index >= 0) {
+						bits[index >>> 6] |= 1L << index;
+					}
+				}
+			}
+		}
+		return bits;
+	}
+
+	public boolean hasStats() {
+		return (buf.get(offset + FLAGS) & FLAG_STATS) != 0;
+	}
+
+	public Double getAvgOpenRate() {
+		return nullableDouble(AVG_OPEN_RATE);
+	}
+
+	public Double getAvgClickRate() {
+		return nullableDouble(AVG_CLICK_RATE);
+	}
+
+	public String getIpSignup() {
+		return string(IP_SIGNUP);
+	}
+
+	public ZonedDateTime getTimestampSignup() {
+		return time(TIMESTAMP_SIGNUP);
+	}
+
+	public String getIpOpt() {
+		return string(IP_OPT);
+	}
+
+	public ZonedDateTime getTimestampOpt() {
+		return time(TIMESTAMP_OPT);
+	}
+
+	public Integer getRating() {
+		int rating = buf.get(offset + RATING);
+		return rating >= 0 ? rating : null;
+	}
+
+	public ZonedDateTime getLastChanged() {
+		return time(LAST_CHANGED);
+	}
+
+	/**
+	 * @return last_changed in seconds since the epoch, {@link Long#MIN_VALUE} when not known
+	 */
+	public long getLastChangedEpochSecond() {
+		return buf.getLong(offset + LAST_CHANGED);
+	}
+
+	public String getLanguage() {
+		return string(LANGUAGE);
+	}
+
+	public boolean isVip() {
+		return (buf.get(offset + FLAGS) & FLAG_VIP) != 0;
+	}
+
+	public String getEmailClient() {
+		return string(EMAIL_CLIENT);
+	}
+
+	public Integer getTagsCount() {
+		int count = buf.getInt(offset + TAGS_COUNT);
+		return count >= 0 ? count : null;
+	}
+
+	/**
+	 * @return The tags of the member
+	 */
+	public List<MemberTag> getTags() {
+		if (isNull(TAGS)) {
+			return Collections.emptyList();
+		}
+		JSONArray tags = tagsJson();
+		List<MemberTag> result = new ArrayList<MemberTag>(tags.length());
+		for (int i = 0; i < tags.length(); i++) {
+			result.add(new MemberTag(tags.getJSONObject(i)));
+		}
+		return result;
+	}
+
+	/**
+	 * @return A member with every stored field, not connected to the API
+	 */
+	public Member toMember() {
+		return toMember(null);
+	}
+
+	/**
+	 * @param connection Connection used by the member to make API requests
+	 * @return A member with every stored field
+	 */
+	public Member toMember(MailChimpConnection connection) {
+		JSONObject json = new JSONObject()
+				.put("id", getId())
+				.put("email_address", getEmailAddress())
+				.put("unique_email_id", getUniqueEmailId())
+				.put("unsubscribe_reason", getUnsubscribeReason())
+				.put("ip_signup", getIpSignup())
+				.put("ip_opt", getIpOpt())
+				.put("language", getLanguage())
+				.put("email_client", getEmailClient())
+				.put("member_rating", getRating())
+				.put("tags_count", getTagsCount())
+				.put("vip", isVip())
+				.put("list_id", listId);
+		if (getEmailType() != null) {
+			json.put("email_type", getEmailType().toString());
+		}
+		if (getStatus() != null) {
+			json.put("status", getStatus().toString());
+		}
+		putTime(json, "timestamp_signup", TIMESTAMP_SIGNUP);
+		putTime(json, "timestamp_opt", TIMESTAMP_OPT);
+		putTime(json, "last_changed", LAST_CHANGED);
+		if (!isNull(MERGE_FIELDS)) {
+			json.put("merge_fields", new JSONObject(getMergeFields()));
+		}
+		if (!isNull(INTERESTS)) {
+			json.put("interests", new JSONObject(getInterest()));
+		}
+		if (hasStats()) {
+			json.put("stats", new JSONObject()
+					.put("avg_open_rate", getAvgOpenRate())
+					.put("avg_click_rate", getAvgClickRate()));
+		}
+		if (!isNull(TAGS)) {
+			json.put("tags", tagsJson());
+		}
+		if (!isNull(LAST_NOTE)) {
+			int[] pos = { start(LAST_NOTE) };
+			JSONObject note = new JSONObject();
+			int id = buf.getInt(pos[0]);
+			if (id != Integer.MIN_VALUE) {
+				note.put("note_id", id);
+			}
+			long createdAt = buf.getLong(pos[0] + 4);
+			pos[0] += 12;
+			if (createdAt != NULL_TIME) {
+				note.put("created_at", DateConverter.toISO8601UTC(toTime(createdAt)));
+			}
+			note.put("created_by", readNullableString(pos));
+			note.put("note", readNullableString(pos));
+			json.put("last_note", note);
+		}
+		return new Member(connection, json);
+	}
+
+	@Override
+	public String toString() {
+		return "MemberRecord " + getId() + " " + getEmailAddress() + " " + getStatus();
+	}
+
+	private JSONArray tagsJson() {
+		JSONArray tags = new JSONArray();
+		int[] pos = { start(TAGS) };
+		int count = varint(pos);
+		for (int i = 0; i < count; i++) {
+			JSONObject tag = new JSONObject();
+			int id = buf.getInt(pos[0]);
+			if (id != Integer.MIN_VALUE) {
+				tag.put("id", id);
+			}
+			long added = buf.getLong(pos[0] + 4);
+			pos[0] += 12;
+			if (added != NULL_TIME) {
+				tag.put("date_added", DateConverter.toISO8601UTC(toTime(added)));
+			}
+			tag.put("name", readNullableString(pos));
+			tags.put(tag);
+		}
+		return tags;
+	}
+
+	private void putTime(JSONObject json, String key, int field) {
+		long seconds = buf.getLong(offset + field);
+		if (seconds != NULL_TIME) {
+			json.put(key, DateConverter.toISO8601UTC(toTime(seconds)));
+		}
+	}
+
+	private boolean isNull(int field) {
+		return (buf.getShort(offset + NULLS) & (1 << field)) != 0;
+	}
+
+	private int start(int field) {
+		return offset + buf.getInt(offset + OFFSETS + 4 * field);
+	}
+
+	private int end(int field) {
+		return field + 1 < VAR_FIELDS ? start(field + 1) : offset + buf.getInt(offset + LENGTH);
+	}
+
+	private String string(int field) {
+		if (isNull(field)) {
+			return null;
+		}
+		int start = start(field);
+		return decode(start, end(field) - start);
+	}
+
+	private Double nullableDouble(int field) {
+		double value = buf.getDouble(offset + field);
+		return Double.isNaN(value) ? null : value;
+	}
+
+	private ZonedDateTime time(int field) {
+		long seconds = buf.getLong(offset + field);
+		return seconds != NULL_TIME ? toTime(seconds) : null;
+	}
+
+	private static ZonedDateTime toTime(long epochSecond) {
+		return ZonedDateTime.ofInstant(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC);
+	}
+
+	private int varint(int[] pos) {
+		int value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buf.get(pos[0]++);
+			value |= (b & 0x7F) << shift;
+			shift += 7;
+		} while ((b & 0x80) != 0);
+		return value;
+	}
+
+	private String readString(int[] pos) {
+		int len = varint(pos);
+		String s = decode(pos[0], len);
+		pos[0] += len;
+		return s;
+	}
+
+	private String readNullableString(int[] pos) {
+		int len = varint(pos) - 1;
+		if (len < 0) {
+			return null;
+		}
+		String s = decode(pos[0], len);
+		pos[0] += len;
+		return s;
+	}
+
+	private Object readValue(int[] pos) {
+		byte type = buf.get(pos[0]++);
+		switch (type) {
+		case TYPE_NULL:
+			return JSONObject.NULL;
+		case TYPE_TRUE:
+			return Boolean.TRUE;
+		case TYPE_FALSE:
+			return Boolean.FALSE;
+		case TYPE_NUMBER:
+			return JSONObject.stringToValue(readString(pos));
+		case TYPE_OBJECT:
+			return new JSONObject(readString(pos));
+		case TYPE_ARRAY:
+			return new JSONArray(readString(pos));
+		default:
+			return readString(pos);
+		}
+	}
+
+	private void skipValue(int[] pos) {
+		byte type = buf.get(pos[0]++);
+		if (type != TYPE_NULL && type != TYPE_TRUE && type != TYPE_FALSE) {
+			int len = varint(pos);
+			pos[0] += len;
+		}
+	}
+
+	private boolean equals(int pos, int len, byte[] key) {
+		if (len != key.length) {
+			return false;
+		}
+		for (int i = 0; i < len; i++) {
+			if (buf.get(pos + i) != key[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private String decode(int pos, int len) {
+		byte[] bytes = new byte[len];
+		for (int i = 0; i < len; i++) {
+			bytes[i] = buf.get(pos + i);
+		}
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
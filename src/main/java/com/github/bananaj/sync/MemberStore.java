@@ -0,0 +1,45 @@
+package com.github.bananaj.sync;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+import java.util.List;
+
+import com.github.bananaj.model.list.member.Member;
+
+/**
+ * Local store of list members kept up to date by {@link AudienceSync}.
+ * Members are identified by list id and subscriber hash,
+ * {@link Member#getId()}.
+ * <p>
+ * A sync may deliver the same member more than once, and a sync interrupted
+ * before {@link #commit(String, ZonedDateTime)} is repeated from the previous
+ * checkpoint, so {@link #upsert(String, List)} must be idempotent. The
+ * checkpoint must only become visible once the members upserted before it
+ * are stored.
+ */
+public interface MemberStore {
+
+	/**
+	 * @param listId
+	 * @return The checkpoint last committed for the list, or null if the list has not been synced
+	 * @throws IOException
+	 */
+	public ZonedDateTime getCheckpoint(String listId) throws IOException;
+
+	/**
+	 * Add or replace members of a list
+	 * @param listId
+	 * @param members A page of members as returned by the API
+	 * @throws IOException
+	 */
+	public void upsert(String listId, List<Member> members) throws IOException;
+
+	/**
+	 * Record that every member changed before the checkpoint has been upserted.
+	 * @param listId
+	 * @param checkpoint
+	 * @throws IOException
+	 */
+	public void commit(String listId, ZonedDateTime checkpoint) throws IOException;
+
+}
@@ -0,0 +1,125 @@
+package com.github.bananaj.sync;
+
+/**
+ * Maps 128 bit subscriber hashes to record locations using open addressing
+ * over primitive arrays, about 24 bytes per slot rather than the hundred or
+ * so a HashMap entry with String key costs. Not thread safe.
+ */
+final class MirrorIndex {
+
+	private long[] hi;
+	private long[] lo;
+	private long[] locations;	// location + 1, 0 for an empty slot
+	private int size;
+	private int mask;
+
+	MirrorIndex() {
+		allocate(1024);
+	}
+
+	int size() {
+		return size;
+	}
+
+	/**
+	 * @return The location of the record or -1
+	 */
+	long get(long h, long l) {
+		for (int i = slot(h, l); ; i = (i + 1) & mask) {
+			long loc = locations[i];
+			if (loc == 0) {
+				return -1;
+			}
+			if (hi[i] == h && lo[i] == l) {
+				return loc - 1;
+			}
+		}
+	}
+
+	void put(long h, long l, long location) {
+		if ((size + 1) * 4L > locations.length * 3L) {
+			resize();
+		}
+		int i = slot(h, l);
+		while (locations[i] != 0) {
+			if (hi[i] == h && lo[i] == l) {
+				locations[i] = location + 1;
+				return;
+			}
+			i = (i + 1) & mask;
+		}
+		hi[i] = h;
+		lo[i] = l;
+		locations[i] = location + 1;
+		size++;
+	}
+
+	/**
+	 * @return true if the key was present
+	 */
+	boolean remove(long h, long l) {
+		int i = slot(h, l);
+		while (locations[i] != 0) {
+			if (hi[i] == h && lo[i] == l) {
+				locations[i] = 0;
+				size--;
+				shiftBack(i);
+				return true;
+			}
+			i = (i + 1) & mask;
+		}
+		return false;
+	}
+
+	/**
+	 * Move entries following a removed slot back so every entry stays
+	 * reachable from its home slot without tombstones.
+	 */
+	private void shiftBack(int hole) {
+		for (int j = (hole + 1) & mask; locations[j] != 0; j = (j + 1) & mask) {
+			int home = slot(hi[j], lo[j]);
+			// move j into the hole unless its home lies cyclically in (hole, j]
+			boolean reachable = hole <= j ? (home > hole && home <= j) : (home > hole || home <= j);
+			if (!reachable) {
+				hi[hole] = hi[j];
+				lo[hole] = lo[j];
+				locations[hole] = locations[j];
+				locations[j] = 0;
+				hole = j;
+			}
+		}
+	}
+
+	private void resize() {
+		long[] oldHi = hi;
+		long[] oldLo = lo;
+		long[] oldLocations = locations;
+		allocate(oldLocations.length * 2);
+		for (int i = 0; i < oldLocations.length; i++) {
+			if (oldLocations[i] != 0) {
+				int j = slot(oldHi[i], oldLo[i]);
+				while (locations[j] != 0) {
+					j = (j + 1) & mask;
+				}
+				hi[j] = oldHi[i];
+				lo[j] = oldLo[i];
+				locations[j] = oldLocations[i];
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		hi = new long[capacity];
+		lo = new long[capacity];
+		locations = new long[capacity];
+		mask = capacity - 1;
+	}
+
+	private int slot(long h, long l) {
+		long x = h ^ l;
+		x ^= x >>> 33;
+		x *= 0xff51afd7ed558ccdL;
+		x ^= x >>> 33;
+		return (int) x & mask;
+	}
+}
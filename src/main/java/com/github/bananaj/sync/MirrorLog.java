@@ -0,0 +1,201 @@
+package com.github.bananaj.sync;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+
+/**
+ * Append-only log of member records in memory-mapped segment files. A record
+ * never spans segments; the unused tail of a segment reads as zeros, which
+ * marks the end of the records in the segment. Locations are the segment
+ * number in the high 32 bits and the offset in the segment in the low 32
+ * bits. Not thread safe.
+ */
+final class MirrorLog implements Closeable {
+	final static Logger logger = Logger.getLogger(MirrorLog.class);
+
+	private static final String SEGMENT_PREFIX = "segment-";
+	private static final String SEGMENT_SUFFIX = ".dat";
+
+	/**
+	 * Receives the records found when the log is opened
+	 */
+	interface Visitor {
+		void record(long location, ByteBuffer segment, int offset);
+	}
+
+	private final Path dir;
+	private final int segmentSize;
+	private final List<MappedByteBuffer> segments = new ArrayList<MappedByteBuffer>();
+	private final List<Boolean> dirty = new ArrayList<Boolean>();
+	private int writeOffset;
+
+	/**
+	 * Open the log in a directory, reading every record. Records following a
+	 * damaged or incomplete record, left by a crash, are discarded.
+	 * @param dir
+	 * @param segmentSize Size of new segment files
+	 * @param visitor Receives the records of the log in the order they were appended
+	 * @throws IOException
+	 */
+	MirrorLog(Path dir, int segmentSize, Visitor visitor) throws IOException {
+		this.dir = dir;
+		this.segmentSize = segmentSize;
+		Files.createDirectories(dir);
+		List<Path> files = new ArrayList<Path>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+			for (Path p : stream) {
+				files.add(p);
+			}
+		}
+		files.sort(null);
+		for (int i = 0; i < files.size(); i++) {
+			if (!files.get(i).getFileName().toString().equals(segmentName(i))) {
+				throw new IOException("Missing mirror segment " + dir.resolve(segmentName(i)));
+			}
+			segments.add(map(files.get(i), 0));
+			dirty.add(Boolean.FALSE);
+		}
+		replay(visitor);
+	}
+
+	private void replay(Visitor visitor) throws IOException {
+		for (int s = 0; s < segments.size(); s++) {
+			MappedByteBuffer segment = segments.get(s);
+			int offset = 0;
+			while (offset + 4 <= segment.capacity() && segment.getInt(offset) != 0) {
+				if (!RecordFormat.isValid(segment, offset, segment.capacity())) {
+					logger.warn("Discarding damaged mirror records from " + dir.resolve(segmentName(s)) + " offset " + offset);
+					truncate(s, offset);
+					return;
+				}
+				visitor.record(location(s, offset), segment, offset);
+				offset += segment.getInt(offset);
+			}
+			writeOffset = offset;
+		}
+	}
+
+	/**
+	 * Zero the segment from offset and drop the segments following it
+	 */
+	private void truncate(int s, int offset) throws IOException {
+		MappedByteBuffer segment = segments.get(s);
+		for (int i = offset; i < segment.capacity(); i++) {
+			segment.put(i, (byte) 0);
+		}
+		segment.force();
+		while (segments.size() > s + 1) {
+			segments.remove(segments.size() - 1);
+			dirty.remove(dirty.size() - 1);
+			Files.delete(dir.resolve(segmentName(segments.size())));
+		}
+		writeOffset = offset;
+	}
+
+	/**
+	 * @return Location of the appended record
+	 * @throws IOException
+	 */
+	long append(byte[] record) throws IOException {
+		if (record.length > segmentSize) {
+			throw new IOException("Member record of " + record.length + " bytes exceeds the mirror segment size");
+		}
+		if (segments.isEmpty() || writeOffset + record.length > segments.get(segments.size() - 1).capacity()) {
+			segments.add(map(dir.resolve(segmentName(segments.size())), segmentSize));
+			dirty.add(Boolean.FALSE);
+			writeOffset = 0;
+		}
+		int s = segments.size() - 1;
+		MappedByteBuffer segment = segments.get(s);
+		// the length goes last so a partly written record reads as the end of the log
+		for (int i = 4; i < record.length; i++) {
+			segment.put(writeOffset + i, record[i]);
+		}
+		segment.putInt(writeOffset, ByteBuffer.wrap(record).getInt(RecordFormat.LENGTH));
+		dirty.set(s, Boolean.TRUE);
+		long location = location(s, writeOffset);
+		writeOffset += record.length;
+		return location;
+	}
+
+	ByteBuffer segment(long location) {
+		return segments.get((int) (location >>> 32));
+	}
+
+	static int offset(long location) {
+		return (int) location;
+	}
+
+	/**
+	 * Visit every record, in the order they were appended
+	 */
+	void scan(Visitor visitor) {
+		for (int s = 0; s < segments.size(); s++) {
+			MappedByteBuffer segment = segments.get(s);
+			int end = s == segments.size() - 1 ? writeOffset : segment.capacity();
+			for (int offset = 0; offset + 4 <= end; ) {
+				int length = segment.getInt(offset);
+				if (length == 0) {
+					break;
+				}
+				visitor.record(location(s, offset), segment, offset);
+				offset += length;
+			}
+		}
+	}
+
+	/**
+	 * Write appended records to the files
+	 */
+	void force() {
+		for (int s = 0; s < segments.size(); s++) {
+			if (dirty.get(s)) {
+				segments.get(s).force();
+				dirty.set(s, Boolean.FALSE);
+			}
+		}
+	}
+
+	/**
+	 * @return Bytes used by records, including superseded records
+	 */
+	long usedBytes() {
+		return segments.isEmpty() ? 0 : (long) (segments.size() - 1) * segmentSize + writeOffset;
+	}
+
+	@Override
+	public void close() {
+		force();
+		segments.clear();
+		dirty.clear();
+	}
+
+	private static long location(int segment, int offset) {
+		return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+	}
+
+	private static String segmentName(int index) {
+		return String.format("%s%06d%s", SEGMENT_PREFIX, index, SEGMENT_SUFFIX);
+	}
+
+	private static MappedByteBuffer map(Path file, int size) throws IOException {
+		try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw"); FileChannel channel = raf.getChannel()) {
+			if (channel.size() < size) {
+				raf.setLength(size);
+			}
+			// the mapping stays valid once the channel is closed
+			return channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+		}
+	}
+}
@@ -0,0 +1,341 @@
+package com.github.bananaj.sync;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.ZonedDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.github.bananaj.model.list.member.LastNote;
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.model.list.member.MemberStats;
+import com.github.bananaj.model.list.member.MemberTag;
+
+/**
+ * Binary layout of the member records kept by {@link MemberMirror}. A record
+ * is a fixed size header holding the fixed size fields and the offset of each
+ * variable size field, followed by the variable size fields. Any field can be
+ * read without decoding the rest of the record.
+ * <pre>
+ * int    length of the record, written last
+ * int    CRC32 of the rest of the record
+ * long   subscriber hash, high 64 bits
+ * long   subscriber hash, low 64 bits
+ * byte   flags
+ * byte   status ordinal + 1, 0 for null
+ * byte   email type ordinal + 1, 0 for null
+ * byte   member rating, -1 for null
+ * int    tags count, -1 for null
+ * long   timestamp_signup, timestamp_opt, last_changed in epoch seconds, Long.MIN_VALUE for null
+ * double avg_open_rate, avg_click_rate, NaN for null
+ * short  bit set of the variable size fields that are null
+ * int[]  offset of each variable size field from the start of the record
+ * </pre>
+ * Strings are UTF-8. Within merge fields, interests, tags and the last note
+ * lengths are written as unsigned variable length integers.
+ */
+final class RecordFormat {
+
+	static final int VERSION = 1;
+
+	static final int LENGTH = 0;
+	static final int CRC = 4;
+	static final int HASH_HI = 8;
+	static final int HASH_LO = 16;
+	static final int FLAGS = 24;
+	static final int STATUS = 25;
+	static final int EMAIL_TYPE = 26;
+	static final int RATING = 27;
+	static final int TAGS_COUNT = 28;
+	static final int TIMESTAMP_SIGNUP = 32;
+	static final int TIMESTAMP_OPT = 40;
+	static final int LAST_CHANGED = 48;
+	static final int AVG_OPEN_RATE = 56;
+	static final int AVG_CLICK_RATE = 64;
+	static final int NULLS = 72;
+	static final int OFFSETS = 74;
+
+	static final int EMAIL_ADDRESS = 0;
+	static final int UNIQUE_EMAIL_ID = 1;
+	static final int UNSUBSCRIBE_REASON = 2;
+	static final int IP_SIGNUP = 3;
+	static final int IP_OPT = 4;
+	static final int LANGUAGE = 5;
+	static final int EMAIL_CLIENT = 6;
+	static final int MERGE_FIELDS = 7;
+	static final int INTERESTS = 8;
+	static final int TAGS = 9;
+	static final int LAST_NOTE = 10;
+	static final int VAR_FIELDS = 11;
+
+	static final int HEADER = OFFSETS + 4 * VAR_FIELDS;
+
+	static final int FLAG_TOMBSTONE = 1;
+	static final int FLAG_VIP = 2;
+	static final int FLAG_STATS = 4;
+
+	static final long NULL_TIME = Long.MIN_VALUE;
+
+	// merge field value types
+	static final byte TYPE_NULL = '0';
+	static final byte TYPE_STRING = 'S';
+	static final byte TYPE_NUMBER = 'N';
+	static final byte TYPE_TRUE = 'T';
+	static final byte TYPE_FALSE = 'F';
+	static final byte TYPE_OBJECT = 'O';
+	static final byte TYPE_ARRAY = 'A';
+
+	private RecordFormat() {
+	}
+
+	/**
+	 * @return The high and low 64 bits of a 32 digit hexadecimal subscriber hash
+	 */
+	static long[] hashOf(String subscriberHash) {
+		if (subscriberHash == null || subscriberHash.length() != 32) {
+			throw new IllegalArgumentException("Not a subscriber hash: " + subscriberHash);
+		}
+		try {
+			return new long[] {
+					Long.parseUnsignedLong(subscriberHash.substring(0, 16), 16),
+					Long.parseUnsignedLong(subscriberHash.substring(16), 16) };
+		} catch (NumberFormatException e) {
+			throw new IllegalArgumentException("Not a subscriber hash: " + subscriberHash);
+		}
+	}
+
+	static String hashString(long hi, long lo) {
+		return hex(hi) + hex(lo);
+	}
+
+	private static String hex(long value) {
+		String s = Long.toHexString(value);
+		return "0000000000000000".substring(s.length()) + s;
+	}
+
+	/**
+	 * Encode a member, the record is complete including its length and CRC
+	 */
+	static byte[] encode(Member member) {
+		long[] hash = hashOf(member.getId());
+		Writer w = new Writer();
+		w.skip(HEADER);
+		int nulls = 0;
+		int[] offsets = new int[VAR_FIELDS];
+
+		String[] strings = {
+				member.getEmailAddress(), member.getUniqueEmailId(), member.getUnsubscribeReason(), member.getIpSignup(),
+				member.getIpOpt(), member.getLanguage(), member.getEmailClient() };
+		for (int i = 0; i < strings.length; i++) {
+			offsets[i] = w.size();
+			if (strings[i] == null) {
+				nulls |= 1 << i;
+			} else {
+				w.bytes(strings[i].getBytes(StandardCharsets.UTF_8));
+			}
+		}
+
+		offsets[MERGE_FIELDS] = w.size();
+		Map<String, Object> mergeFields = member.getMergeFields();
+		if (mergeFields == null) {
+			nulls |= 1 << MERGE_FIELDS;
+		} else {
+			w.varint(mergeFields.size());
+			for (Map.Entry<String, Object> e : mergeFields.entrySet()) {
+				w.string(e.getKey());
+				writeValue(w, e.getValue());
+			}
+		}
+
+		offsets[INTERESTS] = w.size();
+		Map<String, Boolean> interests = member.getInterest();
+		if (interests == null) {
+			nulls |= 1 << INTERESTS;
+		} else {
+			w.varint(interests.size());
+			for (Map.Entry<String, Boolean> e : interests.entrySet()) {
+				w.string(e.getKey());
+				w.write(e.getValue() == null ? TYPE_NULL : e.getValue() ? TYPE_TRUE : TYPE_FALSE);
+			}
+		}
+
+		offsets[TAGS] = w.size();
+		List<MemberTag> tags = member.getTags();
+		if (tags == null) {
+			nulls |= 1 << TAGS;
+		} else {
+			w.varint(tags.size());
+			for (MemberTag tag : tags) {
+				w.writeInt(tag.getId() != null ? tag.getId() : Integer.MIN_VALUE);
+				w.writeLong(epochSecond(tag.getDateAdded()));
+				w.nullableString(tag.getName());
+			}
+		}
+
+		offsets[LAST_NOTE] = w.size();
+		LastNote note = member.getLastNote();
+		if (note == null) {
+			nulls |= 1 << LAST_NOTE;
+		} else {
+			w.writeInt(note.getId() != null ? note.getId() : Integer.MIN_VALUE);
+			w.writeLong(epochSecond(note.getCreatedAt()));
+			w.nullableString(note.getCreatedBy());
+			w.nullableString(note.getNote());
+		}
+
+		ByteBuffer b = ByteBuffer.wrap(w.buf(), 0, w.size());
+		MemberStats stats = member.getStats();
+		b.putLong(HASH_HI, hash[0]);
+		b.putLong(HASH_LO, hash[1]);
+		b.put(FLAGS, (byte) ((member.isVip() ? FLAG_VIP : 0) | (stats != null ? FLAG_STATS : 0)));
+		b.put(STATUS, (byte) (member.getStatus() != null ? member.getStatus().ordinal() + 1 : 0));
+		b.put(EMAIL_TYPE, (byte) (member.getEmailType() != null ? member.getEmailType().ordinal() + 1 : 0));
+		b.put(RATING, (byte) (member.getRating() != null ? member.getRating() : -1));
+		b.putInt(TAGS_COUNT, member.getTagsCount() != null ? member.getTagsCount() : -1);
+		b.putLong(TIMESTAMP_SIGNUP, epochSecond(member.getTimestampSignup()));
+		b.putLong(TIMESTAMP_OPT, epochSecond(member.getTimestampOpt()));
+		b.putLong(LAST_CHANGED, epochSecond(member.getLastChanged()));
+		b.putDouble(AVG_OPEN_RATE, stats != null && stats.getAvgOpenRate() != null ? stats.getAvgOpenRate() : Double.NaN);
+		b.putDouble(AVG_CLICK_RATE, stats != null && stats.getAvgClickRate() != null ? stats.getAvgClickRate() : Double.NaN);
+		b.putShort(NULLS, (short) nulls);
+		for (int i = 0; i < VAR_FIELDS; i++) {
+			b.putInt(OFFSETS + 4 * i, offsets[i]);
+		}
+		return seal(w.buf(), w.size());
+	}
+
+	/**
+	 * Encode the removal of a member
+	 */
+	static byte[] tombstone(long hi, long lo) {
+		byte[] record = new byte[HEADER];
+		ByteBuffer b = ByteBuffer.wrap(record);
+		b.putLong(HASH_HI, hi);
+		b.putLong(HASH_LO, lo);
+		b.put(FLAGS, (byte) FLAG_TOMBSTONE);
+		b.putShort(NULLS, (short) ((1 << VAR_FIELDS) - 1));
+		for (int i = 0; i < VAR_FIELDS; i++) {
+			b.putInt(OFFSETS + 4 * i, HEADER);
+		}
+		return seal(record, HEADER);
+	}
+
+	private static byte[] seal(byte[] buf, int length) {
+		byte[] record = buf.length == length ? buf : Arrays.copyOf(buf, length);
+		CRC32 crc = new CRC32();
+		crc.update(record, HASH_HI, length - HASH_HI);
+		ByteBuffer b = ByteBuffer.wrap(record);
+		b.putInt(LENGTH, length);
+		b.putInt(CRC, (int) crc.getValue());
+		return record;
+	}
+
+	/**
+	 * @return true if the record at offset is complete and intact
+	 */
+	static boolean isValid(ByteBuffer buf, int offset, int limit) {
+		if (offset + HEADER > limit) {
+			return false;
+		}
+		int length = buf.getInt(offset + LENGTH);
+		if (length < HEADER || offset + length > limit) {
+			return false;
+		}
+		ByteBuffer data = buf.duplicate();
+		data.limit(offset + length).position(offset + HASH_HI);
+		CRC32 crc = new CRC32();
+		crc.update(data);
+		return buf.getInt(offset + CRC) == (int) crc.getValue();
+	}
+
+	private static void writeValue(Writer w, Object value) {
+		if (value == null || value == JSONObject.NULL) {
+			w.write(TYPE_NULL);
+		} else if (value instanceof Boolean) {
+			w.write((Boolean) value ? TYPE_TRUE : TYPE_FALSE);
+		} else if (value instanceof Number) {
+			// kept as text so the value reads back as the same Number type org.json parses it into
+			w.write(TYPE_NUMBER);
+			w.string(JSONObject.numberToString((Number) value));
+		} else if (value instanceof JSONObject) {
+			w.write(TYPE_OBJECT);
+			w.string(value.toString());
+		} else if (value instanceof JSONArray) {
+			w.write(TYPE_ARRAY);
+			w.string(value.toString());
+		} else {
+			w.write(TYPE_STRING);
+			w.string(value.toString());
+		}
+	}
+
+	private static long epochSecond(ZonedDateTime time) {
+		return time != null ? time.toEpochSecond() : NULL_TIME;
+	}
+
+	/**
+	 * Record buffer with access to the written bytes
+	 */
+	private static class Writer extends ByteArrayOutputStream {
+		Writer() {
+			super(512);
+		}
+
+		byte[] buf() {
+			return buf;
+		}
+
+		void skip(int n) {
+			write(new byte[n], 0, n);
+		}
+
+		void bytes(byte[] b) {
+			write(b, 0, b.length);
+		}
+
+		void writeInt(int v) {
+			write(v >>> 24);
+			write(v >>> 16);
+			write(v >>> 8);
+			write(v);
+		}
+
+		void writeLong(long v) {
+			writeInt((int) (v >>> 32));
+			writeInt((int) v);
+		}
+
+		void varint(int v) {
+			while ((v & ~0x7F) != 0) {
+				write((v & 0x7F) | 0x80);
+				v >>>= 7;
+			}
+			write(v);
+		}
+
+		void string(String s) {
+			byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+			varint(bytes.length);
+			bytes(bytes);
+		}
+
+		/**
+		 * Length + 1, 0 for null
+		 */
+		void nullableString(String s) {
+			if (s == null) {
+				varint(0);
+			} else {
+				byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+				varint(bytes.length + 1);
+				bytes(bytes);
+			}
+		}
+	}
+}
@@ -0,0 +1,83 @@
+package com.github.bananaj.sync;
+
+import java.time.ZonedDateTime;
+
+/**
+ * Outcome of syncing a list with {@link AudienceSync}
+ */
+public class SyncResult {
+
+	private final String listId;
+	private final ZonedDateTime since;
+	private final ZonedDateTime checkpoint;
+	private final int totalItems;
+	private final int members;
+	private final int pages;
+	private final long elapsedMillis;
+
+	SyncResult(String listId, ZonedDateTime since, ZonedDateTime checkpoint, int totalItems, int members, int pages, long elapsedMillis) {
+		this.listId = listId;
+		this.since = since;
+		this.checkpoint = checkpoint;
+		this.totalItems = totalItems;
+		this.members = members;
+		this.pages = pages;
+		this.elapsedMillis = elapsedMillis;
+	}
+
+	public String getListId() {
+		return listId;
+	}
+
+	/**
+	 * @return Start of the window of changes pulled, null for a full sync
+	 */
+	public ZonedDateTime getSince() {
+		return since;
+	}
+
+	/**
+	 * @return The checkpoint committed to the store, the end of the window of changes pulled
+	 */
+	public ZonedDateTime getCheckpoint() {
+		return checkpoint;
+	}
+
+	/**
+	 * @return true if all members were pulled rather than changes since a checkpoint
+	 */
+	public boolean isFull() {
+		return since == null;
+	}
+
+	/**
+	 * @return Number of changed members reported by the API when the sync started
+	 */
+	public int getTotalItems() {
+		return totalItems;
+	}
+
+	/**
+	 * @return Number of members upserted to the store. May include members delivered twice.
+	 */
+	public int getMembers() {
+		return members;
+	}
+
+	/**
+	 * @return Number of pages requested
+	 */
+	public int getPages() {
+		return pages;
+	}
+
+	public long getElapsedMillis() {
+		return elapsedMillis;
+	}
+
+	@Override
+	public String toString() {
+		return "Sync " + listId + (isFull() ? " full" : " since " + since) + " to " + checkpoint + ": " +
+				members + " members in " + pages + " pages, " + elapsedMillis + "ms";
+	}
+}
@@ -0,0 +1,8 @@
+/**
+ * <h2>Audience Sync</h2>
+ * Keep local copies of list members up to date by pulling only the members
+ * changed since the previous sync. See {@link com.github.bananaj.sync.AudienceSync}.
+ * {@link com.github.bananaj.sync.MemberMirror} keeps them in memory-mapped
+ * files that survive restarts.
+ */
+package com.github.bananaj.sync;
@@ -39,6 +39,15 @@ public class JSONObjectCheck {
 		return DateConverter.fromISO8601(jsonObj.getString(key));
 	}
 	
+	/**
+	 * @return The undecoded text of an ISO 8601 date, for decoding on first use
+	 *         with {@link DateConverter#fromISO8601(String)}
+	 */
+	public String getISO8601Text(String key) {
+		if (!jsonObj.has(key)) return null;
+		return jsonObj.getString(key);
+	}
+	
 	public Object get(String key) throws JSONException {
 		if (!jsonObj.has(key)) return null;
 		return jsonObj.get(key);
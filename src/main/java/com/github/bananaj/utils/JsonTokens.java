@@ -0,0 +1,168 @@
+package com.github.bananaj.utils;
+
+import java.io.IOException;
+import java.time.ZonedDateTime;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+/**
+ * Value getters for streaming JSON parsers, the token level counterpart of
+ * {@link JSONObjectCheck}. Each getter reads the value at the parser's
+ * current token, positioned by the caller just after the field name, and
+ * leaves the parser on the last token of the value. JSON null reads as null.
+ * <p>
+ * Values are converted the way org.json converts them so models bound from
+ * tokens hold the same values as models parsed from a {@link JSONObject}.
+ */
+public final class JsonTokens {
+
+	private JsonTokens() {
+	}
+
+	public static String getString(JsonParser parser) throws IOException {
+		JsonToken token = parser.currentToken();
+		if (token == JsonToken.VALUE_NULL) {
+			return null;
+		}
+		if (token.isScalarValue()) {
+			return parser.getText();
+		}
+		return readValue(parser).toString();
+	}
+
+	/**
+	 * Read a string canonicalized by an interner. String tokens are looked up
+	 * in the parser's buffer so a cached value costs no allocation.
+	 */
+	public static String getString(JsonParser parser, StringInterner interner) throws IOException {
+		if (parser.currentToken() == JsonToken.VALUE_STRING) {
+			return interner.intern(parser.getTextCharacters(), parser.getTextOffset(), parser.getTextLength());
+		}
+		return interner.intern(getString(parser));
+	}
+
+	public static Integer getInt(JsonParser parser) throws IOException {
+		Number n = getNumber(parser);
+		return n != null ? n.intValue() : null;
+	}
+
+	public static Long getLong(JsonParser parser) throws IOException {
+		Number n = getNumber(parser);
+		return n != null ? n.longValue() : null;
+	}
+
+	public static Double getDouble(JsonParser parser) throws IOException {
+		Number n = getNumber(parser);
+		return n != null ? n.doubleValue() : null;
+	}
+
+	public static Number getNumber(JsonParser parser) throws IOException {
+		switch (parser.currentToken()) {
+		case VALUE_NULL:
+			return null;
+		case VALUE_NUMBER_INT:
+		case VALUE_NUMBER_FLOAT:
+			return parser.getNumberValue();
+		case VALUE_STRING:
+			Object value = JSONObject.stringToValue(parser.getText());
+			if (value instanceof Number) {
+				return (Number) value;
+			}
+			throw new JsonParseException(parser, "Field " + parser.getCurrentName() + " is not a number");
+		default:
+			throw new JsonParseException(parser, "Field " + parser.getCurrentName() + " is not a number");
+		}
+	}
+
+	public static Boolean getBoolean(JsonParser parser) throws IOException {
+		switch (parser.currentToken()) {
+		case VALUE_NULL:
+			return null;
+		case VALUE_TRUE:
+			return Boolean.TRUE;
+		case VALUE_FALSE:
+			return Boolean.FALSE;
+		case VALUE_STRING:
+			if ("true".equalsIgnoreCase(parser.getText())) {
+				return Boolean.TRUE;
+			}
+			if ("false".equalsIgnoreCase(parser.getText())) {
+				return Boolean.FALSE;
+			}
+			throw new JsonParseException(parser, "Field " + parser.getCurrentName() + " is not a Boolean");
+		default:
+			throw new JsonParseException(parser, "Field " + parser.getCurrentName() + " is not a Boolean");
+		}
+	}
+
+	public static ZonedDateTime getISO8601Date(JsonParser parser) throws IOException {
+		return DateConverter.fromISO8601(getString(parser));
+	}
+
+	public static <E extends Enum<E>> E getEnum(Class<E> clazz, JsonParser parser) throws IOException {
+		String value = getString(parser);
+		return value != null ? Enum.valueOf(clazz, value.toUpperCase()) : null;
+	}
+
+	/**
+	 * Read an object value into a {@link JSONObject}, for nested entities
+	 * that are parsed from a JSONObject.
+	 * @param parser
+	 * @return The object or null for JSON null
+	 * @throws IOException
+	 */
+	public static JSONObject getJSONObject(JsonParser parser) throws IOException {
+		Object value = readValue(parser);
+		if (value == JSONObject.NULL) {
+			return null;
+		}
+		if (!(value instanceof JSONObject)) {
+			throw new JsonParseException(parser, "Field " + parser.getCurrentName() + " is not a JSONObject");
+		}
+		return (JSONObject) value;
+	}
+
+	/**
+	 * Read any value as org.json would represent it: {@link JSONObject},
+	 * {@link JSONArray}, String, Boolean, a Number or {@link JSONObject#NULL}.
+	 * @param parser
+	 * @return The value
+	 * @throws IOException
+	 */
+	public static Object readValue(JsonParser parser) throws IOException {
+		switch (parser.currentToken()) {
+		case START_OBJECT:
+			JSONObject obj = new JSONObject();
+			while (parser.nextToken() == JsonToken.FIELD_NAME) {
+				String name = parser.getCurrentName();
+				parser.nextToken();
+				obj.put(name, readValue(parser));
+			}
+			return obj;
+		case START_ARRAY:
+			JSONArray array = new JSONArray();
+			while (parser.nextToken() != JsonToken.END_ARRAY) {
+				array.put(readValue(parser));
+			}
+			return array;
+		case VALUE_STRING:
+			return parser.getText();
+		case VALUE_NUMBER_INT:
+		case VALUE_NUMBER_FLOAT:
+			return JSONObject.stringToValue(parser.getText());
+		case VALUE_TRUE:
+			return Boolean.TRUE;
+		case VALUE_FALSE:
+			return Boolean.FALSE;
+		case VALUE_NULL:
+			return JSONObject.NULL;
+		default:
+			throw new JsonParseException(parser, "Unexpected token " + parser.currentToken());
+		}
+	}
+}
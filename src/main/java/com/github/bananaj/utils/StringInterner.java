@@ -0,0 +1,106 @@
+package com.github.bananaj.utils;
+
+/**
+ * Bounded cache of canonical strings for values that repeat across the
+ * models of a response, such as list ids, statuses, languages, tag names and
+ * merge field keys. Interned values share one String instance instead of
+ * each model retaining its own copy.
+ * <p>
+ * The cache is a fixed size table indexed by the string's hash, each slot
+ * holding the last string stored in it. Memory use is bounded by the table
+ * size and the maximum interned length. Values that collide replace one
+ * another, so high cardinality values cost a table write but never grow the
+ * cache. Thread safe without locking: a racing lookup at worst misses and
+ * returns an equal, uncanonical string.
+ */
+public final class StringInterner {
+
+	public static final int DEFAULT_CAPACITY = 4096;
+	public static final int DEFAULT_MAX_LENGTH = 64;
+
+	/** Interner that returns every value as given */
+	public static final StringInterner NONE = new StringInterner();
+
+	private final String[] table;
+	private final int mask;
+	private final int maxLength;
+
+	private StringInterner() {
+		table = null;
+		mask = 0;
+		maxLength = 0;
+	}
+
+	/**
+	 * @param capacity Number of strings cached, rounded up to a power of two
+	 * @param maxLength Longest string interned, longer strings are returned as given
+	 */
+	public StringInterner(int capacity, int maxLength) {
+		if (capacity < 1 || capacity > 1 << 24) {
+			throw new IllegalArgumentException("capacity " + capacity);
+		}
+		int size = Integer.highestOneBit(capacity - 1) << 1;
+		this.table = new String[Math.max(size, 1)];
+		this.mask = table.length - 1;
+		this.maxLength = maxLength;
+	}
+
+	/**
+	 * @param value
+	 * @return The canonical string equal to value, or value. Null for null.
+	 */
+	public String intern(String value) {
+		if (table == null || value == null || value.length() > maxLength) {
+			return value;
+		}
+		int slot = slot(value.hashCode());
+		String cached = table[slot];
+		if (cached != null && cached.equals(value)) {
+			return cached;
+		}
+		table[slot] = value;
+		return value;
+	}
+
+	/**
+	 * Intern a string held in a character buffer, for example by a streaming
+	 * parser, without creating a String when the value is already cached.
+	 * @param chars
+	 * @param offset
+	 * @param length
+	 * @return The canonical string equal to the characters
+	 */
+	public String intern(char[] chars, int offset, int length) {
+		if (table == null || length > maxLength) {
+			return new String(chars, offset, length);
+		}
+		int hash = 0;
+		for (int i = 0; i < length; i++) {
+			hash = 31 * hash + chars[offset + i];	// String.hashCode
+		}
+		int slot = slot(hash);
+		String cached = table[slot];
+		if (cached != null && regionEquals(cached, chars, offset, length)) {
+			return cached;
+		}
+		String value = new String(chars, offset, length);
+		table[slot] = value;
+		return value;
+	}
+
+	private int slot(int hash) {
+		return (hash ^ (hash >>> 16)) & mask;
+	}
+
+	private static boolean regionEquals(String s, char[] chars, int offset, int length) {
+		if (s.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (s.charAt(i) != chars[offset + i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+}
@@ -0,0 +1,309 @@
+package com.github.bananaj.utils;
+
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal streaming reader for tar archives (POSIX ustar, pax and GNU formats).
+ * Entries are read sequentially; after {@link #getNextEntry()} this stream
+ * reads the content of the current entry and reports end of stream at the
+ * end of the entry. Nothing is buffered beyond the current 512 byte header so
+ * archives of any size can be processed, typically wrapping a
+ * {@link java.util.zip.GZIPInputStream} for .tar.gz archives.
+ */
+public class TarInputStream extends FilterInputStream {
+
+	private static final int BLOCK_SIZE = 512;
+
+	private final byte[] header = new byte[BLOCK_SIZE];
+	private long remaining = 0;	// unread bytes of the current entry
+	private long padding = 0;	// bytes following the current entry up to the next block
+	private boolean eof = false;
+
+	/**
+	 * An entry in a tar archive
+	 */
+	public static class Entry {
+		private final String name;
+		private final long size;
+		private final char type;
+
+		Entry(String name, long size, char type) {
+			this.name = name;
+			this.size = size;
+			this.type = type;
+		}
+
+		/**
+		 * @return Path name of the entry
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * @return Size of the entry content in bytes
+		 */
+		public long getSize() {
+			return size;
+		}
+
+		/**
+		 * @return true if the entry is a regular file
+		 */
+		public boolean isFile() {
+			return type == '0' || type == 0 || type == '7';
+		}
+
+		/**
+		 * @return true if the entry is a directory
+		 */
+		public boolean isDirectory() {
+			return type == '5';
+		}
+
+		@Override
+		public String toString() {
+			return name + " (" + size + " bytes)";
+		}
+	}
+
+	public TarInputStream(InputStream in) {
+		super(in);
+	}
+
+	/**
+	 * Advance to the next entry, skipping any unread content of the current entry.
+	 * @return The next entry or null at the end of the archive
+	 * @throws IOException
+	 */
+	public Entry getNextEntry() throws IOException {
+		String longName = null;
+		long paxSizeOverride = -1;
+		while (true) {
+			skipFully(remaining + padding);
+			remaining = 0;
+			padding = 0;
+			if (eof || !readHeader()) {
+				eof = true;
+				return null;
+			}
+
+			long size = parseNumber(header, 124, 12);
+			char type = (char) header[156];
+			remaining = size;
+			padding = (BLOCK_SIZE - (size % BLOCK_SIZE)) % BLOCK_SIZE;
+
+			if (type == 'L') {
+				// GNU long name, the name of the following entry is the content of this one
+				byte[] name = new byte[(int) size];
+				readEntryFully(name);
+				longName = parseString(name, 0, name.length);
+				continue;
+			}
+			if (type == 'x') {
+				// pax extended header, may hold the path and size of the following entry
+				byte[] records = new byte[(int) size];
+				readEntryFully(records);
+				String paxName = parsePaxRecord(records, "path");
+				if (paxName != null) {
+					longName = paxName;
+				}
+				String paxSize = parsePaxRecord(records, "size");
+				if (paxSize != null) {
+					paxSizeOverride = Long.parseLong(paxSize);
+				}
+				continue;
+			}
+			if (type == 'g') {
+				continue;	// global pax header
+			}
+			if (paxSizeOverride >= 0) {
+				size = paxSizeOverride;
+				remaining = size;
+				padding = (BLOCK_SIZE - (size % BLOCK_SIZE)) % BLOCK_SIZE;
+			}
+
+			String name = longName;
+			if (name == null) {
+				name = parseString(header, 0, 100);
+				if (header[257] == 'u' && header[258] == 's' && header[259] == 't' && header[260] == 'a' && header[261] == 'r') {
+					String prefix = parseString(header, 345, 155);
+					if (!prefix.isEmpty()) {
+						name = prefix + "/" + name;
+					}
+				}
+			}
+			return new Entry(name, size, type);
+		}
+	}
+
+	@Override
+	public int read() throws IOException {
+		if (remaining <= 0) {
+			return -1;
+		}
+		int b = in.read();
+		if (b < 0) {
+			throw new EOFException("Truncated tar archive");
+		}
+		remaining--;
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		if (remaining <= 0) {
+			return -1;
+		}
+		int n = in.read(b, off, (int) Math.min(len, remaining));
+		if (n < 0) {
+			throw new EOFException("Truncated tar archive");
+		}
+		remaining -= n;
+		return n;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = in.skip(Math.min(n, remaining));
+		remaining -= skipped;
+		return skipped;
+	}
+
+	@Override
+	public int available() throws IOException {
+		return (int) Math.min(in.available(), remaining);
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	@Override
+	public synchronized void mark(int readlimit) {
+	}
+
+	@Override
+	public synchronized void reset() throws IOException {
+		throw new IOException("mark/reset not supported");
+	}
+
+	/**
+	 * Read the next header block.
+	 * @return false at the end of archive marker or end of stream
+	 */
+	private boolean readHeader() throws IOException {
+		int n = 0;
+		while (n < BLOCK_SIZE) {
+			int r = in.read(header, n, BLOCK_SIZE - n);
+			if (r < 0) {
+				if (n == 0) {
+					return false;
+				}
+				throw new EOFException("Truncated tar header");
+			}
+			n += r;
+		}
+		for (byte b : header) {
+			if (b != 0) {
+				return true;
+			}
+		}
+		return false;	// zero block marks the end of the archive
+	}
+
+	private void readEntryFully(byte[] b) throws IOException {
+		int n = 0;
+		while (n < b.length) {
+			int r = read(b, n, b.length - n);
+			if (r < 0) {
+				throw new EOFException("Truncated tar archive");
+			}
+			n += r;
+		}
+	}
+
+	private void skipFully(long n) throws IOException {
+		while (n > 0) {
+			long skipped = in.skip(n);
+			if (skipped <= 0) {
+				if (in.read() < 0) {
+					throw new EOFException("Truncated tar archive");
+				}
+				skipped = 1;
+			}
+			n -= skipped;
+		}
+	}
+
+	/**
+	 * Find a value in pax extended header records of the form "length key=value\n".
+	 */
+	private static String parsePaxRecord(byte[] records, String key) {
+		int pos = 0;
+		while (pos < records.length) {
+			int space = pos;
+			while (space < records.length && records[space] != ' ') {
+				space++;
+			}
+			int length;
+			try {
+				length = Integer.parseInt(new String(records, pos, space - pos, StandardCharsets.US_ASCII));
+			} catch (NumberFormatException e) {
+				return null;
+			}
+			if (space + 1 >= pos + length || pos + length > records.length) {
+				return null;
+			}
+			String record = new String(records, space + 1, pos + length - space - 2, StandardCharsets.UTF_8);	// without trailing newline
+			int eq = record.indexOf('=');
+			if (eq > 0 && record.substring(0, eq).equals(key)) {
+				return record.substring(eq + 1);
+			}
+			pos += length;
+		}
+		return null;
+	}
+
+	private static String parseString(byte[] buf, int offset, int length) {
+		int end = offset;
+		while (end < offset + length && buf[end] != 0) {
+			end++;
+		}
+		return new String(buf, offset, end - offset, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Parse a numeric header field, either NUL/space terminated octal or GNU
+	 * base-256 for values that don't fit.
+	 */
+	private static long parseNumber(byte[] buf, int offset, int length) throws IOException {
+		if ((buf[offset] & 0x80) != 0) {
+			long value = buf[offset] & 0x7f;
+			for (int i = 1; i < length; i++) {
+				value = (value << 8) | (buf[offset + i] & 0xff);
+			}
+			return value;
+		}
+		long value = 0;
+		for (int i = offset; i < offset + length; i++) {
+			byte b = buf[i];
+			if (b == 0 || b == ' ') {
+				if (value != 0) {
+					break;
+				}
+				continue;	// leading spaces
+			}
+			if (b < '0' || b > '7') {
+				throw new IOException("Invalid tar header");
+			}
+			value = (value << 3) + (b - '0');
+		}
+		return value;
+	}
+}
@@ -0,0 +1,169 @@
+package com.github.bananaj.codec;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.model.JSONParser;
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.model.list.member.MemberStatus;
+import com.github.bananaj.model.list.member.MemberTag;
+import com.github.bananaj.utils.StringInterner;
+
+public class StreamingCodecTest {
+
+	private static final String MEMBER_PAGE = "{\"_links\":[{\"rel\":\"self\",\"href\":\"https://us0.api.mailchimp.com/3.0/lists/abc6de12f4/members\"}],"
+			+ "\"members\":["
+			+ "{\"id\":\"16affcee9b5144f42582a63062532811\",\"email_address\":\"mr.test@gmail.com\",\"unique_email_id\":\"1234567890\",\"web_id\":123455501,"
+			+ "\"email_type\":\"html\",\"status\":\"subscribed\",\"merge_fields\":{\"FNAME\":\"Sue\",\"LNAME\":\"Smith\",\"AGE\":42,\"SCORE\":1.5,"
+			+ "\"ADDRESS\":{\"addr1\":\"1 Main St\",\"city\":\"Chandler\",\"zip\":\"85226\"},\"PHONE\":\"\"},"
+			+ "\"interests\":{\"1ecfb1d267\":false,\"7be4b38789\":true},\"stats\":{\"avg_open_rate\":0.5,\"avg_click_rate\":0},"
+			+ "\"ip_signup\":\"\",\"timestamp_signup\":\"2019-01-09T16:19:25+00:00\",\"ip_opt\":\"64.215.182.118\",\"timestamp_opt\":\"2019-01-09T16:19:25+00:00\","
+			+ "\"member_rating\":2,\"last_changed\":\"2019-06-14T17:54:25+00:00\",\"language\":\"\",\"vip\":true,\"email_client\":\"Gmail\","
+			+ "\"location\":{\"latitude\":33.3163,\"longitude\":-111.831,\"country_code\":\"US\"},\"marketing_permissions\":[{\"enabled\":true}],"
+			+ "\"last_note\":{\"note_id\":7,\"created_at\":\"2019-06-14T17:54:25+00:00\",\"created_by\":\"admin\",\"note\":\"Called\"},"
+			+ "\"tags_count\":2,\"tags\":[{\"id\":67669,\"name\":\"TEST_BRI\"},{\"id\":67401,\"name\":\"TEST_MIL\"}],\"list_id\":\"abc6de12f4\","
+			+ "\"_links\":[{\"rel\":\"self\",\"href\":\"https://us0.api.mailchimp.com/3.0/lists/abc6de12f4/members/16affcee9b5144f42582a63062532811\"}]},"
+			+ "{\"id\":\"0b7b8e3a5d0b6ac4b7fd5b9c44a5d4e1\",\"email_address\":\"other@example.com\",\"status\":\"unsubscribed\",\"unsubscribe_reason\":null,"
+			+ "\"merge_fields\":{},\"vip\":false,\"tags_count\":0,\"tags\":[],\"list_id\":\"abc6de12f4\"}"
+			+ "],\"list_id\":\"abc6de12f4\",\"total_items\":1234}";
+
+	@Test
+	public void testMemberPage() throws Exception {
+		List<Member> tree = new ArrayList<Member>();
+		List<Member> streamed = new ArrayList<Member>();
+		assertEquals(1234, read(JSONObjectCodec.INSTANCE, MEMBER_PAGE, Member::new, tree));
+		assertEquals(1234, read(StreamingCodec.INSTANCE, MEMBER_PAGE, Member::new, streamed));
+		assertEquals(2, streamed.size());
+
+		for (int i = 0; i < tree.size(); i++) {
+			Member expected = tree.get(i);
+			Member actual = streamed.get(i);
+			assertTrue(expected.getJsonRepresentation().similar(actual.getJsonRepresentation()));
+			assertEquals(expected.toString(), actual.toString());
+			assertTrue(new JSONObject(expected.getMergeFields()).similar(new JSONObject(actual.getMergeFields())));
+			for (String key : expected.getMergeFields().keySet()) {
+				assertEquals(expected.getMergeFields().get(key).getClass(), actual.getMergeFields().get(key).getClass());
+			}
+			assertEquals(expected.getInterest(), actual.getInterest());
+			assertEquals(expected.getTagsCount(), actual.getTagsCount());
+			assertEquals(expected.getTags().size(), actual.getTags().size());
+		}
+
+		Member member = streamed.get(0);
+		assertEquals("mr.test@gmail.com", member.getEmailAddress());
+		assertEquals(MemberStatus.SUBSCRIBED, member.getStatus());
+		assertEquals(42, member.getMergeFields().get("AGE"));
+		assertEquals("Chandler", ((JSONObject) member.getMergeFields().get("ADDRESS")).getString("city"));
+		assertTrue(member.getInterest().get("7be4b38789"));
+		assertEquals(0.5, member.getStats().getAvgOpenRate(), 0);
+		assertEquals("Called", member.getLastNote().getNote());
+		assertEquals(2019, member.getLastChanged().getYear());
+		assertTrue(member.isVip());
+		assertEquals("TEST_MIL", member.getTags().get(1).getName());
+		assertNull(streamed.get(1).getUnsubscribeReason());
+		assertFalse(streamed.get(1).isVip());
+	}
+
+	@Test
+	public void testStringInterner() throws Exception {
+		try (MailChimpConnection connection = new MailChimpConnection.Builder()
+				.usingApiKey("0123456789abcdef0123456789abcdef-us0")
+				.withStringInterner(new StringInterner(StringInterner.DEFAULT_CAPACITY, StringInterner.DEFAULT_MAX_LENGTH))
+				.build()) {
+			List<Member> members = new ArrayList<Member>();
+			for (ModelCodec codec : new ModelCodec[] { JSONObjectCodec.INSTANCE, StreamingCodec.INSTANCE }) {
+				codec.readPage(connection, new ByteArrayInputStream(MEMBER_PAGE.getBytes(StandardCharsets.UTF_8)), Member::new, members::add);
+				codec.readPage(connection, new ByteArrayInputStream(MEMBER_PAGE.getBytes(StandardCharsets.UTF_8)), Member::new, members::add);
+			}
+			for (Member m : members) {
+				assertTrue(m.getListId() == members.get(0).getListId());
+			}
+			// the first member of each page has an email client and tags
+			for (int i = 2; i < members.size(); i += 2) {
+				assertTrue(members.get(i).getEmailClient() == members.get(0).getEmailClient());
+				assertTrue(members.get(i).getTags().get(1).getName() == members.get(0).getTags().get(1).getName());
+			}
+		}
+	}
+
+	@Test
+	public void testLazyDecoding() throws Exception {
+		List<Member> eager = new ArrayList<Member>();
+		read(JSONObjectCodec.INSTANCE, MEMBER_PAGE, Member::new, eager);
+		try (MailChimpConnection connection = new MailChimpConnection.Builder()
+				.usingApiKey("0123456789abcdef0123456789abcdef-us0")
+				.withLazyDecoding(true)
+				.build()) {
+			for (ModelCodec codec : new ModelCodec[] { JSONObjectCodec.INSTANCE, StreamingCodec.INSTANCE }) {
+				List<Member> lazy = new ArrayList<Member>();
+				codec.readPage(connection, new ByteArrayInputStream(MEMBER_PAGE.getBytes(StandardCharsets.UTF_8)), Member::new, lazy::add);
+				for (int i = 0; i < eager.size(); i++) {
+					assertEquals(eager.get(i).getTimestampSignup(), lazy.get(i).getTimestampSignup());
+					assertEquals(eager.get(i).getLastChanged(), lazy.get(i).getLastChanged());
+					assertEquals(eager.get(i).toString(), lazy.get(i).toString());
+					assertTrue(eager.get(i).getJsonRepresentation().similar(lazy.get(i).getJsonRepresentation()));
+				}
+				assertEquals(0.5, lazy.get(0).getStats().getAvgOpenRate(), 0);
+				assertEquals(eager.get(0).getLastNote().getCreatedAt(), lazy.get(0).getLastNote().getCreatedAt());
+				assertNull(lazy.get(1).getLastNote());
+			}
+
+			// a malformed timestamp is reported by its getter, not while parsing
+			String page = MEMBER_PAGE.replace("\"last_changed\":\"2019-06-14T17:54:25+00:00\"", "\"last_changed\":\"14/06/2019\"");
+			List<Member> lazy = new ArrayList<Member>();
+			StreamingCodec.INSTANCE.readPage(connection, new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), Member::new, lazy::add);
+			assertEquals("mr.test@gmail.com", lazy.get(0).getEmailAddress());
+			try {
+				lazy.get(0).getLastChanged();
+				fail("Expected DateTimeParseException");
+			} catch (DateTimeParseException e) {
+				// expected
+			}
+		}
+	}
+
+	@Test
+	public void testTreeFallback() throws Exception {
+		// MemberTag has no streaming binding and is parsed from a JSONObject of its element
+		String page = "{\"tags\":[{\"id\":1,\"name\":\"a\"},{\"id\":2,\"name\":\"b\",\"date_added\":\"2019-06-14T17:54:25+00:00\"}],\"total_items\":2}";
+		List<MemberTag> tags = new ArrayList<MemberTag>();
+		assertEquals(2, read(StreamingCodec.INSTANCE, page, MemberTag::new, tags));
+		assertEquals(2, tags.size());
+		assertEquals("b", tags.get(1).getName());
+		assertEquals(2, tags.get(1).getId().intValue());
+	}
+
+	@Test
+	public void testPageWithoutTotal() throws Exception {
+		// entity array after other arrays of the root, nested arrays of the elements are not mistaken for it
+		String page = "{\"_links\":[],\"tags\":[{\"id\":1,\"name\":\"a\",\"_links\":[{\"rel\":\"self\"}]}],\"other\":[{\"id\":9}]}";
+		List<MemberTag> tags = new ArrayList<MemberTag>();
+		assertEquals(-1, read(StreamingCodec.INSTANCE, page, MemberTag::new, tags));
+		assertEquals(1, tags.size());
+		assertEquals("a", tags.get(0).getName());
+	}
+
+	@Test(expected = IOException.class)
+	public void testMalformedPage() throws Exception {
+		read(StreamingCodec.INSTANCE, "{\"members\":[{\"id\":\"1\"}", Member::new, new ArrayList<Member>());
+	}
+
+	private static <T extends JSONParser> int read(ModelCodec codec, String page, Supplier<T> factory, List<T> result) throws IOException {
+		return codec.readPage(null, new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), factory, result::add);
+	}
+}
@@ -0,0 +1,54 @@
+package com.github.bananaj.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.github.bananaj.model.batch.BatchOperation;
+import com.github.bananaj.model.batch.OperationMethod;
+
+public class BatchOperationsEntityTest {
+
+	@Test
+	public void testSerializedSize() throws IOException {
+		List<BatchOperation> operations = new ArrayList<BatchOperation>();
+		operations.add(new BatchOperation.Builder().method(OperationMethod.GET).path("/lists").build());
+		operations.add(new BatchOperation.Builder().method(OperationMethod.PUT).path("/lists/abc/members/123")
+				.body("{\"email_address\":\"jörg@example.com\",\"merge_fields\":{\"FNAME\":\"日本 😀\"}}")
+				.operationId("op2").build());
+
+		List<String> serialized = new ArrayList<String>();
+		long expected = BatchOperationsEntity.envelopeSize() - 1;	// no separator before the first operation
+		for (BatchOperation op : operations) {
+			String json = BatchOperationsEntity.toJson(op);
+			serialized.add(json);
+			expected += BatchOperationsEntity.sizeOf(json);
+		}
+
+		BatchOperationsEntity entity = BatchOperationsEntity.serialized(serialized);
+		assertTrue(entity.isRepeatable());
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		entity.writeTo(out);
+		assertEquals(expected, out.size());
+		assertEquals(2, entity.getOperationCount());
+
+		JSONArray ops = new JSONObject(new String(out.toByteArray(), StandardCharsets.UTF_8)).getJSONArray("operations");
+		assertEquals(2, ops.length());
+		assertEquals("op2", ops.getJSONObject(1).getString("operation_id"));
+
+		// same body when written from the operations
+		ByteArrayOutputStream streamed = new ByteArrayOutputStream();
+		new BatchOperationsEntity(operations.iterator()).writeTo(streamed);
+		assertEquals(out.toString("UTF-8"), streamed.toString("UTF-8"));
+	}
+
+}
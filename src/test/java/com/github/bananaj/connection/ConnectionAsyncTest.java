@@ -0,0 +1,105 @@
+package com.github.bananaj.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.utils.URLHelper;
+
+/**
+ * Drives the asynchronous verbs of {@link Connection} against {@link FakeMailChimpServer}
+ */
+public class ConnectionAsyncTest {
+
+	@Test
+	public void testSuccess() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(10).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			String ping = connection.do_GetAsync(URLHelper.url(connection.getApiendpoint(), "ping"), connection.getApikey())
+					.get(10, TimeUnit.SECONDS);
+			assertTrue(new JSONObject(ping).has("health_status"));
+
+			String listId = server.getListIds().get(0);
+			String members = URLHelper.url(connection.getApiendpoint(), "lists/", listId, "/members").toExternalForm();
+			String created = connection.do_PostAsync(URLHelper.url(members),
+					new JSONObject().put("email_address", "async@example.com").put("status", "subscribed").toString(),
+					connection.getApikey()).get(10, TimeUnit.SECONDS);
+			assertEquals("async@example.com", new JSONObject(created).getString("email_address"));
+
+			String hash = Member.subscriberHash("async@example.com");
+			String patched = connection.do_PatchAsync(URLHelper.url(members, "/", hash),
+					new JSONObject().put("status", "unsubscribed").toString(),
+					connection.getApikey()).get(10, TimeUnit.SECONDS);
+			assertEquals("unsubscribed", new JSONObject(patched).getString("status"));
+			assertEquals("unsubscribed", new JSONObject(connection.do_Get(URLHelper.url(members, "/", hash), connection.getApikey())).getString("status"));
+		}
+	}
+
+	@Test
+	public void testErrorResponse() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			CompletableFuture<String> future = connection.do_GetAsync(URLHelper.url(connection.getApiendpoint(), "lists/0000000000"), connection.getApikey());
+			try {
+				future.get(10, TimeUnit.SECONDS);
+				fail("Expected ExecutionException");
+			} catch (ExecutionException e) {
+				// the same error the blocking call reports
+				assertTrue(e.getCause() instanceof IOException);
+				assertTrue(e.getCause().getMessage(), e.getCause().getMessage().startsWith("Status: 404 GET: "));
+				assertTrue(e.getCause().getMessage(), e.getCause().getMessage().contains("Resource Not Found"));
+			}
+			assertEquals(1, server.getRequests());	// not retried
+		}
+	}
+
+	@Test
+	public void testTimeout() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withLatency(2, 2, TimeUnit.SECONDS).build();
+				MailChimpConnection connection = server.connectionBuilder().withSocketTimeout(100, TimeUnit.MILLISECONDS).build()) {
+			CompletableFuture<String> future = connection.do_GetAsync(URLHelper.url(connection.getApiendpoint(), "ping"), connection.getApikey());
+			try {
+				future.get(10, TimeUnit.SECONDS);
+				fail("Expected ExecutionException");
+			} catch (ExecutionException e) {
+				assertTrue(String.valueOf(e.getCause()), e.getCause() instanceof SocketTimeoutException);
+			}
+		}
+	}
+
+	@Test
+	public void testCancelReleasesPermit() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withLatency(300, 300, TimeUnit.MILLISECONDS).build();
+				MailChimpConnection connection = server.connectionBuilder().withMaxConcurrentRequests(1).build()) {
+			String ping = URLHelper.url(connection.getApiendpoint(), "ping").toExternalForm();
+
+			// cancelled in flight
+			CompletableFuture<String> inFlight = connection.do_GetAsync(URLHelper.url(ping), connection.getApikey());
+			Thread.sleep(50);
+			assertTrue(inFlight.cancel(true));
+			connection.do_GetAsync(URLHelper.url(ping), connection.getApikey()).get(5, TimeUnit.SECONDS);
+
+			// cancelled while waiting for the permit
+			CompletableFuture<String> first = connection.do_GetAsync(URLHelper.url(ping), connection.getApikey());
+			CompletableFuture<String> waiting = connection.do_GetAsync(URLHelper.url(ping), connection.getApikey());
+			assertTrue(waiting.cancel(true));
+			first.get(5, TimeUnit.SECONDS);
+			connection.do_GetAsync(URLHelper.url(ping), connection.getApikey()).get(5, TimeUnit.SECONDS);
+
+			// the only permit is free again, a blocking request does not wait
+			long start = System.nanoTime();
+			connection.do_Get(URLHelper.url(ping), connection.getApikey());
+			assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 2000);
+		}
+	}
+}
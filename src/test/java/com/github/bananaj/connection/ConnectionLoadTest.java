@@ -0,0 +1,248 @@
+package com.github.bananaj.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.github.bananaj.codec.StreamingCodec;
+import com.github.bananaj.exceptions.BatchException;
+import com.github.bananaj.model.ModelIterator;
+import com.github.bananaj.model.batch.BatchGroup;
+import com.github.bananaj.model.batch.BatchOperation;
+import com.github.bananaj.model.batch.BatchResult;
+import com.github.bananaj.model.batch.OperationMethod;
+import com.github.bananaj.model.list.MailChimpList;
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.model.list.member.MemberStatus;
+import com.github.bananaj.model.report.Report;
+
+/**
+ * Drives {@link MailChimpConnection} against {@link FakeMailChimpServer}
+ */
+public class ConnectionLoadTest {
+
+	@Test
+	public void testPaging() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(2500).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			assertTrue(connection.ping());
+			assertEquals(server.getListIds().size(), count(connection.getLists()));
+
+			MailChimpList list = connection.getList(server.getListIds().get(1), null);
+			assertEquals(2500, list.getStats().getMemberCount().intValue());
+			Set<String> emails = new HashSet<String>();
+			for (Member member : list.getMembers()) {
+				emails.add(member.getEmailAddress());
+			}
+			assertEquals(2500, emails.size());
+			assertTrue(emails.contains(server.getMemberEmail(list.getId(), 2499)));
+
+			ModelIterator<Member> members = (ModelIterator<Member>) list.getMembers();
+			assertEquals(2500, members.parallel(4, true).stream().map(Member::getEmailAddress).distinct().count());
+
+			connection.setModelCodec(StreamingCodec.INSTANCE);
+			assertEquals(2500, ((ModelIterator<Member>) list.getMembers()).stream().map(Member::getEmailAddress).distinct().count());
+
+			int reports = 0;
+			for (Report report : connection.getCampaignReports(null)) {
+				assertTrue(report.getEmailsSent() > 0);
+				reports++;
+			}
+			assertTrue(reports > 0 && reports < server.getCampaignIds().size());
+		}
+	}
+
+	@Test
+	public void testConcurrency() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder()
+				.withLatency(1, 5, TimeUnit.MILLISECONDS)
+				.withThrottling(0.1, 0)
+				.withMaxConcurrentRequests(4)
+				.build();
+				MailChimpConnection connection = server.connectionBuilder()
+						.withMaxConcurrentRequests(16)
+						.withMaxRetries(30)
+						.withRetryBackoff(1, 20, TimeUnit.MILLISECONDS)
+						.build()) {
+			MailChimpList list = connection.getList(server.getListIds().get(0), null);
+			assertEquals(300, getMembers(list, server, 300, 16));
+			assertTrue(server.getThrottled() > 0);
+			assertTrue(server.getRejected() > 0);
+			assertTrue(server.getPeakConcurrentRequests() <= 4);
+
+		}
+
+		// staying within the server limit nothing is rejected
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder()
+				.withLatency(1, 5, TimeUnit.MILLISECONDS)
+				.withMaxConcurrentRequests(4)
+				.build();
+				MailChimpConnection connection = server.connectionBuilder()
+						.withMaxConcurrentRequests(4)
+						.withMaxRetries(0)
+						.build()) {
+			MailChimpList list = connection.getList(server.getListIds().get(0), null);
+			assertEquals(300, getMembers(list, server, 300, 16));
+			assertEquals(0, server.getRejected());
+			assertEquals(4, server.getPeakConcurrentRequests());
+		}
+	}
+
+	@Test
+	public void testBatch() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(100).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			MailChimpList list = connection.getList(server.getListIds().get(0), null);
+			BatchGroup group = list.upsertMembers(IntStream.range(0, 250).mapToObj(i -> new Member.Builder()
+					.listId(list.getId())
+					.status(MemberStatus.SUBSCRIBED)
+					.emailAddress(i < 50 ? server.getMemberEmail(list.getId(), i) : "new." + i + "@example.com")
+					.mergeField("FNAME", "Batch" + i)
+					.build()), 100);
+			assertEquals(3, group.size());
+			group.waitForCompletion(1, TimeUnit.MILLISECONDS);
+			List<BatchResult> results;
+			try (Stream<BatchResult> stream = group.getResults()) {
+				results = stream.collect(Collectors.toList());
+			}
+			assertEquals(250, results.size());
+			assertTrue(results.stream().allMatch(BatchResult::isSuccess));
+			assertEquals("Batch7", list.getMember(server.getMemberEmail(list.getId(), 7)).getMergeFields().get("FNAME"));
+			assertEquals("Batch200", list.getMember("new.200@example.com").getMergeFields().get("FNAME"));
+		}
+	}
+
+	@Test
+	public void testOversizedOperation() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			server.resetCounters();
+			Iterator<BatchOperation> operations = oversizedOperations(server);
+			try {
+				connection.createBatches(operations, 2, 1000);
+				fail("Expected BatchException");
+			} catch (BatchException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("Operation 6 (POST /lists/" + server.getListIds().get(0) + "/members, operation_id big) of "));
+				assertTrue(e.getMessage(), e.getMessage().endsWith("It and the remaining operations were not submitted"));
+				// the operations before it were submitted, those after it were not taken
+				assertEquals(3, e.getSubmitted().size());
+				assertEquals(0, e.getSubmitted().getTotalOperations());	// pending batches report no operations yet
+				assertEquals(0, e.getSuppressed().length);
+				assertEquals(3, server.getRequests());
+				int remaining = 0;
+				while (operations.hasNext()) {
+					operations.next();
+					remaining++;
+				}
+				assertEquals(3, remaining);
+			}
+		}
+
+		// a failure submitting the preceding operations does not hide the size error
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withThrottling(1, -1).build();
+				MailChimpConnection connection = server.connectionBuilder().withMaxRetries(0).build()) {
+			try {
+				connection.createBatches(oversizedOperations(server), 10, 1000);
+				fail("Expected BatchException");
+			} catch (BatchException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("Operation 6 "));
+				assertEquals(0, e.getSubmitted().size());
+				assertEquals(1, e.getSuppressed().length);
+				assertTrue(e.getSuppressed()[0].getMessage().startsWith("Failed to submit batch 1 after 0 operations"));
+			}
+		}
+
+		// the server goes away while the fifth operation is taken, after two batches were submitted
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().build();
+				MailChimpConnection connection = server.connectionBuilder().withMaxRetries(0).build()) {
+			Iterator<BatchOperation> all = oversizedOperations(server);
+			Iterator<BatchOperation> operations = new Iterator<BatchOperation>() {
+				private int taken = 0;
+
+				@Override
+				public boolean hasNext() {
+					return all.hasNext();
+				}
+
+				@Override
+				public BatchOperation next() {
+					if (++taken == 5) {
+						server.close();
+					}
+					return all.next();
+				}
+			};
+			try {
+				connection.createBatches(operations, 2, 1000);
+				fail("Expected BatchException");
+			} catch (BatchException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("Operation 6 "));
+				assertEquals(2, e.getSubmitted().size());
+				assertEquals(1, e.getSuppressed().length);
+				assertTrue(e.getSuppressed()[0].getMessage(), e.getSuppressed()[0].getMessage().startsWith("Failed to submit batch 3 after 4 operations"));
+			}
+		}
+	}
+
+	private static Iterator<BatchOperation> oversizedOperations(FakeMailChimpServer server) {
+		List<BatchOperation> operations = new ArrayList<BatchOperation>();
+		for (int i = 0; i < 9; i++) {
+			if (i == 5) {
+				char[] name = new char[2000];
+				Arrays.fill(name, 'x');
+				operations.add(new BatchOperation.Builder()
+						.method(OperationMethod.POST)
+						.path("/lists/" + server.getListIds().get(0) + "/members")
+						.body(new JSONObject().put("email_address", new String(name) + "@example.com").toString())
+						.operationId("big")
+						.build());
+			} else {
+				operations.add(new BatchOperation.Builder().method(OperationMethod.GET).path("/ping").build());
+			}
+		}
+		return operations.iterator();
+	}
+
+	private static int getMembers(MailChimpList list, FakeMailChimpServer server, int requests, int threads) throws Exception {
+		ExecutorService executor = Executors.newFixedThreadPool(threads);
+		try {
+			List<Future<Member>> futures = new ArrayList<Future<Member>>();
+			for (int i = 0; i < requests; i++) {
+				String email = server.getMemberEmail(list.getId(), i);
+				futures.add(executor.submit(() -> list.getMember(email)));
+			}
+			int found = 0;
+			for (Future<Member> f : futures) {
+				found += f.get().getEmailAddress() != null ? 1 : 0;
+			}
+			return found;
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	private static int count(Iterable<?> iterable) {
+		int n = 0;
+		for (@SuppressWarnings("unused") Object o : iterable) {
+			n++;
+		}
+		return n;
+	}
+}
@@ -0,0 +1,181 @@
+package com.github.bananaj.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.http.client.utils.DateUtils;
+import org.apache.http.entity.ContentType;
+import org.apache.http.entity.InputStreamEntity;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.utils.URLHelper;
+
+/**
+ * Drives the retry rules of {@link Connection} against {@link FakeMailChimpServer}
+ */
+public class ConnectionRetryTest {
+
+	@Test
+	public void testRetryAfterSeconds() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().build();
+				MailChimpConnection connection = connection(server)) {
+			server.resetCounters();
+			server.failNext(429, "1");
+			long start = System.nanoTime();
+			assertTrue(connection.ping());
+			assertTrue(elapsedMillis(start) >= 900);	// waited as told rather than the 10 ms backoff
+			assertEquals(2, server.getRequests());
+		}
+	}
+
+	@Test
+	public void testRetryAfterDate() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().build();
+				MailChimpConnection connection = connection(server)) {
+			server.resetCounters();
+			// HTTP-dates have a resolution of a second, 2 seconds from now is at least 1 second away
+			server.failNext(503, DateUtils.formatDate(new Date(System.currentTimeMillis() + 2000)));
+			long start = System.nanoTime();
+			assertTrue(connection.ping());
+			assertTrue(elapsedMillis(start) >= 900);
+			assertEquals(2, server.getRequests());
+		}
+	}
+
+	@Test
+	public void testRetryAfterTooLong() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().build();
+				MailChimpConnection connection = connection(server)) {
+			server.resetCounters();
+			server.failNext(429, "30");
+			long start = System.nanoTime();
+			try {
+				connection.do_Get(ping(connection), connection.getApikey());
+				fail("Expected IOException");
+			} catch (IOException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("Status: 429 GET: "));
+			}
+			assertTrue(elapsedMillis(start) < 5000);	// failed rather than sleeping for 30 seconds
+			assertEquals(1, server.getRequests());
+		}
+	}
+
+	@Test
+	public void testNotIdempotent() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(10).build();
+				MailChimpConnection connection = connection(server)) {
+			String listId = server.getListIds().get(0);
+			URL members = URLHelper.url(connection.getListendpoint(), "/", listId, "/members");
+			URL member = URLHelper.url(members.toExternalForm(), "/", Member.subscriberHash(server.getMemberEmail(listId, 1)));
+			String body = new JSONObject().put("email_address", "retry@example.com").put("status", "subscribed").toString();
+
+			// the request may have been processed, POST and PATCH are not resent
+			server.resetCounters();
+			server.failNext(502, null);
+			try {
+				connection.do_Post(members, body, connection.getApikey());
+				fail("Expected IOException");
+			} catch (IOException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("Status: 502 POST: "));
+			}
+			assertEquals(1, server.getRequests());
+
+			server.resetCounters();
+			server.failNext(504, null);
+			try {
+				connection.do_Patch(member, new JSONObject().put("status", "unsubscribed").toString(), connection.getApikey());
+				fail("Expected IOException");
+			} catch (IOException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("Status: 504 PATCH: "));
+			}
+			assertEquals(1, server.getRequests());
+
+			// idempotent methods are
+			server.resetCounters();
+			server.failNext(502, null);
+			server.failNext(504, null);
+			assertEquals(server.getMemberEmail(listId, 1), new JSONObject(connection.do_Get(member, connection.getApikey())).getString("email_address"));
+			assertEquals(3, server.getRequests());
+
+			// 429 means the request was not processed, any method is resent
+			server.resetCounters();
+			server.failNext(429, "0");
+			assertEquals("retry@example.com", new JSONObject(connection.do_Post(members, body, connection.getApikey())).getString("email_address"));
+			assertEquals(2, server.getRequests());
+		}
+	}
+
+	@Test
+	public void testNonRepeatableEntity() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(10).build();
+				MailChimpConnection connection = connection(server)) {
+			URL members = URLHelper.url(connection.getListendpoint(), "/", server.getListIds().get(0), "/members");
+			byte[] body = new JSONObject().put("email_address", "stream@example.com").put("status", "subscribed").toString().getBytes(StandardCharsets.UTF_8);
+			server.resetCounters();
+			server.failNext(429, "0");
+			try {
+				connection.do_Post(members, new InputStreamEntity(new ByteArrayInputStream(body), body.length, ContentType.APPLICATION_JSON), connection.getApikey());
+				fail("Expected IOException");
+			} catch (IOException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("Status: 429 POST: "));
+			}
+			assertEquals(1, server.getRequests());
+		}
+	}
+
+	@Test
+	public void testRetriesExhausted() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().build();
+				MailChimpConnection connection = connection(server)) {
+			server.resetCounters();
+			server.failNext(503, "0");
+			server.failNext(503, "0");
+			server.failNext(429, "0");
+			try {
+				connection.do_Get(ping(connection), connection.getApikey());
+				fail("Expected IOException");
+			} catch (IOException e) {
+				assertTrue(e.getMessage(), e.getMessage().startsWith("Status: 429 GET: "));
+			}
+			assertEquals(3, server.getRequests());	// the request and maxRetries retries
+
+			server.resetCounters();
+			server.failNext(503, null);
+			server.failNext(503, null);
+			server.failNext(504, null);
+			try {
+				connection.do_GetAsync(ping(connection), connection.getApikey()).get(10, TimeUnit.SECONDS);
+				fail("Expected ExecutionException");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause().getMessage(), e.getCause().getMessage().startsWith("Status: 504 GET: "));
+			}
+			assertEquals(3, server.getRequests());
+		}
+	}
+
+	private static MailChimpConnection connection(FakeMailChimpServer server) {
+		return server.connectionBuilder()
+				.withMaxRetries(2)
+				.withRetryBackoff(10, 2000, TimeUnit.MILLISECONDS)
+				.build();
+	}
+
+	private static URL ping(MailChimpConnection connection) throws IOException {
+		return URLHelper.url(connection.getApiendpoint(), "ping");
+	}
+
+	private static long elapsedMillis(long start) {
+		return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+	}
+}
@@ -0,0 +1,64 @@
+package com.github.bananaj.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.net.URL;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+public class ConnectionStatsTest {
+
+	@Test
+	public void testEndpointTemplates() {
+		assertEquals("/lists/{id}/members/{id}", RequestEvent.templateOf("/3.0/lists/a1b2c3d4e5/members/62eeb292278cc15f5817cb78f7790b08"));
+		assertEquals("/lists/{id}/members/{id}/actions/delete-permanent", RequestEvent.templateOf("/3.0/lists/abc/members/def/actions/delete-permanent"));
+		assertEquals("/ecommerce/stores/{id}/products/{id}", RequestEvent.templateOf("/3.0/ecommerce/stores/mystore/products/shirt"));
+		assertEquals("/file-manager/files", RequestEvent.templateOf("/3.0/file-manager/files"));
+		assertEquals("/", RequestEvent.templateOf("/3.0/"));
+		assertEquals("/results/{id}", RequestEvent.templateOf("/results/d8a7c2-response.tar.gz"));
+	}
+
+	@Test
+	public void testLatencyHistogram() {
+		LatencyHistogram h = new LatencyHistogram();
+		for (int i = 1; i <= 1000; i++) {
+			h.record(i, TimeUnit.MILLISECONDS);
+		}
+		assertEquals(1000, h.getCount());
+		assertEquals(1000000, h.getMax());
+		assertEquals(500500, h.getMean(), 1);
+		assertWithin(500000, h.getValueAtPercentile(50));
+		assertWithin(990000, h.getValueAtPercentile(99));
+		assertEquals(h.getMax(), h.getValueAtPercentile(100));
+
+		for (long v = 0; v < 100000000L; v = v * 3 / 2 + 1) {
+			assertTrue(LatencyHistogram.highestEquivalentValue(LatencyHistogram.indexOf(v)) >= v);
+			assertWithin(v, LatencyHistogram.highestEquivalentValue(LatencyHistogram.indexOf(v)));
+		}
+	}
+
+	@Test
+	public void testStats() throws Exception {
+		ConnectionStats stats = new ConnectionStats();
+		for (int i = 0; i < 10; i++) {
+			RequestMetrics metrics = new RequestMetrics("GET", new URL("https://us1.api.mailchimp.com/3.0/lists/abc" + i), false);
+			metrics.statusCode = i < 9 ? 200 : 500;
+			metrics.bytesReceived = 100;
+			metrics.decodedBytesReceived = 400;
+			metrics.completed(null);
+			stats.requestCompleted(new RequestEvent(metrics));
+		}
+		ConnectionStats.EndpointStats e = stats.getEndpoint("GET", "/lists/{id}");
+		assertEquals(10, e.getRequests());
+		assertEquals(1, e.getFailures());
+		assertEquals(1000, e.getBytesReceived());
+		assertEquals(4000, e.getDecodedBytesReceived());
+		assertEquals(1, stats.getEndpoints().size());
+	}
+
+	private static void assertWithin(long expected, long actual) {
+		assertTrue(expected + " ~ " + actual, Math.abs(actual - expected) <= Math.max(expected / 50, 1));
+	}
+}
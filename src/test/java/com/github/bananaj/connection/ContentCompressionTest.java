@@ -0,0 +1,62 @@
+package com.github.bananaj.connection;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.entity.ByteArrayEntity;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.util.EntityUtils;
+import org.junit.Test;
+
+public class ContentCompressionTest {
+
+	@Test
+	public void testGzipResponse() throws IOException {
+		String json = "{\"members\":[{\"status\":\"subscribed\"},{\"status\":\"subscribed\"},{\"status\":\"subscribed\"}]}";
+		ByteArrayOutputStream gz = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+			out.write(json.getBytes(StandardCharsets.UTF_8));
+		}
+
+		ContentCompression compression = new ContentCompression(true);
+		HttpGet request = new HttpGet("http://localhost/");
+		compression.process(request, null);
+		assertEquals("gzip, deflate", request.getFirstHeader("Accept-Encoding").getValue());
+
+		HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+		ByteArrayEntity entity = new ByteArrayEntity(gz.toByteArray());
+		entity.setContentEncoding("gzip");
+		response.setEntity(entity);
+		response.addHeader("Content-Encoding", "gzip");
+		compression.decode(response, null);
+		compression.decode(response, null);	// already decoded
+
+		assertEquals(json, EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+		assertFalse(response.containsHeader("Content-Encoding"));
+		assertEquals(gz.size(), compression.getWireBytes());
+		assertEquals(json.length(), compression.getDecodedBytes());
+	}
+
+	@Test
+	public void testDisabled() throws IOException {
+		ContentCompression compression = new ContentCompression(false);
+		HttpGet request = new HttpGet("http://localhost/");
+		compression.process(request, null);
+		assertFalse(request.containsHeader("Accept-Encoding"));
+
+		HttpResponse response = new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK");
+		response.setEntity(new ByteArrayEntity("{}".getBytes(StandardCharsets.UTF_8)));
+		compression.decode(response, null);
+		assertEquals("{}", EntityUtils.toString(response.getEntity(), StandardCharsets.UTF_8));
+		assertEquals(2, compression.getWireBytes());
+		assertEquals(2, compression.getDecodedBytes());
+	}
+}
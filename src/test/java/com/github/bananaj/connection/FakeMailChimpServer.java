@@ -0,0 +1,1217 @@
+package com.github.bananaj.connection;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import com.github.bananaj.model.list.member.Member;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * In-process stand-in for the MailChimp API, used to test and load test
+ * {@link MailChimpConnection} without network access or an account. Runs on
+ * the JDK's built-in HTTP server bound to the loopback interface.
+ * <p>
+ * Serves the account root, ping, lists, list members, campaigns, reports,
+ * campaign open details and batches from a dataset generated from a seed, so
+ * every run sees the same data. Collections are paginated with <code>count</code> and
+ * <code>offset</code> and report <code>total_items</code> like the real API.
+ * Members written with POST, PUT, PATCH or DELETE, directly or through a
+ * batch, are kept in memory; they are visible when fetched individually but
+ * do not change the paginated member collection, unless it is filtered with
+ * <code>since_last_changed</code> or <code>before_last_changed</code>.
+ * <p>
+ * To exercise client behavior under load the server can add latency to every
+ * response, throttle a fraction of the requests with 429 and a Retry-After
+ * header, and reject requests beyond a number of simultaneous requests with
+ * 429 the way MailChimp enforces its limit of 10 simultaneous connections.
+ * Specific error responses can be queued with {@link #failNext(int, String)}.
+ *
+ * <pre>
+ * try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(5000).build();
+ *      MailChimpConnection connection = server.connectionBuilder().build()) {
+ *     ...
+ * }
+ * </pre>
+ */
+public class FakeMailChimpServer implements Closeable {
+
+	/**
+	 * Data center reported for the fake account
+	 */
+	public static final String DC = "us0";
+
+	/**
+	 * API key accepted by the server
+	 */
+	public static final String API_KEY = "0123456789abcdef0123456789abcdef-" + DC;
+
+	private static final DateTimeFormatter ISO8601 = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ssxxx");
+	private static final long EPOCH = ZonedDateTime.of(2020, 1, 1, 0, 0, 0, 0, ZoneOffset.UTC).toEpochSecond();
+	private static final String[] FIRST_NAMES = { "James", "Mary", "Robert", "Patricia", "John", "Jennifer", "Michael", "Linda", "David", "Elizabeth", "William", "Barbara" };
+	private static final String[] LAST_NAMES = { "Smith", "Johnson", "Williams", "Brown", "Jones", "Garcia", "Miller", "Davis", "Rodriguez", "Martinez", "Hernandez", "Lopez" };
+	private static final String[] DOMAINS = { "example.com", "example.net", "example.org", "mail.example.com" };
+	private static final int MAX_COUNT = 1000;
+
+	static {
+		// the JDK server writes headers and body separately, without TCP_NODELAY
+		// each response would wait for the client's delayed ACK
+		if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+			System.setProperty("sun.net.httpserver.nodelay", "true");
+		}
+	}
+
+	private final long seed;
+	private final int membersPerList;
+	private final long minLatencyMillis;
+	private final long maxLatencyMillis;
+	private final double throttleRate;
+	private final int retryAfterSeconds;
+	private final int maxConcurrentRequests;
+	private final int batchPolls;
+	private final HttpServer server;
+	private final ExecutorService executor;
+	private final String baseUrl;
+
+	private final List<ListData> lists = new ArrayList<ListData>();
+	private final Map<String, ListData> listsById = new HashMap<String, ListData>();
+	private final List<JSONObject> campaigns = new ArrayList<JSONObject>();
+	private final List<JSONObject> reports = new ArrayList<JSONObject>();
+	private final Map<String, JSONObject> campaignsById = new HashMap<String, JSONObject>();
+	private final Map<String, JSONObject> reportsById = new HashMap<String, JSONObject>();
+	private final Map<String, Batch> batches = Collections.synchronizedMap(new LinkedHashMap<String, Batch>());
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger peakInFlight = new AtomicInteger();
+	private final AtomicLong requests = new AtomicLong();
+	private final AtomicLong throttled = new AtomicLong();
+	private final AtomicLong rejected = new AtomicLong();
+	private final Queue<Failure> failures = new ConcurrentLinkedQueue<Failure>();
+
+	/**
+	 * A generated list and the members written to it
+	 */
+	private static class ListData {
+		final int index;
+		final String id;
+		final String name;
+		final int memberCount;
+		volatile Map<String, Integer> memberIndex;
+		final Map<String, JSONObject> written = new ConcurrentHashMap<String, JSONObject>();
+		final Map<String, Boolean> deleted = new ConcurrentHashMap<String, Boolean>();
+
+		ListData(int index, String id, String name, int memberCount) {
+			this.index = index;
+			this.id = id;
+			this.name = name;
+			this.memberCount = memberCount;
+		}
+	}
+
+	/**
+	 * A submitted batch, finished after it has been polled a number of times,
+	 * individually or in the batch listing
+	 */
+	private static class Batch {
+		final String id;
+		final JSONArray operations;
+		final String submittedAt = ISO8601.format(ZonedDateTime.now(ZoneOffset.UTC));
+		final AtomicInteger polls = new AtomicInteger();
+		volatile String completedAt;
+		volatile byte[] results;
+		volatile int errored;
+
+		Batch(String id, JSONArray operations) {
+			this.id = id;
+			this.operations = operations;
+		}
+	}
+
+	/**
+	 * An error response queued with {@link FakeMailChimpServer#failNext(int, String)}
+	 */
+	private static class Failure {
+		final int status;
+		final String retryAfter;
+
+		Failure(int status, String retryAfter) {
+			this.status = status;
+			this.retryAfter = retryAfter;
+		}
+	}
+
+	/**
+	 * Response status and JSON body
+	 */
+	private static class Response {
+		final int status;
+		final JSONObject body;
+
+		Response(int status, JSONObject body) {
+			this.status = status;
+			this.body = body;
+		}
+	}
+
+	private FakeMailChimpServer(Builder b) throws IOException {
+		this.seed = b.seed;
+		this.membersPerList = b.membersPerList;
+		this.minLatencyMillis = b.minLatencyMillis;
+		this.maxLatencyMillis = b.maxLatencyMillis;
+		this.throttleRate = b.throttleRate;
+		this.retryAfterSeconds = b.retryAfterSeconds;
+		this.maxConcurrentRequests = b.maxConcurrentRequests;
+		this.batchPolls = b.batchPolls;
+		generate(b.lists, b.campaigns);
+
+		server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), b.port), 256);
+		executor = Executors.newFixedThreadPool(b.threads, r -> {
+			Thread t = new Thread(r, "fake-mailchimp");
+			t.setDaemon(true);
+			return t;
+		});
+		server.setExecutor(executor);
+		server.createContext("/", this::handle);
+		server.start();
+		baseUrl = "http://" + server.getAddress().getHostString() + ":" + server.getAddress().getPort();
+	}
+
+	public static class Builder {
+		private long seed = 1;
+		private int lists = 3;
+		private int membersPerList = 1000;
+		private int campaigns = 25;
+		private long minLatencyMillis;
+		private long maxLatencyMillis;
+		private double throttleRate;
+		private int retryAfterSeconds = 1;
+		private int maxConcurrentRequests;
+		private int batchPolls = 2;
+		private int threads = 64;
+		private int port;
+
+		/**
+		 * @param seed Seed of the generated dataset. Default is 1.
+		 */
+		public Builder withSeed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * @param lists Number of lists. Default is 3.
+		 */
+		public Builder withLists(int lists) {
+			this.lists = lists;
+			return this;
+		}
+
+		/**
+		 * @param membersPerList Number of members of each list. Default is 1000.
+		 */
+		public Builder withMembersPerList(int membersPerList) {
+			this.membersPerList = membersPerList;
+			return this;
+		}
+
+		/**
+		 * @param campaigns Number of campaigns, about two thirds of them sent and with a report. Default is 25.
+		 */
+		public Builder withCampaigns(int campaigns) {
+			this.campaigns = campaigns;
+			return this;
+		}
+
+		/**
+		 * @param min Minimum time taken to respond to a request
+		 * @param max Maximum time taken to respond to a request, the latency is uniformly distributed between min and max
+		 * @param unit
+		 */
+		public Builder withLatency(long min, long max, TimeUnit unit) {
+			this.minLatencyMillis = unit.toMillis(min);
+			this.maxLatencyMillis = Math.max(unit.toMillis(max), this.minLatencyMillis);
+			return this;
+		}
+
+		/**
+		 * @param throttleRate Fraction of requests answered with 429 Too Many Requests, between 0 and 1. Default is 0.
+		 * @param retryAfterSeconds Retry-After header sent with throttled responses, -1 for none. Default is 1.
+		 */
+		public Builder withThrottling(double throttleRate, int retryAfterSeconds) {
+			this.throttleRate = throttleRate;
+			this.retryAfterSeconds = retryAfterSeconds;
+			return this;
+		}
+
+		/**
+		 * @param maxConcurrentRequests Number of requests processed at once,
+		 *                              further requests are rejected with 429.
+		 *                              0 for no limit, the default.
+		 */
+		public Builder withMaxConcurrentRequests(int maxConcurrentRequests) {
+			this.maxConcurrentRequests = maxConcurrentRequests;
+			return this;
+		}
+
+		/**
+		 * @param batchPolls Number of status requests, individually or in the batch
+		 *                   listing, after which a batch is finished. Default is 2.
+		 */
+		public Builder withBatchPolls(int batchPolls) {
+			this.batchPolls = batchPolls;
+			return this;
+		}
+
+		/**
+		 * @param threads Number of server threads, must exceed the concurrency
+		 *                the server is tested with for requests beyond
+		 *                {@link #withMaxConcurrentRequests(int)} to be rejected
+		 *                rather than queued. Default is 64.
+		 */
+		public Builder withThreads(int threads) {
+			this.threads = threads;
+			return this;
+		}
+
+		/**
+		 * @param port Port to listen on. Default is 0, any free port.
+		 */
+		public Builder withPort(int port) {
+			this.port = port;
+			return this;
+		}
+
+		/**
+		 * @return The started server
+		 * @throws IOException
+		 */
+		public FakeMailChimpServer build() throws IOException {
+			return new FakeMailChimpServer(this);
+		}
+	}
+
+	/**
+	 * @return Base URL of the API, e.g. <code>http://127.0.0.1:52314/3.0/</code>
+	 */
+	public String getApiRoot() {
+		return baseUrl + "/3.0/";
+	}
+
+	/**
+	 * @return A connection builder using the API key and base URL of this server
+	 */
+	public MailChimpConnection.Builder connectionBuilder() {
+		return new MailChimpConnection.Builder()
+				.usingApiKey(API_KEY)
+				.withBaseUrl(getApiRoot());
+	}
+
+	/**
+	 * @return Ids of the generated lists
+	 */
+	public List<String> getListIds() {
+		List<String> ids = new ArrayList<String>(lists.size());
+		for (ListData l : lists) {
+			ids.add(l.id);
+		}
+		return ids;
+	}
+
+	/**
+	 * @return Number of members of each list
+	 */
+	public int getMembersPerList() {
+		return membersPerList;
+	}
+
+	/**
+	 * @return Ids of the generated campaigns
+	 */
+	public List<String> getCampaignIds() {
+		List<String> ids = new ArrayList<String>(campaigns.size());
+		for (JSONObject c : campaigns) {
+			ids.add(c.getString("id"));
+		}
+		return ids;
+	}
+
+	/**
+	 * @param listId
+	 * @param index
+	 * @return Email address of the generated member at the index of the list
+	 */
+	public String getMemberEmail(String listId, int index) {
+		return email(listsById.get(listId), index);
+	}
+
+	/**
+	 * @return Number of requests received, including throttled and rejected requests
+	 */
+	public long getRequests() {
+		return requests.get();
+	}
+
+	/**
+	 * @return Number of requests throttled with 429 at the configured throttle rate
+	 */
+	public long getThrottled() {
+		return throttled.get();
+	}
+
+	/**
+	 * @return Number of requests rejected with 429 for exceeding the maximum number of concurrent requests
+	 */
+	public long getRejected() {
+		return rejected.get();
+	}
+
+	/**
+	 * @return Highest number of requests processed at once
+	 */
+	public int getPeakConcurrentRequests() {
+		return peakInFlight.get();
+	}
+
+	/**
+	 * Answer the next API request with an error instead of handling it.
+	 * Queued errors are used in order, one per request, before throttling
+	 * and authentication are checked.
+	 * @param status Status code of the error response, e.g. 429 or 503
+	 * @param retryAfter Retry-After header sent with the response, null for none
+	 */
+	public void failNext(int status, String retryAfter) {
+		failures.add(new Failure(status, retryAfter));
+	}
+
+	/**
+	 * Clear the request counters
+	 */
+	public void resetCounters() {
+		requests.set(0);
+		throttled.set(0);
+		rejected.set(0);
+		peakInFlight.set(0);
+	}
+
+	@Override
+	public void close() {
+		server.stop(0);
+		executor.shutdownNow();
+	}
+
+	//
+	// Request handling
+	//
+
+	private void handle(HttpExchange exchange) throws IOException {
+		try {
+			requests.incrementAndGet();
+			String path = exchange.getRequestURI().getPath();
+			if (path.startsWith("/batch-results/")) {
+				// pre-signed download outside of the API, not throttled
+				sendResults(exchange, path.substring("/batch-results/".length()));
+				return;
+			}
+
+			Response response;
+			int concurrent = inFlight.incrementAndGet();
+			try {
+				response = respond(exchange, path, concurrent);
+			} finally {
+				inFlight.decrementAndGet();
+			}
+			// sent once no longer counted in flight, the client may start its next request as soon as it has the response
+			send(exchange, response);
+		} catch (RuntimeException e) {
+			send(exchange, problem(500, "Internal Server Error", String.valueOf(e)));
+		} finally {
+			exchange.close();
+		}
+	}
+
+	private Response respond(HttpExchange exchange, String path, int concurrent) throws IOException {
+		if (maxConcurrentRequests > 0 && concurrent > maxConcurrentRequests) {
+			rejected.incrementAndGet();
+			return problem(429, "Too Many Requests", "You have exceeded the limit of " + maxConcurrentRequests + " simultaneous connections.");
+		}
+		peakInFlight.accumulateAndGet(concurrent, Math::max);
+		delay();
+		Failure failure = failures.poll();
+		if (failure != null) {
+			if (failure.retryAfter != null) {
+				exchange.getResponseHeaders().set("Retry-After", failure.retryAfter);
+			}
+			return problem(failure.status, "Injected Failure", "Failing the request with status " + failure.status + ".");
+		}
+		if (throttleRate > 0 && ThreadLocalRandom.current().nextDouble() < throttleRate) {
+			throttled.incrementAndGet();
+			if (retryAfterSeconds >= 0) {
+				exchange.getResponseHeaders().set("Retry-After", Integer.toString(retryAfterSeconds));
+			}
+			return problem(429, "Too Many Requests", "You have exceeded the limit of requests. Please try again later.");
+		}
+
+		if (!API_KEY.equals(credentials(exchange.getRequestHeaders().getFirst("Authorization")))) {
+			return problem(401, "API Key Invalid", "Your API key may be invalid, or you've attempted to access the wrong datacenter.");
+		}
+		if (!path.startsWith("/3.0")) {
+			return problem(404, "Resource Not Found", "The requested resource could not be found.");
+		}
+		String body = read(exchange.getRequestBody());
+		return route(exchange.getRequestMethod(), path.substring(4), query(exchange.getRequestURI().getRawQuery()), body);
+	}
+
+	private Response route(String method, String path, Map<String, String> query, String body) {
+		String[] s = path.replaceAll("^/+|/+$", "").split("/");
+		int n = s[0].isEmpty() ? 0 : s.length;
+		try {
+			if (n == 0 && "GET".equals(method)) {
+				return new Response(200, account());
+			}
+			switch (s[0]) {
+			case "ping":
+				return n == 1 && "GET".equals(method) ? new Response(200, new JSONObject().put("health_status", "Everything's Chimpy!")) : null;
+			case "lists":
+				return routeLists(method, s, n, query, body);
+			case "campaigns":
+				return routeCollection(method, s, n, query, "campaigns", campaigns, campaignsById);
+			case "reports":
+				if (n == 3 && "open-details".equals(s[2])) {
+					JSONObject report = reportsById.get(s[1]);
+					return report != null && "GET".equals(method) ? openDetails(report, query) : null;
+				}
+				return routeCollection(method, s, n, query, "reports", reports, reportsById);
+			case "batches":
+				return routeBatches(method, s, n, query, body);
+			default:
+				return null;
+			}
+		} catch (JSONException e) {
+			return problem(400, "Invalid Resource", "The resource submitted could not be validated: " + e.getMessage());
+		}
+	}
+
+	private Response routeLists(String method, String[] s, int n, Map<String, String> query, String body) {
+		if (n == 1) {
+			if (!"GET".equals(method)) {
+				return null;
+			}
+			int offset = offset(query);
+			int end = end(query, offset, lists.size());
+			JSONArray page = new JSONArray();
+			for (int i = offset; i < end; i++) {
+				page.put(list(lists.get(i)));
+			}
+			return collection("lists", page, lists.size());
+		}
+		ListData l = listsById.get(s[1]);
+		if (l == null) {
+			return null;
+		}
+		if (n == 2) {
+			return "GET".equals(method) ? new Response(200, list(l)) : null;
+		}
+		if (!"members".equals(s[2])) {
+			return null;
+		}
+		if (n == 3) {
+			if ("GET".equals(method) && (query.containsKey("since_last_changed") || query.containsKey("before_last_changed"))) {
+				List<JSONObject> changed = changedMembers(l, query.get("since_last_changed"), query.get("before_last_changed"));
+				int offset = offset(query);
+				int end = end(query, offset, changed.size());
+				Response response = collection("members", new JSONArray(changed.subList(Math.min(offset, end), end)), changed.size());
+				response.body.put("list_id", l.id);
+				return response;
+			}
+			if ("GET".equals(method)) {
+				int offset = offset(query);
+				int end = end(query, offset, l.memberCount);
+				JSONArray page = new JSONArray();
+				for (int i = offset; i < end; i++) {
+					page.put(member(l, i));
+				}
+				Response response = collection("members", page, l.memberCount);
+				response.body.put("list_id", l.id);
+				return response;
+			}
+			if ("POST".equals(method)) {
+				JSONObject m = new JSONObject(body);
+				String hash = Member.subscriberHash(m.getString("email_address"));
+				if (findMember(l, hash) != null) {
+					return problem(400, "Member Exists", m.getString("email_address") + " is already a list member. Use PUT to insert or update list members.");
+				}
+				return new Response(200, writeMember(l, hash, null, m));
+			}
+			return null;
+		}
+		if (n != 4) {
+			return null;
+		}
+		String hash = s[3].contains("@") ? Member.subscriberHash(s[3]) : s[3].toLowerCase();
+		JSONObject existing = findMember(l, hash);
+		switch (method) {
+		case "GET":
+			return existing != null ? new Response(200, existing) : null;
+		case "PUT":
+			return new Response(200, writeMember(l, hash, existing, new JSONObject(body)));
+		case "PATCH":
+			return existing != null ? new Response(200, writeMember(l, hash, existing, new JSONObject(body))) : null;
+		case "DELETE":
+			if (existing == null) {
+				return null;
+			}
+			l.written.remove(hash);
+			l.deleted.put(hash, Boolean.TRUE);
+			return new Response(204, null);
+		default:
+			return null;
+		}
+	}
+
+	private Response routeCollection(String method, String[] s, int n, Map<String, String> query, String key, List<JSONObject> all, Map<String, JSONObject> byId) {
+		if (!"GET".equals(method)) {
+			return null;
+		}
+		if (n == 1) {
+			int offset = offset(query);
+			int end = end(query, offset, all.size());
+			return collection(key, new JSONArray(all.subList(offset, end)), all.size());
+		}
+		JSONObject o = n == 2 ? byId.get(s[1]) : null;
+		return o != null ? new Response(200, o) : null;
+	}
+
+	/**
+	 * The members of the campaign's list who opened it, the first
+	 * unique_opens members each opening it one to three times
+	 */
+	private Response openDetails(JSONObject report, Map<String, String> query) {
+		ListData l = listsById.get(report.getString("list_id"));
+		int openers = Math.min(report.getJSONObject("opens").getInt("unique_opens"), l.memberCount);
+		int totalOpens = 0;
+		for (int i = 0; i < openers; i++) {
+			totalOpens += 1 + i % 3;
+		}
+		int offset = offset(query);
+		int end = end(query, offset, openers);
+		JSONArray page = new JSONArray();
+		for (int i = offset; i < end; i++) {
+			String email = email(l, i);
+			JSONArray opens = new JSONArray();
+			for (int j = 0; j <= i % 3; j++) {
+				opens.put(new JSONObject().put("timestamp", date(EPOCH + i * 60L + j * 3600L)));
+			}
+			page.put(new JSONObject()
+					.put("campaign_id", report.getString("id"))
+					.put("list_id", l.id)
+					.put("list_is_active", true)
+					.put("contact_status", "subscribed")
+					.put("email_id", Member.subscriberHash(email))
+					.put("email_address", email)
+					.put("vip", false)
+					.put("opens_count", opens.length())
+					.put("opens", opens));
+		}
+		Response response = collection("members", page, openers);
+		response.body.put("campaign_id", report.getString("id")).put("total_opens", totalOpens);
+		return response;
+	}
+
+	private Response routeBatches(String method, String[] s, int n, Map<String, String> query, String body) {
+		if (n == 1) {
+			if ("POST".equals(method)) {
+				JSONArray operations = new JSONObject(body).getJSONArray("operations");
+				Batch batch = new Batch(UUID.randomUUID().toString().replace("-", "").substring(0, 10), operations);
+				batches.put(batch.id, batch);
+				return new Response(200, batch(batch));
+			}
+			if ("GET".equals(method)) {
+				List<Batch> all;
+				synchronized (batches) {
+					all = new ArrayList<Batch>(batches.values());
+				}
+				int offset = offset(query);
+				int end = end(query, offset, all.size());
+				JSONArray page = new JSONArray();
+				for (int i = offset; i < end; i++) {
+					all.get(i).polls.incrementAndGet();
+					page.put(batch(all.get(i)));
+				}
+				return collection("batches", page, all.size());
+			}
+			return null;
+		}
+		Batch batch = n == 2 ? batches.get(s[1]) : null;
+		if (batch == null) {
+			return null;
+		}
+		if ("GET".equals(method)) {
+			batch.polls.incrementAndGet();
+			return new Response(200, batch(batch));
+		}
+		if ("DELETE".equals(method)) {
+			batches.remove(batch.id);
+			return new Response(204, null);
+		}
+		return null;
+	}
+
+	//
+	// Generated dataset
+	//
+
+	private void generate(int listCount, int campaignCount) {
+		Random r = new Random(seed);
+		for (int i = 0; i < listCount; i++) {
+			ListData l = new ListData(i, hexId(r), "List " + (i + 1), membersPerList);
+			lists.add(l);
+			listsById.put(l.id, l);
+		}
+		for (int i = 0; i < campaignCount && listCount > 0; i++) {
+			ListData l = lists.get(i % listCount);
+			boolean sent = i % 3 != 2;
+			String id = hexId(r);
+			String created = date(EPOCH + i * 86400L * 7);
+			String sendTime = sent ? date(EPOCH + i * 86400L * 7 + 3600) : "";
+			int emailsSent = sent ? l.memberCount - r.nextInt(Math.max(l.memberCount / 20, 1)) : 0;
+			int opens = sent ? (int) (emailsSent * (0.15 + r.nextDouble() * 0.2)) : 0;
+			int clicks = opens / (3 + r.nextInt(5));
+			double openRate = emailsSent > 0 ? (double) opens / emailsSent : 0;
+			double clickRate = emailsSent > 0 ? (double) clicks / emailsSent : 0;
+			String subject = "Newsletter " + (i + 1);
+
+			JSONObject campaign = new JSONObject()
+					.put("id", id)
+					.put("web_id", 100000 + i)
+					.put("type", "regular")
+					.put("create_time", created)
+					.put("archive_url", "http://eepurl.com/" + id)
+					.put("long_archive_url", "https://us0.campaign-archive.com/?u=0&id=" + id)
+					.put("status", sent ? "sent" : "save")
+					.put("emails_sent", emailsSent)
+					.put("send_time", sendTime)
+					.put("content_type", "template")
+					.put("needs_block_refresh", false)
+					.put("resendable", false)
+					.put("recipients", new JSONObject()
+							.put("list_id", l.id)
+							.put("list_is_active", true)
+							.put("list_name", l.name)
+							.put("segment_text", "")
+							.put("recipient_count", emailsSent))
+					.put("settings", new JSONObject()
+							.put("subject_line", subject)
+							.put("title", subject)
+							.put("from_name", "Fake Account")
+							.put("reply_to", "news@example.com")
+							.put("to_name", "*|FNAME|*")
+							.put("template_id", 10000 + i % 5)
+							.put("auto_footer", false)
+							.put("use_conversation", false)
+							.put("authenticate", true)
+							.put("timewarp", false)
+							.put("auto_tweet", false)
+							.put("fb_comments", false)
+							.put("drag_and_drop", true)
+							.put("inline_css", false)
+							.put("folder_id", ""));
+			if (sent) {
+				campaign.put("report_summary", new JSONObject()
+						.put("opens", opens + opens / 4)
+						.put("unique_opens", opens)
+						.put("open_rate", openRate)
+						.put("clicks", clicks + clicks / 3)
+						.put("subscriber_clicks", clicks)
+						.put("click_rate", clickRate));
+
+				JSONObject report = new JSONObject()
+						.put("id", id)
+						.put("campaign_title", subject)
+						.put("type", "regular")
+						.put("list_id", l.id)
+						.put("list_is_active", true)
+						.put("list_name", l.name)
+						.put("subject_line", subject)
+						.put("preview_text", "")
+						.put("emails_sent", emailsSent)
+						.put("abuse_reports", r.nextInt(3))
+						.put("unsubscribed", r.nextInt(Math.max(emailsSent / 100, 1)))
+						.put("send_time", sendTime)
+						.put("bounces", new JSONObject()
+								.put("hard_bounces", r.nextInt(Math.max(emailsSent / 200, 1)))
+								.put("soft_bounces", r.nextInt(Math.max(emailsSent / 100, 1)))
+								.put("syntax_errors", 0))
+						.put("forwards", new JSONObject()
+								.put("forwards_count", r.nextInt(10))
+								.put("forwards_opens", r.nextInt(10)))
+						.put("opens", new JSONObject()
+								.put("opens_total", opens + opens / 4)
+								.put("unique_opens", opens)
+								.put("open_rate", openRate)
+								.put("last_open", date(EPOCH + i * 86400L * 7 + 86400 * 3)))
+						.put("clicks", new JSONObject()
+								.put("clicks_total", clicks + clicks / 3)
+								.put("unique_clicks", clicks)
+								.put("unique_subscriber_clicks", clicks)
+								.put("click_rate", clickRate)
+								.put("last_click", date(EPOCH + i * 86400L * 7 + 86400 * 2)))
+						.put("list_stats", new JSONObject()
+								.put("sub_rate", r.nextInt(20))
+								.put("unsub_rate", r.nextInt(5))
+								.put("open_rate", openRate * 100)
+								.put("click_rate", clickRate * 100));
+				reports.add(report);
+				reportsById.put(id, report);
+			}
+			campaigns.add(campaign);
+			campaignsById.put(id, campaign);
+		}
+	}
+
+	private JSONObject account() {
+		return new JSONObject()
+				.put("account_id", "0123456789abcdef012345678")
+				.put("login_id", "01234567")
+				.put("account_name", "Fake Account")
+				.put("email", "owner@example.com")
+				.put("first_name", "Fake")
+				.put("last_name", "Owner")
+				.put("username", "owner@example.com")
+				.put("avatar_url", "")
+				.put("role", "owner")
+				.put("member_since", date(EPOCH))
+				.put("pricing_plan_type", "monthly")
+				.put("account_timezone", "UTC")
+				.put("account_industry", "Software")
+				.put("pro_enabled", false)
+				.put("last_login", date(EPOCH))
+				.put("total_subscribers", (long) membersPerList * lists.size());
+	}
+
+	private JSONObject list(ListData l) {
+		return new JSONObject()
+				.put("id", l.id)
+				.put("web_id", 200000 + l.index)
+				.put("name", l.name)
+				.put("permission_reminder", "You signed up on our website.")
+				.put("use_archive_bar", true)
+				.put("notify_on_subscribe", "")
+				.put("notify_on_unsubscribe", "")
+				.put("date_created", date(EPOCH - 86400L * 365 + l.index * 86400L))
+				.put("list_rating", 3)
+				.put("email_type_option", false)
+				.put("subscribe_url_short", "http://eepurl.com/" + l.id)
+				.put("subscribe_url_long", "https://example.us0.list-manage.com/subscribe?u=0&id=" + l.id)
+				.put("beamer_address", "us0-" + l.id + "@inbound.mailchimp.com")
+				.put("visibility", "pub")
+				.put("double_optin", false)
+				.put("has_welcome", false)
+				.put("marketing_permissions", false)
+				.put("stats", new JSONObject()
+						.put("member_count", l.memberCount)
+						.put("total_contacts", l.memberCount)
+						.put("unsubscribe_count", 0)
+						.put("cleaned_count", 0)
+						.put("member_count_since_send", 0)
+						.put("unsubscribe_count_since_send", 0)
+						.put("cleaned_count_since_send", 0)
+						.put("campaign_count", campaigns.size() / Math.max(lists.size(), 1))
+						.put("merge_field_count", 2)
+						.put("avg_sub_rate", 0)
+						.put("avg_unsub_rate", 0)
+						.put("target_sub_rate", 0)
+						.put("open_rate", 25.5)
+						.put("click_rate", 3.2));
+	}
+
+	private String email(ListData l, int index) {
+		return FIRST_NAMES[index % FIRST_NAMES.length].toLowerCase() + "." + index + "." + l.index + "@" + DOMAINS[index % DOMAINS.length];
+	}
+
+	/**
+	 * Generate the member at the index of the list, the same member every time
+	 */
+	private JSONObject member(ListData l, int index) {
+		Random r = new Random(seed * 1000003L + l.index * 7919L + index);
+		String email = email(l, index);
+		String hash = Member.subscriberHash(email);
+		JSONObject written = l.written.get(hash);
+		if (written != null) {
+			return written;
+		}
+		int status = r.nextInt(20);
+		String signup = date(EPOCH - 86400L * 365 + r.nextInt(86400 * 365));
+		return new JSONObject()
+				.put("id", hash)
+				.put("email_address", email)
+				.put("unique_email_id", hash.substring(0, 10))
+				.put("web_id", 300000000 + l.index * 10000000 + index)
+				.put("email_type", "html")
+				.put("status", status < 17 ? "subscribed" : status < 19 ? "unsubscribed" : "cleaned")
+				.put("merge_fields", new JSONObject()
+						.put("FNAME", FIRST_NAMES[index % FIRST_NAMES.length])
+						.put("LNAME", LAST_NAMES[r.nextInt(LAST_NAMES.length)]))
+				.put("interests", new JSONObject())
+				.put("stats", new JSONObject()
+						.put("avg_open_rate", r.nextInt(101) / 100.0)
+						.put("avg_click_rate", r.nextInt(31) / 100.0))
+				.put("ip_signup", "")
+				.put("timestamp_signup", signup)
+				.put("ip_opt", "192.0.2." + (index % 254 + 1))
+				.put("timestamp_opt", signup)
+				.put("member_rating", 1 + r.nextInt(5))
+				.put("last_changed", signup)
+				.put("language", "en")
+				.put("vip", r.nextInt(50) == 0)
+				.put("email_client", "")
+				.put("source", "API - Generic")
+				.put("tags_count", 0)
+				.put("tags", new JSONArray())
+				.put("list_id", l.id);
+	}
+
+	/**
+	 * Members, including those added and excluding those deleted, whose
+	 * last_changed is after since and before before. Generated members come
+	 * first in index order followed by added members in subscriber hash order.
+	 */
+	private List<JSONObject> changedMembers(ListData l, String since, String before) {
+		Instant after = since != null ? ZonedDateTime.parse(since).toInstant() : Instant.MIN;
+		Instant until = before != null ? ZonedDateTime.parse(before).toInstant() : Instant.MAX;
+		List<JSONObject> members = new ArrayList<JSONObject>();
+		Map<String, Integer> index = memberIndex(l);
+		for (int i = 0; i < l.memberCount; i++) {
+			JSONObject m = member(l, i);
+			if (!l.deleted.containsKey(m.getString("id"))) {
+				members.add(m);
+			}
+		}
+		List<String> added = new ArrayList<String>();
+		for (String hash : l.written.keySet()) {
+			if (!index.containsKey(hash)) {
+				added.add(hash);
+			}
+		}
+		Collections.sort(added);
+		for (String hash : added) {
+			JSONObject m = l.written.get(hash);
+			if (m != null) {
+				members.add(m);
+			}
+		}
+		members.removeIf(m -> {
+			Instant changed = ZonedDateTime.parse(m.getString("last_changed")).toInstant();
+			return !changed.isAfter(after) || !changed.isBefore(until);
+		});
+		return members;
+	}
+
+	private JSONObject findMember(ListData l, String hash) {
+		if (l.deleted.containsKey(hash)) {
+			return null;
+		}
+		JSONObject written = l.written.get(hash);
+		if (written != null) {
+			return written;
+		}
+		Integer index = memberIndex(l).get(hash);
+		return index != null ? member(l, index) : null;
+	}
+
+	private Map<String, Integer> memberIndex(ListData l) {
+		Map<String, Integer> index = l.memberIndex;
+		if (index == null) {
+			synchronized (l) {
+				index = l.memberIndex;
+				if (index == null) {
+					index = new HashMap<String, Integer>(l.memberCount * 2);
+					for (int i = 0; i < l.memberCount; i++) {
+						index.put(Member.subscriberHash(email(l, i)), i);
+					}
+					l.memberIndex = index;
+				}
+			}
+		}
+		return index;
+	}
+
+	/**
+	 * Store a member created or updated with the submitted fields
+	 */
+	private JSONObject writeMember(ListData l, String hash, JSONObject existing, JSONObject update) {
+		JSONObject m = existing != null ? new JSONObject(existing.toString()) : new JSONObject()
+				.put("id", hash)
+				.put("unique_email_id", hash.substring(0, 10))
+				.put("email_type", "html")
+				.put("merge_fields", new JSONObject())
+				.put("interests", new JSONObject())
+				.put("member_rating", 2)
+				.put("vip", false)
+				.put("tags_count", 0)
+				.put("tags", new JSONArray())
+				.put("list_id", l.id);
+		if (existing == null && !update.has("email_address")) {
+			throw new JSONException("email_address is required");
+		}
+		for (String key : update.keySet()) {
+			Object value = update.get(key);
+			if (value instanceof JSONObject && m.optJSONObject(key) != null) {
+				for (String k : ((JSONObject) value).keySet()) {
+					m.getJSONObject(key).put(k, ((JSONObject) value).get(k));
+				}
+			} else if (!"status_if_new".equals(key)) {
+				m.put(key, value);
+			}
+		}
+		if (existing == null && !m.has("status")) {
+			m.put("status", update.optString("status_if_new", "subscribed"));
+		}
+		m.put("last_changed", ISO8601.format(ZonedDateTime.now(ZoneOffset.UTC)));
+		l.deleted.remove(hash);
+		l.written.put(hash, m);
+		return m;
+	}
+
+	private JSONObject batch(Batch batch) {
+		int total = batch.operations.length();
+		boolean finished = batch.polls.get() >= batchPolls;
+		boolean pending = !finished && batch.polls.get() == 0;
+		if (finished && batch.results == null) {
+			synchronized (batch) {
+				if (batch.results == null) {
+					batch.results = execute(batch);
+					batch.completedAt = ISO8601.format(ZonedDateTime.now(ZoneOffset.UTC));
+				}
+			}
+		}
+		return new JSONObject()
+				.put("id", batch.id)
+				.put("status", finished ? "finished" : pending ? "pending" : "started")
+				.put("total_operations", pending ? 0 : total)	// like MailChimp, not counted until the batch starts
+				.put("finished_operations", finished ? total : total * batch.polls.get() / Math.max(batchPolls, 1))
+				.put("errored_operations", finished ? batch.errored : 0)
+				.put("submitted_at", batch.submittedAt)
+				.put("completed_at", finished ? batch.completedAt : "")
+				.put("response_body_url", finished ? baseUrl + "/batch-results/" + batch.id + ".tar.gz" : "");
+	}
+
+	/**
+	 * Run the operations of a batch and archive the results the way MailChimp
+	 * does, a gzip compressed tar of JSON arrays
+	 */
+	private byte[] execute(Batch batch) {
+		JSONArray results = new JSONArray();
+		int errored = 0;
+		for (int i = 0; i < batch.operations.length(); i++) {
+			JSONObject op = batch.operations.getJSONObject(i);
+			String path = op.getString("path");
+			Response response = path.startsWith("/batches") ? null
+					: route(op.getString("method").toUpperCase(), path, query(null), op.optString("body", null));
+			if (response == null) {
+				response = problem(404, "Resource Not Found", "The requested resource could not be found.");
+			}
+			if (response.status >= 300) {
+				errored++;
+			}
+			results.put(new JSONObject()
+					.put("status_code", response.status)
+					.put("operation_id", op.has("operation_id") ? op.get("operation_id") : JSONObject.NULL)
+					.put("response", response.body != null ? response.body.toString() : ""));
+		}
+		batch.errored = errored;
+		try {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			try (GZIPOutputStream gz = new GZIPOutputStream(bytes)) {
+				writeTarEntry(gz, batch.id + "/", new byte[0], '5');
+				writeTarEntry(gz, batch.id + "/" + batch.id + ".json", results.toString().getBytes(StandardCharsets.UTF_8), '0');
+				gz.write(new byte[1024]);	// end of archive
+			}
+			return bytes.toByteArray();
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static void writeTarEntry(OutputStream out, String name, byte[] content, char type) throws IOException {
+		byte[] header = new byte[512];
+		putTarField(header, 0, 100, name);
+		putTarField(header, 100, 8, type == '5' ? "0000755" : "0000644");
+		putTarField(header, 108, 8, "0000000");
+		putTarField(header, 116, 8, "0000000");
+		putTarField(header, 124, 12, String.format("%011o", content.length));
+		putTarField(header, 136, 12, String.format("%011o", Instant.now().getEpochSecond()));
+		header[156] = (byte) type;
+		putTarField(header, 257, 6, "ustar");
+		header[263] = '0';
+		header[264] = '0';
+		for (int i = 148; i < 156; i++) {
+			header[i] = ' ';
+		}
+		int checksum = 0;
+		for (byte b : header) {
+			checksum += b & 0xff;
+		}
+		putTarField(header, 148, 8, String.format("%06o", checksum));
+		out.write(header);
+		out.write(content);
+		out.write(new byte[(512 - content.length % 512) % 512]);
+	}
+
+	private static void putTarField(byte[] header, int offset, int length, String value) {
+		byte[] b = value.getBytes(StandardCharsets.UTF_8);
+		System.arraycopy(b, 0, header, offset, Math.min(b.length, length - 1));
+	}
+
+	//
+	// Helpers
+	//
+
+	private void sendResults(HttpExchange exchange, String name) throws IOException {
+		Batch batch = batches.get(name.replace(".tar.gz", ""));
+		byte[] results = batch != null ? batch.results : null;
+		if (results == null) {
+			exchange.sendResponseHeaders(404, -1);
+			return;
+		}
+		exchange.getResponseHeaders().set("Content-Type", "application/x-gzip");
+		exchange.sendResponseHeaders(200, results.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(results);
+		}
+	}
+
+	private void send(HttpExchange exchange, Response response) throws IOException {
+		if (response == null) {
+			response = problem(404, "Resource Not Found", "The requested resource could not be found.");
+		}
+		if (response.body == null) {
+			exchange.sendResponseHeaders(response.status, -1);
+			return;
+		}
+		byte[] body = response.body.toString().getBytes(StandardCharsets.UTF_8);
+		String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+		if (acceptEncoding != null && acceptEncoding.contains("gzip") && body.length > 1024) {
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(body.length / 4);
+			try (GZIPOutputStream gz = new GZIPOutputStream(bytes)) {
+				gz.write(body);
+			}
+			body = bytes.toByteArray();
+			exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+		}
+		exchange.getResponseHeaders().set("Content-Type", response.status >= 400 ? "application/problem+json; charset=utf-8" : "application/json; charset=utf-8");
+		exchange.sendResponseHeaders(response.status, body.length);
+		try (OutputStream out = exchange.getResponseBody()) {
+			out.write(body);
+		}
+	}
+
+	private static Response problem(int status, String title, String detail) {
+		return new Response(status, new JSONObject()
+				.put("type", "https://mailchimp.com/developer/marketing/docs/errors/")
+				.put("title", title)
+				.put("status", status)
+				.put("detail", detail)
+				.put("instance", UUID.randomUUID().toString()));
+	}
+
+	private static Response collection(String key, JSONArray page, int totalItems) {
+		return new Response(200, new JSONObject().put(key, page).put("total_items", totalItems));
+	}
+
+	private void delay() {
+		if (maxLatencyMillis <= 0) {
+			return;
+		}
+		long millis = minLatencyMillis + ThreadLocalRandom.current().nextLong(maxLatencyMillis - minLatencyMillis + 1);
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static String credentials(String authorization) {
+		if (authorization == null) {
+			return null;
+		}
+		int space = authorization.indexOf(' ');
+		return space >= 0 ? authorization.substring(space + 1).trim() : authorization;
+	}
+
+	private static int offset(Map<String, String> query) {
+		return Math.max(Integer.parseInt(query.getOrDefault("offset", "0")), 0);
+	}
+
+	private static int end(Map<String, String> query, int offset, int size) {
+		int count = Math.min(Math.max(Integer.parseInt(query.getOrDefault("count", "10")), 0), MAX_COUNT);
+		return (int) Math.min((long) offset + count, size);
+	}
+
+	private static Map<String, String> query(String rawQuery) {
+		Map<String, String> params = new HashMap<String, String>();
+		if (rawQuery == null || rawQuery.isEmpty()) {
+			return params;
+		}
+		try {
+			for (String param : rawQuery.split("&")) {
+				int eq = param.indexOf('=');
+				String name = URLDecoder.decode(eq >= 0 ? param.substring(0, eq) : param, "UTF-8");
+				params.put(name, eq >= 0 ? URLDecoder.decode(param.substring(eq + 1), "UTF-8") : "");
+			}
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+		return params;
+	}
+
+	private static String read(InputStream in) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		byte[] buf = new byte[8192];
+		int n;
+		while ((n = in.read(buf)) >= 0) {
+			bytes.write(buf, 0, n);
+		}
+		return new String(bytes.toByteArray(), StandardCharsets.UTF_8);
+	}
+
+	private static String hexId(Random r) {
+		return String.format("%010x", r.nextLong() & 0xffffffffffL);
+	}
+
+	private static String date(long epochSecond) {
+		return ISO8601.format(Instant.ofEpochSecond(epochSecond).atZone(ZoneOffset.UTC));
+	}
+}
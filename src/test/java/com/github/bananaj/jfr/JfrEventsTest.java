@@ -0,0 +1,117 @@
+package com.github.bananaj.jfr;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.Test;
+
+import com.github.bananaj.connection.FakeMailChimpServer;
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.model.ModelIterator;
+import com.github.bananaj.model.list.member.Member;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
+/**
+ * Records paging through list members against {@link FakeMailChimpServer}
+ */
+public class JfrEventsTest {
+
+	@Test
+	public void testEvents() throws Exception {
+		assumeTrue(JfrEvents.isAvailable());
+		Path file = Files.createTempFile("bananaj", ".jfr");
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(250).build();
+				MailChimpConnection connection = server.connectionBuilder().build();
+				Recording recording = new Recording()) {
+			recording.enable("com.github.bananaj.HttpRequest");
+			recording.enable("com.github.bananaj.PageLoad");
+			recording.enable("com.github.bananaj.ModelParse");
+			recording.start();
+			int members = 0;
+			for (Member m : new ModelIterator<Member>(Member::new, connection.getListendpoint() + "/" + server.getListIds().get(0) + "/members", connection, 100)) {
+				members += m.getEmailAddress() != null ? 1 : 0;
+			}
+			assertEquals(250, members);
+			recording.stop();
+			recording.dump(file);
+
+			List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+			List<RecordedEvent> requests = ofType(events, "com.github.bananaj.HttpRequest");
+			assertEquals(3, requests.size());
+			for (RecordedEvent e : requests) {
+				assertEquals("GET", e.getString("method"));
+				assertEquals("/lists/{id}/members", e.getString("endpoint"));
+				assertEquals(200, e.getInt("statusCode"));
+				assertTrue(e.getLong("bytesReceived") > 0);
+			}
+
+			List<RecordedEvent> pages = ofType(events, "com.github.bananaj.PageLoad");
+			assertEquals(3, pages.size());
+			List<Integer> offsets = new ArrayList<Integer>();
+			int items = 0;
+			for (RecordedEvent e : pages) {
+				assertEquals("/lists/{id}/members", e.getString("endpoint"));
+				assertEquals(Member.class.getName(), e.getClass("modelClass").getName());
+				assertEquals(250, e.getInt("totalItems"));
+				offsets.add(e.getInt("offset"));
+				items += e.getInt("items");
+			}
+			assertEquals(250, items);
+			offsets.sort(null);
+			assertEquals("[0, 100, 200]", offsets.toString());
+
+			assertEquals(250, ofType(events, "com.github.bananaj.ModelParse").size());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	@Test
+	public void testReadAheadPageEvents() throws Exception {
+		assumeTrue(JfrEvents.isAvailable());
+		Path file = Files.createTempFile("bananaj", ".jfr");
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(500).build();
+				MailChimpConnection connection = server.connectionBuilder().build();
+				Recording recording = new Recording()) {
+			recording.enable("com.github.bananaj.PageLoad");
+			recording.start();
+			String members = connection.getListendpoint() + "/" + server.getListIds().get(0) + "/members";
+			// pages fetched in the background, by the iterator and by the stream splits
+			int read = 0;
+			for (Member m : new ModelIterator<Member>(Member::new, members, connection, 100).readAhead(2)) {
+				read += m.getEmailAddress() != null ? 1 : 0;
+			}
+			assertEquals(500, read);
+			assertEquals(500, new ModelIterator<Member>(Member::new, members, connection, 100).parallel(2, false).parallelStream().filter(m -> m.getEmailAddress() != null).count());
+			recording.stop();
+			recording.dump(file);
+
+			// each page recorded with where it was read from, the first page read in the constructor
+			List<RecordedEvent> pages = ofType(RecordingFile.readAllEvents(file), "com.github.bananaj.PageLoad");
+			assertEquals(10, pages.size());
+			List<Integer> offsets = new ArrayList<Integer>();
+			for (RecordedEvent e : pages) {
+				assertEquals("/lists/{id}/members", e.getString("endpoint"));
+				offsets.add(e.getInt("offset"));
+			}
+			offsets.sort(null);
+			assertEquals("[0, 0, 100, 100, 200, 200, 300, 300, 400, 400]", offsets.toString());
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	private static List<RecordedEvent> ofType(List<RecordedEvent> events, String name) {
+		return events.stream().filter(e -> e.getEventType().getName().equals(name)).collect(Collectors.toList());
+	}
+}
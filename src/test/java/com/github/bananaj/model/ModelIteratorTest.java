@@ -0,0 +1,147 @@
+package com.github.bananaj.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Stream;
+
+import org.junit.Test;
+
+import com.github.bananaj.connection.FakeMailChimpServer;
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.connection.MailChimpQueryParameters;
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.model.report.OpenReport;
+import com.github.bananaj.model.report.OpenReportMember;
+import com.github.bananaj.model.report.Report;
+
+public class ModelIteratorTest {
+
+	@Test
+	public void testSized() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(1000).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			Spliterator<Member> spliterator = members(server, connection).spliterator();
+			assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED));
+			assertTrue(spliterator.hasCharacteristics(Spliterator.SUBSIZED));
+			assertEquals(1000, spliterator.getExactSizeIfKnown());
+			assertEquals(1000, members(server, connection).stream().count());
+		}
+	}
+
+	@Test
+	public void testSplit() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(1000).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			String listId = server.getListIds().get(0);
+			Spliterator<Member> suffix = members(server, connection).spliterator();
+			server.resetCounters();
+
+			// the first page is already loaded, 9 pages remain: 100 + 4 pages | 5 pages
+			Spliterator<Member> prefix = suffix.trySplit();
+			assertEquals(500, prefix.estimateSize());
+			assertEquals(500, suffix.estimateSize());
+			Spliterator<Member> middle = suffix.trySplit();
+			assertEquals(200, middle.estimateSize());
+			assertEquals(300, suffix.estimateSize());
+			assertEquals(0, server.getRequests());	// splitting fetches nothing
+
+			assertEmails(server, listId, 0, 500, prefix);
+			assertEmails(server, listId, 500, 700, middle);
+			assertEmails(server, listId, 700, 1000, suffix);
+			assertEquals(9, server.getRequests());	// each remaining page once
+			assertNull(suffix.trySplit());
+		}
+	}
+
+	@Test
+	public void testCloseStopsPageLoads() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(1000).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			server.resetCounters();
+			long requests;
+			try (Stream<Member> stream = members(server, connection).readAhead(2).stream()) {
+				Iterator<Member> it = stream.iterator();
+				for (int i = 0; i < 150; i++) {
+					it.next();
+				}
+				// first page, the page being read and two ahead of it
+				Thread.sleep(100);
+				requests = server.getRequests();
+				assertEquals(4, requests);
+			}
+			Thread.sleep(200);
+			assertEquals(requests, server.getRequests());
+
+			// sequential reads without read-ahead stop with the current page
+			server.resetCounters();
+			ModelIterator<Member> members = members(server, connection);
+			Iterator<Member> it = members.iterator();
+			for (int i = 0; i < 150; i++) {
+				it.next();
+			}
+			members.close();
+			while (it.hasNext()) {
+				it.next();
+			}
+			assertEquals(2, server.getRequests());
+			assertFalse(it.hasNext());
+		}
+	}
+
+	@Test
+	public void testSubclassStream() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(500).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			String campaignId = null;
+			int openers = 0;
+			for (Report report : connection.getCampaignReports(null)) {
+				if (report.getOpens().getUniqueOpens() > openers) {
+					campaignId = report.getId();
+					openers = report.getOpens().getUniqueOpens();
+				}
+			}
+			assertTrue(openers > 20);
+
+			// pages are read in order through the parse hooks of OpenReport, as with iterator()
+			MailChimpQueryParameters query = new MailChimpQueryParameters().count(10);
+			OpenReport streamed = connection.getCampaignOpenReports(campaignId, query);
+			assertFalse(streamed.spliterator().hasCharacteristics(Spliterator.SIZED));
+			streamed = connection.getCampaignOpenReports(campaignId, query);
+			int totalOpens;
+			try (Stream<OpenReportMember> stream = streamed.parallelStream()) {
+				totalOpens = stream.mapToInt(OpenReportMember::getOpensCount).sum();
+			}
+			assertEquals(campaignId, streamed.getCampaignId());
+			assertEquals(openers, streamed.getTotalItems().intValue());
+			assertEquals(totalOpens, streamed.getTotalOpens().intValue());
+
+			int iterated = 0;
+			for (OpenReportMember m : connection.getCampaignOpenReports(campaignId, query).getMembers()) {
+				assertEquals(campaignId, m.getCampaignId());
+				iterated++;
+			}
+			assertEquals(openers, iterated);
+		}
+	}
+
+	private static ModelIterator<Member> members(FakeMailChimpServer server, MailChimpConnection connection) {
+		return new ModelIterator<Member>(Member::new,
+				connection.getListendpoint() + "/" + server.getListIds().get(0) + "/members", connection, 100);
+	}
+
+	private static void assertEmails(FakeMailChimpServer server, String listId, int from, int to, Spliterator<Member> spliterator) {
+		List<String> emails = new ArrayList<String>();
+		spliterator.forEachRemaining(m -> emails.add(m.getEmailAddress()));
+		assertEquals(to - from, emails.size());
+		for (int i = from; i < to; i++) {
+			assertEquals(server.getMemberEmail(listId, i), emails.get(i - from));
+		}
+	}
+}
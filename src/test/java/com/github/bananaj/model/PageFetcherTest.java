@@ -0,0 +1,137 @@
+package com.github.bananaj.model;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.net.URL;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.github.bananaj.connection.FakeMailChimpServer;
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.connection.MailChimpQueryParameters;
+import com.github.bananaj.model.list.member.Member;
+
+public class PageFetcherTest {
+
+	private static final int COUNT = 10;
+
+	@Test
+	public void testDepth() throws Exception {
+		AtomicInteger fetched = new AtomicInteger();
+		PageFetcher<Integer> fetcher = new PageFetcher<Integer>((url, offset) -> {
+			fetched.incrementAndGet();
+			assertEquals(offset, offset(url));
+			return offset;
+		}, query(), 0, 20 * COUNT, 3, 2, true);
+
+		// the page being consumed and at most depth pages ahead of it
+		assertEquals(0, fetcher.next().intValue());
+		Thread.sleep(100);
+		assertEquals(4, fetched.get());
+		Thread.sleep(100);
+		assertEquals(4, fetched.get());	// nothing more until the consumer moves on
+
+		assertEquals(COUNT, fetcher.next().intValue());
+		Thread.sleep(100);
+		assertEquals(5, fetched.get());
+		fetcher.close();
+	}
+
+	@Test
+	public void testBounded() throws Exception {
+		// a slow consumer never has more than depth pages waiting for it
+		final int depth = 2;
+		AtomicInteger fetched = new AtomicInteger();
+		PageFetcher<Integer> fetcher = new PageFetcher<Integer>((url, offset) -> {
+			fetched.incrementAndGet();
+			assertEquals(offset, offset(url));
+			return offset;
+		}, query(), 0, 50 * COUNT, depth, 4, false);
+		int consumed = 0;
+		Integer page;
+		while ((page = fetcher.next()) != null) {
+			consumed++;
+			assertTrue(page % COUNT == 0);
+			Thread.sleep(5);
+			assertTrue("Fetched " + fetched.get() + " consumed " + consumed, fetched.get() - consumed <= depth);
+		}
+		assertEquals(50, consumed);
+		assertEquals(50, fetched.get());
+		assertTrue(fetcher.isDone());
+	}
+
+	@Test
+	public void testError() throws Exception {
+		// the error fetching page 5 reaches the consumer once it gets there
+		AtomicInteger fetched = new AtomicInteger();
+		PageFetcher<Integer> fetcher = new PageFetcher<Integer>((url, offset) -> {
+			fetched.incrementAndGet();
+			if (offset == 5 * COUNT) {
+				throw new IOException("Status: 500 GET: " + url);
+			}
+			return offset;
+		}, query(), 0, 20 * COUNT, 4, 4, true);
+		for (int i = 0; i < 5; i++) {
+			assertEquals(i * COUNT, fetcher.next().intValue());
+		}
+		try {
+			fetcher.next();
+			fail("Expected IOException");
+		} catch (IOException e) {
+			assertTrue(e.getMessage().startsWith("Status: 500"));
+		}
+		// fetching stops
+		assertTrue(fetcher.isDone());
+		assertNull(fetcher.next());
+		Thread.sleep(50);	// let a worker already past its cancellation check finish
+		int total = fetched.get();
+		assertTrue("Fetched " + total, total <= 10);
+		Thread.sleep(100);
+		assertEquals(total, fetched.get());
+	}
+
+	@Test
+	public void testModelIteratorReadAhead() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(1000).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			String listId = server.getListIds().get(0);
+			server.resetCounters();
+			ModelIterator<Member> members = new ModelIterator<Member>(Member::new,
+					connection.getListendpoint() + "/" + listId + "/members", connection, 100).readAhead(2);
+			assertEquals(1, server.getRequests());
+			Iterator<Member> it = members.iterator();
+			for (int i = 0; i < 100; i++) {
+				it.next();
+			}
+			// first page consumed: the next page and two more are requested
+			Thread.sleep(200);
+			assertEquals(4, server.getRequests());
+			int read = 100;
+			while (it.hasNext()) {
+				it.next();
+				read++;
+			}
+			assertEquals(1000, read);
+			assertEquals(10, server.getRequests());
+		}
+	}
+
+	private static MailChimpQueryParameters query() {
+		return new MailChimpQueryParameters("https://us0.api.mailchimp.com/3.0/lists").count(COUNT);
+	}
+
+	private static int offset(URL url) {
+		for (String param : url.getQuery().split("&")) {
+			if (param.startsWith("offset=")) {
+				return Integer.parseInt(param.substring(7));
+			}
+		}
+		throw new IllegalArgumentException(url.toExternalForm());
+	}
+}
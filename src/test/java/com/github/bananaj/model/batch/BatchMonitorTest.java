@@ -0,0 +1,162 @@
+package com.github.bananaj.model.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import com.github.bananaj.connection.FakeMailChimpServer;
+import com.github.bananaj.connection.MailChimpConnection;
+
+
+public class BatchMonitorTest {
+
+	@Test
+	public void testCompletion() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withBatchPolls(3).build();
+				MailChimpConnection connection = server.connectionBuilder().build();
+				BatchMonitor monitor = new BatchMonitor(connection, 10, 100, TimeUnit.MILLISECONDS)) {
+			BatchInfo batch = connection.createBatch(operations(4));
+			CompletableFuture<BatchInfo> byId = monitor.watch(batch.getId());
+			BatchInfo done = byId.get(10, TimeUnit.SECONDS);
+			assertEquals(BatchStatus.FINISHED, done.getStatus());
+			assertEquals(4, done.getFinishedOperations().intValue());
+
+			// a batch already finished completes at once, without polling
+			assertTrue(monitor.watch(done).isDone());
+			assertEquals(0, monitor.size());
+		}
+	}
+
+	@Test
+	public void testProgress() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withBatchPolls(4).build();
+				MailChimpConnection connection = server.connectionBuilder().build();
+				BatchMonitor monitor = new BatchMonitor(connection, 10, 100, TimeUnit.MILLISECONDS)) {
+			BatchInfo batch = connection.createBatch(operations(8));
+			List<Integer> finished = Collections.synchronizedList(new ArrayList<Integer>());
+			List<BatchStatus> statuses = Collections.synchronizedList(new ArrayList<BatchStatus>());
+			BatchInfo done = monitor.watch(batch, b -> {
+				finished.add(b.getFinishedOperations());
+				statuses.add(b.getStatus());
+			}).get(10, TimeUnit.SECONDS);
+
+			assertTrue(done == batch);	// updated in place
+			assertEquals(BatchStatus.FINISHED, batch.getStatus());
+			// one call per change, with increasing progress, the last when finished
+			assertEquals(4, finished.size());
+			for (int i = 1; i < finished.size(); i++) {
+				assertTrue(finished.get(i) > finished.get(i - 1));
+			}
+			assertEquals(BatchStatus.FINISHED, statuses.get(statuses.size() - 1));
+			assertEquals(8, finished.get(finished.size() - 1).intValue());
+		}
+	}
+
+	@Test
+	public void testBackoff() throws Exception {
+		// one operation never reports progress before it finishes, the monitor backs off
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withBatchPolls(1000).build();
+				MailChimpConnection connection = server.connectionBuilder().build();
+				BatchMonitor monitor = new BatchMonitor(connection, 5, 10000, TimeUnit.MILLISECONDS)) {
+			BatchInfo batch = connection.createBatch(operations(1));
+			server.resetCounters();
+			CompletableFuture<BatchInfo> future = monitor.watch(batch.getId());
+			Thread.sleep(1500);
+			// 5, 10, 20 ... 1280 ms apart, without backoff about 300 polls
+			long polls = server.getRequests();
+			assertTrue("Polled " + polls + " times", polls >= 5 && polls <= 10);
+			assertTrue(!future.isDone());
+		}
+	}
+
+	@Test
+	public void testListing() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withBatchPolls(2).build();
+				MailChimpConnection connection = server.connectionBuilder().build();
+				BatchMonitor monitor = new BatchMonitor(connection, 50, 100, TimeUnit.MILLISECONDS)) {
+			List<CompletableFuture<BatchInfo>> futures = new ArrayList<CompletableFuture<BatchInfo>>();
+			List<BatchInfo> batches = new ArrayList<BatchInfo>();
+			for (int i = 0; i < 8; i++) {
+				batches.add(connection.createBatch(operations(2)));
+			}
+			server.resetCounters();
+			for (BatchInfo b : batches) {
+				futures.add(monitor.watch(b.getId()));
+			}
+			CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[futures.size()])).get(10, TimeUnit.SECONDS);
+			// refreshed together from one page of the listing per poll, rather than 16 individual requests
+			assertTrue("Requests " + server.getRequests(), server.getRequests() <= 3);
+		}
+	}
+
+	@Test
+	public void testFailure() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().build();
+				MailChimpConnection connection = server.connectionBuilder().build();
+				BatchMonitor monitor = new BatchMonitor(connection, 1, 5, TimeUnit.MILLISECONDS)) {
+			server.resetCounters();
+			CompletableFuture<BatchInfo> future = monitor.watch("0000000000");
+			try {
+				future.get(10, TimeUnit.SECONDS);
+				fail("Expected ExecutionException");
+			} catch (ExecutionException e) {
+				assertTrue(e.getCause() instanceof IOException);
+			}
+			assertEquals(5, server.getRequests());	// retried before giving up
+			assertEquals(0, monitor.size());
+		}
+	}
+
+	@Test
+	public void testCancel() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withBatchPolls(1000).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			BatchInfo first = connection.createBatch(operations(1));
+			BatchInfo second = connection.createBatch(operations(1));
+			BatchMonitor monitor = new BatchMonitor(connection, 10, 20, TimeUnit.MILLISECONDS);
+			CompletableFuture<BatchInfo> cancelled = monitor.watch(first.getId());
+			CompletableFuture<BatchInfo> pending = monitor.watch(second.getId());
+			assertEquals(2, monitor.size());
+			cancelled.cancel(false);
+			assertEquals(1, monitor.size());
+
+			monitor.close();
+			assertTrue(pending.isCancelled());
+			try {
+				pending.get();
+				fail("Expected CancellationException");
+			} catch (CancellationException e) {
+				// expected
+			}
+			Thread.sleep(50);
+			server.resetCounters();
+			Thread.sleep(100);
+			assertEquals(0, server.getRequests());	// polling stopped
+			try {
+				monitor.watch(first.getId());
+				fail("Expected IllegalStateException");
+			} catch (IllegalStateException e) {
+				// expected
+			}
+		}
+	}
+
+	private static List<BatchOperation> operations(int count) {
+		List<BatchOperation> operations = new ArrayList<BatchOperation>();
+		for (int i = 0; i < count; i++) {
+			operations.add(new BatchOperation.Builder().method(OperationMethod.GET).path("/ping").build());
+		}
+		return operations;
+	}
+}
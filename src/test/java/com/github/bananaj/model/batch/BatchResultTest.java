@@ -0,0 +1,104 @@
+package com.github.bananaj.model.batch;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import com.github.bananaj.utils.TarInputStream;
+
+public class BatchResultTest {
+
+	@Test
+	public void testBatchResults() throws IOException {
+		ByteArrayOutputStream tar = new ByteArrayOutputStream();
+		addEntry(tar, "batch/", '5', "");
+		addEntry(tar, "batch/1a2b3c.json", '0', "[{\"status_code\":200,\"operation_id\":\"op1\",\"response\":\"{\\\"id\\\":\\\"abc\\\"}\"},\n"
+				+ " {\"status_code\":400,\"operation_id\":\"op2\",\"response\":\"{\\\"title\\\":\\\"Invalid Resource\\\"}\"}]");
+		addEntry(tar, "batch/empty.json", '0', "[]");
+		addEntry(tar, "batch/4d5e6f.json", '0', "[{\"status_code\":404,\"operation_id\":null,\"response\":\"{}\"}]");
+		tar.write(new byte[1024]);	// end of archive
+
+		ByteArrayOutputStream gz = new ByteArrayOutputStream();
+		try (GZIPOutputStream out = new GZIPOutputStream(gz)) {
+			tar.writeTo(out);
+		}
+
+		List<BatchResult> results = new ArrayList<BatchResult>();
+		try (BatchResultIterator it = new BatchResultIterator(new TarInputStream(new GZIPInputStream(new ByteArrayInputStream(gz.toByteArray()))))) {
+			while (it.hasNext()) {
+				results.add(it.next());
+			}
+		}
+
+		assertEquals(3, results.size());
+		assertEquals("op1", results.get(0).getOperationId());
+		assertEquals(200, results.get(0).getStatusCode());
+		assertTrue(results.get(0).isSuccess());
+		assertEquals("{\"id\":\"abc\"}", results.get(0).getResponse());
+		assertEquals("op2", results.get(1).getOperationId());
+		assertFalse(results.get(1).isSuccess());
+		assertEquals(404, results.get(2).getStatusCode());
+		assertEquals(null, results.get(2).getOperationId());
+	}
+
+	@Test
+	public void testTarEntries() throws IOException {
+		ByteArrayOutputStream tar = new ByteArrayOutputStream();
+		addEntry(tar, "a.txt", '0', "hello");
+		addEntry(tar, "b.txt", '0', "world!");
+		tar.write(new byte[1024]);
+
+		TarInputStream in = new TarInputStream(new ByteArrayInputStream(tar.toByteArray()));
+		TarInputStream.Entry a = in.getNextEntry();
+		assertEquals("a.txt", a.getName());
+		assertEquals(5, a.getSize());
+		// skip the content of a.txt
+		TarInputStream.Entry b = in.getNextEntry();
+		assertEquals("b.txt", b.getName());
+		byte[] buf = new byte[100];
+		int n = in.read(buf);
+		assertEquals("world!", new String(buf, 0, n, StandardCharsets.UTF_8));
+		assertEquals(-1, in.read());
+		assertEquals(null, in.getNextEntry());
+		in.close();
+	}
+
+	private static void addEntry(ByteArrayOutputStream tar, String name, char type, String content) throws IOException {
+		byte[] data = content.getBytes(StandardCharsets.UTF_8);
+		byte[] header = new byte[512];
+		put(header, 0, name);
+		put(header, 100, "0000644");
+		put(header, 124, String.format("%011o", data.length));
+		put(header, 136, String.format("%011o", 0));
+		header[156] = (byte) type;
+		put(header, 257, "ustar");
+		put(header, 263, "00");
+		for (int i = 148; i < 156; i++) {
+			header[i] = ' ';
+		}
+		int checksum = 0;
+		for (byte b : header) {
+			checksum += b & 0xff;
+		}
+		put(header, 148, String.format("%06o", checksum));
+		tar.write(header);
+		tar.write(data);
+		tar.write(new byte[(512 - data.length % 512) % 512]);
+	}
+
+	private static void put(byte[] header, int offset, String value) {
+		byte[] b = value.getBytes(StandardCharsets.US_ASCII);
+		System.arraycopy(b, 0, header, offset, b.length);
+	}
+}
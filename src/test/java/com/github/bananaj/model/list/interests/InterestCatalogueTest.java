@@ -0,0 +1,141 @@
+package com.github.bananaj.model.list.interests;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.github.bananaj.codec.StreamingCodec;
+import com.github.bananaj.model.list.member.Member;
+import com.github.bananaj.model.list.member.MemberTable;
+
+public class InterestCatalogueTest {
+
+	private static final int INTERESTS = 70;	// more than one word
+
+	@Test
+	public void testMemberInterestBits() throws Exception {
+		InterestCatalogue catalogue = catalogue();
+		JSONObject json = member(0);
+		Member tree = new Member(null, json, catalogue);
+		List<Member> streamed = new ArrayList<Member>();
+		String page = new JSONObject().put("members", new JSONArray().put(json)).put("total_items", 1).toString();
+		StreamingCodec.INSTANCE.readPage(null, new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), () -> new Member(catalogue), streamed::add);
+		Member plain = new Member(null, json);
+
+		for (Member m : new Member[] { tree, streamed.get(0) }) {
+			assertArrayEquals(catalogue.toBits(plain.getInterest()), m.getInterestBits());
+			for (int i = 0; i < INTERESTS; i++) {
+				assertEquals(plain.getInterest().get(id(i)), m.hasInterest(id(i)));
+			}
+			// reading the map keeps the bitset, changing an interest replaces it
+			long[] bits = m.getInterestBits();
+			assertEquals(plain.getInterest(), m.getInterest());
+			m.toString();
+			m.getJsonRepresentation();
+			assertTrue(bits == m.getInterestBits());
+			m.putInterest(id(1), true);
+			assertTrue(m.hasInterest(id(1)));
+			assertTrue(catalogue.contains(m.getInterestBits(), id(1)));
+		}
+
+		// interests missing from the catalogue are kept in a map
+		json.getJSONObject("interests").put("unknown", true);
+		Member unknown = new Member(null, json, catalogue);
+		assertNull(unknown.getInterestBits());
+		assertTrue(unknown.hasInterest("unknown"));
+		assertEquals(INTERESTS + 1, unknown.getInterest().size());
+	}
+
+	@Test
+	public void testUnknownInterestSameForBothParsers() throws Exception {
+		InterestCatalogue catalogue = catalogue();
+		// a few catalogue interests and one the catalogue does not know, in the middle
+		JSONObject json = member(0);
+		JSONObject interests = new JSONObject();
+		interests.put(id(2), true);
+		interests.put(id(67), false);
+		interests.put("unknown", true);
+		interests.put(id(5), true);
+		json.put("interests", interests);
+		Member tree = new Member(null, json, catalogue);
+		List<Member> streamed = new ArrayList<Member>();
+		String page = new JSONObject().put("members", new JSONArray().put(json)).put("total_items", 1).toString();
+		StreamingCodec.INSTANCE.readPage(null, new ByteArrayInputStream(page.getBytes(StandardCharsets.UTF_8)), () -> new Member(catalogue), streamed::add);
+
+		assertNull(tree.getInterestBits());
+		assertNull(streamed.get(0).getInterestBits());
+		assertEquals(4, tree.getInterest().size());
+		assertEquals(tree.getInterest(), streamed.get(0).getInterest());
+		assertEquals(new Member(null, json).getInterest(), tree.getInterest());
+	}
+
+	@Test
+	public void testFilter() {
+		InterestCatalogue catalogue = catalogue();
+		InterestFilter filter = catalogue.filter().with(id(3), id(65)).without(id(4));
+		List<Member> members = new ArrayList<Member>();
+		int expected = 0;
+		for (int i = 0; i < 200; i++) {
+			Member m = new Member(null, member(i), catalogue);
+			members.add(m);
+			boolean match = m.hasInterest(id(3)) && m.hasInterest(id(65)) && !m.hasInterest(id(4));
+			assertEquals(match, filter.matches(m.getInterestBits()));
+			if (match) {
+				expected++;
+			}
+		}
+		assertTrue(expected > 0);
+		assertTrue(catalogue.filter().matches(null));
+		assertFalse(filter.matches(null));
+
+		MemberTable table = MemberTable.of(members);
+		assertEquals(INTERESTS, table.getInterestIds().size());
+		assertEquals(expected, table.whereInterest(id(3)).and(table.whereInterest(id(65))).andNot(table.whereInterest(id(4))).count());
+		for (Member m : members) {
+			assertTrue(m.getInterestBits() != null);	// the table did not build interest maps
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testFilterUnknownInterest() {
+		catalogue().filter().with("unknown");
+	}
+
+	static InterestCatalogue catalogue() {
+		List<Interest> interests = new ArrayList<Interest>();
+		for (int i = 0; i < INTERESTS; i++) {
+			interests.add(new Interest.Builder().id(id(i)).categoryId("c" + (i / 10)).listId("abc6de12f4").name("Interest " + i).build());
+		}
+		return new InterestCatalogue("abc6de12f4", interests);
+	}
+
+	static String id(int i) {
+		return String.format("%010x", 0x1ecfb1d200L + i);
+	}
+
+	static JSONObject member(int n) {
+		JSONObject interests = new JSONObject();
+		for (int i = 0; i < INTERESTS; i++) {
+			interests.put(id(i), ((n * 31 + i * 17) % 5) < 2);
+		}
+		String email = "member." + n + "@example.com";
+		return new JSONObject()
+				.put("id", Member.subscriberHash(email))
+				.put("email_address", email)
+				.put("status", "subscribed")
+				.put("interests", interests)
+				.put("vip", false)
+				.put("list_id", "abc6de12f4");
+	}
+}
@@ -0,0 +1,120 @@
+package com.github.bananaj.model.list.member;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.github.bananaj.model.list.member.MemberTable.Selection;
+import com.github.bananaj.utils.MD5;
+
+public class MemberTableTest {
+
+	private static final String[] LANGUAGES = { "en", "fr", "de", "" };
+	private static final String[] INTERESTS = { "1ecfb1d267", "7be4b38789", "0c9ec66eb9" };
+
+	@Test
+	public void testFiltersAndAggregates() {
+		List<Member> members = members(1000);
+		MemberTable table = MemberTable.of(members);
+		assertEquals(members.size(), table.size());
+
+		ZonedDateTime since = ZonedDateTime.parse("2020-06-01T00:00:00Z");
+		Selection selection = table.whereStatus(MemberStatus.SUBSCRIBED, MemberStatus.PENDING)
+				.and(table.whereLastChanged(since, null))
+				.and(table.whereInterest(INTERESTS[0]))
+				.andNot(table.whereInterest(INTERESTS[1]));
+
+		int count = 0;
+		Map<String, Integer> byLanguage = new HashMap<String, Integer>();
+		double ratings = 0;
+		for (int row = 0; row < members.size(); row++) {
+			Member m = members.get(row);
+			boolean expected = (m.getStatus() == MemberStatus.SUBSCRIBED || m.getStatus() == MemberStatus.PENDING)
+					&& !m.getLastChanged().isBefore(since)
+					&& m.getInterest().get(INTERESTS[0]) && !m.getInterest().get(INTERESTS[1]);
+			assertEquals(expected, selection.contains(row));
+			if (expected) {
+				count++;
+				byLanguage.merge(m.getLanguage(), 1, Integer::sum);
+				ratings += m.getRating();
+			}
+			assertEquals(m.getId(), table.getId(row));
+			assertEquals(m.getStatus(), table.getStatus(row));
+			assertEquals(m.getLanguage(), table.getLanguage(row));
+			assertEquals(m.isVip(), table.isVip(row));
+			assertEquals(m.getRating(), table.getRating(row));
+			assertTrue(m.getLastChanged().isEqual(table.getLastChanged(row)));
+			assertEquals(m.getInterest().get(INTERESTS[2]), table.hasInterest(row, INTERESTS[2]));
+		}
+		assertTrue(count > 0);
+		assertEquals(count, selection.count());
+		assertEquals(byLanguage, table.countByLanguage(selection));
+		assertEquals(ratings / count, table.averageRating(selection), 1e-9);
+
+		assertEquals(members.size(), table.all().count());
+		assertEquals(members.size(), selection.or(selection.not()).count());
+		assertTrue(selection.and(selection.not()).isEmpty());
+		assertEquals(table.whereVip().count() + table.whereVip().not().count(), members.size());
+		assertEquals(members.size(), table.countByStatus(table.all()).values().stream().mapToInt(Integer::intValue).sum());
+		assertEquals(table.whereInterest(INTERESTS[2]).count(), (int) table.countByInterest(table.all()).get(INTERESTS[2]));
+		assertEquals(table.whereRating(3, 5).count(), table.whereRating(3, 3).or(table.whereRating(4, 5)).count());
+		assertTrue(table.whereLanguage("xx").isEmpty());
+		assertTrue(table.whereInterest("unknown").isEmpty());
+	}
+
+	@Test
+	public void testMissingValues() {
+		JSONObject json = new JSONObject()
+				.put("id", MD5.getMD5("a@example.com"))
+				.put("email_address", "a@example.com")
+				.put("status", "subscribed")
+				.put("vip", false);
+		MemberTable table = MemberTable.of(Collections.singletonList(new Member(null, json)));
+		assertNull(table.getRating(0));
+		assertNull(table.getLastChanged(0));
+		assertNull(table.getAvgOpenRate(0));
+		assertFalse(table.isVip(0));
+		assertTrue(table.whereLastChanged(null, null).isEmpty());
+		assertTrue(table.whereAvgOpenRate(0, 1).isEmpty());
+		assertTrue(Double.isNaN(table.averageOpenRate(table.all())));
+		assertEquals(1, table.whereStatus(MemberStatus.SUBSCRIBED).count());
+	}
+
+	private static List<Member> members(int count) {
+		Random random = new Random(42);
+		MemberStatus[] statuses = MemberStatus.values();
+		List<Member> members = new ArrayList<Member>();
+		for (int i = 0; i < count; i++) {
+			String email = "member." + i + "@example.com";
+			JSONObject interests = new JSONObject();
+			for (String id : INTERESTS) {
+				interests.put(id, random.nextBoolean());
+			}
+			JSONObject json = new JSONObject()
+					.put("id", MD5.getMD5(email))
+					.put("email_address", email)
+					.put("email_type", random.nextBoolean() ? "html" : "text")
+					.put("status", statuses[random.nextInt(statuses.length)].toString())
+					.put("interests", interests)
+					.put("stats", new JSONObject().put("avg_open_rate", random.nextDouble()).put("avg_click_rate", random.nextDouble()))
+					.put("member_rating", 1 + random.nextInt(5))
+					.put("last_changed", String.format("2020-%02d-15T10:00:00+00:00", 1 + random.nextInt(12)))
+					.put("language", LANGUAGES[random.nextInt(LANGUAGES.length)])
+					.put("vip", random.nextInt(10) == 0);
+			members.add(new Member(null, json));
+		}
+		return members;
+	}
+}
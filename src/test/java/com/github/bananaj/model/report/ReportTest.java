@@ -8,6 +8,7 @@ import java.time.ZonedDateTime;
 import org.json.JSONObject;
 import org.junit.Test;
 
+import com.github.bananaj.connection.MailChimpConnection;
 import com.github.bananaj.model.report.AbuseReport;
 import com.github.bananaj.model.report.AdviceReport;
 import com.github.bananaj.model.report.DomainPerformance;
@@ -36,6 +37,30 @@ public class ReportTest {
 		report.toString();
 	}
 
+	@Test
+	public void testReport_lazyDecoding() throws Exception {
+		String json = "{\"id\":\"024a680c00\",\"campaign_title\":\"TEST #15 2018\",\"send_time\":\"2019-03-15T14:35:05+00:00\",\"rss_last_send\":\"\","
+				+ "\"bounces\":{\"hard_bounces\":1,\"soft_bounces\":0,\"syntax_errors\":0},\"forwards\":{\"forwards_count\":1,\"forwards_opens\":0},"
+				+ "\"opens\":{\"opens_total\":23,\"unique_opens\":3,\"open_rate\":0.375,\"last_open\":\"2019-05-10T23:14:40+00:00\"},"
+				+ "\"clicks\":{\"clicks_total\":0,\"unique_clicks\":0,\"unique_subscriber_clicks\":0,\"click_rate\":0,\"last_click\":\"\"},"
+				+ "\"timeseries\":[{\"timestamp\":\"2019-03-15T14:00:00+00:00\",\"emails_sent\":9,\"unique_opens\":0,\"recipients_clicks\":0},"
+				+ "{\"timestamp\":\"2019-03-15T15:00:00+00:00\",\"emails_sent\":0,\"unique_opens\":1,\"recipients_clicks\":0}],\"_links\":[]}";
+		Report eager = new Report(null, new JSONObject(json));
+		try (MailChimpConnection connection = new MailChimpConnection.Builder()
+				.usingApiKey("0123456789abcdef0123456789abcdef-us0")
+				.withLazyDecoding(true)
+				.build()) {
+			Report lazy = new Report(connection, new JSONObject(json));
+			assertEquals(eager.getSendTime(), lazy.getSendTime());
+			assertNull(lazy.getRssLastSend());
+			assertEquals(eager.getOpens().getLastOpen(), lazy.getOpens().getLastOpen());
+			assertEquals(2, lazy.getTimeseries().size());
+			assertNull(lazy.getTimewarp());
+			assertNull(lazy.getAbSplit());
+			assertEquals(eager.toString(), lazy.toString());
+		}
+	}
+
 	@Test
 	public void testReport_minimal() {
 		// #42 JSONObject["industry_stats"] not found
@@ -0,0 +1,131 @@
+package com.github.bananaj.sync;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.net.URL;
+import java.time.ZonedDateTime;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import com.github.bananaj.connection.FakeMailChimpServer;
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.model.list.member.Member;
+
+public class AudienceSyncTest {
+
+	@Test
+	public void testIncrementalSync() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(2500).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			String listId = server.getListIds().get(0);
+			InMemoryMemberStore store = new InMemoryMemberStore();
+			AudienceSync sync = new AudienceSync(connection, store, 1, TimeUnit.MINUTES, 100);
+
+			SyncResult full = sync.sync(listId);
+			assertTrue(full.isFull());
+			assertEquals(2500, full.getTotalItems());
+			assertEquals(2500, store.size(listId));
+			assertEquals(full.getCheckpoint(), store.getCheckpoint(listId));
+
+			SyncResult none = sync.sync(listId);
+			assertFalse(none.isFull());
+			assertEquals(0, none.getMembers());
+
+			String email = server.getMemberEmail(listId, 42);
+			patch(connection, listId, email, "Changed");
+			nextSecond();
+			SyncResult delta = sync.sync(listId);
+			assertEquals(1, delta.getMembers());
+			assertEquals("Changed", store.getMember(listId, Member.subscriberHash(email)).getMergeFields().get("FNAME"));
+			assertEquals(2500, store.size(listId));
+		}
+	}
+
+	@Test
+	public void testEditsDuringSync() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(1000).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			String listId = server.getListIds().get(0);
+			String edited = server.getMemberEmail(listId, 3);
+			String deleted = server.getMemberEmail(listId, 5);
+			InMemoryMemberStore store = new InMemoryMemberStore() {
+				private boolean first = true;
+
+				@Override
+				public void upsert(String listId, List<Member> members) {
+					super.upsert(listId, members);
+					if (first) {
+						// members at low offsets leave the window while later pages are read
+						first = false;
+						try {
+							patch(connection, listId, edited, "Edited");
+							connection.do_Delete(new URL(connection.getListendpoint() + "/" + listId + "/members/" + Member.subscriberHash(deleted)), connection.getApikey());
+						} catch (Exception e) {
+							throw new RuntimeException(e);
+						}
+					}
+				}
+			};
+			AudienceSync sync = new AudienceSync(connection, store, 1, TimeUnit.MINUTES, 100);
+
+			sync.sync(listId);
+			assertEquals(998, store.size(listId));	// nothing skipped, only the edited and deleted members are missing
+			for (int i = 0; i < 1000; i++) {
+				if (i != 3 && i != 5) {
+					assertTrue(store.getMember(listId, Member.subscriberHash(server.getMemberEmail(listId, i))) != null);
+				}
+			}
+
+			nextSecond();
+			SyncResult next = sync.sync(listId);
+			assertEquals(1, next.getMembers());
+			assertEquals("Edited", store.getMember(listId, Member.subscriberHash(edited)).getMergeFields().get("FNAME"));
+			assertNull(store.getMember(listId, Member.subscriberHash(deleted)));
+		}
+	}
+
+	@Test
+	public void testCheckpointNotAdvancedOnFailure() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(300).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			String listId = server.getListIds().get(0);
+			ZonedDateTime checkpoint = ZonedDateTime.parse("2021-01-01T00:00:00Z");
+			InMemoryMemberStore store = new InMemoryMemberStore() {
+				@Override
+				public void upsert(String listId, List<Member> members) {
+					throw new IllegalStateException("store unavailable");
+				}
+			};
+			store.commit(listId, checkpoint);
+			patch(connection, listId, server.getMemberEmail(listId, 1), "Changed");
+			nextSecond();
+			try {
+				new AudienceSync(connection, store).sync(listId);
+			} catch (IllegalStateException e) {
+				assertEquals(checkpoint, store.getCheckpoint(listId));
+				return;
+			}
+			throw new AssertionError("sync should fail");
+		}
+	}
+
+	/**
+	 * Wait for the second of the last edit to pass, a sync only pulls changes
+	 * made before the second it starts in
+	 */
+	private static void nextSecond() throws InterruptedException {
+		Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 10);
+	}
+
+	private static void patch(MailChimpConnection connection, String listId, String email, String firstName) throws IOException, Exception {
+		JSONObject update = new JSONObject().put("merge_fields", new JSONObject().put("FNAME", firstName));
+		connection.do_Patch(new URL(connection.getListendpoint() + "/" + listId + "/members/" + Member.subscriberHash(email)), update.toString(), connection.getApikey());
+	}
+}
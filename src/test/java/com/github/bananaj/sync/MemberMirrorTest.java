@@ -0,0 +1,195 @@
+package com.github.bananaj.sync;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.github.bananaj.connection.FakeMailChimpServer;
+import com.github.bananaj.connection.MailChimpConnection;
+import com.github.bananaj.model.list.interests.Interest;
+import com.github.bananaj.model.list.interests.InterestCatalogue;
+import com.github.bananaj.model.list.member.Member;
+
+public class MemberMirrorTest {
+
+	private Path dir;
+
+	@Before
+	public void createDirectory() throws IOException {
+		dir = Files.createTempDirectory("bananaj-mirror");
+	}
+
+	@After
+	public void deleteDirectory() throws IOException {
+		try (Stream<Path> files = Files.walk(dir)) {
+			files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+		}
+	}
+
+	@Test
+	public void testSyncSurvivesRestart() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(1500).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			String listId = server.getListIds().get(0);
+			Map<String, Member> members = new HashMap<String, Member>();
+			try (MemberMirror mirror = new MemberMirror(dir, 256 * 1024)) {
+				AudienceSync sync = new AudienceSync(connection, mirror, 1, TimeUnit.MINUTES, 500);
+				sync.sync(listId);
+				assertEquals(1500, mirror.size(listId));
+				for (Member m : connection.getList(listId, null).getMembers()) {
+					members.put(m.getId(), m);
+				}
+			}
+
+			try (MemberMirror mirror = new MemberMirror(dir, 256 * 1024)) {
+				assertEquals(1500, mirror.size(listId));
+				assertTrue(mirror.getCheckpoint(listId) != null);
+				AtomicInteger count = new AtomicInteger();
+				mirror.forEach(listId, r -> {
+					Member expected = members.get(r.getId());
+					assertTrue(expected.getJsonRepresentation().similar(r.toMember().getJsonRepresentation()));
+					count.incrementAndGet();
+				});
+				assertEquals(1500, count.get());
+
+				String email = server.getMemberEmail(listId, 7);
+				MemberRecord record = mirror.get(listId, email);
+				assertEquals(email, record.getEmailAddress());
+				assertEquals(members.get(record.getId()).getMergeFields().get("FNAME"), record.getMergeField("FNAME"));
+
+				JSONObject update = new JSONObject().put("merge_fields", new JSONObject().put("FNAME", "Changed"));
+				connection.do_Patch(new URL(connection.getListendpoint() + "/" + listId + "/members/" + Member.subscriberHash(email)), update.toString(), connection.getApikey());
+				Thread.sleep(1000 - System.currentTimeMillis() % 1000 + 10);
+				SyncResult delta = new AudienceSync(connection, mirror, 1, TimeUnit.MINUTES, 500).sync(listId);
+				assertFalse(delta.isFull());
+				assertEquals(1, delta.getMembers());
+				assertEquals("Changed", mirror.get(listId, email).getMergeField("FNAME"));
+				assertEquals(1500, mirror.size(listId));
+			}
+		}
+	}
+
+	@Test
+	public void testRemoveAndCompact() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(200).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			String listId = server.getListIds().get(0);
+			List<Member> members = new ArrayList<Member>();
+			connection.getList(listId, null).getMembers().forEach(members::add);
+			try (MemberMirror mirror = new MemberMirror(dir, 64 * 1024)) {
+				mirror.putAll(listId, members);
+				mirror.putAll(listId, members);
+				for (int i = 0; i < 50; i++) {
+					assertTrue(mirror.remove(listId, server.getMemberEmail(listId, i)));
+				}
+				assertFalse(mirror.remove(listId, server.getMemberEmail(listId, 0)));
+				assertEquals(150, mirror.size(listId));
+				mirror.compact(listId);
+				assertEquals(150, mirror.size(listId));
+				assertNull(mirror.get(listId, server.getMemberEmail(listId, 0)));
+				assertEquals(server.getMemberEmail(listId, 199), mirror.get(listId, server.getMemberEmail(listId, 199)).getEmailAddress());
+			}
+			try (MemberMirror mirror = new MemberMirror(dir, 64 * 1024)) {
+				AtomicInteger count = new AtomicInteger();
+				mirror.forEach(listId, r -> count.incrementAndGet());
+				assertEquals(150, count.get());
+				assertNull(mirror.get(listId, server.getMemberEmail(listId, 0)));
+			}
+		}
+	}
+
+	@Test
+	public void testInterestFilter() throws Exception {
+		String[] ids = { "1ecfb1d267", "7be4b38789", "0c9ec66eb9" };
+		List<Interest> interests = new ArrayList<Interest>();
+		for (String id : ids) {
+			interests.add(new Interest.Builder().id(id).listId("abc6de12f4").build());
+		}
+		InterestCatalogue catalogue = new InterestCatalogue("abc6de12f4", interests);
+		List<Member> members = new ArrayList<Member>();
+		int expected = 0;
+		for (int i = 0; i < 100; i++) {
+			String email = "member." + i + "@example.com";
+			JSONObject json = new JSONObject()
+					.put("id", Member.subscriberHash(email))
+					.put("email_address", email)
+					.put("status", "subscribed")
+					.put("vip", false)
+					.put("interests", new JSONObject().put(ids[0], i % 2 == 0).put(ids[1], i % 3 == 0).put(ids[2], true));
+			members.add(new Member(null, json));
+			if (i % 2 == 0 && i % 3 != 0) {
+				expected++;
+			}
+		}
+		try (MemberMirror mirror = new MemberMirror(dir, 64 * 1024)) {
+			mirror.putAll("abc6de12f4", members);
+			AtomicInteger count = new AtomicInteger();
+			mirror.forEach("abc6de12f4", catalogue.filter().with(ids[0], ids[2]).without(ids[1]), r -> {
+				assertTrue(r.getInterest(ids[0]) && !r.getInterest(ids[1]));
+				count.incrementAndGet();
+			});
+			assertEquals(expected, count.get());
+			mirror.forEach("abc6de12f4", r -> assertArrayEquals(catalogue.toBits(r.getInterest()), r.getInterestBits(catalogue)));
+		}
+	}
+
+	@Test
+	public void testTornRecordDiscarded() throws Exception {
+		try (FakeMailChimpServer server = new FakeMailChimpServer.Builder().withMembersPerList(10).build();
+				MailChimpConnection connection = server.connectionBuilder().build()) {
+			String listId = server.getListIds().get(0);
+			List<Member> members = new ArrayList<Member>();
+			connection.getList(listId, null).getMembers().forEach(members::add);
+			String[] last = new String[1];
+			try (MemberMirror mirror = new MemberMirror(dir, 64 * 1024)) {
+				mirror.putAll(listId, members);
+				mirror.forEach(listId, r -> last[0] = r.getId());
+			}
+			// damage the end of the last record as if the process died while writing it
+			try (RandomAccessFile raf = new RandomAccessFile(dir.resolve(listId).resolve("segment-000000.dat").toFile(), "rw")) {
+				int offset = 0;
+				int length = 0;
+				while (true) {
+					raf.seek(offset + length);
+					int next = raf.readInt();
+					if (next == 0) {
+						break;
+					}
+					offset += length;
+					length = next;
+				}
+				raf.seek(offset + length - 1);
+				int b = raf.read();
+				raf.seek(offset + length - 1);
+				raf.write(b ^ 0xFF);
+			}
+			try (MemberMirror mirror = new MemberMirror(dir, 64 * 1024)) {
+				assertEquals(9, mirror.size(listId));
+				assertNull(mirror.get(listId, last[0]));
+				mirror.putAll(listId, members);
+				assertEquals(10, mirror.size(listId));
+			}
+		}
+	}
+}
@@ -23,6 +23,24 @@ public class UtilsTest {
 		assertEquals(MD5.getMD5("abcdefghijklmnopqrstuvwxyzABC123!@#$%^&*()-_=+;:'\",./<>?"), "f9c7908008047e93a05c0841fc4c8613");
 	}
 
+	@Test
+	public void testStringInterner() {
+		StringInterner interner = new StringInterner(16, 8);
+		String a = interner.intern(new String("subscribed".substring(0, 8)));
+		assertTrue(a == interner.intern(new String("subscrib")));
+		char[] chars = "xxsubscribxx".toCharArray();
+		assertTrue(a == interner.intern(chars, 2, 8));
+		String longer = new String("unsubscribed");
+		assertTrue(longer == interner.intern(longer));	// too long to intern
+		assertEquals(null, interner.intern(null));
+		for (int i = 0; i < 1000; i++) {
+			assertEquals("v" + i, interner.intern("v" + i));	// bounded, colliding values replace one another
+		}
+		String none = new String("en");
+		assertTrue(none == StringInterner.NONE.intern(none));
+		assertEquals("en", StringInterner.NONE.intern("en".toCharArray(), 0, 2));
+	}
+
 	@Test
 	public void testEmailValidator() {
 		EmailValidator v = EmailValidator.getInstance();